@@ -1,5 +1,36 @@
 create table SHORT_URL (
     ID BIGINT PRIMARY KEY AUTO_INCREMENT,
     TOKEN VARCHAR(10) UNIQUE NOT NULL,
-    ORIGINAL_URL VARCHAR(2048)
-);
\ No newline at end of file
+    ORIGINAL_URL VARCHAR(2048),
+    ORIGINAL_URL_HASH BINARY(16) UNIQUE,
+    EXPIRES_AT TIMESTAMP(6) NULL
+);
+create index IDX_SHORT_URL_EXPIRES_AT on SHORT_URL (EXPIRES_AT);
+
+create table TOKEN_SEGMENT (
+    NAME VARCHAR(64) PRIMARY KEY,
+    NEXT_VALUE BIGINT NOT NULL
+);
+
+-- number of clicks of each short url, written in batches by ClickRecorderImpl
+create table SHORT_URL_CLICK (
+    TOKEN VARCHAR(255) PRIMARY KEY,
+    CLICK_COUNT BIGINT NOT NULL
+);
+
+-- sharded storage (url-shortener.storage.engine: sharded) : shard of each bucket of tokens, in the main database, read by ShortUrlShardRouterImpl at startup
+create table SHARD_BUCKET (
+    BUCKET INT PRIMARY KEY,
+    SHARD INT NOT NULL,
+    SECONDARY_SHARD INT NOT NULL
+);
+-- every shard needs the whole SHORT_URL table above, with ORIGINAL_URL_HASH, EXPIRES_AT and their indexes
+
+-- migration of an existing SHORT_URL table : the hashes of the existing rows are computed by OriginalUrlHashBackfillJob
+-- alter table SHORT_URL add column ORIGINAL_URL_HASH BINARY(16) NULL;
+-- create unique index UK_SHORT_URL_ORIGINAL_URL_HASH on SHORT_URL (ORIGINAL_URL_HASH);
+
+-- migration of a SHORT_URL table without EXPIRES_AT : the expired short urls are deleted by ShortUrlExpirationJob, which needs the delete right
+-- alter table SHORT_URL add column EXPIRES_AT TIMESTAMP(6) NULL;
+-- create index IDX_SHORT_URL_EXPIRES_AT on SHORT_URL (EXPIRES_AT);
+-- grant delete on URLSHORTENER.SHORT_URL to 'URLSHORTENER'@'localhost';
@@ -0,0 +1,55 @@
+package com.project.urlshortener.benchmark;
+
+import com.project.urlshortener.UrlShortenerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts the url-shortener application for a benchmark, with the default profile and a few overridden properties.
+ */
+public final class BenchmarkApplication {
+
+    /**
+     * Properties of every benchmark : a fresh in-memory database, without the decode cache snapshot of a previous run, and no debug logs.
+     */
+    private static final Map<String, String> BENCHMARK_PROPERTIES = Map.of(
+            "spring.datasource.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+            "spring.jpa.hibernate.ddl-auto", "create-drop",
+            "url-shortener.cache-snapshot.enabled", "false",
+            "logging.level.root", "warn",
+            "logging.level.org.springframework", "warn");
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application.<br/>
+     * The properties are given as command line arguments, so that they override the properties of application.yml.
+     *
+     * @param webApplicationType SERVLET to start Tomcat on a random port, NONE to use the services only.
+     * @param properties the properties overridden by the benchmark.
+     * @param initializers additional initializers of the application context.
+     * @return the started application context, to close at the end of the benchmark.
+     */
+    @SafeVarargs
+    public static ConfigurableApplicationContext run(final WebApplicationType webApplicationType, final Map<String, String> properties,
+                                                     final ApplicationContextInitializer<ConfigurableApplicationContext>... initializers) {
+        Map<String, String> allProperties = new HashMap<>(BENCHMARK_PROPERTIES);
+        allProperties.put("server.port", "0");
+        allProperties.putAll(properties);
+        String[] args = allProperties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+
+        return new SpringApplicationBuilder(UrlShortenerApplication.class)
+                .web(webApplicationType)
+                .initializers(initializers)
+                .run(args);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.project.urlshortener.benchmark;
+
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.ratelimit.ClientRateLimiter;
+import com.project.urlshortener.ratelimit.impl.ClientRateLimiterImpl;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ClientRateLimiterImpl.tryAcquire, by several threads, with clientCount distinct clients.<br/>
+ * Beyond maxClients, the stripes keep forgetting the buckets of the least recently seen clients : this is the cost of a flood of new clients.<br/>
+ * Run with : mvn -P benchmark verify -Djmh.args="ClientRateLimiter"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ClientRateLimiterBenchmark {
+
+    /**
+     * Number of distinct clients sending requests.
+     */
+    @Param({ "1000", "100000", "1000000" })
+    public int clientCount;
+
+    private String[] clientKeys;
+
+    private ClientRateLimiter clientRateLimiter;
+
+    @Setup(Level.Trial)
+    public void createRateLimiter() {
+        // the settings of application.yml
+        var urlShortenerProperties = new UrlShortenerPropertiesBuilder()
+                .withRateLimitCapacity(50)
+                .withRateLimitRefillPerSecond(10.0)
+                .withRateLimitMaxClients(200_000)
+                .withRateLimitStripes(64)
+                .buildSpy();
+        clientRateLimiter = new ClientRateLimiterImpl(urlShortenerProperties, new UrlShortenerMetrics(new SimpleMeterRegistry()));
+        clientKeys = new String[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clientKeys[i] = "key:client-" + i;
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return clientRateLimiter.tryAcquire(clientKeys[ThreadLocalRandom.current().nextInt(clientCount)]);
+    }
+
+}
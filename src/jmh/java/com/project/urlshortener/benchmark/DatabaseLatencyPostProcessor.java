@@ -0,0 +1,109 @@
+package com.project.urlshortener.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a fixed latency to each statement executed on the DataSource of the application.<br/>
+ * The in-memory H2 database answers in a few microseconds, whereas a real database answers in a few milliseconds :
+ * without this latency, the request threads would never wait for the database, and the thread modes could not be compared.<br/>
+ * The latency is only added once enabled, so that the data of the benchmark can be loaded quickly.
+ */
+class DatabaseLatencyPostProcessor implements BeanPostProcessor {
+
+    /**
+     * Latency added before each statement execution.
+     */
+    private final long latencyNanos;
+
+    /**
+     * True once the latency is added to the statements.
+     */
+    private volatile boolean enabled;
+
+    /**
+     * Default constructor for DatabaseLatencyPostProcessor.
+     *
+     * @param latencyMillis latency added before each statement execution, in milliseconds.
+     */
+    DatabaseLatencyPostProcessor(final long latencyMillis) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+    }
+
+    /**
+     * Starts adding the latency to the statements.
+     */
+    void enable() {
+        this.enabled = true;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (!(bean instanceof DataSource dataSource) || latencyNanos <= 0) {
+            return bean;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return withLatency(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(final String username, final String password) throws SQLException {
+                return withLatency(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * Wraps a connection so that its prepared statements wait for the latency before being executed.
+     *
+     * @param connection the connection of the real DataSource.
+     * @return the wrapped connection.
+     */
+    private Connection withLatency(final Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return "prepareStatement".equals(method.getName()) ? withLatency((PreparedStatement) result) : result;
+        });
+    }
+
+    /**
+     * Wraps a prepared statement so that it waits for the latency before being executed.
+     *
+     * @param statement the prepared statement of the real connection.
+     * @return the wrapped prepared statement.
+     */
+    private PreparedStatement withLatency(final PreparedStatement statement) {
+        return proxy(PreparedStatement.class, statement, (proxy, method, args) -> {
+            if (enabled && method.getName().startsWith("execute")) {
+                // Thread.sleep, like a blocking socket read, unmounts a virtual thread from its carrier
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static <T> T proxy(final Class<T> type, final T target, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(target.getClass().getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
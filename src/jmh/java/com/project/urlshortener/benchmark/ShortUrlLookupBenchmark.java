@@ -0,0 +1,82 @@
+package com.project.urlshortener.benchmark;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookups of the decode (by token) and of the dedup (by hash of the original url) with a managed entity ("entity" : findByToken, findByOriginalUrlHash)
+ * and with a constructor expression ("projection" : findProjectionByToken, findProjectionByOriginalUrlHash).<br/>
+ * The managed entity is added to the persistence context and copied for the dirty checking at the end of the read-only transaction ;
+ * the projection only builds the ShortUrlEntity from the columns of the row.<br/>
+ * Add the gc profiler to compare the allocations : -Djmh.args="ShortUrlLookup -prof gc" (gc.alloc.rate.norm, in bytes per lookup).<br/>
+ * Run with : mvn -P benchmark verify -Djmh.args="ShortUrlLookup"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortUrlLookupBenchmark {
+
+    /**
+     * Number of short urls read by the benchmark.
+     */
+    private static final int TOKEN_COUNT = 1_000;
+
+    /**
+     * Lookup of the short urls : "entity" (managed entity) or "projection" (constructor expression).
+     */
+    @Param({ "entity", "projection" })
+    public String lookup;
+
+    private ConfigurableApplicationContext context;
+    private ShortUrlRepository shortUrlRepository;
+    private String[] tokens;
+    private byte[][] originalUrlHashes;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = BenchmarkApplication.run(WebApplicationType.NONE, Map.of(
+                // every lookup reads the database
+                "url-shortener.cache.enabled", "false"));
+
+        shortUrlRepository = context.getBean(ShortUrlRepository.class);
+        UrlShortenerService urlShortenerService = context.getBean(UrlShortenerService.class);
+        tokens = new String[TOKEN_COUNT];
+        originalUrlHashes = new byte[TOKEN_COUNT][];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            String originalUrl = "https://www.journaldemontreal.com/" + i;
+            String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+            tokens[i] = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+            originalUrlHashes[i] = HashUtils.hash128(originalUrl);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ShortUrlEntity findByToken() {
+        String token = tokens[ThreadLocalRandom.current().nextInt(TOKEN_COUNT)];
+        return "projection".equals(lookup) ? shortUrlRepository.findProjectionByToken(token) : shortUrlRepository.findByToken(token);
+    }
+
+    @Benchmark
+    public ShortUrlEntity findByOriginalUrlHash() {
+        byte[] originalUrlHash = originalUrlHashes[ThreadLocalRandom.current().nextInt(TOKEN_COUNT)];
+        return "projection".equals(lookup) ? shortUrlRepository.findProjectionByOriginalUrlHash(originalUrlHash) : shortUrlRepository.findByOriginalUrlHash(originalUrlHash);
+    }
+
+}
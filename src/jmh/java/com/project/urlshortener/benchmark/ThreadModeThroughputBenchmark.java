@@ -0,0 +1,106 @@
+package com.project.urlshortener.benchmark;
+
+import com.project.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of GET /{token} with the Tomcat request threads ("platform") and with the virtual threads ("virtual"),
+ * when many clients call the application at the same time and each database query takes a few milliseconds.<br/>
+ * With the platform threads, the requests wait for one of the server.tomcat.threads.max threads ;
+ * with the virtual threads, they only wait for a database connection.<br/>
+ * The client threads run in the same JVM : on a machine with few cores, the benchmark measures the CPU before the threads,
+ * unless the latency is raised (-p databaseLatencyMillis=500 for instance).<br/>
+ * Run with : mvn -P benchmark verify -Djmh.args="ThreadMode"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(400)
+public class ThreadModeThroughputBenchmark {
+
+    /**
+     * Number of short urls read by the benchmark.
+     */
+    private static final int TOKEN_COUNT = 1_000;
+
+    /**
+     * Thread mode of the requests : "platform" (Tomcat thread pool) or "virtual" (one virtual thread per request).
+     */
+    @Param({ "platform", "virtual" })
+    public String threadMode;
+
+    /**
+     * Latency added to each database query, in milliseconds.
+     */
+    @Param({ "50" })
+    public int databaseLatencyMillis;
+
+    /**
+     * Size of the Tomcat thread pool, used by the "platform" thread mode only.
+     */
+    @Param({ "200" })
+    public int tomcatMaxThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI[] decodeUris;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        DatabaseLatencyPostProcessor databaseLatency = new DatabaseLatencyPostProcessor(databaseLatencyMillis);
+        context = BenchmarkApplication.run(WebApplicationType.SERVLET, Map.of(
+                "spring.threads.virtual.enabled", String.valueOf("virtual".equals(threadMode)),
+                "server.tomcat.threads.max", String.valueOf(tomcatMaxThreads),
+                // more connections than Tomcat threads, so that only the platform threads can be the bottleneck
+                "spring.datasource.hikari.maximum-pool-size", "400",
+                // every request reads the database
+                "url-shortener.cache.enabled", "false"),
+                applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(databaseLatency));
+
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        UrlShortenerService urlShortenerService = context.getBean(UrlShortenerService.class);
+        decodeUris = new URI[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl("https://www.journaldemontreal.com/" + i);
+            decodeUris[i] = URI.create("http://localhost:" + port + "/" + shortUrl.substring(shortUrl.lastIndexOf('/') + 1));
+        }
+        databaseLatency.enable();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int decodeShortUrl() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(decodeUris[ThreadLocalRandom.current().nextInt(TOKEN_COUNT)])
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + request.uri());
+        }
+        return response.statusCode();
+    }
+
+}
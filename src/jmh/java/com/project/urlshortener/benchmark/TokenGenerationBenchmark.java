@@ -0,0 +1,64 @@
+package com.project.urlshortener.benchmark;
+
+import com.project.urlshortener.service.impl.StringTokenServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
+
+/**
+ * Measures StringTokenServiceImpl.createStringToken, with the characters and the length of the tokens of application-prod.yml,
+ * by one thread and by several concurrent threads.<br/>
+ * The "legacy" benchmark is the first implementation of the service (stream of SecureRandom.getInstanceStrong ints),
+ * kept as a reference for the regressions.<br/>
+ * Run with : mvn -P benchmark verify -Djmh.args="TokenGeneration"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenGenerationBenchmark {
+
+    /**
+     * Characters of the tokens (url-shortener.token.characters).
+     */
+    private static final String TOKEN_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    /**
+     * Length of the tokens (url-shortener.token.length).
+     */
+    @Param({ "10" })
+    public int tokenLength;
+
+    private StringTokenServiceImpl stringTokenService;
+    private Random legacyRandom;
+
+    @Setup(Level.Trial)
+    public void createServices() throws Exception {
+        stringTokenService = new StringTokenServiceImpl();
+        legacyRandom = SecureRandom.getInstanceStrong();
+    }
+
+    @Benchmark
+    public String createStringToken() {
+        return stringTokenService.createStringToken(TOKEN_CHARACTERS, tokenLength);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String createStringTokenConcurrently() {
+        return stringTokenService.createStringToken(TOKEN_CHARACTERS, tokenLength);
+    }
+
+    @Benchmark
+    public String createStringTokenLegacy() {
+        return legacyRandom.ints(tokenLength, 0, TOKEN_CHARACTERS.length())
+                .mapToObj(TOKEN_CHARACTERS::charAt)
+                .collect(Collector.of(StringBuilder::new, StringBuilder::append, StringBuilder::append, StringBuilder::toString));
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.project.urlshortener.benchmark;
+
+import com.project.urlshortener.configuration.UrlShortenerConfiguration;
+import org.apache.commons.validator.routines.UrlValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures UrlValidator.isValid, as configured by UrlShortenerConfiguration, on a few kinds of urls.<br/>
+ * Every created short url is validated first : this is the first cost of the creation endpoints.<br/>
+ * Run with : mvn -P benchmark verify -Djmh.args="UrlValidation"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlValidationBenchmark {
+
+    /**
+     * The validated url.
+     */
+    @Param({
+            "https://www.journaldemontreal.com/2023/01/15/un-article-avec-un-long-titre?utm_source=newsletter&utm_medium=email#commentaires",
+            "http://localhost:8080/api/path",
+            "http://192.168.0.1/index.html",
+            "not a valid url"
+    })
+    public String url;
+
+    private UrlValidator urlValidator;
+
+    @Setup(Level.Trial)
+    public void createValidator() {
+        // the interceptors are not registered here
+        urlValidator = new UrlShortenerConfiguration(null).urlValidator();
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return urlValidator.isValid(url);
+    }
+
+}
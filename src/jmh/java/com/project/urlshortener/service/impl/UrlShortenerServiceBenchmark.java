@@ -0,0 +1,89 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.benchmark.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures UrlShortenerServiceImpl, from the url to the short url and back, with the embedded H2 database of the default profile.<br/>
+ * The benchmark is in the package of the service, so that buildShortUrlForToken can be measured on its own.<br/>
+ * Run with : mvn -P benchmark verify -Djmh.args="UrlShortenerService"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlShortenerServiceBenchmark {
+
+    /**
+     * Number of short urls created before the benchmark, then decoded by the benchmark.
+     */
+    private static final int EXISTING_URL_COUNT = 10_000;
+
+    private static final String URL_PREFIX = "https://www.journaldemontreal.com/";
+
+    /**
+     * Activation of the cache of the tokens (url-shortener.cache.enabled) : with the cache, the decode does not read the database.
+     */
+    @Param({ "true", "false" })
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerServiceImpl urlShortenerService;
+    private String[] existingTokens;
+    private final AtomicLong newUrlCounter = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = BenchmarkApplication.run(WebApplicationType.NONE, Map.of(
+                "url-shortener.cache.enabled", String.valueOf(cacheEnabled),
+                "url-shortener.token.length", "10"));
+        urlShortenerService = context.getBean(UrlShortenerServiceImpl.class);
+
+        existingTokens = new String[EXISTING_URL_COUNT];
+        for (int i = 0; i < EXISTING_URL_COUNT; i++) {
+            String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(URL_PREFIX + "existing/" + i);
+            existingTokens[i] = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public String buildShortUrlForToken() {
+        return urlShortenerService.buildShortUrlForToken(existingTokens[ThreadLocalRandom.current().nextInt(EXISTING_URL_COUNT)]);
+    }
+
+    /**
+     * Creates the short url of a new url : validation, token creation and insertion.
+     */
+    @Benchmark
+    public String obtainShortUrlForNewUrl() throws Exception {
+        return urlShortenerService.obtainShortUrlForOriginalCompleteUrl(URL_PREFIX + "new/" + newUrlCounter.incrementAndGet());
+    }
+
+    /**
+     * Reads the short url of a url which already has one.
+     */
+    @Benchmark
+    public String obtainShortUrlForExistingUrl() throws Exception {
+        return urlShortenerService.obtainShortUrlForOriginalCompleteUrl(URL_PREFIX + "existing/" + ThreadLocalRandom.current().nextInt(EXISTING_URL_COUNT));
+    }
+
+    @Benchmark
+    public String getOriginalUrlForShortUrlToken() throws Exception {
+        return urlShortenerService.getOriginalUrlForShortUrlToken(existingTokens[ThreadLocalRandom.current().nextInt(EXISTING_URL_COUNT)]);
+    }
+
+}
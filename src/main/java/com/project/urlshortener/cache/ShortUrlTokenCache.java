@@ -0,0 +1,49 @@
+package com.project.urlshortener.cache;
+
+import com.project.urlshortener.model.cache.CacheStatistics;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+
+import java.util.List;
+
+/**
+ * In-memory cache of the ShortUrlEntity, indexed by their short url token.
+ */
+public interface ShortUrlTokenCache {
+
+    /**
+     * Searches for a ShortUrlEntity in the cache matching a specific token value.
+     *
+     * @param token the value of the token to look for.
+     * @return the ShortUrlEntity found in the cache. Can return null if the token is not in the cache.
+     */
+    ShortUrlEntity getIfPresent(final String token);
+
+    /**
+     * Adds a ShortUrlEntity to the cache, indexed by its token.
+     *
+     * @param shortUrlEntity the ShortUrlEntity to keep in the cache.
+     */
+    void put(final ShortUrlEntity shortUrlEntity);
+
+    /**
+     * Removes the ShortUrlEntity of a token from the cache, for instance because it has expired.
+     *
+     * @param token the value of the token.
+     */
+    void invalidate(final String token);
+
+    /**
+     * Reads the entries of the cache which are the most likely to be read again, according to its eviction policy.
+     *
+     * @param limit maximum number of entries.
+     * @return a copy of the entries, the most used first. Empty if the cache is disabled.
+     */
+    List<ShortUrlEntity> getHottest(final int limit);
+
+    /**
+     * Reads the hit, miss and eviction counters of the cache.
+     *
+     * @return the current statistics of the cache.
+     */
+    CacheStatistics getStatistics();
+}
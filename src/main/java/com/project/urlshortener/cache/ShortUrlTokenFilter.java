@@ -0,0 +1,38 @@
+package com.project.urlshortener.cache;
+
+import com.project.urlshortener.model.cache.BloomFilterStatistics;
+
+/**
+ * In-memory filter of all the existing short url tokens.<br/>
+ * The filter can tell that a token definitely does not exist, without reading the database.
+ */
+public interface ShortUrlTokenFilter {
+
+    /**
+     * Tests whether a token might exist.
+     *
+     * @param token the value of the token to look for.
+     * @return false if the token definitely does not exist, true if it might exist.
+     */
+    boolean mightContain(final String token);
+
+    /**
+     * Adds a token to the filter.
+     *
+     * @param token the value of the token that now exists.
+     */
+    void put(final String token);
+
+    /**
+     * Indicates that all the tokens existing at startup were added to the filter.<br/>
+     * Until then, the filter answers that every token might exist.
+     */
+    void markAsLoaded();
+
+    /**
+     * Reads the size and the memory used by the filter.
+     *
+     * @return the current statistics of the filter.
+     */
+    BloomFilterStatistics getStatistics();
+}
@@ -0,0 +1,134 @@
+package com.project.urlshortener.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project.urlshortener.cache.ShortUrlTokenCache;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.cache.CacheStatistics;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireStrictlyPositiveValue;
+
+/**
+ * In-memory cache of the ShortUrlEntity, indexed by their short url token.<br/>
+ * Implements ShortUrlTokenCache with a Caffeine cache, which uses a frequency-aware eviction policy (W-TinyLFU) :
+ * a token that is read often will stay in the cache, even when a lot of tokens are only read once.<br/>
+ * The cache is bounded both by a number of entries and by an estimated number of bytes.
+ */
+@Component
+public class ShortUrlTokenCacheImpl implements ShortUrlTokenCache {
+
+    /**
+     * Estimated memory used by an entry besides the characters of its token and url :
+     * the cache node, the ShortUrlEntity, its Long id and the two String objects.
+     */
+    static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    /**
+     * The Caffeine cache. Null if the cache is disabled.
+     */
+    private final Cache<String, ShortUrlEntity> cache;
+
+    /**
+     * Default constructor for ShortUrlTokenCacheImpl.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public ShortUrlTokenCacheImpl(final UrlShortenerProperties urlShortenerProperties) {
+        UrlShortenerProperties.Cache cacheProperties = urlShortenerProperties.cache();
+        this.cache = cacheProperties.enabled() ? buildCache(cacheProperties.maxEntries(), cacheProperties.maxBytes()) : null;
+    }
+
+    @Override
+    public ShortUrlEntity getIfPresent(final String token) {
+        requireNonBlank(token, "token");
+
+        return cache != null ? cache.getIfPresent(token) : null;
+    }
+
+    @Override
+    public void put(final ShortUrlEntity shortUrlEntity) {
+        requireNonNull(shortUrlEntity, "shortUrlEntity");
+        requireNonBlank(shortUrlEntity.getToken(), "shortUrlEntity.token");
+
+        if (cache != null) {
+            cache.put(shortUrlEntity.getToken(), shortUrlEntity);
+        }
+    }
+
+    @Override
+    public void invalidate(final String token) {
+        requireNonBlank(token, "token");
+
+        if (cache != null) {
+            cache.invalidate(token);
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * The entries are ordered by the W-TinyLFU policy : by estimated frequency of use. Caffeine only counts the frequencies once the cache is half full :
+     * until then, the entries are ordered by recency, and all of them fit in a snapshot.
+     */
+    @Override
+    public List<ShortUrlEntity> getHottest(final int limit) {
+        requireStrictlyPositiveValue(limit, "limit");
+
+        if (cache == null) {
+            return List.of();
+        }
+        return cache.policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).values()))
+                .orElseGet(List::of);
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        if (cache == null) {
+            return new CacheStatistics(0, 0, 0, 0, 0);
+        }
+        // run the pending evictions, so that the counters are up-to-date
+        cache.cleanUp();
+        CacheStats stats = cache.stats();
+        long estimatedBytes = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new CacheStatistics(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize(), estimatedBytes);
+    }
+
+    /**
+     * Builds a Caffeine cache bounded by a number of entries and by a number of bytes.<br/>
+     * Caffeine cannot bound a cache by size and by weight at the same time, so every entry weighs at least maxBytes / maxEntries :
+     * the total weight never exceeds maxBytes, which means that there can never be more than maxEntries entries.
+     *
+     * @param maxEntries maximum number of entries.
+     * @param maxBytes maximum estimated memory used by the entries.
+     * @return a new Caffeine cache recording its statistics.
+     */
+    private static Cache<String, ShortUrlEntity> buildCache(final long maxEntries, final long maxBytes) {
+        final int minimumEntryWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, maxBytes / maxEntries));
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, ShortUrlEntity>weigher((token, entity) -> Math.max(minimumEntryWeight, estimateEntryBytes(entity)))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Estimates the memory used by a cache entry.<br/>
+     * Tokens and urls are ASCII strings, which the JVM stores with one byte per character (compact strings).
+     *
+     * @param entity the cached ShortUrlEntity.
+     * @return the estimated number of bytes used by the entry.
+     */
+    static int estimateEntryBytes(final ShortUrlEntity entity) {
+        return ENTRY_OVERHEAD_BYTES
+                + (entity.getToken() != null ? entity.getToken().length() : 0)
+                + (entity.getOriginalUrl() != null ? entity.getOriginalUrl().length() : 0);
+    }
+
+}
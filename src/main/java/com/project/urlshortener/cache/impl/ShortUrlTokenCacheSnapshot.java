@@ -0,0 +1,170 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Snapshot file of the decode cache : the token and the original url of the cached short urls.<br/>
+ * The file starts with a header [magic number][version], then each record holds a short url : [length of the payload][CRC32 of the payload][length of the token][token][original url],
+ * the strings being encoded in UTF-8. A record which fails its CRC check ends the reading of the file : the records before it are kept.<br/>
+ * The file is written under a temporary name, then renamed : a snapshot being written never replaces the previous one.
+ * The short urls which expire are not written, since the records do not hold an expiration time.
+ * It is read in a single pass through a buffer, with one payload array reused by all the records.
+ */
+@Slf4j
+final class ShortUrlTokenCacheSnapshot {
+
+    /** First bytes of a snapshot file ("USCS"). */
+    private static final int MAGIC = 0x55534353;
+
+    /** Version of the format of the records. */
+    private static final int VERSION = 1;
+
+    /** Size of the buffers of the file. */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /** Maximum size of a payload : a larger length can only be a corrupted record. */
+    private static final int MAX_PAYLOAD_BYTES = 1 << 16;
+
+    private ShortUrlTokenCacheSnapshot() {
+    }
+
+    /**
+     * Writes the short urls to a snapshot file, replacing the previous snapshot once all the records are written. Creates the directory if it does not exist.
+     *
+     * @param file the snapshot file.
+     * @param shortUrlEntities the short urls, with their token and their original url. The short urls which expire are skipped.
+     * @throws IOException if the file cannot be written. The previous snapshot is kept.
+     */
+    static void write(final Path file, final List<ShortUrlEntity> shortUrlEntities) throws IOException {
+        requireNonNull(file, "file");
+        requireNonNull(shortUrlEntities, "shortUrlEntities");
+
+        Path absoluteFile = file.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        Path temporaryFile = absoluteFile.resolveSibling(absoluteFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), BUFFER_BYTES))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                CRC32 crc = new CRC32();
+                for (ShortUrlEntity shortUrlEntity : shortUrlEntities) {
+                    if (shortUrlEntity.getToken() == null || shortUrlEntity.getOriginalUrl() == null || shortUrlEntity.getExpiresAt() != null) {
+                        continue;
+                    }
+                    byte[] tokenBytes = shortUrlEntity.getToken().getBytes(StandardCharsets.UTF_8);
+                    byte[] originalUrlBytes = shortUrlEntity.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+                    int length = Short.BYTES + tokenBytes.length + originalUrlBytes.length;
+                    if (tokenBytes.length > Short.MAX_VALUE || length > MAX_PAYLOAD_BYTES) {
+                        continue;
+                    }
+                    crc.reset();
+                    crc.update(tokenBytes.length >>> 8);
+                    crc.update(tokenBytes.length);
+                    crc.update(tokenBytes);
+                    crc.update(originalUrlBytes);
+                    output.writeInt(length);
+                    output.writeInt((int) crc.getValue());
+                    output.writeShort(tokenBytes.length);
+                    output.write(tokenBytes);
+                    output.write(originalUrlBytes);
+                }
+            }
+            Files.move(temporaryFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Reads the records of a snapshot file, in the order they were written.
+     *
+     * @param file the snapshot file.
+     * @param consumer called with each short url, without id.
+     * @return the number of short urls read. 0 if the file does not exist or is not a snapshot file.
+     * @throws IOException if the file cannot be read.
+     */
+    static long read(final Path file, final Consumer<ShortUrlEntity> consumer) throws IOException {
+        requireNonNull(file, "file");
+        requireNonNull(consumer, "consumer");
+
+        long readCount = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                if (log.isWarnEnabled()) {
+                    log.warn("read : the file [{}] is not a snapshot of this version, it is ignored", file);
+                }
+                return 0;
+            }
+            byte[] payload = new byte[256];
+            CRC32 crc = new CRC32();
+            int length;
+            while ((length = readLength(input)) >= 0) {
+                if (length < Short.BYTES || length > MAX_PAYLOAD_BYTES) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("read : the snapshot [{}] has a corrupted record, the next records are ignored", file);
+                    }
+                    return readCount;
+                }
+                int expectedCrc = input.readInt();
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                input.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                int tokenLength = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+                if ((int) crc.getValue() != expectedCrc || tokenLength == 0 || Short.BYTES + tokenLength > length) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("read : the snapshot [{}] has a corrupted record, the next records are ignored", file);
+                    }
+                    return readCount;
+                }
+                consumer.accept(ShortUrlEntity.builder()
+                        .token(new String(payload, Short.BYTES, tokenLength, StandardCharsets.UTF_8))
+                        .originalUrl(new String(payload, Short.BYTES + tokenLength, length - Short.BYTES - tokenLength, StandardCharsets.UTF_8))
+                        .build());
+                readCount++;
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (EOFException e) {
+            // a record was not completely written : should not happen, the file is renamed once complete
+            if (log.isWarnEnabled()) {
+                log.warn("read : the end of the snapshot [{}] is not a complete record", file);
+            }
+        }
+        return readCount;
+    }
+
+    /**
+     * Reads the length of the next record.
+     *
+     * @return the length of the payload, or -1 at the end of the file.
+     */
+    private static int readLength(final DataInputStream input) throws IOException {
+        int firstByte = input.read();
+        if (firstByte < 0) {
+            return -1;
+        }
+        return (firstByte << 24) | (input.readUnsignedByte() << 16) | (input.readUnsignedByte() << 8) | input.readUnsignedByte();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.cache.ShortUrlTokenCache;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the most used entries of the decode cache across the restarts of the application, so that a new instance does not send all its decodes to the database.<br/>
+ * The cacheSnapshot.maxEntries hottest entries of the cache are written to a snapshot file every cacheSnapshot.intervalMillis, and when the application stops
+ * (see ShortUrlTokenCacheSnapshot for the format of the file). When the application has started, the snapshot is read and its entries are put in the cache,
+ * before the application is reported as ready to receive traffic (readiness state).<br/>
+ * A token is never given to another original url while its short url exists, and the short urls which expire are not written to the snapshot :
+ * the entries of the snapshot are not checked against the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlTokenCacheSnapshotter {
+
+    /** In-memory cache of the decoded short urls. */
+    private final ShortUrlTokenCache shortUrlTokenCache;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /** Makes the periodic write and the write of the shutdown wait for each other. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Whether the snapshot of the previous run was read : until then, a write would replace it with the entries of a cold cache. */
+    private volatile boolean loaded;
+
+    /**
+     * Puts the entries of the snapshot in the cache, the most used first. Runs before the readiness state of the application is changed to ACCEPTING_TRAFFIC.<br/>
+     * A missing, unreadable or corrupted snapshot only leaves the cache (partly) cold.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshot() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Path file = Path.of(urlShortenerProperties.cacheSnapshot().file());
+        try {
+            long loadedCount = ShortUrlTokenCacheSnapshot.read(file, shortUrlTokenCache::put);
+            if (log.isInfoEnabled()) {
+                log.info("loadSnapshot : {} entries of the snapshot [{}] put in the cache in {} ms", loadedCount, file, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("loadSnapshot : the snapshot [{}] could not be read, the cache starts cold", file, e);
+            }
+        } finally {
+            loaded = true;
+        }
+    }
+
+    /**
+     * Writes the hottest entries of the cache to the snapshot file, every url-shortener.cache-snapshot.interval-millis.
+     * If the file cannot be written, the previous snapshot is kept.<br/>
+     * Runs on its own thread of the scheduler (spring.task.scheduling.pool.size), so that the other scheduled jobs are not delayed while the file is written.
+     */
+    @Scheduled(fixedDelayString = "${url-shortener.cache-snapshot.interval-millis}", initialDelayString = "${url-shortener.cache-snapshot.interval-millis}")
+    public void saveSnapshot() {
+        if (!isEnabled() || !loaded) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            long start = System.nanoTime();
+            Path file = Path.of(urlShortenerProperties.cacheSnapshot().file());
+            List<ShortUrlEntity> hottestEntries = shortUrlTokenCache.getHottest(urlShortenerProperties.cacheSnapshot().maxEntries());
+            try {
+                ShortUrlTokenCacheSnapshot.write(file, hottestEntries);
+                if (log.isInfoEnabled()) {
+                    log.info("saveSnapshot : {} entries of the cache written to the snapshot [{}] in {} ms", hottestEntries.size(), file, (System.nanoTime() - start) / 1_000_000);
+                }
+            } catch (IOException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("saveSnapshot : the snapshot [{}] could not be written, the previous snapshot is kept", file, e);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the snapshot a last time before the application stops, so that the next start gets the latest hottest entries.
+     */
+    @PreDestroy
+    public void close() {
+        saveSnapshot();
+    }
+
+    private boolean isEnabled() {
+        return urlShortenerProperties.cacheSnapshot().enabled() && urlShortenerProperties.cache().enabled();
+    }
+
+}
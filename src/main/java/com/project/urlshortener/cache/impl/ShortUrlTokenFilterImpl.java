@@ -0,0 +1,155 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.cache.ShortUrlTokenFilter;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.cache.BloomFilterStatistics;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+
+/**
+ * In-memory filter of all the existing short url tokens.<br/>
+ * Implements ShortUrlTokenFilter with a Bloom filter : each token sets a few bits of a bit array, chosen by hashing the token.
+ * If one of the bits of a token is not set, the token was never added to the filter.<br/>
+ * The bit array is sized from the expected number of tokens and the expected false positive rate (see UrlShortenerProperties.BloomFilter).
+ * The filter can be read and updated by several threads without any lock.
+ */
+@Component
+public class ShortUrlTokenFilterImpl implements ShortUrlTokenFilter {
+
+    /**
+     * Whether the filter is used. A disabled filter answers that every token might exist.
+     */
+    private final boolean enabled;
+
+    /**
+     * The bits of the filter, 64 bits per long value.
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * Number of bits of the filter.
+     */
+    private final long bitCount;
+
+    /**
+     * Number of bits set for each token.
+     */
+    private final int hashFunctionCount;
+
+    /**
+     * Number of tokens added to the filter.
+     */
+    private final LongAdder insertedCount = new LongAdder();
+
+    /**
+     * Whether the tokens existing at startup were all added to the filter.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Default constructor for ShortUrlTokenFilterImpl.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public ShortUrlTokenFilterImpl(final UrlShortenerProperties urlShortenerProperties) {
+        UrlShortenerProperties.BloomFilter bloomFilterProperties = urlShortenerProperties.bloomFilter();
+        this.enabled = bloomFilterProperties.enabled();
+        long expectedInsertions = bloomFilterProperties.expectedInsertions();
+        double falsePositiveRate = bloomFilterProperties.falsePositiveRate();
+
+        // optimal number of bits : m = -n.ln(p) / ln(2)^2, and optimal number of hash functions : k = m/n.ln(2)
+        long optimalBitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = this.enabled ? (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1L, (optimalBitCount + 63) / 64)) : 1;
+        this.bits = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashFunctionCount = Math.max(1, (int) Math.round((double) optimalBitCount / expectedInsertions * Math.log(2)));
+    }
+
+    @Override
+    public boolean mightContain(final String token) {
+        requireNonBlank(token, "token");
+
+        if (!enabled || !loaded) {
+            return true;
+        }
+        long hash1 = hash(token);
+        long hash2 = mix(hash1) | 1L;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            long bitIndex = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void put(final String token) {
+        requireNonBlank(token, "token");
+
+        if (!enabled) {
+            return;
+        }
+        long hash1 = hash(token);
+        long hash2 = mix(hash1) | 1L;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            long bitIndex = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            int wordIndex = (int) (bitIndex >>> 6);
+            long mask = 1L << bitIndex;
+            long word = bits.get(wordIndex);
+            while ((word & mask) == 0 && !bits.weakCompareAndSetVolatile(wordIndex, word, word | mask)) {
+                word = bits.get(wordIndex);
+            }
+        }
+        insertedCount.increment();
+    }
+
+    @Override
+    public void markAsLoaded() {
+        this.loaded = true;
+    }
+
+    @Override
+    public BloomFilterStatistics getStatistics() {
+        long inserted = insertedCount.sum();
+        // expected false positive rate : (1 - e^(-k.n/m))^k
+        double expectedFalsePositiveRate = enabled ? Math.pow(1 - Math.exp(-hashFunctionCount * (double) inserted / bitCount), hashFunctionCount) : 1.0;
+        return new BloomFilterStatistics(enabled && loaded, inserted, bitCount, hashFunctionCount, bits.length() * (long) Long.BYTES, expectedFalsePositiveRate);
+    }
+
+    /**
+     * 64 bits FNV-1a hash of the characters of a token, followed by a final mix of the bits.
+     *
+     * @param token the token to hash.
+     * @return the hash of the token.
+     */
+    private static long hash(final String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Final mix of the bits of a hash (from MurmurHash3 fmix64), so that every bit of the input changes about half of the bits of the result.
+     *
+     * @param value the value to mix.
+     * @return the mixed value.
+     */
+    private static long mix(final long value) {
+        long mixed = value;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+
+}
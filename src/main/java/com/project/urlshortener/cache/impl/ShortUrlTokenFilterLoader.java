@@ -0,0 +1,52 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.cache.ShortUrlTokenFilter;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.cache.BloomFilterStatistics;
+import com.project.urlshortener.repository.ShortUrlDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads all the tokens of the database in the ShortUrlTokenFilter, when the application has started.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlTokenFilterLoader {
+
+    /** Main functions to access the database. */
+    private final ShortUrlDao shortUrlDao;
+
+    /** In-memory filter of the existing tokens. */
+    private final ShortUrlTokenFilter shortUrlTokenFilter;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /**
+     * Streams the SHORT_URL table and adds every token to the filter.<br/>
+     * The tokens created while the table is read are added to the filter by ShortUrlDao, so no token is missed.
+     * The filter is only used once all the tokens are loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExistingTokens() {
+        if (!urlShortenerProperties.bloomFilter().enabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        shortUrlDao.forEachExistingToken(shortUrlTokenFilter::put);
+        shortUrlTokenFilter.markAsLoaded();
+
+        if (log.isInfoEnabled()) {
+            BloomFilterStatistics statistics = shortUrlTokenFilter.getStatistics();
+            log.info("loadExistingTokens : {} tokens loaded in {} ms, memory used [{} bytes], expected false positive rate [{}]",
+                    statistics.insertedCount(), (System.nanoTime() - start) / 1_000_000, statistics.memoryBytes(), statistics.expectedFalsePositiveRate());
+        }
+    }
+
+}
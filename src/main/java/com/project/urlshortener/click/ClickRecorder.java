@@ -0,0 +1,19 @@
+package com.project.urlshortener.click;
+
+/**
+ * Counts the clicks on the short urls, without slowing down their decode.
+ */
+public interface ClickRecorder {
+
+    /**
+     * Records a click on a short url. Never waits : the click is written later, in the background, or dropped if too many clicks are waiting.
+     *
+     * @param token the decoded short url token.
+     */
+    void recordClick(final String token);
+
+    /**
+     * Writes the clicks recorded so far in the database.
+     */
+    void flush();
+}
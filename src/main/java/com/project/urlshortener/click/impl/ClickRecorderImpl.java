@@ -0,0 +1,155 @@
+package com.project.urlshortener.click.impl;
+
+import com.project.urlshortener.click.ClickRecorder;
+import com.project.urlshortener.common.utils.MpscRingBuffer;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.click.ClickEvent;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlClickDao;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+
+/**
+ * Counts the clicks on the short urls in the background.<br/>
+ * Implements ClickRecorder : the decode of a short url only adds a ClickEvent to a bounded lock-free ring buffer (MpscRingBuffer),
+ * and a scheduled task aggregates the waiting events by token and adds them to the SHORT_URL_CLICK table, in batches (see UrlShortenerProperties.Clicks).<br/>
+ * When the buffer fills up, the clicks are dropped or sampled (see UrlShortenerProperties.Clicks.OverflowPolicy) : the decode never waits for the database.
+ */
+@Component
+@Slf4j
+public class ClickRecorderImpl implements ClickRecorder {
+
+    /**
+     * Parameters of the counting of the clicks.
+     */
+    private final UrlShortenerProperties.Clicks clicksProperties;
+
+    /**
+     * Access to the SHORT_URL_CLICK table.
+     */
+    private final ShortUrlClickDao shortUrlClickDao;
+
+    /**
+     * Counter of the dropped clicks and timer of the writings.
+     */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /**
+     * The clicks waiting to be written. Null if the clicks are not counted.
+     */
+    private final MpscRingBuffer<ClickEvent> buffer;
+
+    /**
+     * The buffer has a single consumer : the scheduled flush and the flush at shutdown must not read it at the same time.
+     * A lock rather than synchronized, so that a virtual thread writing the clicks is not pinned to its carrier thread.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Default constructor for ClickRecorderImpl.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param shortUrlClickDao instance of ShortUrlClickDao.
+     * @param urlShortenerMetrics instance of UrlShortenerMetrics.
+     */
+    public ClickRecorderImpl(final UrlShortenerProperties urlShortenerProperties, final ShortUrlClickDao shortUrlClickDao, final UrlShortenerMetrics urlShortenerMetrics) {
+        this.clicksProperties = urlShortenerProperties.clicks();
+        this.shortUrlClickDao = shortUrlClickDao;
+        this.urlShortenerMetrics = urlShortenerMetrics;
+        this.buffer = clicksProperties.enabled() ? new MpscRingBuffer<>(clicksProperties.bufferSize()) : null;
+    }
+
+    /**
+     * Records a click on a short url.<br/>
+     * With the SAMPLE policy, once the buffer is half full, only 1 click out of sampleRate is added to the buffer, with a weight of sampleRate.
+     * A click which does not fit in the buffer is counted in the dropped clicks.
+     *
+     * @param token the decoded short url token.
+     */
+    @Override
+    public void recordClick(final String token) {
+        requireNonBlank(token, "token");
+        if (buffer == null) {
+            return;
+        }
+
+        int weight = 1;
+        if (clicksProperties.overflowPolicy() == UrlShortenerProperties.Clicks.OverflowPolicy.SAMPLE && buffer.size() >= buffer.capacity() / 2) {
+            if (ThreadLocalRandom.current().nextInt(clicksProperties.sampleRate()) != 0) {
+                return;
+            }
+            weight = clicksProperties.sampleRate();
+        }
+        if (!buffer.offer(new ClickEvent(token, weight))) {
+            urlShortenerMetrics.getClicksDroppedCounter().increment(weight);
+        }
+    }
+
+    /**
+     * Writes the waiting clicks, every url-shortener.clicks.flush-interval-millis.<br/>
+     * At most one buffer capacity of events is read, so that the flush ends even if the clicks keep coming.
+     * The events are summed by token, and written by ShortUrlClickDao in batches of flushBatchSize tokens.
+     * If a batch cannot be written, its clicks are lost and counted in the dropped clicks : they are not kept in memory for the next flush.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${url-shortener.clicks.flush-interval-millis}")
+    public void flush() {
+        if (buffer == null) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            Map<String, Long> clickCountsByToken = new HashMap<>();
+            ClickEvent clickEvent;
+            for (int i = 0; i < buffer.capacity() && (clickEvent = buffer.poll()) != null; i++) {
+                clickCountsByToken.merge(clickEvent.token(), (long) clickEvent.weight(), Long::sum);
+                if (clickCountsByToken.size() >= clicksProperties.flushBatchSize()) {
+                    writeClicks(clickCountsByToken);
+                    clickCountsByToken = new HashMap<>();
+                }
+            }
+            if (!clickCountsByToken.isEmpty()) {
+                writeClicks(clickCountsByToken);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the waiting clicks before the application stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Adds one batch of clicks to the SHORT_URL_CLICK table.
+     *
+     * @param clickCountsByToken the number of clicks of each token.
+     */
+    private void writeClicks(final Map<String, Long> clickCountsByToken) {
+        try {
+            urlShortenerMetrics.getClickFlushTimer().record(() -> shortUrlClickDao.addClicks(clickCountsByToken));
+        } catch (DataAccessException e) {
+            long lostClicks = clickCountsByToken.values().stream().mapToLong(Long::longValue).sum();
+            urlShortenerMetrics.getClicksDroppedCounter().increment(lostClicks);
+            if (log.isWarnEnabled()) {
+                log.warn("writeClicks : {} clicks on {} tokens could not be written", lostClicks, clickCountsByToken.size(), e);
+            }
+        }
+    }
+
+}
@@ -69,4 +69,21 @@ public class ArgumentUtils {
             throw new RequiredValueException(fieldName, RequiredValueException.RequirementType.CANNOT_BE_NEGATIVE);
         }
     }
+
+    /**
+     * Requires a Long to be strictly greater than zero.<br/>
+     * Will throw a RequiredValueException if the long is zero or negative.
+     *
+     * @param l the Long to be tested.
+     * @param fieldName the name of the variable that was tested (will be used in an error message).
+     */
+    public static void requireStrictlyPositiveValue(final Long l, final String fieldName) {
+        requireNonNull(l, fieldName);
+        if (l == 0) {
+            throw new RequiredValueException(fieldName, RequiredValueException.RequirementType.CANNOT_BE_ZERO);
+        }
+        if (l < 0) {
+            throw new RequiredValueException(fieldName, RequiredValueException.RequirementType.CANNOT_BE_NEGATIVE);
+        }
+    }
 }
@@ -0,0 +1,127 @@
+package com.project.urlshortener.common.utils;
+
+/**
+ * A keyed permutation of the numbers [0, domainSize[ : every number is mapped to a different number of the same range, which looks random without the key.<br/>
+ * The numbers are split in two halves of bits, mixed by a few rounds of a Feistel network, which is a bijection whatever the round function.
+ * When the result is out of the range (the halves can hold numbers up to 4 times larger than domainSize), the permutation is applied again
+ * until the result is in the range ("cycle walking"), which keeps the bijection.
+ */
+public final class FeistelPermutation {
+
+    /** Number of rounds of the Feistel network. */
+    private static final int ROUNDS = 4;
+
+    /** Size of the range of the permuted numbers. */
+    private final long domainSize;
+
+    /** Number of bits of each half. */
+    private final int halfBits;
+
+    /** Mask of the bits of a half. */
+    private final long halfMask;
+
+    /** Key of each round, derived from the key of the permutation. */
+    private final long[] roundKeys;
+
+    /**
+     * Default constructor for FeistelPermutation.
+     *
+     * @param domainSize size of the range of the permuted numbers.
+     * @param key secret key of the permutation.
+     */
+    public FeistelPermutation(final long domainSize, final long key) {
+        ArgumentUtils.requireStrictlyPositiveValue(domainSize, "domainSize");
+
+        this.domainSize = domainSize;
+        int domainBits = Math.max(2, 64 - Long.numberOfLeadingZeros(domainSize - 1));
+        this.halfBits = (domainBits + 1) / 2;
+        this.halfMask = -1L >>> (64 - halfBits);
+        this.roundKeys = new long[ROUNDS];
+        long seed = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(seed);
+        }
+    }
+
+    /**
+     * Permutes a number.
+     *
+     * @param value a number of [0, domainSize[.
+     * @return the permuted number, in [0, domainSize[.
+     */
+    public long permute(final long value) {
+        requireInDomain(value);
+
+        long permuted = value;
+        do {
+            permuted = encrypt(permuted);
+        } while (Long.compareUnsigned(permuted, domainSize) >= 0);
+        return permuted;
+    }
+
+    /**
+     * Finds the number of which a number is the permutation.
+     *
+     * @param value a permuted number of [0, domainSize[.
+     * @return the number x such that permute(x) == value.
+     */
+    public long inverse(final long value) {
+        requireInDomain(value);
+
+        long original = value;
+        do {
+            original = decrypt(original);
+        } while (Long.compareUnsigned(original, domainSize) >= 0);
+        return original;
+    }
+
+    private void requireInDomain(final long value) {
+        if (value < 0 || value >= domainSize) {
+            throw new IllegalArgumentException("value [" + value + "] is not in [0, " + domainSize + "[");
+        }
+    }
+
+    private long encrypt(final long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long newRight = left ^ round(right, i);
+            left = right;
+            right = newRight;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long decrypt(final long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            long newLeft = right ^ round(left, i);
+            right = left;
+            left = newLeft;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long round(final long half, final int roundIndex) {
+        return mix(half ^ roundKeys[roundIndex]) & halfMask;
+    }
+
+    /**
+     * Final mix of the bits of a number (from MurmurHash3 fmix64).
+     *
+     * @param value the value to mix.
+     * @return the mixed value.
+     */
+    private static long mix(final long value) {
+        long mixed = value;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.project.urlshortener.common.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A basic utility class, offering hash functions.
+ */
+@UtilityClass
+public class HashUtils {
+
+    /** Size (in bytes) of the hash returned by hash128. */
+    public static final int HASH_128_BYTES = 16;
+
+    private static final String SHA_256 = "SHA-256";
+
+    private static final long FNV_64_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_64_PRIME = 0x100000001b3L;
+
+    /**
+     * Creates a 128 bits hash of a string : the first 16 bytes of the SHA-256 digest of its UTF-8 bytes.<br/>
+     * With 128 bits, two different strings having the same hash is not a realistic concern.
+     *
+     * @param value the string to hash.
+     * @return the 16 bytes of the hash.
+     */
+    public static byte[] hash128(final String value) {
+        ArgumentUtils.requireNonNull(value, "value");
+
+        try {
+            return Arrays.copyOf(MessageDigest.getInstance(SHA_256).digest(value.getBytes(StandardCharsets.UTF_8)), HASH_128_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform implements SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a 64 bits hash of a string, much cheaper than hash128 : FNV-1a over its characters, then mixed so that all the bits depend on all the characters.<br/>
+     * Different strings can have the same hash : it is only meant to spread the keys of a hash table, the keys must still be compared.
+     *
+     * @param value the string to hash.
+     * @return the hash.
+     */
+    public static long hash64(final CharSequence value) {
+        ArgumentUtils.requireNonNull(value, "value");
+
+        long hash = FNV_64_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_64_PRIME;
+        }
+        // finalizer of MurmurHash3
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Reads the first 8 bytes of a hash as a long, for instance to use a hash128 as the key of a hash table.
+     *
+     * @param hash the hash, at least 8 bytes.
+     * @return the long made of the first 8 bytes (big-endian).
+     */
+    public static long toLong(final byte[] hash) {
+        ArgumentUtils.requireNonNull(hash, "hash");
+
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << Byte.SIZE) | (hash[i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,187 @@
+package com.project.urlshortener.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel : holds items until their deadline, and gives them back when the time has passed their deadline.<br/>
+ * The time is cut in ticks of tickMillis. Level 0 is a ring of wheelSize slots, one per tick. Each slot of level 1 covers a whole turn of level 0 (wheelSize ticks),
+ * each slot of level 2 a whole turn of level 1, and so on : the levels are added until the wheel covers horizonMillis.
+ * An item is put in the lowest level whose turn reaches its deadline. When the time reaches a slot of a higher level, its items are moved down (cascaded)
+ * to the lower levels, and the items of a slot of level 0 are given back when its tick is over.<br/>
+ * Adding an item and giving it back costs O(1) (plus one move per level), whatever the number of items and however far their deadline is.
+ * An item is never given back before its deadline, and at most one tick after it.<br/>
+ * An item whose deadline is beyond the wheel is put in the farthest slot, then added again when this slot is cascaded.<br/>
+ * Items cannot be removed : the caller checks whether an item given back is still due.<br/>
+ * Not thread-safe : the items are added and given back by a single thread.
+ *
+ * @param <T> type of the items.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    /** Duration (in milliseconds) of a tick. */
+    private final long tickMillis;
+
+    /** Time (in milliseconds) of the start of the tick 0. */
+    private final long startMillis;
+
+    /** Number of slots of each level, a power of two. */
+    private final int wheelSize;
+
+    /** Number of bits of a slot index : wheelSize = 1 << wheelBits. */
+    private final int wheelBits;
+
+    /** Slots of each level, created when an item is first put in them. */
+    private final List<Entry<T>>[][] slots;
+
+    /** Items whose deadline was already over when they were added : given back by the next advance. */
+    private final List<Entry<T>> dueEntries = new ArrayList<>();
+
+    /** The next tick to be processed : all the items of the previous ticks have been given back. */
+    private long currentTick;
+
+    /** Number of items in the wheel. */
+    private int size;
+
+    /**
+     * An item and the tick of its deadline.
+     */
+    private record Entry<T>(T item, long tick) {
+    }
+
+    /**
+     * Default constructor for HierarchicalTimingWheel.
+     *
+     * @param tickMillis duration (in milliseconds) of a tick : the precision of the deadlines.
+     * @param requestedWheelSize the minimum number of slots of each level, rounded up to a power of two.
+     * @param horizonMillis the delay (in milliseconds) that the wheel covers : the number of levels is computed from it.
+     * @param startMillis the current time (in milliseconds).
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(final long tickMillis, final int requestedWheelSize, final long horizonMillis, final long startMillis) {
+        ArgumentUtils.requireStrictlyPositiveValue(tickMillis, "tickMillis");
+        ArgumentUtils.requireStrictlyPositiveValue(requestedWheelSize, "requestedWheelSize");
+        ArgumentUtils.requireStrictlyPositiveValue(horizonMillis, "horizonMillis");
+
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.wheelSize = Math.max(2, Integer.highestOneBit(requestedWheelSize - 1) << 1);
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        int levels = 1;
+        long horizonTicks = horizonMillis / tickMillis;
+        while (levels * wheelBits < Long.SIZE - 2 && horizonTicks >= 1L << (levels * wheelBits)) {
+            levels++;
+        }
+        this.slots = new List[levels][wheelSize];
+    }
+
+    /**
+     * Adds an item to the wheel.
+     *
+     * @param item the item.
+     * @param deadlineMillis the time (in milliseconds) after which the item is given back.
+     */
+    public void add(final T item, final long deadlineMillis) {
+        ArgumentUtils.requireNonNull(item, "item");
+
+        place(new Entry<>(item, Math.floorDiv(deadlineMillis - startMillis, tickMillis)));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to the current time : gives back the items whose deadline is over, in the order of their ticks.
+     *
+     * @param nowMillis the current time (in milliseconds).
+     * @param consumer called with each item given back. It must not add items to the wheel.
+     * @return the number of items given back.
+     */
+    public int advance(final long nowMillis, final Consumer<T> consumer) {
+        ArgumentUtils.requireNonNull(consumer, "consumer");
+
+        int firedCount = fire(dueEntries, consumer);
+        dueEntries.clear();
+        // a tick is processed once it is over
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                // nothing to cascade nor to give back : jump to the target
+                currentTick = targetTick;
+                break;
+            }
+            for (int level = slots.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (level * wheelBits)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (level * wheelBits)) & (wheelSize - 1)));
+                }
+            }
+            int slot = (int) (currentTick & (wheelSize - 1));
+            List<Entry<T>> entries = slots[0][slot];
+            if (entries != null && !entries.isEmpty()) {
+                slots[0][slot] = null;
+                firedCount += fire(entries, consumer);
+            }
+            currentTick++;
+        }
+        return firedCount;
+    }
+
+    /**
+     * Gives the number of items in the wheel.
+     *
+     * @return the number of items added and not given back yet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives the number of levels of the wheel.
+     *
+     * @return the number of levels, computed from the horizon.
+     */
+    public int levels() {
+        return slots.length;
+    }
+
+    /**
+     * Puts an entry in the lowest level whose turn reaches its tick, or in the due entries if its tick is over.
+     */
+    private void place(final Entry<T> entry) {
+        long delay = entry.tick() - currentTick;
+        if (delay < 0) {
+            dueEntries.add(entry);
+            return;
+        }
+        int level = 0;
+        while (level < slots.length - 1 && delay >>> ((level + 1) * wheelBits) != 0) {
+            level++;
+        }
+        // beyond the wheel : the farthest slot of the top level, cascaded before the deadline
+        long tick = delay >>> ((level + 1) * wheelBits) != 0 ? currentTick + (1L << (slots.length * wheelBits)) - 1 : entry.tick();
+        int slot = (int) ((tick >>> (level * wheelBits)) & (wheelSize - 1));
+        List<Entry<T>> entries = slots[level][slot];
+        if (entries == null) {
+            entries = new ArrayList<>();
+            slots[level][slot] = entries;
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Moves the entries of a slot of a higher level to the lower levels.
+     */
+    private void cascade(final int level, final int slot) {
+        List<Entry<T>> entries = slots[level][slot];
+        if (entries != null && !entries.isEmpty()) {
+            slots[level][slot] = null;
+            entries.forEach(this::place);
+        }
+    }
+
+    private int fire(final List<Entry<T>> entries, final Consumer<T> consumer) {
+        size -= entries.size();
+        entries.forEach(entry -> consumer.accept(entry.item()));
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.project.urlshortener.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free queue, written by several threads (multi-producer) and read by a single thread (single-consumer).<br/>
+ * The elements are stored in a ring of slots. Each slot has a sequence number, which tells whether the slot is free for the position of a producer,
+ * or holds the element of the position of the consumer. A producer reserves a position with a compare-and-set on the tail, writes its element,
+ * then publishes it by setting the sequence of the slot. It never waits : when the ring is full, offer returns false right away.
+ *
+ * @param <E> type of the elements.
+ */
+public final class MpscRingBuffer<E> {
+
+    /** Number of slots, a power of two. */
+    private final int capacity;
+
+    /** Mask of a position, to get the index of its slot. */
+    private final int mask;
+
+    /** Elements of the slots. Written before the sequence of the slot is published, read after it. */
+    private final Object[] elements;
+
+    /** Sequence of each slot : equal to a position when the slot is free for this position, to the position + 1 when it holds the element of this position. */
+    private final AtomicLongArray sequences;
+
+    /** Next position of the producers. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Next position of the consumer. Only written by the consumer, read by the producers to estimate the size. */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Default constructor for MpscRingBuffer.
+     *
+     * @param requestedCapacity the minimum number of elements held by the ring, rounded up to a power of two.
+     */
+    public MpscRingBuffer(final int requestedCapacity) {
+        ArgumentUtils.requireStrictlyPositiveValue(requestedCapacity, "requestedCapacity");
+
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element at the end of the queue, without waiting. Can be called by any thread.
+     *
+     * @param element the element, not null.
+     * @return true if the element was added, false if the queue is full.
+     */
+    public boolean offer(final E element) {
+        ArgumentUtils.requireNonNull(element, "element");
+
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the element of the previous lap : the queue is full
+                return false;
+            } else {
+                // another producer has taken this position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the first element of the queue. Must always be called by the same thread (or under the same lock).
+     *
+     * @return the first element, or null if the queue is empty (or if the first element is still being written by its producer).
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.set(index, position + capacity);
+        head.set(position + 1);
+        return element;
+    }
+
+    /**
+     * Estimated number of elements in the queue : the producers and the consumer can change it at the same time.
+     *
+     * @return the number of positions taken by the producers and not read by the consumer yet.
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    /**
+     * Maximum number of elements in the queue.
+     *
+     * @return the number of slots of the ring.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+}
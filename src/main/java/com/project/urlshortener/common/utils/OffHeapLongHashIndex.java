@@ -0,0 +1,140 @@
+package com.project.urlshortener.common.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.LongPredicate;
+
+/**
+ * A hash table from 64 bits keys to positive long values, stored outside the java heap (direct buffer) : millions of entries do not weigh on the garbage collector.<br/>
+ * The keys are hashes of the real keys (see HashUtils.hash64), so several entries can have the same key : find is given a predicate,
+ * which checks the real key of each candidate value.<br/>
+ * Open addressing with linear probing : each slot holds a key and its value + 1 (0 is an empty slot). The table doubles when it is 3/4 full.<br/>
+ * Not thread-safe : the writes must be guarded by the caller, and the reads must not run at the same time as a write.
+ */
+public final class OffHeapLongHashIndex {
+
+    /** Maximum number of slots : the buffer of the table is indexed by an int. */
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    /** Size of a slot : the key and the value + 1. */
+    private static final int SLOT_BYTES = 2 * Long.BYTES;
+
+    /** Slots of the table. */
+    private ByteBuffer slots;
+
+    /** Number of slots, a power of two. */
+    private int capacity;
+
+    /** Number of entries. */
+    private int size;
+
+    /**
+     * Default constructor for OffHeapLongHashIndex.
+     *
+     * @param expectedEntries the number of entries the table can hold before growing.
+     */
+    public OffHeapLongHashIndex(final int expectedEntries) {
+        ArgumentUtils.requireStrictlyPositiveValue(expectedEntries, "expectedEntries");
+
+        allocate(slotsFor(expectedEntries));
+    }
+
+    /**
+     * Adds an entry, even if entries with the same key already exist.
+     *
+     * @param key the hash of the real key.
+     * @param value the value, positive or zero.
+     * @throws IllegalStateException if the table is full (MAX_CAPACITY).
+     */
+    public void put(final long key, final long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be positive or zero : " + value);
+        }
+        if ((size + 1L) * 4 > capacity * 3L) {
+            grow();
+        }
+        insert(key, value + 1);
+        size++;
+    }
+
+    /**
+     * Searches for a value of a key.
+     *
+     * @param key the hash of the real key.
+     * @param matches called with the values of the key, in the order they were added, until it returns true.
+     * @return the first value accepted by matches, or -1 if none.
+     */
+    public long find(final long key, final LongPredicate matches) {
+        int mask = capacity - 1;
+        for (int index = spread(key) & mask; ; index = (index + 1) & mask) {
+            long storedValue = slots.getLong(index * SLOT_BYTES + Long.BYTES);
+            if (storedValue == 0) {
+                return -1;
+            }
+            if (slots.getLong(index * SLOT_BYTES) == key && matches.test(storedValue - 1)) {
+                return storedValue - 1;
+            }
+        }
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return the number of entries added.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of slots of the table.
+     *
+     * @return the number of slots, a power of two.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    private void grow() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("the index cannot hold more than " + (MAX_CAPACITY / 4 * 3) + " entries");
+        }
+        ByteBuffer previousSlots = slots;
+        int previousCapacity = capacity;
+        allocate(capacity * 2);
+        for (int index = 0; index < previousCapacity; index++) {
+            long storedValue = previousSlots.getLong(index * SLOT_BYTES + Long.BYTES);
+            if (storedValue != 0) {
+                insert(previousSlots.getLong(index * SLOT_BYTES), storedValue);
+            }
+        }
+    }
+
+    private void insert(final long key, final long storedValue) {
+        int mask = capacity - 1;
+        int index = spread(key) & mask;
+        while (slots.getLong(index * SLOT_BYTES + Long.BYTES) != 0) {
+            index = (index + 1) & mask;
+        }
+        slots.putLong(index * SLOT_BYTES, key);
+        slots.putLong(index * SLOT_BYTES + Long.BYTES, storedValue);
+    }
+
+    /** The previous buffer is freed by the garbage collector, once it is no longer referenced. */
+    private void allocate(final int newCapacity) {
+        this.slots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.capacity = newCapacity;
+    }
+
+    private static int slotsFor(final int expectedEntries) {
+        long minimumSlots = Math.max(2, expectedEntries * 4L / 3 + 1);
+        return minimumSlots >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit((int) minimumSlots - 1) << 1;
+    }
+
+    /** The keys of entries inserted one after the other can be close values : their bits are mixed, so that they do not fill consecutive slots. */
+    private static int spread(final long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.project.urlshortener.common.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the concurrent calls for the same key : the first thread runs the call, and the threads asking for the same key in the meantime wait for its result instead of running it again.<br/>
+ * The result (or the exception) of a call is shared only with the threads which have asked for it while it was running : a new call is run for the next request of the key.
+ * A thread which has waited more than timeoutMillis stops waiting and runs the call on its own.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the results.
+ */
+public final class SingleFlight<K, V> {
+
+    /** The calls running, by key. A call is removed when it is completed. */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /** Maximum delay (in milliseconds) during which a thread waits for the call of another thread. */
+    private final long timeoutMillis;
+
+    /** Called each time a thread waits for the call of another thread instead of running its own call. */
+    private final Runnable joinListener;
+
+    /** Called each time a thread stops waiting for the call of another thread after timeoutMillis. */
+    private final Runnable timeoutListener;
+
+    /**
+     * Default constructor for SingleFlight.
+     *
+     * @param timeoutMillis maximum delay (in milliseconds) during which a thread waits for the call of another thread.
+     * @param joinListener called each time a thread waits for the call of another thread.
+     * @param timeoutListener called each time a thread stops waiting after timeoutMillis.
+     */
+    public SingleFlight(final long timeoutMillis, final Runnable joinListener, final Runnable timeoutListener) {
+        ArgumentUtils.requireStrictlyPositiveValue(timeoutMillis, "timeoutMillis");
+        ArgumentUtils.requireNonNull(joinListener, "joinListener");
+        ArgumentUtils.requireNonNull(timeoutListener, "timeoutListener");
+
+        this.timeoutMillis = timeoutMillis;
+        this.joinListener = joinListener;
+        this.timeoutListener = timeoutListener;
+    }
+
+    /**
+     * Runs a call, or waits for the same call of another thread.
+     *
+     * @param key the key of the call.
+     * @param call the call, run by this thread if no other thread is running it.
+     * @return the result of the call (of this thread or of the other thread). Can be null.
+     * @throws RuntimeException the exception of the call, of this thread or of the other thread.
+     */
+    public V execute(final K key, final Supplier<V> call) {
+        ArgumentUtils.requireNonNull(key, "key");
+        ArgumentUtils.requireNonNull(call, "call");
+
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> runningCall = calls.putIfAbsent(key, ownCall);
+        if (runningCall == null) {
+            try {
+                V result = call.get();
+                ownCall.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                ownCall.completeExceptionally(e);
+                throw e;
+            } finally {
+                calls.remove(key, ownCall);
+            }
+        }
+
+        joinListener.run();
+        try {
+            return runningCall.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            timeoutListener.run();
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return call.get();
+        }
+    }
+
+    /**
+     * Gives the number of calls running.
+     *
+     * @return the number of keys whose call is running.
+     */
+    public int runningCalls() {
+        return calls.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.project.urlshortener.configuration;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * DataSource of the read replicas of the database : each connection is taken from the pool of one of the replicas.<br/>
+ * The replica is chosen for each connection, either in turn (ROUND_ROBIN), or as the replica with the fewest connections in use or awaited (LEAST_LOADED).
+ * Used as the read-only DataSource of the primary database (see ReadReplicaDataSourceConfiguration).
+ */
+public class ReadReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+	/**
+	 * The connection pools of the replicas.
+	 */
+	private final List<HikariDataSource> replicas;
+
+	/**
+	 * How the replica of each connection is chosen.
+	 */
+	private final UrlShortenerProperties.ReadReplicas.Selection selection;
+
+	/**
+	 * Incremented for each connection : index of the next replica (ROUND_ROBIN), or of the first replica compared (LEAST_LOADED), so that the ties are shared.
+	 */
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	/**
+	 * Default constructor for ReadReplicaDataSource.
+	 *
+	 * @param replicas the connection pools of the replicas. Must not be empty.
+	 * @param selection how the replica of each connection is chosen.
+	 */
+	public ReadReplicaDataSource(final List<HikariDataSource> replicas, final UrlShortenerProperties.ReadReplicas.Selection selection) {
+		requireNonNull(replicas, "replicas");
+		requireNonNull(selection, "selection");
+		if (replicas.isEmpty()) {
+			throw new IllegalArgumentException("At least one read replica is required");
+		}
+
+		this.replicas = List.copyOf(replicas);
+		this.selection = selection;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return selectReplica().getConnection();
+	}
+
+	@Override
+	public Connection getConnection(final String username, final String password) throws SQLException {
+		return selectReplica().getConnection(username, password);
+	}
+
+	/**
+	 * Chooses the replica of a new connection.
+	 *
+	 * @return the connection pool of the replica.
+	 */
+	HikariDataSource selectReplica() {
+		int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+		if (selection == UrlShortenerProperties.ReadReplicas.Selection.ROUND_ROBIN) {
+			return replicas.get(start);
+		}
+
+		HikariDataSource leastLoaded = null;
+		int leastLoad = Integer.MAX_VALUE;
+		for (int i = 0; i < replicas.size(); i++) {
+			HikariDataSource replica = replicas.get((start + i) % replicas.size());
+			int load = load(replica);
+			if (load < leastLoad) {
+				leastLoaded = replica;
+				leastLoad = load;
+			}
+		}
+		return leastLoaded;
+	}
+
+	/**
+	 * Load of a replica : its connections in use, and the threads waiting for one of its connections.
+	 *
+	 * @param replica the connection pool of the replica.
+	 * @return the load of the replica. 0 if its pool has not started yet.
+	 */
+	private static int load(final HikariDataSource replica) {
+		HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+		return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+	}
+
+	/**
+	 * Closes the connection pools of the replicas.
+	 */
+	@Override
+	public void close() {
+		replicas.forEach(HikariDataSource::close);
+	}
+
+}
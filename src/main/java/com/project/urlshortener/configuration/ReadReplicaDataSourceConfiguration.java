@@ -0,0 +1,77 @@
+package com.project.urlshortener.configuration;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSources of the primary database and of its read replicas, when url-shortener.read-replicas.enabled is true.<br/>
+ * The DataSource used by the application opens its connections lazily, on the first statement :
+ * the statements of a read-only transaction (the lookups of ShortUrlRepository) are sent to a read replica, the other statements are sent to the primary database.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "url-shortener.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfiguration {
+
+	/**
+	 * Connection pool of the primary database, configured by spring.datasource and spring.datasource.hikari.
+	 *
+	 * @param dataSourceProperties the spring.datasource properties.
+	 * @return HikariDataSource the connection pool of the primary database.
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(final DataSourceProperties dataSourceProperties) {
+		HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	/**
+	 * Connection pools of the read replicas (url-shortener.read-replicas.datasources).
+	 *
+	 * @param urlShortenerProperties instance of UrlShortenerProperties.
+	 * @return ReadReplicaDataSource the DataSource choosing a replica for each connection.
+	 */
+	@Bean
+	public ReadReplicaDataSource readReplicaDataSource(final UrlShortenerProperties urlShortenerProperties) {
+		UrlShortenerProperties.ReadReplicas readReplicas = urlShortenerProperties.readReplicas();
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (UrlShortenerProperties.ReadReplicas.Replica replica : readReplicas.datasources()) {
+			HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+					.url(replica.url()).username(replica.username()).password(replica.password()).build();
+			dataSource.setPoolName("replica-" + replicas.size());
+			dataSource.setMaximumPoolSize(readReplicas.maximumPoolSize());
+			dataSource.setReadOnly(true);
+			replicas.add(dataSource);
+		}
+		return new ReadReplicaDataSource(replicas, readReplicas.selection());
+	}
+
+	/**
+	 * The DataSource of the application : a connection is taken from the read replicas if its transaction is read-only when its first statement is run, else from the primary database.
+	 *
+	 * @param primaryDataSource the connection pool of the primary database.
+	 * @param readReplicaDataSource the connection pools of the read replicas.
+	 * @return DataSource the routing DataSource.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(final HikariDataSource primaryDataSource, final ReadReplicaDataSource readReplicaDataSource) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+		dataSource.setReadOnlyDataSource(readReplicaDataSource);
+		return dataSource;
+	}
+
+}
@@ -1,13 +1,17 @@
 package com.project.urlshortener.configuration;
 
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.ratelimit.impl.ClientRateLimitInterceptor;
 import com.ulisesbocchio.jasyptspringboot.annotation.EnableEncryptableProperties;
+import lombok.RequiredArgsConstructor;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -21,12 +25,18 @@ import java.util.Locale;
  */
 @Configuration
 @EnableRetry
+@EnableAsync
+@EnableScheduling
 @EnableConfigurationProperties(UrlShortenerProperties.class)
 @EnableEncryptableProperties
+@RequiredArgsConstructor
 public class UrlShortenerConfiguration implements WebMvcConfigurer {
 
 	private static final String HTTP_LOCAL_CHANGE_PARAMETER = "lang";
 
+	/** Limits the creations of short urls of each client. */
+	private final ClientRateLimitInterceptor clientRateLimitInterceptor;
+
 	/**
 	 * Access to the messages.properties and its internationalized variants.
 	 *
@@ -82,6 +92,7 @@ public class UrlShortenerConfiguration implements WebMvcConfigurer {
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
 		registry.addInterceptor(localeChangeInterceptor());
+		registry.addInterceptor(clientRateLimitInterceptor).addPathPatterns("/", "/batch");
 	}
 
 }
@@ -1,26 +1,288 @@
 package com.project.urlshortener.configuration.properties;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.List;
+
 /**
  * Access to some of the application parameters (application.yml).
  * @param baseUrl (String) Base of the short url. This is the base for the short url. Only the url token is missing.
  * @param token (Token) Token related parameters.
+ * @param cache (Cache) Decode cache related parameters.
+ * @param bloomFilter (BloomFilter) Parameters of the filter of the existing tokens.
+ * @param backfill (Backfill) Parameters of the jobs filling new columns of the existing rows.
+ * @param sequence (Sequence) Parameters of the sequence token strategy.
+ * @param batch (Batch) Parameters of the batch endpoints.
+ * @param redirect (Redirect) Parameters of the HTTP redirection of the browsers.
+ * @param pinningMonitor (PinningMonitor) Parameters of the detection of the virtual threads pinned to their carrier thread.
+ * @param clicks (Clicks) Parameters of the counting of the clicks on the short urls.
+ * @param writeBehind (WriteBehind) Parameters of the delayed insertion of the new short urls.
+ * @param storage (Storage) Where the short urls are stored, and parameters of the mapped-file storage.
+ * @param readReplicas (ReadReplicas) Parameters of the read replicas of the database, used by the lookups of the short urls.
+ * @param sharding (Sharding) Parameters of the sharded storage, where the short urls are spread over several databases.
+ * @param bulkImport (BulkImport) Parameters of the import of existing short urls from files.
+ * @param bulkExport (BulkExport) Parameters of the export of all the short urls to files.
+ * @param coalescing (Coalescing) Parameters of the coalescing of the concurrent requests for the same original url or the same token.
+ * @param cacheSnapshot (CacheSnapshot) Parameters of the snapshot file of the decode cache, read again when the application starts.
+ * @param expiration (Expiration) Parameters of the expiration of the short urls, and of the deletion of the expired short urls.
  */
 @ConfigurationProperties("url-shortener")
 @Validated
-public record UrlShortenerProperties (@NotBlank String baseUrl, @NotNull Token token) {
+public record UrlShortenerProperties (@NotBlank String baseUrl, @NotNull Token token, @NotNull Cache cache, @NotNull BloomFilter bloomFilter, @NotNull Backfill backfill, @NotNull Sequence sequence, @NotNull Batch batch, @NotNull Redirect redirect, @NotNull PinningMonitor pinningMonitor, @NotNull Clicks clicks, @NotNull WriteBehind writeBehind, @NotNull Storage storage, @NotNull ReadReplicas readReplicas, @NotNull Sharding sharding, @NotNull BulkImport bulkImport, @NotNull BulkExport bulkExport, @NotNull Coalescing coalescing, @NotNull CacheSnapshot cacheSnapshot, @NotNull Expiration expiration, @NotNull RateLimit rateLimit) {
 
 	/**
 	 *
 	 * @param length (int) Length of an url token. This is the size of short url token.
 	 * @param maxAttempts (int) Maximum number of attempts to create an url token.
 	 * @param characters (String) Possible characters for an url token. These are all the available characters that can be used to create a short url token.
+	 * @param strategy (Strategy) How the url tokens are created : random characters, or the encoding of a sequence of numbers.
+	 */
+	public record Token(@NotNull @Positive Integer length, @NotNull @Positive Integer maxAttempts, @NotBlank String characters, @NotNull Strategy strategy) {
+
+		/**
+		 * The strategies used to create the url tokens.
+		 */
+		public enum Strategy {
+			/** Random characters : a new token must be checked against the existing tokens. */
+			RANDOM,
+			/** Encoding of a number allocated from a database sequence : a new token is always unique. */
+			SEQUENCE
+		}
+	}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the in-memory token cache is used in front of the database when decoding a short url token.
+	 * @param maxEntries (int) Maximum number of tokens kept in the cache.
+	 * @param maxBytes (long) Maximum estimated memory (in bytes) used by the entries of the cache.
+	 */
+	public record Cache(boolean enabled, @NotNull @Positive Integer maxEntries, @NotNull @Positive Long maxBytes) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether a Bloom filter of the existing tokens is used to reject unknown tokens without reading the database.
+	 *                The filter only knows the tokens loaded at startup and the tokens created by this instance : it must be disabled if several instances create tokens in the same database.
+	 * @param expectedInsertions (long) Number of tokens the filter is sized for.
+	 * @param falsePositiveRate (double) Expected rate of unknown tokens for which the filter answers "might exist", when expectedInsertions tokens are in the filter.
+	 */
+	public record BloomFilter(boolean enabled, @NotNull @Positive Long expectedInsertions, @NotNull @Positive @DecimalMax("0.5") Double falsePositiveRate) {}
+
+	/**
+	 *
+	 * @param batchSize (int) Number of rows updated in each transaction of a backfill job.
+	 */
+	public record Backfill(@NotNull @Positive Integer batchSize) {}
+
+	/**
+	 *
+	 * @param scrambled (boolean) Whether the numbers of the sequence are scrambled before being encoded, so that the next tokens cannot be guessed.
+	 * @param scrambleKey (long) Secret key of the scrambling. Changing it changes all the next tokens, which can then collide with the existing tokens.
+	 *                    Required only by the sequence strategy when scrambled is true (see SequenceShortUrlTokenStrategy) : it can be empty with the random strategy.
+	 * @param segmentSize (int) Number of consecutive numbers leased at once from the TOKEN_SEGMENT table by an instance.
+	 * @param prefetchThreshold (int) Number of numbers left in the current segment when the next segment is leased in the background.
+	 */
+	public record Sequence(boolean scrambled, Long scrambleKey, @NotNull @Positive Integer segmentSize, @NotNull @PositiveOrZero Integer prefetchThreshold) {}
+
+	/**
+	 *
+	 * @param maxSize (int) Maximum number of urls or tokens in one request of a batch endpoint.
+	 */
+	public record Batch(@NotNull @Positive Integer maxSize) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the browsers (requests accepting text/html) reading a short url are redirected to the original url, instead of receiving a JSON response.
+	 * @param status (int) HTTP status of the redirection : 301 or 308 can be cached forever by the browsers, 302 or 307 are requested again each time.
+	 * @param cacheControl (String) Value of the Cache-Control header of the redirection. No header is sent if it is blank.
+	 */
+	public record Redirect(boolean enabled, @NotNull @Min(300) @Max(399) Integer status, @NotNull String cacheControl) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the JFR events of the virtual threads pinned to their carrier thread are recorded and logged. Only useful with spring.threads.virtual.enabled.
+	 * @param thresholdMillis (long) Minimum duration (in milliseconds) of a pinning to be reported.
+	 * @param maxStackDepth (int) Maximum number of stack frames logged for each pinning.
+	 */
+	public record PinningMonitor(boolean enabled, @NotNull @PositiveOrZero Long thresholdMillis, @NotNull @Positive Integer maxStackDepth) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the clicks on the short urls are counted in the SHORT_URL_CLICK table.
+	 * @param bufferSize (int) Maximum number of clicks waiting in memory to be written, rounded up to a power of two.
+	 * @param overflowPolicy (OverflowPolicy) What happens to the clicks when the buffer fills up.
+	 * @param sampleRate (int) With the SAMPLE policy, once the buffer is half full, only 1 click out of sampleRate is kept, and counts for sampleRate clicks.
+	 * @param flushIntervalMillis (long) Delay (in milliseconds) between two writes of the waiting clicks.
+	 * @param flushBatchSize (int) Maximum number of tokens updated by one batch of the SHORT_URL_CLICK table.
+	 */
+	public record Clicks(boolean enabled, @NotNull @Positive @Max(1 << 30) Integer bufferSize, @NotNull OverflowPolicy overflowPolicy, @NotNull @Positive Integer sampleRate,
+						 @NotNull @Positive Long flushIntervalMillis, @NotNull @Positive Integer flushBatchSize) {
+
+		/**
+		 * The policies applied to the clicks when the buffer fills up. The decode of a short url never waits for the buffer.
+		 */
+		public enum OverflowPolicy {
+			/** The clicks are kept until the buffer is full, then the new clicks are dropped. */
+			DROP,
+			/** Once the buffer is half full, the clicks are sampled : the counts stay accurate on average, and the buffer fills up more slowly. */
+			SAMPLE
+		}
+	}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the new short urls are returned before being inserted in the database : they are written in a local journal, then inserted in batches in the background.
+	 *                The tokens waiting to be inserted are only known by this instance : it must be disabled if several instances create tokens in the same database.
+	 * @param journalDirectory (String) Directory of the journal files of the short urls waiting to be inserted. The journal is read again when the application starts.
+	 * @param journalSync (boolean) Whether each new short url is forced to the disk before being returned. Without it, the journal survives a crash of the application, but not a crash of the server.
+	 * @param flushIntervalMillis (long) Maximum delay (in milliseconds) between two insertions of the waiting short urls.
+	 * @param flushBatchSize (int) Number of waiting short urls which starts an insertion right away, and maximum number of rows of one batch.
+	 * @param maxPendingRows (int) Maximum number of short urls waiting to be inserted. Beyond it, the new short urls are inserted right away, like without write-behind.
+	 */
+	public record WriteBehind(boolean enabled, @NotBlank String journalDirectory, boolean journalSync, @NotNull @Positive Long flushIntervalMillis,
+							  @NotNull @Positive Integer flushBatchSize, @NotNull @Positive Integer maxPendingRows) {}
+
+	/**
+	 *
+	 * @param engine (Engine) Where the short urls are stored : in the database, or in memory-mapped files on the local disk.
+	 * @param directory (String) Directory of the files of the mapped-file storage. The files are read again when the application starts.
+	 * @param segmentSizeBytes (int) Size (in bytes) of each file of the mapped-file storage. A new file is created when the current file is full.
+	 * @param indexInitialCapacity (int) Number of short urls that the in-memory indexes of the mapped-file storage hold before growing.
+	 * @param sync (boolean) Whether each new short url is forced to the disk before being returned. Without it, the files survive a crash of the application, but not a crash of the server.
+	 * @param compactionIntervalMillis (long) Delay (in milliseconds) between two checks of the space wasted in the files of the mapped-file storage.
+	 * @param compactionMinGarbageRatio (double) Part of the space of the files that must be wasted before they are compacted.
+	 */
+	public record Storage(@NotNull Engine engine, @NotBlank String directory, @NotNull @Min(1 << 18) Integer segmentSizeBytes, @NotNull @Positive Integer indexInitialCapacity,
+						  boolean sync, @NotNull @Positive Long compactionIntervalMillis, @NotNull @DecimalMin("0.0") @DecimalMax("1.0") Double compactionMinGarbageRatio) {
+
+		/**
+		 * The storages of the short urls.
+		 */
+		public enum Engine {
+			/** The SHORT_URL table of the database (JPA). */
+			DATABASE,
+			/** Append-only files on the local disk, mapped in memory, with in-memory indexes : for the instances running without MySQL. Only known by this instance. */
+			MAPPED_FILE,
+			/** The SHORT_URL tables of several databases (url-shortener.sharding), each holding the short urls of some token prefixes. */
+			SHARDED
+		}
+	}
+
+	/**
+	 * @param enabled (boolean) Whether the read-only lookups of the short urls are sent to the read replicas, while the insertions are sent to the primary database (spring.datasource).
+	 * @param selection (Selection) How the replica of each lookup is chosen.
+	 * @param maximumPoolSize (int) Maximum number of connections of the pool of each replica.
+	 * @param readYourWritesMillis (long) Delay (in milliseconds) during which a short url created by this instance is read from the primary database : it can be missing from the replicas until they catch up.
+	 * @param readYourWritesMaxEntries (int) Maximum number of recently created short urls remembered by this instance.
+	 * @param datasources (List of Replica) The read replicas.
+	 */
+	public record ReadReplicas(boolean enabled, @NotNull Selection selection, @NotNull @Positive Integer maximumPoolSize, @NotNull @PositiveOrZero Long readYourWritesMillis,
+							   @NotNull @Positive Integer readYourWritesMaxEntries, @NotNull List<Replica> datasources) {
+
+		/**
+		 * The ways to choose the replica of a lookup.
+		 */
+		public enum Selection {
+			/** Each replica in turn. */
+			ROUND_ROBIN,
+			/** The replica with the fewest connections in use or awaited. */
+			LEAST_LOADED
+		}
+
+		/**
+		 * @param url (String) JDBC url of the replica.
+		 * @param username (String) Login of the replica.
+		 * @param password (String) Password of the replica.
+		 */
+		public record Replica(@NotBlank String url, String username, String password) {}
+	}
+
+	/**
+	 * @param prefixLength (int) Number of leading characters of a token which choose its shard : the tokens are split in (number of token characters)^prefixLength buckets.
+	 * @param routingRefreshMillis (long) Delay (in milliseconds) between two readings of the shard of each bucket (SHARD_BUCKET table), which changes when a bucket is moved to another shard.
+	 * @param moveBatchSize (int) Number of rows copied or deleted at once when a bucket is moved to another shard.
+	 * @param maximumPoolSize (int) Maximum number of connections of the pool of each shard.
+	 * @param datasources (List of Shard) The shards. A shard keeps its index in this list : new shards are added at the end.
+	 */
+	public record Sharding(@NotNull @Min(1) @Max(2) Integer prefixLength, @NotNull @Positive Long routingRefreshMillis, @NotNull @Positive Integer moveBatchSize,
+						   @NotNull @Positive Integer maximumPoolSize, @NotNull List<Shard> datasources) {
+
+		/**
+		 * @param url (String) JDBC url of the shard.
+		 * @param username (String) Login of the shard.
+		 * @param password (String) Password of the shard.
+		 */
+		public record Shard(@NotBlank String url, String username, String password) {}
+	}
+
+	/**
+	 * @param directory (String) Directory of the files to import : a file is named relative to this directory, and its checkpoint is written next to it.
+	 * @param batchSize (int) Number of lines validated, checked against the existing short urls, and inserted at once.
+	 * @param parallelism (int) Number of threads validating the urls of a batch.
+	 * @param progressIntervalMillis (long) Minimum delay (in milliseconds) between two logs of the progress of an import.
+	 */
+	public record BulkImport(@NotBlank String directory, @NotNull @Positive Integer batchSize, @NotNull @Positive Integer parallelism, @NotNull @Positive Long progressIntervalMillis) {}
+
+	/**
+	 * @param directory (String) Directory where the export files are written.
+	 * @param pageSize (int) Number of short urls read at once, in the order of their ids.
+	 * @param bufferSize (int) Size (in bytes) of the buffer where the lines are written before being sent to the file (and of the buffer of the gzip compression).
+	 * @param progressIntervalMillis (long) Minimum delay (in milliseconds) between two logs of the progress of an export.
+	 */
+	public record BulkExport(@NotBlank String directory, @NotNull @Positive Integer pageSize, @NotNull @Positive Integer bufferSize, @NotNull @Positive Long progressIntervalMillis) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the concurrent creations of a short url for the same original url, and the concurrent decodes of the same token, are coalesced : the first request reaches the database, the other ones wait for its result.
+	 * @param timeoutMillis (long) Maximum delay (in milliseconds) during which a request waits for the result of the same request of another thread. After it, the request runs on its own.
+	 */
+	public record Coalescing(boolean enabled, @NotNull @Positive Long timeoutMillis) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the most used entries of the decode cache are written to a snapshot file, periodically and when the application stops, and put back in the cache when it starts.
+	 *                The entries of the snapshot are not checked against the database : it must be disabled if the database can be emptied between two starts (in-memory database).
+	 * @param file (String) Path of the snapshot file.
+	 * @param maxEntries (int) Maximum number of entries written to the snapshot, the most frequently used first. Should not exceed url-shortener.cache.max-entries.
+	 * @param intervalMillis (long) Delay (in milliseconds) between two writes of the snapshot.
+	 */
+	public record CacheSnapshot(boolean enabled, @NotBlank String file, @NotNull @Positive Integer maxEntries, @NotNull @Positive Long intervalMillis) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether a short url can be created with an expiration time. Only the database storage supports it (url-shortener.storage.engine).
+	 *                The expired short urls are not decoded anymore, and their rows are deleted in the background.
+	 * @param tickMillis (long) Precision (in milliseconds) of the deletion : an expired short url is deleted at most tickMillis after its expiration time (plus the time of the deletion).
+	 * @param wheelSize (int) Number of slots of each level of the timing wheel holding the short urls until their expiration time, rounded up to a power of two.
+	 * @param preloadWindowMillis (long) The short urls expiring in the next preloadWindowMillis are read from the database and put in the timing wheel, again every preloadWindowMillis / 2.
+	 * @param pageSize (int) Number of expiring short urls read at once.
+	 * @param deleteBatchSize (int) Maximum number of expired short urls deleted by one query.
+	 */
+	public record Expiration(boolean enabled, @NotNull @Positive Long tickMillis, @NotNull @Positive Integer wheelSize, @NotNull @Positive Long preloadWindowMillis,
+							 @NotNull @Positive Integer pageSize, @NotNull @Positive Integer deleteBatchSize) {}
+
+	/**
+	 *
+	 * @param enabled (boolean) Whether the creations of short urls (POST / and POST /batch) are limited per client. A client over its limit gets a 429 response with a Retry-After header.
+	 * @param capacity (int) Maximum number of requests that a client can send at once (size of its token bucket).
+	 * @param refillPerSecond (double) Number of requests per second that a client can send in the long run (tokens added to its bucket per second).
+	 * @param clientKeyHeader (String) Header holding the API key of the client. Empty by default : the client is identified by its IP address.
+	 *                        The key of the header is used only if it is one of apiKeys, or if the request comes from one of trustedGateways : a client could otherwise send a new key with each request.
+	 * @param apiKeys (List) The known API keys. A request with another key is identified by its IP address.
+	 * @param trustedGateways (List) IP addresses of the gateways which check the API keys themselves : the key of their requests is used even if it is not one of apiKeys.
+	 * @param maxClients (int) Maximum number of clients whose bucket is kept in memory. The buckets of the clients idle long enough to be full again are forgotten first,
+	 *                   then the buckets of the least recently seen clients.
+	 * @param stripes (int) Number of independent parts of the buckets map, rounded up to a power of two : the forgetting of the buckets locks one part at a time.
 	 */
-	public record Token(@NotNull @Positive Integer length, @NotNull @Positive Integer maxAttempts, @NotBlank String characters) {}
+	public record RateLimit(boolean enabled, @NotNull @Positive Integer capacity, @NotNull @Positive Double refillPerSecond, String clientKeyHeader,
+							@NotNull List<String> apiKeys, @NotNull List<String> trustedGateways, @NotNull @Positive Integer maxClients, @NotNull @Positive Integer stripes) {}
 
 }
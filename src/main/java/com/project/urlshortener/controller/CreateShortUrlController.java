@@ -2,24 +2,34 @@ package com.project.urlshortener.controller;
 
 import com.project.urlshortener.common.controller.AbstractCommonController;
 import com.project.urlshortener.common.model.RestBasicResponse;
+import com.project.urlshortener.exception.ShortUrlBatchTooLargeException;
+import com.project.urlshortener.exception.ShortUrlInvalidExpirationException;
 import com.project.urlshortener.exception.ShortUrlInvalidUrlException;
+import com.project.urlshortener.exception.ShortUrlRateLimitExceededException;
 import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
 import com.project.urlshortener.exception.ShortUrlTokenCannotBeCreatedException;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchItem;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchRequest;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchResponse;
 import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlRequest;
 import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlResponse;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
 import com.project.urlshortener.service.UrlShortenerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
- * REST Controller : POST / endpoint (creates a short url from an original url).
+ * REST Controller : POST / endpoint (creates a short url from an original url) and POST /batch endpoint (creates short urls from several original urls).
  */
 @RestController
 @RequestMapping("/")
@@ -36,17 +46,19 @@ public class CreateShortUrlController extends AbstractCommonController {
 
 	/**
 	 * Creates a short url for an original url.<br/>
+	 * With an expiration time, the short url is deleted once it is over ; the expiration time of an existing short url of the same url is set to it.
 	 *
-	 * @param request UrlShortenerCreateShortUrlRequest with the url
+	 * @param request UrlShortenerCreateShortUrlRequest with the url, and optionally the expiration time
 	 * @return ResponseEntity with a UrlShortenerCreateShortUrlResponse with the shortUrl (base url + token).
 	 * @throws ShortUrlTokenCannotBeCreatedException If the no short url token could be created for technical issues.
 	 * @throws ShortUrlTokenAlreadyUsedException If the no short url token could be created because no unique token could be created for technical issues despite retries.
 	 * @throws ShortUrlInvalidUrlException If the provided url is not a valid url.
+	 * @throws ShortUrlInvalidExpirationException If the expiration time is not in the future, or if the expiration is not enabled.
 	 */
 	@PostMapping("/")
-	public ResponseEntity<UrlShortenerCreateShortUrlResponse> createShortUrl(final @Valid @RequestBody UrlShortenerCreateShortUrlRequest request) throws ShortUrlTokenCannotBeCreatedException, ShortUrlInvalidUrlException, ShortUrlTokenAlreadyUsedException {
+	public ResponseEntity<UrlShortenerCreateShortUrlResponse> createShortUrl(final @Valid @RequestBody UrlShortenerCreateShortUrlRequest request) throws ShortUrlTokenCannotBeCreatedException, ShortUrlInvalidUrlException, ShortUrlTokenAlreadyUsedException, ShortUrlInvalidExpirationException {
 
-		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(request.getUrl());
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(request.getUrl(), request.getExpiresAt());
 		return ResponseEntity.ok(
 				UrlShortenerCreateShortUrlResponse.builder()
 					.shortUrl(shortUrl)
@@ -56,6 +68,58 @@ public class CreateShortUrlController extends AbstractCommonController {
 
 	}
 
+	/**
+	 * Creates short urls for several original urls at once.<br/>
+	 * Each url has its own result, with its short url or its localized error : one invalid url does not make the whole request fail.
+	 *
+	 * @param request UrlShortenerCreateShortUrlBatchRequest with the urls
+	 * @return ResponseEntity with a UrlShortenerCreateShortUrlBatchResponse with the result of each url, in the order of the request.
+	 * @throws ShortUrlBatchTooLargeException If the request contains too many urls.
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<UrlShortenerCreateShortUrlBatchResponse> createShortUrls(final @Valid @RequestBody UrlShortenerCreateShortUrlBatchRequest request) throws ShortUrlBatchTooLargeException {
+
+		List<UrlShortenerCreateShortUrlBatchItem> results = urlShortenerService.obtainShortUrlsForOriginalCompleteUrls(request.getUrls()).stream()
+				.map(this::toBatchItem)
+				.toList();
+		return ResponseEntity.ok(
+				UrlShortenerCreateShortUrlBatchResponse.builder()
+					.results(results)
+					.success(true)
+					.build()
+		);
+
+	}
+
+	/**
+	 * Converts the result of one url to the JSON item of the batch response, with a localized error message.
+	 *
+	 * @param result CreateShortUrlResult the result of one url.
+	 * @return UrlShortenerCreateShortUrlBatchItem the JSON item.
+	 */
+	private UrlShortenerCreateShortUrlBatchItem toBatchItem(final CreateShortUrlResult result) {
+		return UrlShortenerCreateShortUrlBatchItem.builder()
+				.url(result.originalUrl())
+				.shortUrl(result.shortUrl())
+				.success(result.isSuccess())
+				.error(result.isSuccess() ? null : getLocalizedErrorMessage(result.error(), getMessageSource()))
+				.build();
+	}
+
+	/**
+	 * Exception Handler for ShortUrlBatchTooLargeException.<br/>
+	 * Triggers a BAD_REQUEST response code.
+	 *
+	 * @param sbtle ShortUrlBatchTooLargeException an exception occurring when a batch request contains too many urls.
+	 * @return RestBasicResponse with a localized error message.
+	 */
+	@ExceptionHandler(ShortUrlBatchTooLargeException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public RestBasicResponse onShortUrlBatchTooLargeException(final ShortUrlBatchTooLargeException sbtle) {
+		return handleExceptionWithLocalizedMessage(sbtle);
+	}
+
 	/**
 	 * Exception Handler for ShortUrlInvalidUrlException.<br/>
 	 * Triggers a BAD_REQUEST response code.
@@ -70,6 +134,34 @@ public class CreateShortUrlController extends AbstractCommonController {
 		return handleExceptionWithLocalizedMessage(suiue);
 	}
 
+	/**
+	 * Exception Handler for ShortUrlInvalidExpirationException.<br/>
+	 * Triggers a BAD_REQUEST response code.
+	 *
+	 * @param suiee ShortUrlInvalidExpirationException an exception occurring when the expiration time of a short url cannot be used.
+	 * @return RestBasicResponse with a localized error message.
+	 */
+	@ExceptionHandler(ShortUrlInvalidExpirationException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public RestBasicResponse onShortUrlInvalidExpirationException(final ShortUrlInvalidExpirationException suiee) {
+		return handleExceptionWithLocalizedMessage(suiee);
+	}
+
+	/**
+	 * Exception Handler for ShortUrlRateLimitExceededException.<br/>
+	 * Triggers a TOO_MANY_REQUESTS response code, with a Retry-After header (in seconds).
+	 *
+	 * @param surlee ShortUrlRateLimitExceededException an exception occurring when a client creates too many short urls.
+	 * @return ResponseEntity with a RestBasicResponse with a localized error message.
+	 */
+	@ExceptionHandler(ShortUrlRateLimitExceededException.class)
+	public ResponseEntity<RestBasicResponse> onShortUrlRateLimitExceededException(final ShortUrlRateLimitExceededException surlee) {
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(surlee.getRetryAfterSeconds()))
+				.body(handleExceptionWithLocalizedMessage(surlee));
+	}
+
 	@Override
 	protected Logger getLogger() {
 		return log;
@@ -2,10 +2,15 @@ package com.project.urlshortener.controller;
 
 import com.project.urlshortener.common.controller.AbstractCommonController;
 import com.project.urlshortener.common.model.RestBasicResponse;
+import com.project.urlshortener.exception.ShortUrlBatchTooLargeException;
 import com.project.urlshortener.exception.ShortUrlInvalidTokenException;
 import com.project.urlshortener.exception.ShortUrlTokenNotFoundException;
+import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlBatchRequest;
+import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlBatchResponse;
 import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlResponse;
+import com.project.urlshortener.model.shorturl.DecodeShortUrlsResult;
 import com.project.urlshortener.service.UrlShortenerService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -17,7 +22,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 /**
- * REST controller : GET / endpoint (decode a short url).
+ * REST controller : GET / endpoint (decode a short url) and POST /decode/batch endpoint (decode several short urls).
  */
 @RestController
 @RequestMapping("/")
@@ -64,6 +69,28 @@ public class DecodeShortUrlController extends AbstractCommonController {
 		return decodeShortUrl(StringUtils.EMPTY);
 	}
 
+	/**
+	 * Reads several short url tokens at once and finds the matching original urls.<br/>
+	 * The unknown tokens do not make the request fail : they are listed in the response.
+	 *
+	 * @param request UrlShortenerDecodeShortUrlBatchRequest with the short url tokens.
+	 * @return ResponseEntity with a UrlShortenerDecodeShortUrlBatchResponse with the originalCompleteUrls by token, and the unknownTokens.
+	 * @throws ShortUrlBatchTooLargeException If the request contains too many tokens.
+	 */
+	@PostMapping("/decode/batch")
+	public ResponseEntity<UrlShortenerDecodeShortUrlBatchResponse> decodeShortUrls(final @Valid @RequestBody UrlShortenerDecodeShortUrlBatchRequest request) throws ShortUrlBatchTooLargeException {
+
+		DecodeShortUrlsResult result = urlShortenerService.getOriginalUrlsForShortUrlTokens(request.getTokens());
+		return ResponseEntity.ok(
+				UrlShortenerDecodeShortUrlBatchResponse.builder()
+						.originalCompleteUrls(result.originalUrls())
+						.unknownTokens(result.unknownTokens())
+						.success(true)
+						.build()
+		);
+
+	}
+
 	/**
 	 * Exception Handler for ShortUrlTokenNotFoundException.<br/>
 	 * Triggers a NOT_FOUND response code.
@@ -92,6 +119,20 @@ public class DecodeShortUrlController extends AbstractCommonController {
 		return handleExceptionWithLocalizedMessage(suite);
 	}
 
+	/**
+	 * Exception Handler for ShortUrlBatchTooLargeException.<br/>
+	 * Triggers a BAD_REQUEST response code.
+	 *
+	 * @param sbtle ShortUrlBatchTooLargeException an exception occurring when a batch request contains too many tokens.
+	 * @return RestBasicResponse with a localized error message.
+	 */
+	@ExceptionHandler(ShortUrlBatchTooLargeException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public RestBasicResponse onShortUrlBatchTooLargeException(final ShortUrlBatchTooLargeException sbtle) {
+		return handleExceptionWithLocalizedMessage(sbtle);
+	}
+
 	@Override
 	protected Logger getLogger() {
 		return log;
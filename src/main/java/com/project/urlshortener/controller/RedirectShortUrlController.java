@@ -0,0 +1,135 @@
+package com.project.urlshortener.controller;
+
+import com.project.urlshortener.common.controller.AbstractCommonController;
+import com.project.urlshortener.common.model.RestBasicResponse;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.exception.ShortUrlInvalidTokenException;
+import com.project.urlshortener.exception.ShortUrlTokenNotFoundException;
+import com.project.urlshortener.service.UrlShortenerService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * REST controller : GET / endpoint for the browsers (redirects a short url to its original url).<br/>
+ * The requests accepting text/html are answered by this controller with a redirection (status and Location header only, no body).
+ * The other requests (application/json) are still answered by DecodeShortUrlController.<br/>
+ * This is the most requested endpoint : the status and the Cache-Control header are read once from UrlShortenerProperties.Redirect,
+ * and the response is written directly, without any ResponseEntity or JSON serialization. The errors are answered with a short html page.
+ */
+@RestController
+@RequestMapping("/")
+@Validated
+@ConditionalOnProperty(prefix = "url-shortener.redirect", name = "enabled", havingValue = "true")
+@Slf4j
+public class RedirectShortUrlController extends AbstractCommonController {
+
+	/** Content type of the error pages. */
+	private static final MediaType HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+
+	/** Services for reading and creating short url tokens. */
+	private final UrlShortenerService urlShortenerService;
+
+	/** Access to the localized messages of the application. */
+	private final MessageSource messageSource;
+
+	/** HTTP status of the redirections. */
+	private final int redirectStatus;
+
+	/** Value of the Cache-Control header of the redirections. Null if no header is sent. */
+	private final String cacheControl;
+
+	/**
+	 * Default constructor for RedirectShortUrlController.
+	 *
+	 * @param urlShortenerService instance of UrlShortenerService.
+	 * @param messageSource instance of MessageSource.
+	 * @param urlShortenerProperties instance of UrlShortenerProperties.
+	 */
+	public RedirectShortUrlController(final UrlShortenerService urlShortenerService, final MessageSource messageSource, final UrlShortenerProperties urlShortenerProperties) {
+		this.urlShortenerService = urlShortenerService;
+		this.messageSource = messageSource;
+		this.redirectStatus = urlShortenerProperties.redirect().status();
+		this.cacheControl = StringUtils.trimToNull(urlShortenerProperties.redirect().cacheControl());
+	}
+
+	/**
+	 * Reads a short url token and redirects the browser to the matching original url.<br/>
+	 *
+	 * @param shortUrlToken the short url token (normally a 10 character string token).
+	 * @param response the HTTP response, in which the status and the headers of the redirection are written.
+	 * @throws ShortUrlTokenNotFoundException If the token does not exist, a ShortUrlTokenNotFoundException will be thrown.
+	 * @throws ShortUrlInvalidTokenException If the token is empty or invalid, a ShortUrlInvalidTokenException will be thrown.
+	 */
+	@GetMapping(value = "/{short-url-token}", produces = MediaType.TEXT_HTML_VALUE)
+	public void redirectShortUrl(final @PathVariable("short-url-token") String shortUrlToken, final HttpServletResponse response) throws ShortUrlTokenNotFoundException, ShortUrlInvalidTokenException {
+
+		String originalUrl = urlShortenerService.getOriginalUrlForShortUrlToken(shortUrlToken);
+		response.setStatus(redirectStatus);
+		response.setHeader(HttpHeaders.LOCATION, originalUrl);
+		if (cacheControl != null) {
+			response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+		}
+
+	}
+
+	/**
+	 * Exception Handler for ShortUrlTokenNotFoundException.<br/>
+	 * Triggers a NOT_FOUND response code, with an html page : the browsers accept only text/html on this endpoint.
+	 *
+	 * @param sutnfe ShortUrlTokenNotFoundException an exception occurring when a short url token does not have any known match for an original url.
+	 * @return ResponseEntity with an html page with a localized error message.
+	 */
+	@ExceptionHandler(ShortUrlTokenNotFoundException.class)
+	public ResponseEntity<String> onShortUrlTokenNotFoundException(final ShortUrlTokenNotFoundException sutnfe) {
+		return htmlErrorPage(HttpStatus.NOT_FOUND, handleExceptionWithLocalizedMessage(sutnfe));
+	}
+
+	/**
+	 * Exception Handler for ShortUrlInvalidTokenException.<br/>
+	 * Triggers a BAD_REQUEST response code, with an html page : the browsers accept only text/html on this endpoint.
+	 *
+	 * @param suite ShortUrlInvalidTokenException an exception occurring when a short url token is null or empty.
+	 * @return ResponseEntity with an html page with a localized error message.
+	 */
+	@ExceptionHandler(ShortUrlInvalidTokenException.class)
+	public ResponseEntity<String> onShortUrlInvalidTokenException(final ShortUrlInvalidTokenException suite) {
+		return htmlErrorPage(HttpStatus.BAD_REQUEST, handleExceptionWithLocalizedMessage(suite));
+	}
+
+	/**
+	 * Builds a minimal html page with an error message. The message is escaped : it can contain the token sent by the browser.
+	 *
+	 * @param status the HTTP status of the response.
+	 * @param restBasicResponse the response with the localized error message.
+	 * @return ResponseEntity with the html page.
+	 */
+	private static ResponseEntity<String> htmlErrorPage(final HttpStatus status, final RestBasicResponse restBasicResponse) {
+		String message = HtmlUtils.htmlEscape(StringUtils.defaultString(restBasicResponse.getError()));
+		return ResponseEntity.status(status)
+				.contentType(HTML_UTF8)
+				.body("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>" + status.value() + "</title></head><body><p>" + message + "</p></body></html>");
+	}
+
+	@Override
+	protected Logger getLogger() {
+		return log;
+	}
+
+	@Override
+	protected MessageSource getMessageSource() {
+		return this.messageSource;
+	}
+}
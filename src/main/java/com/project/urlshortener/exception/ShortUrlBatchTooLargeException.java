@@ -0,0 +1,53 @@
+package com.project.urlshortener.exception;
+
+import com.project.urlshortener.common.exception.ExceptionWithMessageKey;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * An Exception for when a batch request contains more elements than allowed (see UrlShortenerProperties.Batch.maxSize).<br/>
+ * This error is a RuntimeException.
+ */
+public class ShortUrlBatchTooLargeException extends RuntimeException implements ExceptionWithMessageKey {
+
+    private static final String MESSAGE_KEY_BATCH_TOO_LARGE = "error.shorturl.BatchTooLarge";
+
+    /**
+     * The number of elements of the request.
+     */
+    private final int size;
+
+    /**
+     * The maximum number of elements of a request.
+     */
+    private final int maxSize;
+
+    /**
+     * Default constructor for ShortUrlBatchTooLargeException.
+     * @param size the number of elements of the request.
+     * @param maxSize the maximum number of elements of a request.
+     */
+    public ShortUrlBatchTooLargeException(final int size, final int maxSize) {
+        super();
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public String getMessageKey() {
+        return MESSAGE_KEY_BATCH_TOO_LARGE;
+    }
+
+    @Override
+    public String[] getMessageArguments() {
+        return new String[] { String.valueOf(this.size), String.valueOf(this.maxSize) };
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("size", size)
+                .append("maxSize", maxSize)
+                .toString();
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.project.urlshortener.exception;
+
+import com.project.urlshortener.common.exception.ExceptionWithMessageKey;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.time.Instant;
+
+/**
+ * An Exception for when the expiration time of a new short url cannot be used : it is not in the future, or the expiration is not enabled (see UrlShortenerProperties.Expiration).
+ */
+@Getter
+public class ShortUrlInvalidExpirationException extends Exception implements ExceptionWithMessageKey {
+
+    private static final String MESSAGE_KEY_INVALID_EXPIRATION = "error.shorturl.InvalidExpiration";
+
+    /**
+     * The expiration time that was invalid.
+     */
+    private final Instant expiresAt;
+
+    public ShortUrlInvalidExpirationException(final Instant expiresAt) {
+        super();
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getMessageKey() {
+        return MESSAGE_KEY_INVALID_EXPIRATION;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("expiresAt", expiresAt)
+                .toString();
+    }
+
+    @Override
+    public String[] getMessageArguments() {
+        return new String[] { String.valueOf(this.expiresAt) };
+    }
+}
@@ -0,0 +1,47 @@
+package com.project.urlshortener.exception;
+
+import com.project.urlshortener.common.exception.ExceptionWithMessageKey;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * An Exception for when a client sends more creation requests than its rate limit allows (see UrlShortenerProperties.RateLimit).<br/>
+ * This error is a RuntimeException.
+ */
+@Getter
+public class ShortUrlRateLimitExceededException extends RuntimeException implements ExceptionWithMessageKey {
+
+    private static final String MESSAGE_KEY_RATE_LIMIT_EXCEEDED = "error.shorturl.RateLimitExceeded";
+
+    /**
+     * The delay (in seconds) before the client can send a new request.
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * Default constructor for ShortUrlRateLimitExceededException.
+     * @param retryAfterSeconds the delay (in seconds) before the client can send a new request.
+     */
+    public ShortUrlRateLimitExceededException(final long retryAfterSeconds) {
+        super();
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public String getMessageKey() {
+        return MESSAGE_KEY_RATE_LIMIT_EXCEEDED;
+    }
+
+    @Override
+    public String[] getMessageArguments() {
+        return new String[] { String.valueOf(this.retryAfterSeconds) };
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("retryAfterSeconds", retryAfterSeconds)
+                .toString();
+    }
+
+}
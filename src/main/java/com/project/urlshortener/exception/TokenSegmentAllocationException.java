@@ -0,0 +1,45 @@
+package com.project.urlshortener.exception;
+
+import com.project.urlshortener.common.exception.ExceptionWithMessageKey;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * An Exception for when numbers of a sequence cannot be allocated, because too many instances allocate numbers at the same time.<br/>
+ * This error is a RuntimeException.
+ */
+public class TokenSegmentAllocationException extends RuntimeException implements ExceptionWithMessageKey {
+
+    private static final String MESSAGE_KEY_TOKEN_SEGMENT_ALLOCATION = "error.shorturl.TokenSegmentAllocation";
+
+    /**
+     * The name of the sequence.
+     */
+    private final String segmentName;
+
+    /**
+     * Default constructor for TokenSegmentAllocationException.
+     * @param segmentName the name of the sequence.
+     */
+    public TokenSegmentAllocationException(final String segmentName) {
+        super();
+        this.segmentName = segmentName;
+    }
+
+    @Override
+    public String getMessageKey() {
+        return MESSAGE_KEY_TOKEN_SEGMENT_ALLOCATION;
+    }
+
+    @Override
+    public String[] getMessageArguments() {
+        return new String[] { this.segmentName };
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("segmentName", segmentName)
+                .toString();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.project.urlshortener.job;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.OriginalUrlHashBackfillStatus;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Computes the ORIGINAL_URL_HASH column of the rows of SHORT_URL created before this column existed.<br/>
+ * The job runs in the background once the application has started, in batches of rows (see UrlShortenerProperties.Backfill).
+ * Until the job is completed (see OriginalUrlHashBackfillStatus), the original urls must also be searched without their hash.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OriginalUrlHashBackfillJob {
+
+    /** Spring Data Repository for the SHORT_URL table. */
+    private final ShortUrlRepository shortUrlRepository;
+
+    /** Runs each batch of rows in its own transaction. */
+    private final TransactionTemplate transactionTemplate;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /** Progress of the job, read by the lookups of the original urls. */
+    private final OriginalUrlHashBackfillStatus originalUrlHashBackfillStatus;
+
+    /**
+     * Computes the hash of the original url of every row which does not have one, in batches, in the order of the ids.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOriginalUrlHashes() {
+        long start = System.nanoTime();
+        long lastId = 0;
+        long updatedCount = 0;
+        List<ShortUrlEntity> batch;
+        do {
+            batch = shortUrlRepository.findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(urlShortenerProperties.backfill().batchSize()));
+            if (!batch.isEmpty()) {
+                updatedCount += saveBatch(batch);
+                lastId = batch.getLast().getId();
+            }
+        } while (!batch.isEmpty());
+        originalUrlHashBackfillStatus.markCompleted();
+
+        if (log.isInfoEnabled()) {
+            log.info("backfillOriginalUrlHashes : {} rows updated in {} ms", updatedCount, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Saves the hashes of a batch of rows in one transaction.<br/>
+     * If the batch fails because two rows have the same original url (the table had no unique constraint on the original urls),
+     * the rows are saved one by one and the duplicated rows keep a null hash : the first row of an original url is the one found by its hash.
+     *
+     * @param batch the rows without hash.
+     * @return the number of rows updated.
+     */
+    private int saveBatch(final List<ShortUrlEntity> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveHashes(batch));
+            return batch.size();
+        } catch (DataIntegrityViolationException e) {
+            int updatedCount = 0;
+            for (ShortUrlEntity shortUrlEntity : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> saveHashes(List.of(shortUrlEntity)));
+                    updatedCount++;
+                } catch (DataIntegrityViolationException duplicate) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("backfillOriginalUrlHashes : the row id[{}] token[{}] is a duplicate of another original url, its hash stays null", shortUrlEntity.getId(), shortUrlEntity.getToken());
+                    }
+                }
+            }
+            return updatedCount;
+        }
+    }
+
+    private void saveHashes(final List<ShortUrlEntity> shortUrlEntities) {
+        shortUrlEntities.forEach(ShortUrlEntity::computeOriginalUrlHash);
+        shortUrlRepository.saveAll(shortUrlEntities);
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.project.urlshortener.job;
+
+import com.project.urlshortener.common.utils.HierarchicalTimingWheel;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlExpirationDao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Deletes the expired short urls from the database, shortly after their expiration time, without scanning the SHORT_URL table.<br/>
+ * The short urls are held in a hierarchical timing wheel until their expiration time (see HierarchicalTimingWheel). The wheel is filled from two sources :
+ * <ul>
+ *     <li>every expiration.preloadWindowMillis / 2, the short urls expiring in the next expiration.preloadWindowMillis are read with a range query on the index of EXPIRES_AT
+ *     (including the short urls already expired, for instance while the application was stopped) ;</li>
+ *     <li>the short urls created or updated by this instance (see schedule), when they expire before the end of the preloaded window. The later ones are read by a next preload.</li>
+ * </ul>
+ * Every expiration.tickMillis, the wheel is moved forward, and the short urls whose expiration time is over are deleted in batches of expiration.deleteBatchSize tokens.
+ * A delete only removes the rows which are still expired : a short url whose expiration was pushed back or removed (by this instance or by another one) is kept.
+ * If a batch cannot be deleted, its short urls are read again by the next preload.<br/>
+ * Used when url-shortener.expiration.enabled is true, with the database storage.
+ */
+@Component
+@ConditionalOnExpression("${url-shortener.expiration.enabled:false} and '${url-shortener.storage.engine:database}'.equalsIgnoreCase('database')")
+@Slf4j
+public class ShortUrlExpirationJob {
+
+    /** Functions to find and delete the short urls which expire. */
+    private final ShortUrlExpirationDao shortUrlExpirationDao;
+
+    /** Parameters of the expiration. */
+    private final UrlShortenerProperties.Expiration expirationProperties;
+
+    /** The short urls created or updated by the requests since the last sweep. */
+    private final Queue<ShortUrlEntity> scheduledShortUrls = new ConcurrentLinkedQueue<>();
+
+    /** Expiration time (in epoch milliseconds) of each token of the wheel : the latest one, when a token was added again with a later expiration. */
+    private final Map<String, Long> expirationsByToken = new HashMap<>();
+
+    /** Makes the sweeps wait for each other : the wheel is not thread-safe. */
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    /** The tokens waiting for their expiration. Created by the first sweep. */
+    private HierarchicalTimingWheel<String> timingWheel;
+
+    /** End (in epoch milliseconds) of the window read by the last preload : the short urls expiring before it are in the wheel. */
+    private long loadedUntilMillis;
+
+    /** Time (in epoch milliseconds) of the next preload. */
+    private long nextPreloadMillis;
+
+    /**
+     * Default constructor for ShortUrlExpirationJob.
+     *
+     * @param shortUrlExpirationDao instance of ShortUrlExpirationDao.
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public ShortUrlExpirationJob(final ShortUrlExpirationDao shortUrlExpirationDao, final UrlShortenerProperties urlShortenerProperties) {
+        this.shortUrlExpirationDao = shortUrlExpirationDao;
+        this.expirationProperties = urlShortenerProperties.expiration();
+    }
+
+    /**
+     * Tells the job that a short url was created, or that its expiration time was changed, so that it is deleted on time without waiting for the next preload.<br/>
+     * Called by the request threads : the short url is only queued, and put in the wheel by the next sweep.
+     *
+     * @param shortUrlEntity the short url, with its token and its expiration time (null if it does not expire anymore).
+     */
+    public void schedule(final ShortUrlEntity shortUrlEntity) {
+        requireNonNull(shortUrlEntity, "shortUrlEntity");
+
+        scheduledShortUrls.add(shortUrlEntity);
+    }
+
+    /**
+     * Deletes the expired short urls, every url-shortener.expiration.tick-millis.
+     */
+    @Scheduled(fixedDelayString = "${url-shortener.expiration.tick-millis}")
+    public void sweep() {
+        sweep(System.currentTimeMillis());
+    }
+
+    /**
+     * Preloads the short urls expiring soon if needed, puts the short urls of the requests in the wheel, then deletes the short urls whose expiration time is over.
+     *
+     * @param nowMillis the current time (in epoch milliseconds).
+     * @return the number of short urls deleted.
+     */
+    int sweep(final long nowMillis) {
+        sweepLock.lock();
+        try {
+            if (timingWheel == null) {
+                timingWheel = new HierarchicalTimingWheel<>(expirationProperties.tickMillis(), expirationProperties.wheelSize(), expirationProperties.preloadWindowMillis(), nowMillis);
+            }
+            if (nowMillis >= nextPreloadMillis) {
+                preload(nowMillis);
+            }
+            ShortUrlEntity shortUrlEntity;
+            while ((shortUrlEntity = scheduledShortUrls.poll()) != null) {
+                if (shortUrlEntity.getExpiresAt() == null) {
+                    expirationsByToken.remove(shortUrlEntity.getToken());
+                } else if (shortUrlEntity.getExpiresAt().toEpochMilli() < loadedUntilMillis) {
+                    add(shortUrlEntity.getToken(), shortUrlEntity.getExpiresAt().toEpochMilli());
+                }
+            }
+
+            List<String> expiredTokens = new ArrayList<>();
+            timingWheel.advance(nowMillis, token -> {
+                Long expiresAtMillis = expirationsByToken.get(token);
+                // a token whose expiration was pushed back is still in the wheel, with its new expiration
+                if (expiresAtMillis != null && expiresAtMillis <= nowMillis) {
+                    expirationsByToken.remove(token);
+                    expiredTokens.add(token);
+                }
+            });
+            return delete(expiredTokens, nowMillis);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Gives the number of short urls waiting for their expiration in the wheel.
+     *
+     * @return the number of tokens of the wheel.
+     */
+    public int getScheduledCount() {
+        sweepLock.lock();
+        try {
+            return expirationsByToken.size();
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the short urls expiring in the next preloadWindowMillis, and puts them in the wheel. If the database cannot be read, the preload is tried again by the next sweep.
+     */
+    private void preload(final long nowMillis) {
+        long start = System.nanoTime();
+        long untilMillis = nowMillis + expirationProperties.preloadWindowMillis();
+        try {
+            shortUrlExpirationDao.forEachShortUrlExpiringBefore(Instant.ofEpochMilli(untilMillis), expirationProperties.pageSize(),
+                    shortUrlEntity -> add(shortUrlEntity.getToken(), shortUrlEntity.getExpiresAt().toEpochMilli()));
+        } catch (DataAccessException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("preload : the short urls expiring before [{}] could not be read", Instant.ofEpochMilli(untilMillis), e);
+            }
+            return;
+        }
+        loadedUntilMillis = untilMillis;
+        nextPreloadMillis = nowMillis + expirationProperties.preloadWindowMillis() / 2;
+        if (log.isDebugEnabled()) {
+            log.debug("preload : {} short urls expiring before [{}] in the wheel, read in {} ms", expirationsByToken.size(), Instant.ofEpochMilli(untilMillis),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Puts a token in the wheel, unless it is already there with the same or a later expiration.
+     */
+    private void add(final String token, final long expiresAtMillis) {
+        Long previousExpiresAtMillis = expirationsByToken.get(token);
+        if (previousExpiresAtMillis == null || previousExpiresAtMillis < expiresAtMillis) {
+            expirationsByToken.put(token, expiresAtMillis);
+            timingWheel.add(token, expiresAtMillis);
+        }
+    }
+
+    /**
+     * Deletes the expired short urls, in batches of deleteBatchSize tokens.
+     */
+    private int delete(final List<String> expiredTokens, final long nowMillis) {
+        int deletedCount = 0;
+        for (int start = 0; start < expiredTokens.size(); start += expirationProperties.deleteBatchSize()) {
+            List<String> batch = expiredTokens.subList(start, Math.min(expiredTokens.size(), start + expirationProperties.deleteBatchSize()));
+            try {
+                deletedCount += shortUrlExpirationDao.deleteExpiredShortUrls(batch, Instant.ofEpochMilli(nowMillis));
+            } catch (DataAccessException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("delete : {} expired short urls could not be deleted, they are read again by the next preload", batch.size(), e);
+                }
+            }
+        }
+        if (deletedCount > 0 && log.isDebugEnabled()) {
+            log.debug("delete : {} expired short urls deleted", deletedCount);
+        }
+        return deletedCount;
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.project.urlshortener.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.bulkexport.ShortUrlExportProgress;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shorturl.ShortUrlFileFormat;
+import com.project.urlshortener.repository.ShortUrlDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Exports all the short urls (token and original url) to a file, for the backups and the analytics.<br/>
+ * The short urls are read by pages of bulkExport.pageSize, in the order of their ids (see ShortUrlDao.forEachExistingShortUrl), and each line is written to a buffer of bulkExport.bufferSize bytes,
+ * reused until the end of the export, then to the file, optionally compressed with gzip : the memory used does not depend on the number of short urls.<br/>
+ * The file is written to bulkExport.directory, under a temporary name until the export is completed. Its format is the format read by ShortUrlImportJob :
+ * <ul>
+ *     <li>csv file (.csv) : a header line "token,url", then one short url per line;</li>
+ *     <li>ndjson file (.ndjson) : one json object per line, {"token": "...", "url": "..."}.</li>
+ * </ul>
+ * The progress and the throughput are logged every bulkExport.progressIntervalMillis, and given by getProgress.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlExportJob {
+
+    /** Number of short urls written between two checks of the progress interval. */
+    private static final int PROGRESS_CHECK_INTERVAL = 1024;
+
+    private static final DateTimeFormatter FILE_NAME_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /** Reads the short urls. */
+    private final ShortUrlDao shortUrlDao;
+
+    /** Writes the lines of the ndjson files. */
+    private final ObjectMapper objectMapper;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /** Whether an export is running : only one file is exported at a time. */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** The progress of the current export, or of the last one. Null if no export was started. */
+    private volatile ShortUrlExportProgress progress;
+
+    /**
+     * Gives the progress of the current export, or of the last one.
+     *
+     * @return the progress. Null if no export was started.
+     */
+    public ShortUrlExportProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Indicates whether an export is running.
+     *
+     * @return true while the short urls are being exported.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Exports all the short urls to a new file of the export directory, in the background. The file is named after the current date : short-urls-yyyyMMdd-HHmmss.csv (or .ndjson), with .gz if compressed.
+     *
+     * @param format the format of the file.
+     * @param gzip whether the file is compressed with gzip.
+     * @return the progress of the export, once all the short urls are written.
+     * @throws IllegalStateException if another export is running.
+     */
+    @Async
+    public CompletableFuture<ShortUrlExportProgress> exportFile(final ShortUrlFileFormat format, final boolean gzip) {
+        requireNonNull(format, "format");
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another export is running");
+        }
+
+        String fileName = "short-urls-" + LocalDateTime.now().format(FILE_NAME_DATE_FORMATTER) + format.getExtension() + (gzip ? ".gz" : "");
+        Path directory = Path.of(urlShortenerProperties.bulkExport().directory());
+        Path temporaryFile = directory.resolve(fileName + ".tmp");
+        long start = System.nanoTime();
+        long[] lastLog = { start };
+        progress = toProgress(fileName, ShortUrlExportProgress.Status.RUNNING, 0, start);
+        try {
+            Files.createDirectories(directory);
+            long exportedCount;
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                exportedCount = export(outputStream, format, gzip, count -> {
+                    progress = toProgress(fileName, ShortUrlExportProgress.Status.RUNNING, count, start);
+                    if (System.nanoTime() - lastLog[0] >= urlShortenerProperties.bulkExport().progressIntervalMillis() * 1_000_000 && log.isInfoEnabled()) {
+                        lastLog[0] = System.nanoTime();
+                        log.info("exportFile : file[{}] {} short urls written, {} short urls/s", fileName, count, progress.rowsPerSecond());
+                    }
+                });
+            }
+            Files.move(temporaryFile, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            progress = toProgress(fileName, ShortUrlExportProgress.Status.COMPLETED, exportedCount, start);
+            if (log.isInfoEnabled()) {
+                log.info("exportFile : file[{}] exported, {} short urls written in {} ms ({} short urls/s)", fileName, exportedCount, progress.elapsedMillis(), progress.rowsPerSecond());
+            }
+            return CompletableFuture.completedFuture(progress);
+        } catch (IOException | RuntimeException e) {
+            if (log.isErrorEnabled()) {
+                log.error("exportFile : the export to file[{}] has failed after {} short urls", fileName, progress.exportedCount(), e);
+            }
+            progress = toProgress(fileName, ShortUrlExportProgress.Status.FAILED, progress.exportedCount(), start);
+            deleteQuietly(temporaryFile);
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Writes all the short urls to a stream. The stream is not closed : the compressed data is completed, and the buffer is flushed.
+     *
+     * @param outputStream where the short urls are written.
+     * @param format the format of the lines.
+     * @param gzip whether the short urls are compressed with gzip.
+     * @param progressConsumer called with the number of short urls written, every PROGRESS_CHECK_INTERVAL short urls.
+     * @return the number of short urls written.
+     * @throws IOException if the stream cannot be written.
+     */
+    public long export(final OutputStream outputStream, final ShortUrlFileFormat format, final boolean gzip, final LongConsumer progressConsumer) throws IOException {
+        requireNonNull(outputStream, "outputStream");
+        requireNonNull(format, "format");
+        requireNonNull(progressConsumer, "progressConsumer");
+
+        int bufferSize = urlShortenerProperties.bulkExport().bufferSize();
+        GZIPOutputStream gzipOutputStream = gzip ? new GZIPOutputStream(new NonClosingOutputStream(outputStream), bufferSize) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOutputStream : new NonClosingOutputStream(outputStream), StandardCharsets.UTF_8), bufferSize);
+        JsonGenerator jsonGenerator = format == ShortUrlFileFormat.NDJSON ? objectMapper.getFactory().createGenerator(writer).setRootValueSeparator(null) : null;
+        long[] exportedCount = { 0 };
+        try {
+            if (format == ShortUrlFileFormat.CSV) {
+                writer.write("token,url\n");
+            }
+            shortUrlDao.forEachExistingShortUrl(urlShortenerProperties.bulkExport().pageSize(), shortUrlEntity -> {
+                try {
+                    if (jsonGenerator != null) {
+                        writeJsonLine(jsonGenerator, shortUrlEntity);
+                    } else {
+                        writeCsvLine(writer, shortUrlEntity);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++exportedCount[0] % PROGRESS_CHECK_INTERVAL == 0) {
+                    progressConsumer.accept(exportedCount[0]);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (jsonGenerator != null) {
+            jsonGenerator.close();
+        }
+        writer.close();
+        progressConsumer.accept(exportedCount[0]);
+        return exportedCount[0];
+    }
+
+    private static void writeJsonLine(final JsonGenerator jsonGenerator, final ShortUrlEntity shortUrlEntity) throws IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeStringField("token", shortUrlEntity.getToken());
+        jsonGenerator.writeStringField("url", shortUrlEntity.getOriginalUrl());
+        jsonGenerator.writeEndObject();
+        jsonGenerator.writeRaw('\n');
+    }
+
+    private static void writeCsvLine(final Writer writer, final ShortUrlEntity shortUrlEntity) throws IOException {
+        writeCsvValue(writer, shortUrlEntity.getToken());
+        writer.write(',');
+        writeCsvValue(writer, shortUrlEntity.getOriginalUrl());
+        writer.write('\n');
+    }
+
+    /**
+     * Writes a csv value, quoted ("..." with "" for a quote) if it has a comma, a quote or a line break.
+     */
+    private static void writeCsvValue(final Writer writer, final String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (StringUtils.containsAny(value, ',', '"', '\n', '\r')) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private static ShortUrlExportProgress toProgress(final String fileName, final ShortUrlExportProgress.Status status, final long exportedCount, final long start) {
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ShortUrlExportProgress(fileName, status, exportedCount, elapsedMillis, elapsedMillis == 0 ? 0 : exportedCount * 1000 / elapsedMillis);
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("exportFile : the temporary file [{}] cannot be deleted", file, e);
+            }
+        }
+    }
+
+    /**
+     * Lets the writers be closed (to complete the gzip data and flush the buffers) without closing the stream of the caller.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+package com.project.urlshortener.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.bulkimport.ShortUrlImportProgress;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shorturl.ShortUrlFileFormat;
+import com.project.urlshortener.repository.ShortUrlDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.validator.routines.UrlValidator;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+
+/**
+ * Imports existing short urls (token and original url) from a file, for instance to migrate from another url shortener.<br/>
+ * The file is read line by line, by batches of bulkImport.batchSize lines : the memory used does not depend on the size of the file.
+ * <ul>
+ *     <li>csv file (.csv) : one short url per line, "token,url". The url can be quoted ("..." with "" for a quote). A first line starting with "token," is a header;</li>
+ *     <li>ndjson file (.ndjson or .jsonl) : one json object per line, {"token": "...", "url": "..."}.</li>
+ * </ul>
+ * A file whose name ends with .gz (for instance a file of ShortUrlExportJob) is uncompressed while it is read.<br/>
+ * The urls of a batch are validated in parallel by the UrlValidator (bulkImport.parallelism threads), then the batch is saved by ShortUrlDao.importShortUrlEntities,
+ * which skips the tokens and the urls already used.<br/>
+ * After each batch, the number of lines read is written to a checkpoint file next to the file ("file.checkpoint") : an import interrupted (crash, restart) resumes after the last batch saved
+ * when it is started again. The checkpoint is deleted once the whole file is read.<br/>
+ * The progress and the throughput are logged every bulkImport.progressIntervalMillis, and given by getProgress.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlImportJob {
+
+    /** Maximum length of an imported token (size of the TOKEN column). */
+    static final int MAX_TOKEN_LENGTH = 255;
+
+    /** Maximum length of an imported original url (size of the ORIGINAL_URL column). */
+    static final int MAX_ORIGINAL_URL_LENGTH = 2048;
+
+    /** Saves the imported short urls. */
+    private final ShortUrlDao shortUrlDao;
+
+    /** Validation of the original urls. */
+    private final UrlValidator urlValidator;
+
+    /** Reads the lines of the ndjson files. */
+    private final ObjectMapper objectMapper;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /** Whether an import is running : only one file is imported at a time. */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** The progress of the current import, or of the last one. Null if no import was started. */
+    private volatile ShortUrlImportProgress progress;
+
+    /**
+     * Gives the progress of the current import, or of the last one.
+     *
+     * @return the progress. Null if no import was started.
+     */
+    public ShortUrlImportProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Indicates whether an import is running.
+     *
+     * @return true while a file is being imported.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Finds a file to import in the import directory (bulkImport.directory).
+     *
+     * @param fileName the name of the file, relative to the import directory.
+     * @return the path of the file.
+     * @throws IllegalArgumentException if the file is outside the import directory, does not exist, or is not a csv or ndjson file.
+     */
+    public Path resolveFile(final String fileName) {
+        requireNonBlank(fileName, "fileName");
+
+        Path directory = Path.of(urlShortenerProperties.bulkImport().directory()).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("The file [" + fileName + "] is not a file of the import directory");
+        }
+        ShortUrlFileFormat.of(file);
+        return file;
+    }
+
+    /**
+     * Imports a file of short urls in the background, from its checkpoint if a previous import of the file was interrupted.
+     *
+     * @param fileName the name of the file, relative to the import directory.
+     * @return the progress of the import, once the whole file is read.
+     * @throws IllegalArgumentException if the file is not a csv or ndjson file of the import directory.
+     * @throws IllegalStateException if another import is running.
+     */
+    @Async
+    public CompletableFuture<ShortUrlImportProgress> importFile(final String fileName) {
+        Path file = resolveFile(fileName);
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another import is running");
+        }
+        try {
+            return CompletableFuture.completedFuture(importLines(fileName, file, ShortUrlFileFormat.of(file)));
+        } catch (IOException | RuntimeException e) {
+            if (log.isErrorEnabled()) {
+                log.error("importFile : the import of file[{}] has failed after {} lines, it will resume from its checkpoint", fileName,
+                        progress != null ? progress.lineCount() : 0, e);
+            }
+            ShortUrlImportProgress failedProgress = progress;
+            if (failedProgress != null) {
+                progress = new ShortUrlImportProgress(fileName, ShortUrlImportProgress.Status.FAILED, failedProgress.lineCount(), failedProgress.importedCount(),
+                        failedProgress.skippedCount(), failedProgress.invalidCount(), failedProgress.elapsedMillis(), failedProgress.linesPerSecond());
+            }
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Reads the lines of a file after its checkpoint, and saves their short urls by batches.
+     *
+     * @return the final progress of the import.
+     */
+    private ShortUrlImportProgress importLines(final String fileName, final Path file, final ShortUrlFileFormat format) throws IOException {
+        UrlShortenerProperties.BulkImport bulkImport = urlShortenerProperties.bulkImport();
+        Path checkpoint = file.resolveSibling(file.getFileName() + ".checkpoint");
+        long fileSize = Files.size(file);
+        ImportCounters counters = readCheckpoint(checkpoint, fileSize);
+        long startLineCount = counters.lineCount;
+        long start = System.nanoTime();
+        long lastLog = start;
+        progress = toProgress(fileName, ShortUrlImportProgress.Status.RUNNING, counters, startLineCount, start);
+        if (startLineCount > 0 && log.isInfoEnabled()) {
+            log.info("importFile : the import of file[{}] resumes after line {}", fileName, startLineCount);
+        }
+
+        try (BufferedReader reader = openReader(file);
+             ForkJoinPool validationPool = new ForkJoinPool(bulkImport.parallelism())) {
+            for (long skipped = 0; skipped < startLineCount && reader.readLine() != null; skipped++) {
+                // the lines before the checkpoint are already imported
+            }
+            List<String> lines = new ArrayList<>(bulkImport.batchSize());
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                String line = reader.readLine();
+                endOfFile = line == null;
+                if (!endOfFile) {
+                    lines.add(line);
+                }
+                if (lines.size() == bulkImport.batchSize() || endOfFile && !lines.isEmpty()) {
+                    importBatch(lines, format, counters, validationPool);
+                    lines.clear();
+                    writeCheckpoint(checkpoint, fileSize, counters);
+                    progress = toProgress(fileName, ShortUrlImportProgress.Status.RUNNING, counters, startLineCount, start);
+                    if (System.nanoTime() - lastLog >= bulkImport.progressIntervalMillis() * 1_000_000 && log.isInfoEnabled()) {
+                        lastLog = System.nanoTime();
+                        log.info("importFile : file[{}] {} lines read, {} imported, {} skipped, {} invalid, {} lines/s", fileName, progress.lineCount(),
+                                progress.importedCount(), progress.skippedCount(), progress.invalidCount(), progress.linesPerSecond());
+                    }
+                }
+            }
+        }
+
+        Files.deleteIfExists(checkpoint);
+        progress = toProgress(fileName, ShortUrlImportProgress.Status.COMPLETED, counters, startLineCount, start);
+        if (log.isInfoEnabled()) {
+            log.info("importFile : file[{}] imported, {} lines read, {} imported, {} skipped, {} invalid in {} ms ({} lines/s)", fileName, progress.lineCount(),
+                    progress.importedCount(), progress.skippedCount(), progress.invalidCount(), progress.elapsedMillis(), progress.linesPerSecond());
+        }
+        return progress;
+    }
+
+    /**
+     * Opens a file to import, uncompressed on the fly if its name ends with .gz.
+     */
+    private static BufferedReader openReader(final Path file) throws IOException {
+        InputStream inputStream = Files.newInputStream(file);
+        if (file.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream);
+        }
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads and validates a batch of lines in parallel, then saves their short urls.
+     */
+    private void importBatch(final List<String> lines, final ShortUrlFileFormat format, final ImportCounters counters, final ForkJoinPool validationPool) {
+        long firstLine = counters.lineCount;
+        List<ShortUrlEntity> parsedLines = validationPool.submit(() -> lines.parallelStream().map(line -> parseLine(line, format)).toList()).join();
+
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>(parsedLines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            ShortUrlEntity shortUrlEntity = parsedLines.get(i);
+            if (shortUrlEntity != null) {
+                shortUrlEntities.add(shortUrlEntity);
+            } else if (StringUtils.isNotBlank(lines.get(i)) && !(firstLine + i == 0 && isCsvHeader(lines.get(i), format))) {
+                counters.invalidCount++;
+            }
+        }
+        int importedCount = shortUrlEntities.isEmpty() ? 0 : shortUrlDao.importShortUrlEntities(shortUrlEntities);
+        counters.importedCount += importedCount;
+        counters.skippedCount += shortUrlEntities.size() - importedCount;
+        counters.lineCount += lines.size();
+    }
+
+    /**
+     * Reads the short url of a line and validates it.
+     *
+     * @return the short url of the line. Null if the line is blank, cannot be read, or has an invalid token or url.
+     */
+    ShortUrlEntity parseLine(final String line, final ShortUrlFileFormat format) {
+        if (StringUtils.isBlank(line)) {
+            return null;
+        }
+        String token;
+        String originalUrl;
+        if (format == ShortUrlFileFormat.CSV) {
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                return null;
+            }
+            token = unquote(line.substring(0, comma).trim());
+            originalUrl = unquote(line.substring(comma + 1).trim());
+        } else {
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                token = node.path("token").asText(null);
+                originalUrl = node.path("url").asText(null);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+        if (!isTokenValid(token) || !isUrlValid(originalUrl)) {
+            return null;
+        }
+        return ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+    }
+
+    private boolean isTokenValid(final String token) {
+        return StringUtils.isNotBlank(token) && token.length() <= MAX_TOKEN_LENGTH && !StringUtils.containsWhitespace(token);
+    }
+
+    private boolean isUrlValid(final String originalUrl) {
+        return originalUrl != null && originalUrl.length() <= MAX_ORIGINAL_URL_LENGTH && urlValidator.isValid(originalUrl);
+    }
+
+    private static boolean isCsvHeader(final String line, final ShortUrlFileFormat format) {
+        return format == ShortUrlFileFormat.CSV && StringUtils.startsWithIgnoreCase(line.trim(), "token,");
+    }
+
+    /**
+     * Removes the quotes around a csv value, and replaces its doubled quotes by one quote.
+     */
+    private static String unquote(final String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        }
+        return value;
+    }
+
+    private static ShortUrlImportProgress toProgress(final String fileName, final ShortUrlImportProgress.Status status, final ImportCounters counters,
+                                                     final long startLineCount, final long start) {
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long linesPerSecond = elapsedMillis == 0 ? 0 : (counters.lineCount - startLineCount) * 1000 / elapsedMillis;
+        return new ShortUrlImportProgress(fileName, status, counters.lineCount, counters.importedCount, counters.skippedCount, counters.invalidCount, elapsedMillis, linesPerSecond);
+    }
+
+    /**
+     * Reads the checkpoint of a file. A checkpoint written for another version of the file (another size) is ignored.
+     *
+     * @return the counters of the lines already imported. All 0 if there is no checkpoint.
+     */
+    private static ImportCounters readCheckpoint(final Path checkpoint, final long fileSize) throws IOException {
+        ImportCounters counters = new ImportCounters();
+        if (!Files.exists(checkpoint)) {
+            return counters;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        if (!Objects.equals(properties.getProperty("fileSize"), String.valueOf(fileSize))) {
+            if (log.isWarnEnabled()) {
+                log.warn("readCheckpoint : the checkpoint [{}] was written for another version of the file, the import starts from the first line", checkpoint);
+            }
+            return counters;
+        }
+        try {
+            counters.lineCount = Long.parseLong(properties.getProperty("lineCount", "0"));
+            counters.importedCount = Long.parseLong(properties.getProperty("importedCount", "0"));
+            counters.skippedCount = Long.parseLong(properties.getProperty("skippedCount", "0"));
+            counters.invalidCount = Long.parseLong(properties.getProperty("invalidCount", "0"));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("The checkpoint [" + checkpoint + "] cannot be read", e);
+        }
+        return counters;
+    }
+
+    /**
+     * Writes the checkpoint of a file : a temporary file, then moved over the previous checkpoint, so that a crash never leaves a partial checkpoint.
+     */
+    private static void writeCheckpoint(final Path checkpoint, final long fileSize, final ImportCounters counters) {
+        Properties properties = new Properties();
+        properties.setProperty("fileSize", String.valueOf(fileSize));
+        properties.setProperty("lineCount", String.valueOf(counters.lineCount));
+        properties.setProperty("importedCount", String.valueOf(counters.importedCount));
+        properties.setProperty("skippedCount", String.valueOf(counters.skippedCount));
+        properties.setProperty("invalidCount", String.valueOf(counters.invalidCount));
+        Path temporaryCheckpoint = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporaryCheckpoint, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temporaryCheckpoint, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The counters of an import, only updated by the thread of the import.
+     */
+    private static final class ImportCounters {
+        private long lineCount;
+        private long importedCount;
+        private long skippedCount;
+        private long invalidCount;
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.project.urlshortener.job;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shard.ShardRoute;
+import com.project.urlshortener.repository.ShortUrlShardRouter;
+import com.project.urlshortener.repository.impl.ShortUrlShard;
+import com.project.urlshortener.repository.impl.ShortUrlShards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Moves the short urls of a bucket (the tokens starting with a prefix) to another shard, while the application keeps creating and reading short urls.<br/>
+ * The bucket goes through these routes (shard, secondary shard), each change being followed by a wait of two routing refreshes, so that every instance uses the new route :
+ * <ul>
+ *     <li>(source, target) : the new short urls are written to both shards, then the existing short urls are copied from the source to the target, by batches of sharding.moveBatchSize;</li>
+ *     <li>(target, source) : the short urls are read from the target, and still written to both shards;</li>
+ *     <li>(target, none) : the short urls of the bucket are deleted from the source.</li>
+ * </ul>
+ * A move interrupted (for instance by a restart) is resumed by asking for the same move again.
+ */
+@Component
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "sharded")
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlReshardingJob {
+
+    /** The shards of the short urls. */
+    private final ShortUrlShards shortUrlShards;
+
+    /** Chooses the shard of the tokens, and changes the shard of the buckets. */
+    private final ShortUrlShardRouter shortUrlShardRouter;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /**
+     * Moves the short urls of the bucket of a prefix to another shard, in the background.
+     *
+     * @param prefix the first characters of the tokens of the bucket (sharding.prefixLength characters).
+     * @param targetShard the index of the new shard of the bucket, in sharding.datasources.
+     * @return the number of short urls copied to the target shard, once the move is completed.
+     * @throws IllegalArgumentException if the prefix or the shard is not valid.
+     * @throws IllegalStateException if the bucket is being moved to another shard, or if its route was changed by another instance during the move.
+     */
+    @Async
+    public CompletableFuture<Long> moveBucket(final String prefix, final int targetShard) {
+        int bucket = checkMove(prefix, targetShard);
+
+        long start = System.nanoTime();
+        ShardRoute route = shortUrlShardRouter.route(bucket);
+        int sourceShard = route.shard();
+        long copiedCount = 0;
+        if (route.shard() == targetShard && !route.hasSecondaryShard()) {
+            if (log.isInfoEnabled()) {
+                log.info("moveBucket : the bucket of prefix[{}] is already in shard[{}]", prefix, targetShard);
+            }
+            return CompletableFuture.completedFuture(0L);
+        } else if (route.shard() == targetShard) {
+            // interrupted after the short urls were copied : only the deletion is left
+            sourceShard = route.secondaryShard();
+        } else {
+            if (!route.hasSecondaryShard()) {
+                route = changeRoute(route, sourceShard, targetShard);
+            }
+            copiedCount = copyBucket(prefix, shortUrlShards.get(sourceShard), shortUrlShards.get(targetShard));
+            route = changeRoute(route, targetShard, sourceShard);
+        }
+        changeRoute(route, targetShard, ShardRoute.NO_SHARD);
+        long deletedCount = deleteBucket(prefix, shortUrlShards.get(sourceShard));
+
+        if (log.isInfoEnabled()) {
+            log.info("moveBucket : the bucket of prefix[{}] was moved from shard[{}] to shard[{}], {} rows copied and {} rows deleted in {} ms",
+                    prefix, sourceShard, targetShard, copiedCount, deletedCount, (System.nanoTime() - start) / 1_000_000);
+        }
+        return CompletableFuture.completedFuture(copiedCount);
+    }
+
+    /**
+     * Checks that the bucket of a prefix can be moved to a shard : called by moveBucket, and before starting it, so that the caller gets the error.
+     *
+     * @param prefix the first characters of the tokens of the bucket (sharding.prefixLength characters).
+     * @param targetShard the index of the new shard of the bucket, in sharding.datasources.
+     * @return the number of the bucket.
+     * @throws IllegalArgumentException if the prefix or the shard is not valid.
+     * @throws IllegalStateException if the bucket is being moved to another shard.
+     */
+    public int checkMove(final String prefix, final int targetShard) {
+        int bucket = shortUrlShardRouter.bucketOfPrefix(prefix);
+        if (targetShard < 0 || targetShard >= shortUrlShards.getAll().size()) {
+            throw new IllegalArgumentException("The shard [" + targetShard + "] must be between 0 and " + (shortUrlShards.getAll().size() - 1));
+        }
+        ShardRoute route = shortUrlShardRouter.route(bucket);
+        if (route.hasSecondaryShard() && route.shard() != targetShard && route.secondaryShard() != targetShard) {
+            throw new IllegalStateException("The bucket of prefix [" + prefix + "] is being moved to the shard [" + route.secondaryShard() + "]");
+        }
+        return bucket;
+    }
+
+    /**
+     * Changes the route of a bucket, then waits until every instance uses the new route.
+     *
+     * @param route the current route of the bucket.
+     * @param newShard the new shard of the bucket.
+     * @param newSecondaryShard the new secondary shard of the bucket, or ShardRoute.NO_SHARD.
+     * @return the new route of the bucket.
+     */
+    private ShardRoute changeRoute(final ShardRoute route, final int newShard, final int newSecondaryShard) {
+        if (!shortUrlShardRouter.compareAndSetRoute(route, newShard, newSecondaryShard)) {
+            throw new IllegalStateException("The route of the bucket of prefix [" + route.prefix() + "] was changed by another instance");
+        }
+        awaitRoutingRefresh();
+        return shortUrlShardRouter.route(route.bucket());
+    }
+
+    /**
+     * Copies the short urls of a bucket which are not in the target shard yet, by batches in the order of their ids.
+     *
+     * @return the number of short urls copied.
+     */
+    private long copyBucket(final String prefix, final ShortUrlShard source, final ShortUrlShard target) {
+        long copiedCount = 0;
+        long lastId = 0;
+        List<ShortUrlEntity> batch;
+        do {
+            batch = source.findByTokenPrefix(prefix, lastId, urlShortenerProperties.sharding().moveBatchSize());
+            if (!batch.isEmpty()) {
+                copiedCount += target.insertMissing(batch);
+                lastId = batch.getLast().getId();
+            }
+        } while (!batch.isEmpty());
+        return copiedCount;
+    }
+
+    /**
+     * Deletes the short urls of a bucket from its former shard, by batches.
+     *
+     * @return the number of short urls deleted.
+     */
+    private long deleteBucket(final String prefix, final ShortUrlShard source) {
+        long deletedCount = 0;
+        List<ShortUrlEntity> batch;
+        do {
+            batch = source.findByTokenPrefix(prefix, 0, urlShortenerProperties.sharding().moveBatchSize());
+            if (!batch.isEmpty()) {
+                deletedCount += source.deleteByIds(batch.stream().map(ShortUrlEntity::getId).toList());
+            }
+        } while (!batch.isEmpty());
+        return deletedCount;
+    }
+
+    /**
+     * Waits for two routing refreshes : the instances which read the routes just before the change have read them again since.
+     */
+    private void awaitRoutingRefresh() {
+        try {
+            Thread.sleep(2 * urlShortenerProperties.sharding().routingRefreshMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The move of a bucket was interrupted", e);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.project.urlshortener.model.api.createshorturl;
+
+import com.project.urlshortener.common.model.RestBasicResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * The result for one url of a batch request : the short url, or the error for this url only.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class UrlShortenerCreateShortUrlBatchItem extends RestBasicResponse {
+
+    /**
+     * The original url of the request.
+     */
+    private String url;
+
+    /**
+     * The short url found or created for the original url.<br/>
+     * Can be null if the creation failed for this url.
+     */
+    private String shortUrl;
+
+}
@@ -0,0 +1,26 @@
+package com.project.urlshortener.model.api.createshorturl;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The JSON request when you want to create short urls for several normal urls at once.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UrlShortenerCreateShortUrlBatchRequest {
+
+    /**
+     * The values of the original normal urls.
+     */
+    @NotEmpty
+    private List<String> urls;
+
+}
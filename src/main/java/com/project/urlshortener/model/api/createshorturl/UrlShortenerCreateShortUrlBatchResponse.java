@@ -0,0 +1,29 @@
+package com.project.urlshortener.model.api.createshorturl;
+
+import com.project.urlshortener.common.model.RestBasicResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * The JSON response for when you wanted to create short urls for several urls at once.<br/>
+ * The response contains one result per url, in the order of the request.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class UrlShortenerCreateShortUrlBatchResponse extends RestBasicResponse {
+
+    /**
+     * The result for each url of the request.<br/>
+     * Can be null if the whole request failed.
+     */
+    private List<UrlShortenerCreateShortUrlBatchItem> results;
+
+}
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 /**
  * The JSON request when you want to create a short url for a normal url.
  */
@@ -21,4 +23,10 @@ public class UrlShortenerCreateShortUrlRequest {
     @NotBlank
     private String url;
 
+    /**
+     * Optional expiration time of the short url (ISO-8601, for instance 2030-01-31T23:59:59Z) : the short url is deleted once it is over.
+     * Without it, the short url never expires.
+     */
+    private Instant expiresAt;
+
 }
@@ -0,0 +1,26 @@
+package com.project.urlshortener.model.api.decodeshorturl;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The JSON request when you want to read several short url tokens at once.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UrlShortenerDecodeShortUrlBatchRequest {
+
+    /**
+     * The short url tokens.
+     */
+    @NotEmpty
+    private List<String> tokens;
+
+}
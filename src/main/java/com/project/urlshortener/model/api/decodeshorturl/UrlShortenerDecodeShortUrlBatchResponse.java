@@ -0,0 +1,36 @@
+package com.project.urlshortener.model.api.decodeshorturl;
+
+import com.project.urlshortener.common.model.RestBasicResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JSON response for when you wanted to read several short url tokens at once.<br/>
+ * The response contains the original complete url of each known token, and the list of the unknown tokens.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class UrlShortenerDecodeShortUrlBatchResponse extends RestBasicResponse {
+
+    /**
+     * The original complete url of each known token, by token.<br/>
+     * Can be null if the request failed.
+     */
+    private Map<String, String> originalCompleteUrls;
+
+    /**
+     * The tokens which are invalid or do not exist.<br/>
+     * Can be null if the request failed.
+     */
+    private List<String> unknownTokens;
+
+}
@@ -0,0 +1,25 @@
+package com.project.urlshortener.model.bulkexport;
+
+/**
+ * A snapshot of the progress of the export of the short urls to a file.
+ *
+ * @param file the name of the export file, relative to the export directory.
+ * @param status whether the export is running, completed or failed.
+ * @param exportedCount number of short urls written so far.
+ * @param elapsedMillis duration (in milliseconds) of the export.
+ * @param rowsPerSecond number of short urls written per second.
+ */
+public record ShortUrlExportProgress(String file, Status status, long exportedCount, long elapsedMillis, long rowsPerSecond) {
+
+    /**
+     * The states of an export.
+     */
+    public enum Status {
+        /** The short urls are being written to a temporary file. */
+        RUNNING,
+        /** All the short urls are written : the temporary file has been renamed to the export file. */
+        COMPLETED,
+        /** The export has stopped on an error : the temporary file has been deleted. */
+        FAILED
+    }
+}
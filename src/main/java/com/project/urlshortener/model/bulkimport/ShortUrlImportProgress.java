@@ -0,0 +1,29 @@
+package com.project.urlshortener.model.bulkimport;
+
+/**
+ * A snapshot of the progress of the import of a file of existing short urls.
+ *
+ * @param file the name of the imported file, relative to the import directory.
+ * @param status whether the import is running, completed or failed.
+ * @param lineCount number of lines of the file read so far (including the lines read by the previous runs, before the checkpoint).
+ * @param importedCount number of short urls saved.
+ * @param skippedCount number of short urls skipped because their token or their original url was already used (including the short urls saved by an interrupted run).
+ * @param invalidCount number of lines skipped because they could not be read, or because their token or their original url is not valid.
+ * @param elapsedMillis duration (in milliseconds) of the current run.
+ * @param linesPerSecond number of lines read per second by the current run.
+ */
+public record ShortUrlImportProgress(String file, Status status, long lineCount, long importedCount, long skippedCount, long invalidCount,
+                                     long elapsedMillis, long linesPerSecond) {
+
+    /**
+     * The states of an import.
+     */
+    public enum Status {
+        /** The file is being read. */
+        RUNNING,
+        /** The whole file has been read : its checkpoint is deleted. */
+        COMPLETED,
+        /** The import has stopped on an error : it resumes from its checkpoint when it is started again. */
+        FAILED
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.urlshortener.model.cache;
+
+/**
+ * A snapshot of the state of a Bloom filter.
+ *
+ * @param loaded whether the filter was fully loaded with the existing values. Before that, the filter answers "might contain" for every value.
+ * @param insertedCount number of values added to the filter.
+ * @param bitCount number of bits of the filter.
+ * @param hashFunctionCount number of bits set for each value.
+ * @param memoryBytes memory (in bytes) used by the bits of the filter.
+ * @param expectedFalsePositiveRate expected rate of unknown values for which the filter answers "might contain", with the current number of values.
+ */
+public record BloomFilterStatistics(boolean loaded, long insertedCount, long bitCount, int hashFunctionCount, long memoryBytes, double expectedFalsePositiveRate) {}
@@ -0,0 +1,12 @@
+package com.project.urlshortener.model.cache;
+
+/**
+ * A snapshot of the counters of an in-memory cache.
+ *
+ * @param hitCount number of lookups that found a value in the cache.
+ * @param missCount number of lookups that did not find any value in the cache.
+ * @param evictionCount number of entries removed from the cache because of its size limits.
+ * @param entryCount number of entries currently in the cache.
+ * @param estimatedBytes estimated memory (in bytes) currently used by the entries of the cache.
+ */
+public record CacheStatistics(long hitCount, long missCount, long evictionCount, long entryCount, long estimatedBytes) {}
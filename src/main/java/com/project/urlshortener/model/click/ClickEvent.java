@@ -0,0 +1,9 @@
+package com.project.urlshortener.model.click;
+
+/**
+ * A click on a short url, waiting in memory to be counted in the database.
+ *
+ * @param token the short url token.
+ * @param weight number of clicks represented by this event : 1, or the sample rate when the clicks are sampled.
+ */
+public record ClickEvent(String token, int weight) {}
@@ -0,0 +1,40 @@
+package com.project.urlshortener.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persistence entity for the SHARD_BUCKET table in the database.<br/>
+ * This table holds the shard of each bucket of tokens (see ShortUrlShardRouter), shared by all the instances of the application.
+ */
+@Entity(name = "SHARD_BUCKET")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardBucketEntity {
+
+    /**
+     * Number of the bucket, given by the prefix of its tokens.
+     */
+    @Id
+    private Integer bucket;
+
+    /**
+     * Index of the shard where the short urls of the bucket are read and written.
+     */
+    @Column(nullable = false)
+    private Integer shard;
+
+    /**
+     * Index of the shard where the short urls of the bucket are also written (and read when missing from the first shard) while the bucket is moved. -1 if the bucket is not moved.
+     */
+    @Column(nullable = false)
+    private Integer secondaryShard;
+
+}
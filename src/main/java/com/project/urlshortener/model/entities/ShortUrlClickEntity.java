@@ -0,0 +1,34 @@
+package com.project.urlshortener.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persistence entity for the SHORT_URL_CLICK table in the database.<br/>
+ * This table holds the number of clicks on each short url token. It is only written by ShortUrlClickDao, in batches.
+ */
+@Entity(name = "SHORT_URL_CLICK")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShortUrlClickEntity {
+
+    /**
+     * The short url token.
+     */
+    @Id
+    private String token;
+
+    /**
+     * Number of clicks on the short url.
+     */
+    @Column(nullable = false)
+    private Long clickCount;
+
+}
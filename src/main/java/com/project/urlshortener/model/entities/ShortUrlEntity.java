@@ -1,16 +1,20 @@
 package com.project.urlshortener.model.entities;
 
+import com.project.urlshortener.common.utils.HashUtils;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 /**
  * Persistence entity for the SHORT_URL table in the database.<br/>
- * This table describes an association between a SHORT URL TOKEN and an ORIGINAL URL.
+ * This table describes an association between a SHORT URL TOKEN and an ORIGINAL URL, which can expire.
  */
 @Entity(name = "SHORT_URL")
+@Table(indexes = @Index(name = "IDX_SHORT_URL_EXPIRES_AT", columnList = "expires_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,9 +35,42 @@ public class ShortUrlEntity {
     private String token;
 
     /**
-     * Original complete url matching a unique token.
+     * Original complete url matching a unique token.<br/>
+     * This column is too wide to be indexed : the original urls are searched with originalUrlHash.
      */
-    @Column(unique=true)
+    @Column(length = 2048)
     private String originalUrl;
 
+    /**
+     * Unique fixed-width hash of the original url (see HashUtils.hash128), computed when the entity is saved.<br/>
+     * Can be null for the rows created before this column existed, until OriginalUrlHashBackfillJob has computed it.
+     */
+    @Column(unique=true, length = HashUtils.HASH_128_BYTES)
+    private byte[] originalUrlHash;
+
+    /**
+     * Time after which the short url does not exist anymore : it is not decoded anymore, and its row is deleted by ShortUrlExpirationJob.<br/>
+     * Null if the short url never expires. Indexed, so that the rows expiring soon are read without scanning the table.
+     */
+    private Instant expiresAt;
+
+    /**
+     * Computes originalUrlHash from originalUrl, before the entity is inserted or updated.
+     */
+    @PrePersist
+    @PreUpdate
+    public void computeOriginalUrlHash() {
+        this.originalUrlHash = originalUrl != null ? HashUtils.hash128(originalUrl) : null;
+    }
+
+    /**
+     * Indicates whether the short url has expired.
+     *
+     * @param now the current time.
+     * @return true if the short url has an expiration time, and this time is not after now.
+     */
+    public boolean isExpired(final Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+
 }
@@ -0,0 +1,35 @@
+package com.project.urlshortener.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persistence entity for the TOKEN_SEGMENT table in the database.<br/>
+ * This table holds the next number of a named sequence, shared by all the instances of the application.
+ */
+@Entity(name = "TOKEN_SEGMENT")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenSegmentEntity {
+
+    /**
+     * Name of the sequence.
+     */
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * Next number of the sequence, not allocated yet.
+     */
+    @Column(nullable = false)
+    private Long nextValue;
+
+}
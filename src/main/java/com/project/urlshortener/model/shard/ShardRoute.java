@@ -0,0 +1,27 @@
+package com.project.urlshortener.model.shard;
+
+/**
+ * The shards of a bucket of tokens.<br/>
+ * While a bucket is moved to another shard, its short urls are written to both shards, and read from the second shard when they are missing from the first one.
+ *
+ * @param bucket number of the bucket.
+ * @param prefix the leading characters of the tokens of the bucket.
+ * @param shard index of the shard where the short urls of the bucket are read and written.
+ * @param secondaryShard index of the shard where the short urls of the bucket are also written while the bucket is moved. NO_SHARD if the bucket is not moved.
+ */
+public record ShardRoute(int bucket, String prefix, int shard, int secondaryShard) {
+
+    /**
+     * Value of secondaryShard when the bucket is not moved.
+     */
+    public static final int NO_SHARD = -1;
+
+    /**
+     * Indicates whether the bucket is being moved : its short urls are then written to two shards.
+     *
+     * @return true if there is a secondary shard.
+     */
+    public boolean hasSecondaryShard() {
+        return secondaryShard != NO_SHARD;
+    }
+}
@@ -0,0 +1,22 @@
+package com.project.urlshortener.model.shorturl;
+
+import com.project.urlshortener.common.exception.ExceptionWithMessageKey;
+
+/**
+ * The result of the creation of a short url for one original url of a batch.
+ *
+ * @param originalUrl the original url.
+ * @param shortUrl the short url found or created. Null if the creation failed.
+ * @param error the reason why the creation failed. Null if the creation succeeded.
+ */
+public record CreateShortUrlResult(String originalUrl, String shortUrl, ExceptionWithMessageKey error) {
+
+    /**
+     * Indicates whether the short url was found or created.
+     *
+     * @return true if there is no error.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
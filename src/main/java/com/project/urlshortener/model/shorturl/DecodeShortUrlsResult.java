@@ -0,0 +1,13 @@
+package com.project.urlshortener.model.shorturl;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of the decoding of several short url tokens at once.
+ *
+ * @param originalUrls the original url of each token found, by token, in the order of the request.
+ * @param unknownTokens the tokens which are invalid or do not exist, in the order of the request.
+ */
+public record DecodeShortUrlsResult(Map<String, String> originalUrls, List<String> unknownTokens) {
+}
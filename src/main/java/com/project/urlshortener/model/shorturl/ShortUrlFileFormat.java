@@ -0,0 +1,50 @@
+package com.project.urlshortener.model.shorturl;
+
+import java.nio.file.Path;
+
+/**
+ * The formats of the files of short urls, imported (see ShortUrlImportJob) or exported (see ShortUrlExportJob).
+ */
+public enum ShortUrlFileFormat {
+
+    /** One short url per line, "token,url". The url is quoted ("..." with "" for a quote) when it has a comma, a quote or a line break. */
+    CSV(".csv"),
+    /** One json object per line, {"token": "...", "url": "..."}. */
+    NDJSON(".ndjson");
+
+    /** The extension of the files of this format. */
+    private final String extension;
+
+    ShortUrlFileFormat(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gives the extension of the files of this format.
+     *
+     * @return the extension, with its dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Gives the format of a file from its extension : .csv, or .ndjson or .jsonl, optionally followed by .gz.
+     *
+     * @param file the file.
+     * @return the format of the file.
+     * @throws IllegalArgumentException if the extension of the file is not the extension of a format.
+     */
+    public static ShortUrlFileFormat of(final Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".gz")) {
+            fileName = fileName.substring(0, fileName.length() - ".gz".length());
+        }
+        if (fileName.endsWith(".csv")) {
+            return CSV;
+        } else if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("The file [" + file.getFileName() + "] must be a .csv, .ndjson or .jsonl file");
+    }
+}
@@ -0,0 +1,58 @@
+package com.project.urlshortener.monitoring;
+
+import com.project.urlshortener.job.ShortUrlExportJob;
+import com.project.urlshortener.model.bulkexport.ShortUrlExportProgress;
+import com.project.urlshortener.model.shorturl.ShortUrlFileFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Actuator endpoint of the exports (/actuator/exports) : starts the export of all the short urls to a file, and gives the progress of the export (see ShortUrlExportJob).<br/>
+ * Not exposed over http by default : add exports to management.endpoints.web.exposure.include on an instance which is not reachable from the internet.
+ */
+@Component
+@Endpoint(id = "exports")
+@RequiredArgsConstructor
+public class ShortUrlExportEndpoint {
+
+    /** Exports the short urls to files. */
+    private final ShortUrlExportJob shortUrlExportJob;
+
+    /**
+     * Gives the progress of the current export, or of the last one.
+     *
+     * @return the progress of the export. Null (no content) if no export was started.
+     */
+    @ReadOperation
+    public ShortUrlExportProgress progress() {
+        return shortUrlExportJob.getProgress();
+    }
+
+    /**
+     * Starts the export of all the short urls to a new file of the export directory (url-shortener.bulk-export.directory). The export runs in the background : its progress is logged, and given by the read operation.
+     *
+     * @param format the format of the file : csv or ndjson.
+     * @param gzip whether the file is compressed with gzip.
+     * @throws InvalidEndpointRequestException if the format is neither csv nor ndjson, or if another export is running.
+     */
+    @WriteOperation
+    public void start(final String format, final boolean gzip) {
+        ShortUrlFileFormat fileFormat;
+        try {
+            fileFormat = ShortUrlFileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException("The format [" + format + "] must be csv or ndjson", "Invalid format");
+        }
+        if (shortUrlExportJob.isRunning()) {
+            throw new InvalidEndpointRequestException("Another export is running", "Export running");
+        }
+        shortUrlExportJob.exportFile(fileFormat, gzip);
+    }
+
+}
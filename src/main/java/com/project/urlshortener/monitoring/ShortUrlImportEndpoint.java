@@ -0,0 +1,53 @@
+package com.project.urlshortener.monitoring;
+
+import com.project.urlshortener.job.ShortUrlImportJob;
+import com.project.urlshortener.model.bulkimport.ShortUrlImportProgress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint of the imports (/actuator/imports) : starts the import of a file of existing short urls, and gives the progress of the import (see ShortUrlImportJob).<br/>
+ * Not exposed over http by default : add imports to management.endpoints.web.exposure.include on an instance which is not reachable from the internet.
+ */
+@Component
+@Endpoint(id = "imports")
+@RequiredArgsConstructor
+public class ShortUrlImportEndpoint {
+
+    /** Imports the files of short urls. */
+    private final ShortUrlImportJob shortUrlImportJob;
+
+    /**
+     * Gives the progress of the current import, or of the last one.
+     *
+     * @return the progress of the import. Null (no content) if no import was started.
+     */
+    @ReadOperation
+    public ShortUrlImportProgress progress() {
+        return shortUrlImportJob.getProgress();
+    }
+
+    /**
+     * Starts the import of a file of the import directory. The import runs in the background : its progress is logged, and given by the read operation.
+     *
+     * @param file the name of the file, relative to the import directory (url-shortener.bulk-import.directory).
+     * @throws InvalidEndpointRequestException if the file is not a csv or ndjson file of the import directory, or if another import is running.
+     */
+    @WriteOperation
+    public void start(final String file) {
+        try {
+            shortUrlImportJob.resolveFile(file);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "Invalid file");
+        }
+        if (shortUrlImportJob.isRunning()) {
+            throw new InvalidEndpointRequestException("Another import is running", "Import running");
+        }
+        shortUrlImportJob.importFile(file);
+    }
+
+}
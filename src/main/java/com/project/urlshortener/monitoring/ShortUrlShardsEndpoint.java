@@ -0,0 +1,65 @@
+package com.project.urlshortener.monitoring;
+
+import com.project.urlshortener.job.ShortUrlReshardingJob;
+import com.project.urlshortener.model.shard.ShardRoute;
+import com.project.urlshortener.repository.ShortUrlShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint of the shards (/actuator/shards) : gives the route of each bucket, and moves a bucket to another shard (see ShortUrlReshardingJob).<br/>
+ * Not exposed over http by default : add shards to management.endpoints.web.exposure.include on an instance which is not reachable from the internet.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "sharded")
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlShardsEndpoint {
+
+    /** Gives the route of the buckets. */
+    private final ShortUrlShardRouter shortUrlShardRouter;
+
+    /** Moves the buckets to another shard. */
+    private final ShortUrlReshardingJob shortUrlReshardingJob;
+
+    /**
+     * Gives the route of each bucket, as read by the last routing refresh.
+     *
+     * @return the routes of the buckets, in the order of the buckets.
+     */
+    @ReadOperation
+    public List<ShardRoute> routes() {
+        return shortUrlShardRouter.routes();
+    }
+
+    /**
+     * Starts moving the bucket of a prefix to another shard, once the move is checked. The move runs in the background : its progress and its failure are logged,
+     * and the route of the bucket changes at each step (see routes).
+     *
+     * @param prefix the first characters of the tokens of the bucket.
+     * @param shard the index of the new shard of the bucket.
+     * @return the current route of the bucket.
+     * @throws IllegalArgumentException if the prefix or the shard is not valid.
+     * @throws IllegalStateException if the bucket is being moved to another shard.
+     */
+    @WriteOperation
+    public ShardRoute move(@Selector final String prefix, final int shard) {
+        int bucket = shortUrlReshardingJob.checkMove(prefix, shard);
+        shortUrlReshardingJob.moveBucket(prefix, shard).whenComplete((copiedCount, e) -> {
+            if (e != null && log.isErrorEnabled()) {
+                log.error("move : the move of the bucket of prefix[{}] to shard[{}] has failed, it is resumed by asking for the same move again", prefix, shard, e);
+            }
+        });
+        return shortUrlShardRouter.route(bucket);
+    }
+
+}
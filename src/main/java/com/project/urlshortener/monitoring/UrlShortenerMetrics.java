@@ -0,0 +1,154 @@
+package com.project.urlshortener.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers and counters of the creation and the decode of the short urls, exposed on /actuator/prometheus.<br/>
+ * Each step of the creation is timed on its own (validation, search of the existing url, token generation, collision check, insertion),
+ * so that a slow database can be told apart from a slow token generation.
+ * The timers publish a percentile histogram : the percentiles are computed by Prometheus (histogram_quantile), over several instances.
+ */
+@Component
+@Getter
+public class UrlShortenerMetrics {
+
+    static final String URL_VALIDATION_TIMER = "url.shortener.url.validation";
+    static final String DEDUP_LOOKUP_TIMER = "url.shortener.dedup.lookup";
+    static final String TOKEN_GENERATION_TIMER = "url.shortener.token.generation";
+    static final String COLLISION_CHECK_TIMER = "url.shortener.token.collision.check";
+    static final String INSERT_TIMER = "url.shortener.insert";
+    static final String DECODE_LOOKUP_TIMER = "url.shortener.decode.lookup";
+    static final String TOKEN_RETRY_COUNTER = "url.shortener.token.retries";
+    static final String TOKEN_NOT_FOUND_COUNTER = "url.shortener.token.not.found";
+    static final String INVALID_URL_COUNTER = "url.shortener.url.invalid";
+    static final String CLICK_FLUSH_TIMER = "url.shortener.clicks.flush";
+    static final String CLICKS_DROPPED_COUNTER = "url.shortener.clicks.dropped";
+    static final String CREATE_COALESCED_COUNTER = "url.shortener.create.coalesced";
+    static final String DECODE_COALESCED_COUNTER = "url.shortener.decode.coalesced";
+    static final String COALESCING_TIMEOUT_COUNTER = "url.shortener.coalescing.timeouts";
+    static final String EXPIRED_DELETED_COUNTER = "url.shortener.expired.deleted";
+    static final String RATE_LIMIT_REJECTED_COUNTER = "url.shortener.rate.limit.rejected";
+    static final String RATE_LIMIT_EVICTED_COUNTER = "url.shortener.rate.limit.evicted";
+
+    /**
+     * Validation of an original url by the UrlValidator.
+     */
+    private final Timer urlValidationTimer;
+
+    /**
+     * Search of the existing short urls of original urls, so that an url already known keeps its token.
+     */
+    private final Timer dedupLookupTimer;
+
+    /**
+     * Creation of a token by the token strategy.
+     */
+    private final Timer tokenGenerationTimer;
+
+    /**
+     * Search of new tokens in the database, to check that they are not already used.
+     */
+    private final Timer collisionCheckTimer;
+
+    /**
+     * Insertion of new short urls in the database.
+     */
+    private final Timer insertTimer;
+
+    /**
+     * Search of the original urls of tokens, in the token cache then in the database.
+     */
+    private final Timer decodeLookupTimer;
+
+    /**
+     * Tokens created again because the previous token was already used (ShortUrlTokenAlreadyUsedException).
+     */
+    private final Counter tokenRetryCounter;
+
+    /**
+     * Decoded tokens without any short url.
+     */
+    private final Counter tokenNotFoundCounter;
+
+    /**
+     * Original urls rejected by the validation.
+     */
+    private final Counter invalidUrlCounter;
+
+    /**
+     * Writing of the waiting clicks in the SHORT_URL_CLICK table.
+     */
+    private final Timer clickFlushTimer;
+
+    /**
+     * Clicks not counted, because the buffer of the clicks was full or because their writing has failed.
+     */
+    private final Counter clicksDroppedCounter;
+
+    /**
+     * Creations of short urls which have waited for the creation of the same original url by another request, instead of creating it again.
+     */
+    private final Counter createCoalescedCounter;
+
+    /**
+     * Decodes which have waited for the lookup of the same token by another request, instead of reading it again.
+     */
+    private final Counter decodeCoalescedCounter;
+
+    /**
+     * Requests which have stopped waiting for the same request of another thread, and have run on their own.
+     */
+    private final Counter coalescingTimeoutCounter;
+
+    /**
+     * Expired short urls deleted from the database by ShortUrlExpirationJob.
+     */
+    private final Counter expiredDeletedCounter;
+
+    /**
+     * Creation requests rejected because their client was over its rate limit (429 responses).
+     */
+    private final Counter rateLimitRejectedCounter;
+
+    /**
+     * Buckets of the rate limit forgotten before being full again, because too many clients were tracked : these clients start again with a full bucket.
+     */
+    private final Counter rateLimitEvictedCounter;
+
+    /**
+     * Default constructor for UrlShortenerMetrics.
+     *
+     * @param meterRegistry the registry of the application meters.
+     */
+    public UrlShortenerMetrics(final MeterRegistry meterRegistry) {
+        this.urlValidationTimer = timer(meterRegistry, URL_VALIDATION_TIMER, "Validation of the original urls");
+        this.dedupLookupTimer = timer(meterRegistry, DEDUP_LOOKUP_TIMER, "Search of the existing short urls of the original urls");
+        this.tokenGenerationTimer = timer(meterRegistry, TOKEN_GENERATION_TIMER, "Creation of the tokens by the token strategy");
+        this.collisionCheckTimer = timer(meterRegistry, COLLISION_CHECK_TIMER, "Search of the new tokens already used");
+        this.insertTimer = timer(meterRegistry, INSERT_TIMER, "Insertion of the new short urls");
+        this.decodeLookupTimer = timer(meterRegistry, DECODE_LOOKUP_TIMER, "Search of the original urls of the tokens");
+        this.tokenRetryCounter = Counter.builder(TOKEN_RETRY_COUNTER).description("Tokens created again because they were already used").register(meterRegistry);
+        this.tokenNotFoundCounter = Counter.builder(TOKEN_NOT_FOUND_COUNTER).description("Decoded tokens without short url").register(meterRegistry);
+        this.invalidUrlCounter = Counter.builder(INVALID_URL_COUNTER).description("Original urls rejected by the validation").register(meterRegistry);
+        this.clickFlushTimer = timer(meterRegistry, CLICK_FLUSH_TIMER, "Writing of the clicks on the short urls");
+        this.clicksDroppedCounter = Counter.builder(CLICKS_DROPPED_COUNTER).description("Clicks on the short urls not counted").register(meterRegistry);
+        this.createCoalescedCounter = Counter.builder(CREATE_COALESCED_COUNTER).description("Creations of short urls coalesced with the creation of the same url").register(meterRegistry);
+        this.decodeCoalescedCounter = Counter.builder(DECODE_COALESCED_COUNTER).description("Decodes coalesced with the lookup of the same token").register(meterRegistry);
+        this.coalescingTimeoutCounter = Counter.builder(COALESCING_TIMEOUT_COUNTER).description("Coalesced requests which have stopped waiting and run on their own").register(meterRegistry);
+        this.expiredDeletedCounter = Counter.builder(EXPIRED_DELETED_COUNTER).description("Expired short urls deleted from the database").register(meterRegistry);
+        this.rateLimitRejectedCounter = Counter.builder(RATE_LIMIT_REJECTED_COUNTER).description("Creation requests rejected by the rate limit of their client").register(meterRegistry);
+        this.rateLimitEvictedCounter = Counter.builder(RATE_LIMIT_EVICTED_COUNTER).description("Rate limit buckets forgotten before being full again").register(meterRegistry);
+    }
+
+    private static Timer timer(final MeterRegistry meterRegistry, final String name, final String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.project.urlshortener.monitoring;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects the virtual threads pinned to their carrier thread, with the JFR event jdk.VirtualThreadPinned.<br/>
+ * A virtual thread is pinned when it blocks (I/O, lock, sleep) inside a synchronized block or a native frame :
+ * its carrier thread cannot run any other virtual thread meanwhile, so a few pinned threads can stall all the requests.<br/>
+ * Each pinning longer than the threshold (see UrlShortenerProperties.PinningMonitor) is counted and logged with its stack trace.
+ * The pinning is attributed to the first frame of its stack trace outside the JDK, so that the pinning in our code can be told apart
+ * from the pinning in the libraries (JDBC drivers for instance).
+ */
+@Component
+@ConditionalOnProperty(prefix = "url-shortener.pinning-monitor", name = "enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    /**
+     * Name of the JFR event recorded when a virtual thread blocks while pinned to its carrier thread.
+     */
+    static final String VIRTUAL_THREAD_PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Prefix of the classes of the application in the stack traces.
+     */
+    private static final String APPLICATION_PACKAGE = "com.project.urlshortener.";
+
+    /**
+     * Prefixes of the classes of the JDK in the stack traces : the pinning is attributed to the first frame which is not in the JDK.
+     */
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+
+    /**
+     * Minimum duration of a pinning to be reported.
+     */
+    private final Duration threshold;
+
+    /**
+     * Maximum number of stack frames logged for each pinning.
+     */
+    private final int maxStackDepth;
+
+    /**
+     * Number of pinnings reported.
+     */
+    private final LongAdder pinnedCount = new LongAdder();
+
+    /**
+     * Number of pinnings reported which are attributed to the application code.
+     */
+    private final LongAdder applicationPinnedCount = new LongAdder();
+
+    /**
+     * The JFR stream of the pinning events. Null until the monitor is started.
+     */
+    private volatile RecordingStream recordingStream;
+
+    /**
+     * Default constructor for VirtualThreadPinningMonitor.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public VirtualThreadPinningMonitor(final UrlShortenerProperties urlShortenerProperties) {
+        this.threshold = Duration.ofMillis(urlShortenerProperties.pinningMonitor().thresholdMillis());
+        this.maxStackDepth = urlShortenerProperties.pinningMonitor().maxStackDepth();
+    }
+
+    /**
+     * Starts the JFR stream of the pinning events, in the background, once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (recordingStream != null) {
+            return;
+        }
+        RecordingStream stream = new RecordingStream();
+        stream.enable(VIRTUAL_THREAD_PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(VIRTUAL_THREAD_PINNED_EVENT, this::onPinnedEvent);
+        stream.startAsync();
+        recordingStream = stream;
+
+        if (log.isInfoEnabled()) {
+            log.info("start : the virtual threads pinned for more than {} ms are reported", threshold.toMillis());
+        }
+    }
+
+    /**
+     * Stops the JFR stream of the pinning events.
+     */
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+
+    /**
+     * Number of pinnings reported since the monitor was started.
+     *
+     * @return the number of pinnings longer than the threshold.
+     */
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    /**
+     * Number of pinnings reported since the monitor was started, which are attributed to the application code.
+     *
+     * @return the number of pinnings longer than the threshold caused by the application code.
+     */
+    public long getApplicationPinnedCount() {
+        return applicationPinnedCount.sum();
+    }
+
+    /**
+     * Counts and logs a pinning event.
+     *
+     * @param event the jdk.VirtualThreadPinned event.
+     */
+    void onPinnedEvent(final RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String origin = frames.stream()
+                .map(frame -> frame.getMethod().getType().getName())
+                .filter(className -> JDK_PACKAGES.stream().noneMatch(className::startsWith))
+                .findFirst()
+                .orElse("unknown");
+        // the event is classified before being counted : a reader of pinnedCount then sees applicationPinnedCount up to date
+        if (origin.startsWith(APPLICATION_PACKAGE)) {
+            applicationPinnedCount.increment();
+        }
+        pinnedCount.increment();
+
+        if (log.isWarnEnabled()) {
+            StringBuilder stack = new StringBuilder();
+            for (int i = 0; i < frames.size() && i < maxStackDepth; i++) {
+                RecordedFrame frame = frames.get(i);
+                stack.append(System.lineSeparator()).append("    at ")
+                        .append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                        .append(':').append(frame.getLineNumber());
+            }
+            log.warn("onPinnedEvent : a virtual thread was pinned to its carrier thread for {} ms by [{}]{}", event.getDuration().toMillis(), origin, stack);
+        }
+    }
+
+}
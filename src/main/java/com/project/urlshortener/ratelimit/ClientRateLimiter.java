@@ -0,0 +1,15 @@
+package com.project.urlshortener.ratelimit;
+
+/**
+ * Limits the number of requests of each client, so that one client cannot take the resources of the others.
+ */
+public interface ClientRateLimiter {
+
+    /**
+     * Takes a token from the bucket of a client. Never waits.
+     *
+     * @param clientKey the key of the client (its API key, or its IP address).
+     * @return 0 if the request can go on, otherwise the delay (in milliseconds, at least 1) before the client gets a new token.
+     */
+    long tryAcquire(final String clientKey);
+}
@@ -0,0 +1,85 @@
+package com.project.urlshortener.ratelimit.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.exception.ShortUrlRateLimitExceededException;
+import com.project.urlshortener.ratelimit.ClientRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the creations of short urls of each client, before the request body is read.<br/>
+ * A client is identified by its IP address, or by its API key (header rateLimit.clientKeyHeader) when this key can be trusted :
+ * the key is one of rateLimit.apiKeys, or the request comes from one of rateLimit.trustedGateways, which check the keys themselves.
+ * An unchecked key would let a client get a new bucket with each request, and fill the buckets with random keys.
+ */
+@Component
+public class ClientRateLimitInterceptor implements HandlerInterceptor {
+
+    /** Longer API keys are ignored, so that a client cannot fill the buckets with huge keys. */
+    static final int MAX_API_KEY_LENGTH = 128;
+
+    /** Token buckets of the clients. */
+    private final ClientRateLimiter clientRateLimiter;
+
+    /** Header of the API key. Null if the clients are only identified by their IP address. */
+    private final String clientKeyHeader;
+
+    /** The known API keys. */
+    private final Set<String> apiKeys;
+
+    /** IP addresses of the gateways which check the API keys. */
+    private final Set<String> trustedGateways;
+
+    /**
+     * Default constructor for ClientRateLimitInterceptor.
+     *
+     * @param clientRateLimiter instance of ClientRateLimiter.
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public ClientRateLimitInterceptor(final ClientRateLimiter clientRateLimiter, final UrlShortenerProperties urlShortenerProperties) {
+        UrlShortenerProperties.RateLimit rateLimit = urlShortenerProperties.rateLimit();
+        this.clientRateLimiter = clientRateLimiter;
+        this.clientKeyHeader = StringUtils.isBlank(rateLimit.clientKeyHeader()) ? null : rateLimit.clientKeyHeader();
+        this.apiKeys = Set.copyOf(rateLimit.apiKeys());
+        this.trustedGateways = Set.copyOf(rateLimit.trustedGateways());
+    }
+
+    /**
+     * Takes a token from the bucket of the client of a creation request.
+     *
+     * @throws ShortUrlRateLimitExceededException If the client has no token left.
+     */
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        long retryAfterMillis = clientRateLimiter.tryAcquire(getClientKey(request));
+        if (retryAfterMillis > 0) {
+            throw new ShortUrlRateLimitExceededException((retryAfterMillis + TimeUnit.SECONDS.toMillis(1) - 1) / TimeUnit.SECONDS.toMillis(1));
+        }
+        return true;
+    }
+
+    /**
+     * Gives the key of the client of a request : "key:" followed by its API key if it can be trusted, otherwise "ip:" followed by its IP address.
+     *
+     * @param request the HTTP request.
+     * @return the key of the client.
+     */
+    String getClientKey(final HttpServletRequest request) {
+        String apiKey = clientKeyHeader == null ? null : request.getHeader(clientKeyHeader);
+        if (StringUtils.isNotBlank(apiKey) && apiKey.length() <= MAX_API_KEY_LENGTH && (apiKeys.contains(apiKey) || trustedGateways.contains(request.getRemoteAddr()))) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+}
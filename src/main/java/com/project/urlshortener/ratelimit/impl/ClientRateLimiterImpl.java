@@ -0,0 +1,211 @@
+package com.project.urlshortener.ratelimit.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.ratelimit.ClientRateLimiter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+
+/**
+ * Token bucket of each client : a client can send rateLimit.capacity requests at once, then rateLimit.refillPerSecond requests per second.<br/>
+ * The bucket of a client is a single timestamp, updated with a compare-and-set (virtual scheduling) : the time at which its bucket is full again.
+ * Each request moves it forward by the refill delay of one token, and a request is rejected when it would move it further than the refill delay of the whole bucket.
+ * A bucket whose timestamp is over is full : forgetting it loses nothing, since a new client starts with a full bucket.<br/>
+ * The buckets are spread over rateLimit.stripes independent concurrent maps, each one holding at most maxClients / stripes buckets. There is no global lock :
+ * when a stripe is full, a new client of this stripe forgets its full buckets, then, if the stripe is still nearly full, the buckets of its least recently seen clients
+ * (each request, accepted or rejected, records when its client was last seen) : a client which keeps sending requests, even rejected ones, keeps its bucket.
+ * Only this stripe is locked meanwhile, and a concurrent new client does not wait for it.
+ */
+@Component
+public class ClientRateLimiterImpl implements ClientRateLimiter {
+
+    /** Part of a full stripe freed at once (1 / FREED_PART_DIVISOR), so that a stripe full of active clients is not sorted by each new client. */
+    private static final int FREED_PART_DIVISOR = 8;
+
+    /** Whether the requests are limited. */
+    private final boolean enabled;
+
+    /** Refill delay (in nanoseconds) of one token. */
+    private final long tokenIntervalNanos;
+
+    /** Refill delay (in nanoseconds) of the bucket, less one token : how far ahead the timestamp of a bucket can be when a request is accepted. */
+    private final long burstNanos;
+
+    /** Maximum number of buckets of a stripe. */
+    private final int maxClientsPerStripe;
+
+    /** Number of buckets of a full stripe kept when its buckets are forgotten. */
+    private final int keptClientsPerStripe;
+
+    /** Number of bits of a stripe index : stripes.length = 1 << stripeBits. */
+    private final int stripeBits;
+
+    /** The buckets of the clients, by hash of their key. */
+    private final Stripe[] stripes;
+
+    /** Counters of the rejected requests and of the forgotten buckets. */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /**
+     * The bucket of a client.
+     */
+    private static final class Bucket {
+
+        /** Timestamp (System.nanoTime) at which the bucket is full again. */
+        private final AtomicLong fullAtNanos;
+
+        /** Timestamp (System.nanoTime) of the last request of the client, to forget the least recently seen clients first. */
+        private volatile long lastSeenNanos;
+
+        private Bucket(final long nowNanos) {
+            this.fullAtNanos = new AtomicLong(nowNanos);
+            this.lastSeenNanos = nowNanos;
+        }
+    }
+
+    /**
+     * A client of a stripe being freed, with the time of its last request relative to the current time (negative).
+     */
+    private record SeenClient(String clientKey, Bucket bucket, long lastSeenAgoNanos) {}
+
+    /**
+     * A part of the buckets, with its own lock for forgetting its buckets.
+     */
+    private static final class Stripe {
+
+        /** The bucket of each client. */
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+        /** Makes the new clients of this stripe not forget its buckets at the same time. */
+        private final ReentrantLock evictionLock = new ReentrantLock();
+    }
+
+    /**
+     * Default constructor for ClientRateLimiterImpl.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param urlShortenerMetrics instance of UrlShortenerMetrics.
+     */
+    public ClientRateLimiterImpl(final UrlShortenerProperties urlShortenerProperties, final UrlShortenerMetrics urlShortenerMetrics) {
+        UrlShortenerProperties.RateLimit rateLimit = urlShortenerProperties.rateLimit();
+        this.enabled = rateLimit.enabled();
+        this.tokenIntervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / rateLimit.refillPerSecond()));
+        this.burstNanos = tokenIntervalNanos * (rateLimit.capacity() - 1);
+        int stripeCount = Math.max(2, Integer.highestOneBit(rateLimit.stripes() - 1) << 1);
+        this.stripeBits = Integer.numberOfTrailingZeros(stripeCount);
+        this.maxClientsPerStripe = Math.max(1, (rateLimit.maxClients() + stripeCount - 1) / stripeCount);
+        this.keptClientsPerStripe = maxClientsPerStripe - Math.max(1, maxClientsPerStripe / FREED_PART_DIVISOR);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.urlShortenerMetrics = urlShortenerMetrics;
+    }
+
+    @Override
+    public long tryAcquire(final String clientKey) {
+        return tryAcquire(clientKey, System.nanoTime());
+    }
+
+    /**
+     * Takes a token from the bucket of a client, at a given time.
+     *
+     * @param clientKey the key of the client.
+     * @param nowNanos the current time (System.nanoTime).
+     * @return 0 if the request can go on, otherwise the delay (in milliseconds, at least 1) before the client gets a new token.
+     */
+    long tryAcquire(final String clientKey, final long nowNanos) {
+        requireNonBlank(clientKey, "clientKey");
+        if (!enabled) {
+            return 0;
+        }
+
+        Stripe stripe = stripes[stripeIndex(clientKey)];
+        Bucket bucket = stripe.buckets.get(clientKey);
+        if (bucket == null) {
+            if (stripe.buckets.size() >= maxClientsPerStripe) {
+                evict(stripe, nowNanos);
+            }
+            // a new client starts with a full bucket
+            bucket = stripe.buckets.computeIfAbsent(clientKey, key -> new Bucket(nowNanos));
+        } else if (bucket.lastSeenNanos - nowNanos < 0) {
+            bucket.lastSeenNanos = nowNanos;
+        }
+
+        while (true) {
+            long fullAtNanos = bucket.fullAtNanos.get();
+            long startNanos = Math.max(fullAtNanos, nowNanos);
+            long waitNanos = startNanos - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                urlShortenerMetrics.getRateLimitRejectedCounter().increment();
+                return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+            }
+            if (bucket.fullAtNanos.compareAndSet(fullAtNanos, startNanos + tokenIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives the number of clients whose bucket is kept.
+     *
+     * @return the number of buckets of all the stripes.
+     */
+    int getClientCount() {
+        int clientCount = 0;
+        for (Stripe stripe : stripes) {
+            clientCount += stripe.buckets.size();
+        }
+        return clientCount;
+    }
+
+    /**
+     * Forgets the full buckets of a full stripe, then, if it is still nearly full, the buckets of the least recently seen clients until keptClientsPerStripe are left.
+     * Does nothing if another thread is already doing it : the stripe can go over its size by a few buckets meanwhile.
+     */
+    private void evict(final Stripe stripe, final long nowNanos) {
+        if (!stripe.evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (stripe.buckets.size() < maxClientsPerStripe) {
+                return;
+            }
+            stripe.buckets.values().removeIf(bucket -> bucket.fullAtNanos.get() - nowNanos <= 0);
+            int evictedCount = 0;
+            if (stripe.buckets.size() > keptClientsPerStripe) {
+                // the times are read once : the concurrent requests keep updating them during the sort
+                List<SeenClient> seenClients = new ArrayList<>(stripe.buckets.size());
+                stripe.buckets.forEach((clientKey, bucket) -> seenClients.add(new SeenClient(clientKey, bucket, bucket.lastSeenNanos - nowNanos)));
+                seenClients.sort(Comparator.comparingLong(SeenClient::lastSeenAgoNanos));
+                for (int i = 0; i < seenClients.size() && stripe.buckets.size() > keptClientsPerStripe; i++) {
+                    if (stripe.buckets.remove(seenClients.get(i).clientKey(), seenClients.get(i).bucket())) {
+                        evictedCount++;
+                    }
+                }
+            }
+            if (evictedCount > 0) {
+                urlShortenerMetrics.getRateLimitEvictedCounter().increment(evictedCount);
+            }
+        } finally {
+            stripe.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Index of the stripe of a client, from the high bits of its mixed hash : the low bits are left to the hash table of the stripe.
+     */
+    private int stripeIndex(final String clientKey) {
+        return (int) ((clientKey.hashCode() * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - stripeBits));
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.project.urlshortener.repository;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Progress of the computation of the ORIGINAL_URL_HASH column for the rows of SHORT_URL created before this column existed.<br/>
+ * Until it is completed, the original urls must also be searched without their hash.
+ */
+@Component
+public class OriginalUrlHashBackfillStatus {
+
+    /** Whether every row of SHORT_URL has a hash of its original url. */
+    private volatile boolean completed;
+
+    /**
+     * Indicates whether every row of SHORT_URL has a hash of its original url.
+     *
+     * @return true once the backfill is completed.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Records that every row of SHORT_URL has a hash of its original url.
+     */
+    public void markCompleted() {
+        completed = true;
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Makes the short urls created by this instance readable right after their creation, when the lookups are sent to the read replicas :
+ * the replicas can miss a new row until they catch up with the primary database.
+ */
+public interface ReadYourWritesGuard {
+
+    /**
+     * Remembers a short url created by this instance : its token and its original url are read from the primary database for a while (url-shortener.read-replicas.read-your-writes-millis).
+     *
+     * @param shortUrlEntity the new short url, with its token and its original url.
+     */
+    void recordWrite(final ShortUrlEntity shortUrlEntity);
+
+    /**
+     * Runs a lookup of tokens or of original urls. The lookup runs in a read-write transaction (primary database) if one of the values was created recently by this instance,
+     * else it runs as is : the read-only queries of ShortUrlRepository are then sent to the read replicas.
+     *
+     * @param values the tokens or the original urls looked for.
+     * @param lookup the lookup.
+     * @return the result of the lookup.
+     * @param <T> type of the result.
+     */
+    <T> T read(final Collection<String> values, final Supplier<T> lookup);
+
+    /**
+     * Runs a lookup in the primary database, whatever the values looked for : for instance to read the row of another instance which has just made an insertion fail.
+     *
+     * @param lookup the lookup.
+     * @return the result of the lookup.
+     * @param <T> type of the result.
+     */
+    <T> T readFromPrimary(final Supplier<T> lookup);
+}
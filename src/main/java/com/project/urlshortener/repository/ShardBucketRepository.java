@@ -0,0 +1,42 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.entities.ShardBucketEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data Repository for ShardBucketEntity.
+ */
+@Repository
+public interface ShardBucketRepository extends CrudRepository<ShardBucketEntity, Integer> {
+
+    /**
+     * Creates a bucket. Unlike save, never replaces an existing bucket : fails if the bucket was created by another transaction.<br/>
+     * Must be called inside a transaction.
+     * @param bucket number of the bucket
+     * @param shard index of the shard of the bucket
+     * @return 1 when the bucket is created.
+     */
+    @Modifying
+    @Query("insert into SHARD_BUCKET (bucket, shard, secondaryShard) values (:bucket, :shard, -1)")
+    int insert(@Param("bucket") final Integer bucket, @Param("shard") final Integer shard);
+
+    /**
+     * Replaces the shards of a bucket, only if they still have the expected values (compare-and-set).<br/>
+     * Must be called inside a transaction.
+     * @param bucket number of the bucket
+     * @param expectedShard the shard read before
+     * @param expectedSecondaryShard the secondary shard read before
+     * @param newShard the new shard
+     * @param newSecondaryShard the new secondary shard (-1 for none)
+     * @return 1 if the shards were replaced, 0 if another transaction has changed them since they were read.
+     */
+    @Modifying
+    @Query("update SHARD_BUCKET b set b.shard = :newShard, b.secondaryShard = :newSecondaryShard"
+            + " where b.bucket = :bucket and b.shard = :expectedShard and b.secondaryShard = :expectedSecondaryShard")
+    int compareAndSetShards(@Param("bucket") final Integer bucket, @Param("expectedShard") final Integer expectedShard, @Param("expectedSecondaryShard") final Integer expectedSecondaryShard,
+                            @Param("newShard") final Integer newShard, @Param("newSecondaryShard") final Integer newSecondaryShard);
+}
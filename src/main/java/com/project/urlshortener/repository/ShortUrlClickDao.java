@@ -0,0 +1,24 @@
+package com.project.urlshortener.repository;
+
+import java.util.Map;
+
+/**
+ * Main functions to access the SHORT_URL_CLICK table in the database.
+ */
+public interface ShortUrlClickDao {
+
+    /**
+     * Adds clicks to the counts of several tokens at once. The tokens without any count yet are inserted.
+     *
+     * @param clickCountsByToken the number of clicks to add to each token.
+     */
+    void addClicks(final Map<String, Long> clickCountsByToken);
+
+    /**
+     * Reads the number of clicks on a token.
+     *
+     * @param token the short url token.
+     * @return the number of clicks written in the database, 0 if the token has no count yet.
+     */
+    long getClickCount(final String token);
+}
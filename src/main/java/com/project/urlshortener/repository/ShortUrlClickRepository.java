@@ -0,0 +1,12 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.entities.ShortUrlClickEntity;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data Repository for ShortUrlClickEntity.
+ */
+@Repository
+public interface ShortUrlClickRepository extends CrudRepository<ShortUrlClickEntity, String> {
+}
@@ -2,6 +2,11 @@ package com.project.urlshortener.repository;
 
 import com.project.urlshortener.model.entities.ShortUrlEntity;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * Main functions to access the database.
  */
@@ -15,6 +20,14 @@ public interface ShortUrlDao {
      */
     ShortUrlEntity findExistingShortUrlEntityByToken(final String token);
 
+    /**
+     * Searches for the ShortUrlEntity matching several token values.
+     *
+     * @param tokens the values of the tokens to look for.
+     * @return the ShortUrlEntity found, by token. The tokens not found are missing.
+     */
+    Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByTokens(final Collection<String> tokens);
+
     /**
      * Searches for a ShortUrlEntity in the database matching a specific original url value.
      *
@@ -30,4 +43,44 @@ public interface ShortUrlDao {
      * @return the ShortUrlEntity created in the database.
      */
     ShortUrlEntity createNewShortUrlEntityRetryable(final String originalUrl);
+
+    /**
+     * Searches for the ShortUrlEntity in the database matching several original url values.
+     *
+     * @param originalUrls the values of the original urls to look for.
+     * @return the ShortUrlEntity found in the database, by original url. The urls not found are missing.
+     */
+    Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByOriginalUrls(final Collection<String> originalUrls);
+
+    /**
+     * Creates brand new tokens for several original url values and saves the ShortUrlEntity in the database, in batches.
+     *
+     * @param originalUrls the values of the original urls, which have no token yet.
+     * @return the ShortUrlEntity created in the database. The urls for which no token could be created are missing.
+     */
+    List<ShortUrlEntity> createNewShortUrlEntities(final Collection<String> originalUrls);
+
+    /**
+     * Reads all the existing tokens of the database, one by one, without keeping them in memory.
+     *
+     * @param tokenConsumer called for each existing token.
+     */
+    void forEachExistingToken(final Consumer<String> tokenConsumer);
+
+    /**
+     * Reads all the existing short urls of the database, by pages in the order of their ids, without keeping them in memory.
+     *
+     * @param pageSize number of short urls read at once.
+     * @param shortUrlConsumer called for each existing short url.
+     */
+    void forEachExistingShortUrl(final int pageSize, final Consumer<ShortUrlEntity> shortUrlConsumer);
+
+    /**
+     * Saves short urls which already have their token (imported from another url shortener), in batches.
+     * A short url whose token or original url is already used in the database is skipped.
+     *
+     * @param shortUrlEntities the short urls to import, with their token and their original url.
+     * @return the number of short urls saved.
+     */
+    int importShortUrlEntities(final List<ShortUrlEntity> shortUrlEntities);
 }
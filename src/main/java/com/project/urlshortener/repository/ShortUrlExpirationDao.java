@@ -0,0 +1,51 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Functions to create, find and delete the short urls which expire. Only the database storage supports the expiration :
+ * this interface is implemented only when url-shortener.storage.engine is database.
+ */
+public interface ShortUrlExpirationDao {
+
+    /**
+     * Creates a brand new token for an original url value and saves a ShortUrlEntity which expires, in the database.
+     *
+     * @param originalUrl the value of the original url.
+     * @param expiresAt the time after which the short url does not exist anymore. Null if it never expires.
+     * @return the ShortUrlEntity created in the database.
+     */
+    ShortUrlEntity createNewShortUrlEntityRetryable(final String originalUrl, final Instant expiresAt);
+
+    /**
+     * Replaces the expiration time of an existing short url, unless it has already expired.
+     *
+     * @param shortUrlEntity the existing short url.
+     * @param expiresAt the new expiration time. Null if the short url never expires anymore.
+     * @return the short url with its new expiration time. Null if the short url has expired, or has been deleted, in the meantime.
+     */
+    ShortUrlEntity updateExpiration(final ShortUrlEntity shortUrlEntity, final Instant expiresAt);
+
+    /**
+     * Reads the short urls which expire before a time, by pages in the order of their expiration time, without keeping them in memory.
+     *
+     * @param until only the short urls expiring strictly before this time are read, including the short urls already expired.
+     * @param pageSize number of short urls read at once.
+     * @param shortUrlConsumer called for each short url, with its token and its expiration time.
+     */
+    void forEachShortUrlExpiringBefore(final Instant until, final int pageSize, final Consumer<ShortUrlEntity> shortUrlConsumer);
+
+    /**
+     * Deletes the short urls of several tokens which have expired, and removes them from the token cache.
+     * A short url whose expiration was pushed back or removed in the meantime is kept.
+     *
+     * @param tokens the values of the tokens.
+     * @param now the current time.
+     * @return the number of short urls deleted.
+     */
+    int deleteExpiredShortUrls(final Collection<String> tokens, final Instant now);
+}
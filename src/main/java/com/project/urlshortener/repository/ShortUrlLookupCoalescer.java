@@ -0,0 +1,22 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the concurrent lookups of the same token in the database, once the token cache has missed it (see url-shortener.coalescing) :
+ * when a new link is shared before it is in the token cache, only the first request reads the database, the other ones wait for its result, or its exception.
+ * The tokens found in the cache do not go through it.
+ */
+public interface ShortUrlLookupCoalescer {
+
+    /**
+     * Runs the lookup of a token, or waits for the same lookup of another thread. A thread which has waited too long runs the lookup on its own.
+     *
+     * @param token the value of the token looked for.
+     * @param lookup the lookup of the token in the database.
+     * @return the result of the lookup (of this thread or of the other thread). Can be null.
+     */
+    ShortUrlEntity findByToken(final String token, final Supplier<ShortUrlEntity> lookup);
+}
@@ -1,11 +1,27 @@
 package com.project.urlshortener.repository;
 
 import com.project.urlshortener.model.entities.ShortUrlEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * Spring Data Repository for ShortUrlEntity.
+ * Spring Data Repository for ShortUrlEntity.<br/>
+ * The lookups by token and by original url run in read-only transactions : they are sent to the read replicas when url-shortener.read-replicas.enabled is true (see ReadReplicaDataSourceConfiguration).<br/>
+ * The decode and the dedup use the projection lookups (findProjection...), which return unmanaged ShortUrlEntity : the entity lookups (findBy...) are kept for the writes and the tests.<br/>
+ * The expiring short urls are read through the index of EXPIRES_AT, and deleted only if they are still expired (see ShortUrlExpirationJob).
  */
 @Repository
 public interface ShortUrlRepository extends CrudRepository<ShortUrlEntity, Long> {
@@ -15,12 +31,151 @@ public interface ShortUrlRepository extends CrudRepository<ShortUrlEntity, Long>
      * @param token value of the token
      * @return the ShortUrlEntity found in the repository. Returns null if not found.
      */
+    @Transactional(readOnly = true)
     ShortUrlEntity findByToken(final String token);
 
     /**
-     * Search for a ShortUrlEntity for an original url.
+     * Search for a ShortUrlEntity for an original url.<br/>
+     * The ORIGINAL_URL column is not indexed : prefer findByOriginalUrlHash.
      * @param originalUrl value of the original url
      * @return the ShortUrlEntity found in the repository. Returns null if not found.
      */
+    @Transactional(readOnly = true)
     ShortUrlEntity findByOriginalUrl(final String originalUrl);
+
+    /**
+     * Search for a ShortUrlEntity for the hash of an original url (indexed column).
+     * @param originalUrlHash value of the hash of the original url (see HashUtils.hash128)
+     * @return the ShortUrlEntity found in the repository. Returns null if not found.
+     */
+    @Transactional(readOnly = true)
+    ShortUrlEntity findByOriginalUrlHash(final byte[] originalUrlHash);
+
+    /**
+     * Search for the ShortUrlEntity of several tokens.
+     * @param tokens values of the tokens
+     * @return the ShortUrlEntity found in the repository, in any order. The tokens not found are missing.
+     */
+    @Transactional(readOnly = true)
+    List<ShortUrlEntity> findByTokenIn(final Collection<String> tokens);
+
+    /**
+     * Search for the ShortUrlEntity of several original urls.<br/>
+     * The ORIGINAL_URL column is not indexed : prefer findByOriginalUrlHashIn.
+     * @param originalUrls values of the original urls
+     * @return the ShortUrlEntity found in the repository, in any order. The original urls not found are missing.
+     */
+    @Transactional(readOnly = true)
+    List<ShortUrlEntity> findByOriginalUrlIn(final Collection<String> originalUrls);
+
+    /**
+     * Search for the ShortUrlEntity of several hashes of original urls (indexed column).
+     * @param originalUrlHashes values of the hashes of the original urls (see HashUtils.hash128)
+     * @return the ShortUrlEntity found in the repository, in any order. The hashes not found are missing.
+     */
+    @Transactional(readOnly = true)
+    List<ShortUrlEntity> findByOriginalUrlHashIn(final Collection<byte[]> originalUrlHashes);
+
+    /**
+     * Search for the short url of a token, without loading a managed entity : the ShortUrlEntity is built from the columns of the row (constructor expression),
+     * so that it is neither kept in the persistence context nor dirty-checked.
+     * @param token value of the token
+     * @return a new, unmanaged ShortUrlEntity. Returns null if not found.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.project.urlshortener.model.entities.ShortUrlEntity(s.id, s.token, s.originalUrl, s.originalUrlHash, s.expiresAt) from SHORT_URL s where s.token = ?1")
+    ShortUrlEntity findProjectionByToken(final String token);
+
+    /**
+     * Search for the short urls of several tokens, without loading managed entities (see findProjectionByToken).
+     * @param tokens values of the tokens
+     * @return new, unmanaged ShortUrlEntity, in any order. The tokens not found are missing.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.project.urlshortener.model.entities.ShortUrlEntity(s.id, s.token, s.originalUrl, s.originalUrlHash, s.expiresAt) from SHORT_URL s where s.token in ?1")
+    List<ShortUrlEntity> findProjectionsByTokenIn(final Collection<String> tokens);
+
+    /**
+     * Search for the short url of the hash of an original url (indexed column), without loading a managed entity (see findProjectionByToken).
+     * @param originalUrlHash value of the hash of the original url (see HashUtils.hash128)
+     * @return a new, unmanaged ShortUrlEntity. Returns null if not found.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.project.urlshortener.model.entities.ShortUrlEntity(s.id, s.token, s.originalUrl, s.originalUrlHash, s.expiresAt) from SHORT_URL s where s.originalUrlHash = ?1")
+    ShortUrlEntity findProjectionByOriginalUrlHash(final byte[] originalUrlHash);
+
+    /**
+     * Search for the short urls of several hashes of original urls (indexed column), without loading managed entities (see findProjectionByToken).
+     * @param originalUrlHashes values of the hashes of the original urls (see HashUtils.hash128)
+     * @return new, unmanaged ShortUrlEntity, in any order. The hashes not found are missing.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.project.urlshortener.model.entities.ShortUrlEntity(s.id, s.token, s.originalUrl, s.originalUrlHash, s.expiresAt) from SHORT_URL s where s.originalUrlHash in ?1")
+    List<ShortUrlEntity> findProjectionsByOriginalUrlHashIn(final Collection<byte[]> originalUrlHashes);
+
+    /**
+     * Search for the ShortUrlEntity which do not have a hash of their original url yet, in the order of their id.
+     * @param id only the entities with a greater id are returned
+     * @param limit maximum number of entities returned
+     * @return the ShortUrlEntity found in the repository. Returns an empty list if not found.
+     */
+    List<ShortUrlEntity> findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(final Long id, final Limit limit);
+
+    /**
+     * Streams all the tokens of the repository, without loading the entities.<br/>
+     * Must be called inside a transaction, and the stream must be closed.
+     * @return a stream of all the tokens.
+     */
+    @Query("select s.token from SHORT_URL s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamAllTokens();
+
+    /**
+     * Search for the short urls which expire before a time, by pages in the order of their expiration time then of their id (keyset pagination on the index of EXPIRES_AT),
+     * without loading managed entities (see findProjectionByToken).
+     * @param until only the short urls expiring strictly before this time are returned
+     * @param afterExpiresAt expiration time of the last short url of the previous page
+     * @param afterId id of the last short url of the previous page
+     * @param limit maximum number of short urls returned
+     * @return new, unmanaged ShortUrlEntity. Returns an empty list if not found.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.project.urlshortener.model.entities.ShortUrlEntity(s.id, s.token, s.originalUrl, s.originalUrlHash, s.expiresAt) from SHORT_URL s"
+            + " where s.expiresAt < :until and (s.expiresAt > :afterExpiresAt or (s.expiresAt = :afterExpiresAt and s.id > :afterId)) order by s.expiresAt, s.id")
+    List<ShortUrlEntity> findProjectionsExpiringBefore(@Param("until") final Instant until, @Param("afterExpiresAt") final Instant afterExpiresAt,
+                                                       @Param("afterId") final Long afterId, final Limit limit);
+
+    /**
+     * Replaces the expiration time of a short url, unless it has already expired (the row may be deleted at any time).
+     * @param token value of the token
+     * @param expiresAt the new expiration time. Null if the short url never expires anymore.
+     * @param now the current time
+     * @return 1 if the expiration time was replaced, 0 if the short url does not exist or has expired.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SHORT_URL s set s.expiresAt = :expiresAt where s.token = :token and (s.expiresAt is null or s.expiresAt > :now)")
+    int updateExpiresAtByToken(@Param("token") final String token, @Param("expiresAt") final Instant expiresAt, @Param("now") final Instant now);
+
+    /**
+     * Deletes the short urls of several tokens, only if they have expired : a short url whose expiration was pushed back or removed in the meantime is kept.
+     * @param tokens values of the tokens
+     * @param now the current time
+     * @return the number of short urls deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from SHORT_URL s where s.token in :tokens and s.expiresAt <= :now")
+    int deleteExpiredByTokenIn(@Param("tokens") final Collection<String> tokens, @Param("now") final Instant now);
+
+    /**
+     * Deletes the short url of an original url hash, only if it has expired : the url can then get a new short url.
+     * @param originalUrlHash hash of the original url
+     * @param now the current time
+     * @return the number of short urls deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from SHORT_URL s where s.originalUrlHash = :originalUrlHash and s.expiresAt <= :now")
+    int deleteExpiredByOriginalUrlHash(@Param("originalUrlHash") final byte[] originalUrlHash, @Param("now") final Instant now);
 }
@@ -0,0 +1,78 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.shard.ShardRoute;
+
+import java.util.List;
+
+/**
+ * Chooses the shard of the short urls, when they are spread over several databases (url-shortener.storage.engine sharded).<br/>
+ * The tokens are split in buckets by their first characters (url-shortener.sharding.prefixLength), and each bucket lives in one shard.
+ * The token of a new short url starts with the prefix of the bucket of its original url : the shard of a token and the shard of an original url are both found without searching all the shards.
+ */
+public interface ShortUrlShardRouter {
+
+    /**
+     * Gives the bucket of a token, from its first characters.
+     *
+     * @param token the token.
+     * @return the number of the bucket.
+     */
+    int bucketOfToken(final String token);
+
+    /**
+     * Gives the bucket of an original url, from its hash.
+     *
+     * @param originalUrl the original url.
+     * @return the number of the bucket.
+     */
+    int bucketOfOriginalUrl(final String originalUrl);
+
+    /**
+     * Gives the bucket of a prefix of tokens.
+     *
+     * @param prefix the first characters of the tokens.
+     * @return the number of the bucket.
+     * @throws IllegalArgumentException if the prefix does not have prefixLength characters among the token characters.
+     */
+    int bucketOfPrefix(final String prefix);
+
+    /**
+     * Replaces the first characters of a new token by the prefix of a bucket.
+     *
+     * @param bucket the number of the bucket.
+     * @param token the new token.
+     * @return the token of the bucket.
+     */
+    String toBucketToken(final int bucket, final String token);
+
+    /**
+     * Gives the shards of a bucket, as read at the last refresh.
+     *
+     * @param bucket the number of the bucket.
+     * @return the shards of the bucket.
+     */
+    ShardRoute route(final int bucket);
+
+    /**
+     * Gives the shards of all the buckets, as read at the last refresh.
+     *
+     * @return the shards of each bucket, in the order of the buckets.
+     */
+    List<ShardRoute> routes();
+
+    /**
+     * Replaces the shards of a bucket, unless another instance has changed them since they were read. The shards of the buckets are then read again.<br/>
+     * The other instances see the new shards at their next refresh (url-shortener.sharding.routingRefreshMillis).
+     *
+     * @param expectedRoute the shards of the bucket read before.
+     * @param newShard the new shard of the bucket.
+     * @param newSecondaryShard the new secondary shard of the bucket, ShardRoute.NO_SHARD for none.
+     * @return true if the shards were replaced.
+     */
+    boolean compareAndSetRoute(final ShardRoute expectedRoute, final int newShard, final int newSecondaryShard);
+
+    /**
+     * Reads the shards of all the buckets again.
+     */
+    void refresh();
+}
@@ -0,0 +1,41 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+
+/**
+ * The new short urls returned before being inserted in the database (write-behind) : they are inserted later, in batches.
+ */
+public interface ShortUrlWriteBehindQueue {
+
+    /**
+     * Adds a new short url to the short urls waiting to be inserted.
+     *
+     * @param shortUrlEntity the new short url, with its token, its original url and the hash of its original url.
+     * @return the short url waiting to be inserted for this original url : shortUrlEntity, or a short url added before for the same original url.
+     *         Null if the write-behind is disabled or cannot take the short url : it must then be inserted right away.
+     * @throws ShortUrlTokenAlreadyUsedException if the token is already used by a short url waiting to be inserted.
+     */
+    ShortUrlEntity enqueue(final ShortUrlEntity shortUrlEntity);
+
+    /**
+     * Searches for a short url waiting to be inserted, by its token.
+     *
+     * @param token the value of the token to look for.
+     * @return the short url waiting to be inserted. Null if there is none.
+     */
+    ShortUrlEntity findPendingByToken(final String token);
+
+    /**
+     * Searches for a short url waiting to be inserted, by its original url.
+     *
+     * @param originalUrl the value of the original url to look for.
+     * @return the short url waiting to be inserted. Null if there is none.
+     */
+    ShortUrlEntity findPendingByOriginalUrl(final String originalUrl);
+
+    /**
+     * Inserts the short urls waiting to be inserted.
+     */
+    void flush();
+}
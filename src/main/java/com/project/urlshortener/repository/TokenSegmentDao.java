@@ -0,0 +1,17 @@
+package com.project.urlshortener.repository;
+
+/**
+ * Main functions to access the TOKEN_SEGMENT table in the database.
+ */
+public interface TokenSegmentDao {
+
+    /**
+     * Allocates a range of consecutive numbers of a sequence. The numbers of a range are never allocated again, by any instance of the application.<br/>
+     * The first number of a new sequence is 0.
+     *
+     * @param segmentName the name of the sequence.
+     * @param count the amount of numbers to allocate.
+     * @return the first number of the range : the allocated numbers are [first, first + count[.
+     */
+    long allocate(final String segmentName, final long count);
+}
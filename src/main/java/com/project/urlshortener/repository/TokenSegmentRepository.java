@@ -0,0 +1,38 @@
+package com.project.urlshortener.repository;
+
+import com.project.urlshortener.model.entities.TokenSegmentEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data Repository for TokenSegmentEntity.
+ */
+@Repository
+public interface TokenSegmentRepository extends CrudRepository<TokenSegmentEntity, String> {
+
+    /**
+     * Creates a sequence. Unlike save, never replaces an existing sequence : fails if the sequence was created by another transaction.<br/>
+     * Must be called inside a transaction.
+     * @param name name of the sequence
+     * @param nextValue the next value of the new sequence
+     * @return 1 when the sequence is created.
+     */
+    @Modifying
+    @Query("insert into TOKEN_SEGMENT (name, nextValue) values (:name, :nextValue)")
+    int insert(@Param("name") final String name, @Param("nextValue") final Long nextValue);
+
+    /**
+     * Replaces the next value of a sequence, only if it still has the expected value (compare-and-set).<br/>
+     * Must be called inside a transaction.
+     * @param name name of the sequence
+     * @param expectedValue the next value read before
+     * @param newValue the new next value
+     * @return 1 if the next value was replaced, 0 if another transaction has changed it since it was read.
+     */
+    @Modifying
+    @Query("update TOKEN_SEGMENT s set s.nextValue = :newValue where s.name = :name and s.nextValue = :expectedValue")
+    int compareAndSetNextValue(@Param("name") final String name, @Param("expectedValue") final Long expectedValue, @Param("newValue") final Long newValue);
+}
@@ -0,0 +1,487 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.common.utils.OffHeapLongHashIndex;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
+import com.project.urlshortener.exception.ShortUrlTokenCannotBeCreatedException;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireStrictlyPositiveValue;
+
+/**
+ * Stores the short urls in memory-mapped files on the local disk (see MappedShortUrlLog), instead of the database : for the instances running without MySQL.<br/>
+ * Two off-heap indexes give the address of the record of a token and of an original url (by the hash of the url). A lookup reads the index then the mapped record :
+ * neither the token cache nor the token filter are needed.<br/>
+ * The indexes are rebuilt from the files when the application starts. The files are compacted in the background once too much of their space is wasted.<br/>
+ * The reads share a lock, the writes (and the compaction) take it alone. The tokens are created outside the lock.<br/>
+ * Implementation of ShortUrlDao, used when url-shortener.storage.engine is mapped-file.
+ */
+@Service
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "mapped-file")
+@Slf4j
+public class MappedFileShortUrlDaoImpl implements ShortUrlDao {
+
+    /**
+     * Strategy used to create the tokens (random or sequence).
+     */
+    private final ShortUrlTokenStrategy shortUrlTokenStrategy;
+
+    /**
+     * Access to some of the application parameters.
+     */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /**
+     * Timers of the lookups and of the token creation.
+     */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /**
+     * Shared by the reads, taken alone by the writes and the compaction.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Number of forEachExistingShortUrl running : the compaction waits until they are over, since they read the records by address.
+     */
+    private final AtomicInteger runningExportCount = new AtomicInteger();
+
+    /**
+     * The files of the short urls. Replaced by the compaction.
+     */
+    private MappedShortUrlLog shortUrlLog;
+
+    /**
+     * Address of the record of each token, by HashUtils.hash64 of the token.
+     */
+    private OffHeapLongHashIndex tokenIndex;
+
+    /**
+     * Address of the record of each original url, by the first 8 bytes of HashUtils.hash128 of the url.
+     */
+    private OffHeapLongHashIndex originalUrlIndex;
+
+    /**
+     * Default constructor for MappedFileShortUrlDaoImpl. Opens the files and builds the indexes.
+     *
+     * @param shortUrlTokenStrategy instance of ShortUrlTokenStrategy.
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param urlShortenerMetrics instance of UrlShortenerMetrics.
+     */
+    public MappedFileShortUrlDaoImpl(final ShortUrlTokenStrategy shortUrlTokenStrategy, final UrlShortenerProperties urlShortenerProperties,
+                                     final UrlShortenerMetrics urlShortenerMetrics) {
+        this.shortUrlTokenStrategy = shortUrlTokenStrategy;
+        this.urlShortenerProperties = urlShortenerProperties;
+        this.urlShortenerMetrics = urlShortenerMetrics;
+        this.shortUrlLog = openLog();
+        buildIndexes();
+        if (log.isInfoEnabled()) {
+            log.info("MappedFileShortUrlDaoImpl : {} short urls read from [{}]", tokenIndex.size(), urlShortenerProperties.storage().directory());
+        }
+    }
+
+    /**
+     * Searches for the short url of a token in the token index.
+     *
+     * @param token the value of the token to look for.
+     * @return the ShortUrlEntity found, whose id is the address of its record. Can return null if the token was not found.
+     */
+    @Override
+    public ShortUrlEntity findExistingShortUrlEntityByToken(final String token) {
+        requireNonBlank(token, "token");
+
+        return urlShortenerMetrics.getDecodeLookupTimer().record(() -> read(() -> findByToken(token)));
+    }
+
+    /**
+     * Searches for the short urls of several tokens in the token index.
+     *
+     * @param tokens the values of the tokens to look for.
+     * @return the ShortUrlEntity found, by token. The tokens not found are missing.
+     */
+    @Override
+    public Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByTokens(final Collection<String> tokens) {
+        requireNonNull(tokens, "tokens");
+
+        return urlShortenerMetrics.getDecodeLookupTimer().record(() -> read(() -> {
+            Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+            for (String token : tokens) {
+                ShortUrlEntity shortUrlEntity = StringUtils.isBlank(token) ? null : findByToken(token);
+                if (shortUrlEntity != null) {
+                    shortUrlEntities.put(token, shortUrlEntity);
+                }
+            }
+            return shortUrlEntities;
+        }));
+    }
+
+    /**
+     * Searches for the short url of an original url in the original url index.
+     *
+     * @param originalUrl the value of the original url to look for.
+     * @return the ShortUrlEntity found. Can return null if the url was not found.
+     */
+    @Override
+    public ShortUrlEntity findExistingShortUrlEntityByOriginalUrl(final String originalUrl) {
+        requireNonBlank(originalUrl, "originalUrl");
+
+        return urlShortenerMetrics.getDedupLookupTimer().record(() -> read(() -> findByOriginalUrl(originalUrl)));
+    }
+
+    /**
+     * Searches for the short urls of several original urls in the original url index.
+     *
+     * @param originalUrls the values of the original urls to look for.
+     * @return the ShortUrlEntity found, by original url. The urls not found are missing.
+     */
+    @Override
+    public Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByOriginalUrls(final Collection<String> originalUrls) {
+        requireNonNull(originalUrls, "originalUrls");
+
+        return urlShortenerMetrics.getDedupLookupTimer().record(() -> read(() -> {
+            Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+            for (String originalUrl : originalUrls) {
+                ShortUrlEntity shortUrlEntity = StringUtils.isBlank(originalUrl) ? null : findByOriginalUrl(originalUrl);
+                if (shortUrlEntity != null) {
+                    shortUrlEntities.put(originalUrl, shortUrlEntity);
+                }
+            }
+            return shortUrlEntities;
+        }));
+    }
+
+    /**
+     * Creates a brand-new token for an original url value and appends its record to the files.<br/>
+     * The token is created by the token strategy, outside the lock. Unless the strategy is collision-free, a token already used is created again, up to token.maxAttempts times :
+     * then the method fails with ShortUrlTokenAlreadyUsedException. If the token is null or empty, the method fails with ShortUrlTokenCannotBeCreatedException.<br/>
+     * If another request has created a token for the same url in the meantime, its ShortUrlEntity is returned.
+     *
+     * @param originalUrl the value of the original url.
+     * @return the ShortUrlEntity created, whose id is the address of its record.
+     */
+    @Override
+    public ShortUrlEntity createNewShortUrlEntityRetryable(final String originalUrl) {
+        requireNonBlank(originalUrl, "originalUrl");
+
+        String shortUrlToken = null;
+        for (int attempt = 1; attempt <= urlShortenerProperties.token().maxAttempts(); attempt++) {
+            shortUrlToken = urlShortenerMetrics.getTokenGenerationTimer().record(shortUrlTokenStrategy::createToken);
+            if (StringUtils.isBlank(shortUrlToken)) {
+                if (log.isWarnEnabled()) {
+                    log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token was null empty or blank [{}]", originalUrl, shortUrlToken);
+                }
+                throw new ShortUrlTokenCannotBeCreatedException(originalUrl);
+            }
+            String token = shortUrlToken;
+            ShortUrlEntity shortUrlEntity = write(() -> insert(originalUrl, token));
+            if (shortUrlEntity != null) {
+                return shortUrlEntity;
+            }
+            if (log.isWarnEnabled()) {
+                log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token [{}] was already taken", originalUrl, shortUrlToken);
+            }
+        }
+        throw new ShortUrlTokenAlreadyUsedException(shortUrlToken, originalUrl);
+    }
+
+    /**
+     * Creates brand-new tokens for several original url values and appends their records to the files, under one lock.<br/>
+     * The tokens are created by the token strategy, outside the lock. The tokens already used are created again, up to token.maxAttempts times.
+     *
+     * @param originalUrls the values of the original urls, which have no token yet.
+     * @return the ShortUrlEntity created (or created in the meantime by another request). The urls for which no token could be created are missing.
+     */
+    @Override
+    public List<ShortUrlEntity> createNewShortUrlEntities(final Collection<String> originalUrls) {
+        requireNonNull(originalUrls, "originalUrls");
+
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>();
+        List<String> pendingUrls = new ArrayList<>(new LinkedHashSet<>(originalUrls));
+        for (int attempt = 1; attempt <= urlShortenerProperties.token().maxAttempts() && !pendingUrls.isEmpty(); attempt++) {
+            Map<String, String> candidateTokens = new LinkedHashMap<>();
+            for (String originalUrl : pendingUrls) {
+                String token = urlShortenerMetrics.getTokenGenerationTimer().record(shortUrlTokenStrategy::createToken);
+                if (StringUtils.isNotBlank(token)) {
+                    candidateTokens.put(originalUrl, token);
+                }
+            }
+            Set<String> createdUrls = new HashSet<>();
+            write(() -> {
+                candidateTokens.forEach((originalUrl, token) -> {
+                    ShortUrlEntity shortUrlEntity = insert(originalUrl, token);
+                    if (shortUrlEntity != null) {
+                        shortUrlEntities.add(shortUrlEntity);
+                        createdUrls.add(originalUrl);
+                    }
+                });
+                return null;
+            });
+            pendingUrls = pendingUrls.stream().filter(originalUrl -> !createdUrls.contains(originalUrl)).toList();
+        }
+        if (!pendingUrls.isEmpty() && log.isWarnEnabled()) {
+            log.warn("createNewShortUrlEntities : no unique token could be created for {} urls", pendingUrls.size());
+        }
+        return shortUrlEntities;
+    }
+
+    /**
+     * Reads all the existing tokens of the files, in the order they were created.<br/>
+     * The creations wait until all the tokens are read.
+     *
+     * @param tokenConsumer called for each existing token.
+     */
+    @Override
+    public void forEachExistingToken(final Consumer<String> tokenConsumer) {
+        requireNonNull(tokenConsumer, "tokenConsumer");
+
+        read(() -> {
+            shortUrlLog.forEach(address -> {
+                String token = shortUrlLog.readToken(address);
+                if (tokenIndex.find(HashUtils.hash64(token), indexedAddress -> indexedAddress == address) >= 0) {
+                    tokenConsumer.accept(token);
+                }
+                return true;
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Reads all the existing short urls of the files, in the order they were created (the ids are the addresses of their records).<br/>
+     * The short urls are read by pages of pageSize, each one under the read lock, and passed to the consumer outside the lock : the creations wait for a page only.
+     * The compaction, which changes the addresses, is put off until the short urls are read. The short urls created meanwhile are read too.
+     *
+     * @param pageSize the number of short urls read under the lock at once.
+     * @param shortUrlConsumer called for each existing short url.
+     */
+    @Override
+    public void forEachExistingShortUrl(final int pageSize, final Consumer<ShortUrlEntity> shortUrlConsumer) {
+        requireStrictlyPositiveValue(pageSize, "pageSize");
+        requireNonNull(shortUrlConsumer, "shortUrlConsumer");
+
+        runningExportCount.incrementAndGet();
+        try {
+            long[] nextAddress = { 0 };
+            List<ShortUrlEntity> page = new ArrayList<>(pageSize);
+            do {
+                page.clear();
+                nextAddress[0] = read(() -> {
+                    long[] pageEnd = { -1 };
+                    shortUrlLog.forEach(nextAddress[0], address -> {
+                        if (page.size() == pageSize) {
+                            pageEnd[0] = address;
+                            return false;
+                        }
+                        ShortUrlEntity shortUrlEntity = shortUrlLog.read(address);
+                        if (tokenIndex.find(HashUtils.hash64(shortUrlEntity.getToken()), indexedAddress -> indexedAddress == address) >= 0) {
+                            page.add(shortUrlEntity);
+                        }
+                        return true;
+                    });
+                    return pageEnd[0];
+                });
+                page.forEach(shortUrlConsumer);
+            } while (nextAddress[0] >= 0);
+        } finally {
+            runningExportCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Saves short urls which already have their token (imported from another url shortener) : their records are appended to the files, under one lock.<br/>
+     * The short urls whose token or original url is already used (or earlier in the list) are skipped.
+     *
+     * @param shortUrlEntities the short urls to import, with their token and their original url.
+     * @return the number of short urls appended to the files.
+     */
+    @Override
+    public int importShortUrlEntities(final List<ShortUrlEntity> shortUrlEntities) {
+        requireNonNull(shortUrlEntities, "shortUrlEntities");
+
+        return write(() -> {
+            int insertedCount = 0;
+            for (ShortUrlEntity shortUrlEntity : shortUrlEntities) {
+                String token = shortUrlEntity.getToken();
+                String originalUrl = shortUrlEntity.getOriginalUrl();
+                if (StringUtils.isNotBlank(token) && StringUtils.isNotBlank(originalUrl) && findAddressByToken(token) < 0 && findByOriginalUrl(originalUrl) == null) {
+                    append(originalUrl, token);
+                    insertedCount++;
+                }
+            }
+            return insertedCount;
+        });
+    }
+
+    /**
+     * Rewrites the files without their wasted space, once it exceeds storage.compactionMinGarbageRatio. The lookups and the creations wait until the compaction is over.<br/>
+     * If the compaction fails, the current files are kept. If the compacted files cannot be opened, the directory is opened again, which completes their replacement ;
+     * if it still cannot be opened, the next compaction opens it.
+     */
+    @Scheduled(fixedDelayString = "${url-shortener.storage.compaction-interval-millis}", initialDelayString = "${url-shortener.storage.compaction-interval-millis}")
+    public void compact() {
+        write(() -> {
+            if (!shortUrlLog.isOpen()) {
+                shortUrlLog = openLog();
+                buildIndexes();
+            }
+            double garbageRatio = shortUrlLog.garbageRatio();
+            if (garbageRatio < urlShortenerProperties.storage().compactionMinGarbageRatio()) {
+                return null;
+            }
+            if (runningExportCount.get() > 0) {
+                if (log.isInfoEnabled()) {
+                    log.info("compact : the short urls are being read by pages, the compaction is put off");
+                }
+                return null;
+            }
+            MappedShortUrlLog compactedLog = shortUrlLog;
+            try {
+                shortUrlLog = compactedLog.compact(address -> tokenIndex.find(HashUtils.hash64(compactedLog.readToken(address)), indexedAddress -> indexedAddress == address) >= 0);
+            } catch (UncheckedIOException e) {
+                if (compactedLog.isOpen()) {
+                    if (log.isErrorEnabled()) {
+                        log.error("compact : the compaction of the files has failed, they are kept as they are", e);
+                    }
+                    return null;
+                }
+                if (log.isErrorEnabled()) {
+                    log.error("compact : the compacted files could not be opened, the directory is opened again", e);
+                }
+                shortUrlLog = openLog();
+            }
+            buildIndexes();
+            if (log.isInfoEnabled()) {
+                log.info("compact : {} short urls compacted, {}% of the space was wasted", tokenIndex.size(), Math.round(garbageRatio * 100));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Closes the files when the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        write(() -> {
+            shortUrlLog.close();
+            return null;
+        });
+    }
+
+    /**
+     * Adds the record of a new short url, unless its token is already used. Must be called under the write lock.
+     *
+     * @return the new ShortUrlEntity, or the ShortUrlEntity created for the url in the meantime, or null if the token is already used.
+     */
+    private ShortUrlEntity insert(final String originalUrl, final String token) {
+        ShortUrlEntity existingShortUrlEntity = findByOriginalUrl(originalUrl);
+        if (existingShortUrlEntity != null) {
+            return existingShortUrlEntity;
+        }
+        if (!shortUrlTokenStrategy.isCollisionFree() && urlShortenerMetrics.getCollisionCheckTimer().record(() -> findAddressByToken(token)) >= 0) {
+            urlShortenerMetrics.getTokenRetryCounter().increment();
+            return null;
+        }
+        return append(originalUrl, token);
+    }
+
+    /**
+     * Appends the record of a new short url to the files, and indexes it. Must be called under the write lock.
+     *
+     * @return the new ShortUrlEntity.
+     */
+    private ShortUrlEntity append(final String originalUrl, final String token) {
+        byte[] originalUrlHash = HashUtils.hash128(originalUrl);
+        long address = urlShortenerMetrics.getInsertTimer().record(() -> shortUrlLog.append(token, originalUrl, originalUrlHash));
+        tokenIndex.put(HashUtils.hash64(token), address);
+        originalUrlIndex.put(HashUtils.toLong(originalUrlHash), address);
+        return new ShortUrlEntity(address, token, originalUrl, originalUrlHash, null);
+    }
+
+    private ShortUrlEntity findByToken(final String token) {
+        long address = findAddressByToken(token);
+        return address < 0 ? null : shortUrlLog.read(address);
+    }
+
+    private long findAddressByToken(final String token) {
+        return tokenIndex.find(HashUtils.hash64(token), address -> token.equals(shortUrlLog.readToken(address)));
+    }
+
+    private ShortUrlEntity findByOriginalUrl(final String originalUrl) {
+        ShortUrlEntity[] found = new ShortUrlEntity[1];
+        originalUrlIndex.find(HashUtils.toLong(HashUtils.hash128(originalUrl)), address -> {
+            found[0] = shortUrlLog.read(address);
+            return originalUrl.equals(found[0].getOriginalUrl());
+        });
+        return found[0] != null && originalUrl.equals(found[0].getOriginalUrl()) ? found[0] : null;
+    }
+
+    /**
+     * Opens the files of storage.directory, completing an interrupted compaction.
+     */
+    private MappedShortUrlLog openLog() {
+        UrlShortenerProperties.Storage storage = urlShortenerProperties.storage();
+        return new MappedShortUrlLog(Path.of(storage.directory()), storage.segmentSizeBytes(), storage.sync());
+    }
+
+    /**
+     * Indexes the records of the files. A second record of a token or of an url (which can only come from a bug) is ignored, and released for the next compaction.
+     */
+    private void buildIndexes() {
+        tokenIndex = new OffHeapLongHashIndex(urlShortenerProperties.storage().indexInitialCapacity());
+        originalUrlIndex = new OffHeapLongHashIndex(urlShortenerProperties.storage().indexInitialCapacity());
+        shortUrlLog.forEach(address -> {
+            ShortUrlEntity shortUrlEntity = shortUrlLog.read(address);
+            if (findAddressByToken(shortUrlEntity.getToken()) >= 0 || findByOriginalUrl(shortUrlEntity.getOriginalUrl()) != null) {
+                if (log.isWarnEnabled()) {
+                    log.warn("buildIndexes : the short url of token[{}] and originalUrl[{}] is a duplicate, it is ignored", shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl());
+                }
+                shortUrlLog.release(address);
+                return true;
+            }
+            tokenIndex.put(HashUtils.hash64(shortUrlEntity.getToken()), address);
+            originalUrlIndex.put(HashUtils.toLong(shortUrlEntity.getOriginalUrlHash()), address);
+            return true;
+        });
+    }
+
+    private <T> T read(final Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(final Supplier<T> writer) {
+        lock.writeLock().lock();
+        try {
+            return writer.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
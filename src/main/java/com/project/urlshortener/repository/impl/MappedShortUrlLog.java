@@ -0,0 +1,430 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireStrictlyPositiveValue;
+
+/**
+ * Append-only log of the short urls, stored in segment files of a fixed size mapped in memory : reading a record is a memory access, without system call.<br/>
+ * Each record holds a short url : [length of the payload][CRC32 of the payload][token][hash of the original url][original url].
+ * A record is located by its address : the number of its segment (high 32 bits) and its position in the segment (low 32 bits).<br/>
+ * When a record does not fit in the end of the current segment, a new segment is created : the end of the previous segment is wasted.
+ * The segments are created with their full size, filled with zeros : the first record whose length is 0 ends the segment.<br/>
+ * When the log is opened, the segments are scanned : a record which was not completely written (crash during a write) fails its CRC check,
+ * and ends its segment. The end of the last segment is then cleared, so that the new records are not mixed with the remains of the broken record.<br/>
+ * Compaction copies the records still used to a new log, then replaces the segments : a crash during the copy leaves the previous segments,
+ * a crash during the replacement is completed when the log is opened again.<br/>
+ * Not thread-safe : the appends must be guarded by the caller, and the reads must not run at the same time as an append.
+ */
+@Slf4j
+final class MappedShortUrlLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "short-url-log-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /** Directory where the compaction copies the records. Deleted when the log is opened : the copy was not complete. */
+    private static final String COMPACTING_DIRECTORY = "compacting";
+
+    /** Directory of a complete copy, which replaces the segments of the log. Completed when the log is opened. */
+    private static final String COMPACTED_DIRECTORY = "compacted";
+
+    /** Size of the header of a record : the length and the CRC32 of its payload. */
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+    /** Directory of the segment files. */
+    private final Path directory;
+
+    /** Size (in bytes) of each segment file. */
+    private final int segmentSize;
+
+    /** Whether each record is forced to the disk before append returns. */
+    private final boolean sync;
+
+    /** The segments, in the order they were written. The records are appended to the last one. */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /** Total size of the records which are still used. */
+    private long liveBytes;
+
+    /**
+     * A segment file, mapped in memory.
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        /** Size of the segment : segmentSize, or the size of the file if it was created with a larger segmentSize. */
+        private final int capacity;
+
+        /** Position after the last record of the segment. */
+        private int limit;
+
+        private Segment(final Path path, final int segmentSize) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.capacity = (int) Math.max(segmentSize, channel.size());
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /**
+     * Default constructor for MappedShortUrlLog. Creates the directory if it does not exist, completes an interrupted compaction, and finds the end of the existing segments.
+     *
+     * @param directory directory of the segment files.
+     * @param segmentSize size (in bytes) of each segment file. A record must fit in a segment.
+     * @param sync whether each record is forced to the disk before append returns.
+     */
+    MappedShortUrlLog(final Path directory, final int segmentSize, final boolean sync) {
+        requireNonNull(directory, "directory");
+        requireStrictlyPositiveValue(segmentSize, "segmentSize");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            recoverCompaction();
+            for (Path path : listSegments(directory)) {
+                Segment segment = new Segment(path, segmentSize);
+                segment.limit = scan(segment);
+                segments.add(segment);
+            }
+            if (segments.isEmpty()) {
+                segments.add(new Segment(directory.resolve(segmentName(0)), segmentSize));
+            } else if (segments.getLast().limit + Integer.BYTES <= segments.getLast().capacity && segments.getLast().buffer.getInt(segments.getLast().limit) != 0) {
+                // the new records must not be followed by the remains of a broken record
+                Segment lastSegment = segments.getLast();
+                for (int position = lastSegment.limit; position < lastSegment.capacity; position++) {
+                    lastSegment.buffer.put(position, (byte) 0);
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the record of a short url to the last segment, or to a new segment if it does not fit.
+     *
+     * @param token the token of the short url.
+     * @param originalUrl the original url of the short url.
+     * @param originalUrlHash the hash of the original url (see HashUtils.hash128).
+     * @return the address of the record.
+     * @throws UncheckedIOException if a new segment cannot be created.
+     * @throws IllegalArgumentException if the record is larger than a segment.
+     */
+    long append(final String token, final String originalUrl, final byte[] originalUrlHash) {
+        byte[] record = encode(token, originalUrl, originalUrlHash);
+        if (record.length > segmentSize) {
+            throw new IllegalArgumentException("the record of the token " + token + " is larger than a segment : " + record.length + " bytes");
+        }
+        Segment segment = segments.getLast();
+        if (segment.limit + record.length > segment.capacity) {
+            try {
+                segment.buffer.force();
+                segment = new Segment(directory.resolve(segmentName(segmentNumber(segment.path) + 1)), segmentSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments.add(segment);
+        }
+        int position = segment.limit;
+        segment.buffer.put(position, record);
+        if (sync) {
+            segment.buffer.force(position, record.length);
+        }
+        segment.limit += record.length;
+        liveBytes += record.length;
+        return address(segments.size() - 1, position);
+    }
+
+    /**
+     * Reads the short url of a record.
+     *
+     * @param address the address of the record, returned by append or forEach.
+     * @return the short url, whose id is the address of the record.
+     */
+    ShortUrlEntity read(final long address) {
+        try (DataInputStream payload = payload(address)) {
+            String token = payload.readUTF();
+            byte[] originalUrlHash = new byte[HashUtils.HASH_128_BYTES];
+            payload.readFully(originalUrlHash);
+            return new ShortUrlEntity(address, token, payload.readUTF(), originalUrlHash, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads only the token of a record : cheaper than read, to compare the tokens of the records having the same hash.
+     *
+     * @param address the address of the record.
+     * @return the token of the short url.
+     */
+    String readToken(final long address) {
+        try (DataInputStream payload = payload(address)) {
+            return payload.readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Goes through the records, in the order they were written.
+     *
+     * @param recordConsumer called with the address of each record, until it returns false.
+     */
+    void forEach(final LongPredicate recordConsumer) {
+        forEach(0, recordConsumer);
+    }
+
+    /**
+     * Goes through the records from a given record, in the order they were written : for reading the records by pages.
+     *
+     * @param fromAddress the address of the first record to go through (0 for the first record of the log), returned by append or forEach.
+     * @param recordConsumer called with the address of each record, until it returns false.
+     */
+    void forEach(final long fromAddress, final LongPredicate recordConsumer) {
+        int position = position(fromAddress);
+        for (int segmentIndex = segmentIndex(fromAddress); segmentIndex < segments.size(); segmentIndex++) {
+            Segment segment = segments.get(segmentIndex);
+            for (; position < segment.limit; position += RECORD_HEADER_BYTES + segment.buffer.getInt(position)) {
+                if (!recordConsumer.test(address(segmentIndex, position))) {
+                    return;
+                }
+            }
+            position = 0;
+        }
+    }
+
+    /**
+     * Tells that a record is no longer used (for instance a second record of the same token) : its space is reclaimed by the next compaction.
+     *
+     * @param address the address of the record.
+     */
+    void release(final long address) {
+        liveBytes -= RECORD_HEADER_BYTES + segments.get(segmentIndex(address)).buffer.getInt(position(address));
+    }
+
+    /**
+     * Part of the space of the segments which is wasted : released records, and ends of the segments where the next record did not fit.
+     *
+     * @return a ratio between 0 and 1.
+     */
+    double garbageRatio() {
+        long usedBytes = segments.getLast().limit;
+        for (int segmentIndex = 0; segmentIndex < segments.size() - 1; segmentIndex++) {
+            usedBytes += segments.get(segmentIndex).capacity;
+        }
+        return usedBytes == 0 ? 0 : 1 - (double) liveBytes / usedBytes;
+    }
+
+    /**
+     * Copies the records still used to new segments, which replace the segments of this log. This log is closed : the new log must be used instead.
+     *
+     * @param isLive tells whether the record at an address is still used.
+     * @return the new log, opened on the same directory.
+     * @throws UncheckedIOException if the copy fails : this log is still usable (see isOpen). If the copy is complete but cannot be opened, this log is closed :
+     * opening the directory again completes the replacement.
+     */
+    MappedShortUrlLog compact(final LongPredicate isLive) {
+        Path compactingDirectory = directory.resolve(COMPACTING_DIRECTORY);
+        try {
+            deleteDirectory(compactingDirectory);
+            try (MappedShortUrlLog compactedLog = new MappedShortUrlLog(compactingDirectory, segmentSize, false)) {
+                forEach(address -> {
+                    if (isLive.test(address)) {
+                        ShortUrlEntity shortUrlEntity = read(address);
+                        compactedLog.append(shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl(), shortUrlEntity.getOriginalUrlHash());
+                    }
+                    return true;
+                });
+                compactedLog.segments.forEach(segment -> segment.buffer.force());
+            }
+            // from here, the copy replaces the segments, even after a crash
+            Files.move(compactingDirectory, directory.resolve(COMPACTED_DIRECTORY), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        close();
+        return new MappedShortUrlLog(directory, segmentSize, sync);
+    }
+
+    /**
+     * Tells whether the segments of this log are open : a log is closed by close, and by a compaction whose copy is complete.
+     *
+     * @return true if the records can be read and appended.
+     */
+    boolean isOpen() {
+        return !segments.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.buffer.force();
+                segment.channel.close();
+            } catch (IOException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("close : the segment [{}] could not be closed", segment.path, e);
+                }
+            }
+        }
+        segments.clear();
+    }
+
+    /**
+     * Replaces the segments by the copy of a compaction, if the copy was complete. Deletes an incomplete copy.<br/>
+     * The segments after the last one of the copy are deleted, then each segment of the copy replaces the segment of the same name : when the replacement
+     * is interrupted, the segments already replaced are kept, and it goes on with the segments left in the copy.
+     */
+    private void recoverCompaction() throws IOException {
+        deleteDirectory(directory.resolve(COMPACTING_DIRECTORY));
+        Path compactedDirectory = directory.resolve(COMPACTED_DIRECTORY);
+        if (!Files.isDirectory(compactedDirectory)) {
+            return;
+        }
+        List<Path> compactedSegments = listSegments(compactedDirectory);
+        if (!compactedSegments.isEmpty()) {
+            long lastCompactedSegmentNumber = segmentNumber(compactedSegments.getLast());
+            for (Path segment : listSegments(directory)) {
+                if (segmentNumber(segment) > lastCompactedSegmentNumber) {
+                    Files.delete(segment);
+                }
+            }
+            for (Path segment : compactedSegments) {
+                Files.move(segment, directory.resolve(segment.getFileName()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        Files.delete(compactedDirectory);
+    }
+
+    /**
+     * Finds the end of the records of a segment, and counts their size.
+     *
+     * @return the position after the last complete record.
+     */
+    private int scan(final Segment segment) {
+        int position = 0;
+        while (position + RECORD_HEADER_BYTES <= segment.capacity) {
+            int length = segment.buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > segment.capacity - position - RECORD_HEADER_BYTES || crc(segment.buffer, position + RECORD_HEADER_BYTES, length) != segment.buffer.getInt(position + Integer.BYTES)) {
+                if (log.isWarnEnabled()) {
+                    log.warn("scan : the segment [{}] has a corrupted record at position {}, the next records are ignored", segment.path, position);
+                }
+                break;
+            }
+            position += RECORD_HEADER_BYTES + length;
+            liveBytes += RECORD_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private DataInputStream payload(final long address) {
+        MappedByteBuffer buffer = segments.get(segmentIndex(address)).buffer;
+        int position = position(address);
+        byte[] payloadBytes = new byte[buffer.getInt(position)];
+        buffer.get(position + RECORD_HEADER_BYTES, payloadBytes);
+        return new DataInputStream(new ByteArrayInputStream(payloadBytes));
+    }
+
+    private static byte[] encode(final String token, final String originalUrl, final byte[] originalUrlHash) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(record)) {
+            // the header is written once the payload is known
+            output.writeLong(0);
+            output.writeUTF(token);
+            output.write(originalUrlHash, 0, HashUtils.HASH_128_BYTES);
+            output.writeUTF(originalUrl);
+        } catch (IOException e) {
+            // an url longer than 65535 bytes in modified UTF-8
+            throw new UncheckedIOException(e);
+        }
+        byte[] recordBytes = record.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(recordBytes, RECORD_HEADER_BYTES, recordBytes.length - RECORD_HEADER_BYTES);
+        ByteBuffer.wrap(recordBytes).putInt(recordBytes.length - RECORD_HEADER_BYTES).putInt((int) crc.getValue());
+        return recordBytes;
+    }
+
+    private static int crc(final MappedByteBuffer buffer, final int position, final int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position, length));
+        return (int) crc.getValue();
+    }
+
+    private static long address(final int segmentIndex, final int position) {
+        return ((long) segmentIndex << Integer.SIZE) | position;
+    }
+
+    private static int segmentIndex(final long address) {
+        return (int) (address >>> Integer.SIZE);
+    }
+
+    private static int position(final long address) {
+        return (int) address;
+    }
+
+    private static List<Path> listSegments(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(MappedShortUrlLog::isSegment).sorted().toList();
+        }
+    }
+
+    private static void deleteDirectory(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static boolean isSegment(final Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /** Segment names with a fixed width, so that their alphabetical order is the order they were written. */
+    private static String segmentName(final long segmentNumber) {
+        return SEGMENT_PREFIX + String.format("%019d", segmentNumber) + SEGMENT_SUFFIX;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.project.urlshortener.repository.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ReadYourWritesGuard;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Implementation of ReadYourWritesGuard : the tokens and the original urls created recently by this instance are kept in a Caffeine cache,
+ * which forgets them after url-shortener.read-replicas.read-your-writes-millis.<br/>
+ * Does nothing when the read replicas are disabled : all the lookups are then sent to the primary database anyway.
+ */
+@Component
+public class ReadYourWritesGuardImpl implements ReadYourWritesGuard {
+
+    /**
+     * The tokens and the original urls created recently by this instance. Null if the read replicas are disabled.
+     */
+    private final Cache<String, Boolean> recentWrites;
+
+    /**
+     * Whether the read-only lookups are sent to the read replicas.
+     */
+    private final boolean readReplicasEnabled;
+
+    /**
+     * Runs the lookups of the recent writes in a new read-write transaction, which is sent to the primary database.
+     */
+    private final TransactionTemplate primaryTransactionTemplate;
+
+    /**
+     * Default constructor for ReadYourWritesGuardImpl.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param transactionManager instance of PlatformTransactionManager.
+     */
+    public ReadYourWritesGuardImpl(final UrlShortenerProperties urlShortenerProperties, final PlatformTransactionManager transactionManager) {
+        UrlShortenerProperties.ReadReplicas readReplicas = urlShortenerProperties.readReplicas();
+        this.recentWrites = readReplicas.enabled() && readReplicas.readYourWritesMillis() > 0 ? Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(readReplicas.readYourWritesMillis()))
+                .maximumSize(readReplicas.readYourWritesMaxEntries())
+                .build() : null;
+        this.readReplicasEnabled = readReplicas.enabled();
+        this.primaryTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.primaryTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void recordWrite(final ShortUrlEntity shortUrlEntity) {
+        requireNonNull(shortUrlEntity, "shortUrlEntity");
+
+        if (recentWrites != null) {
+            recentWrites.put(shortUrlEntity.getToken(), Boolean.TRUE);
+            recentWrites.put(shortUrlEntity.getOriginalUrl(), Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public <T> T read(final Collection<String> values, final Supplier<T> lookup) {
+        requireNonNull(values, "values");
+        requireNonNull(lookup, "lookup");
+
+        if (recentWrites == null || values.stream().noneMatch(value -> value != null && recentWrites.getIfPresent(value) != null)) {
+            return lookup.get();
+        }
+        return primaryTransactionTemplate.execute(status -> lookup.get());
+    }
+
+    @Override
+    public <T> T readFromPrimary(final Supplier<T> lookup) {
+        requireNonNull(lookup, "lookup");
+
+        return readReplicasEnabled ? primaryTransactionTemplate.execute(status -> lookup.get()) : lookup.get();
+    }
+
+}
@@ -0,0 +1,526 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.cache.ShortUrlTokenCache;
+import com.project.urlshortener.cache.ShortUrlTokenFilter;
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
+import com.project.urlshortener.exception.ShortUrlTokenCannotBeCreatedException;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shard.ShardRoute;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.repository.ShortUrlLookupCoalescer;
+import com.project.urlshortener.repository.ShortUrlShardRouter;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Stores the short urls in the SHORT_URL tables of several databases (shards), each holding the short urls of some buckets of tokens (see ShortUrlShardRouter).<br/>
+ * The token of a new short url starts with the prefix of the bucket of its original url (a hash of the url) : a token is searched in the shard of its prefix,
+ * and an original url is searched in the shard of its hash, without searching all the shards.<br/>
+ * While a bucket is moved to another shard (see ShortUrlReshardingJob), its new short urls are written to both shards, and its short urls are searched in the second shard when they are missing from the first one.<br/>
+ * Like ShortUrlDaoImpl, the token filter and the token cache are read before the shards.<br/>
+ * Implementation of ShortUrlDao, used when url-shortener.storage.engine is sharded.
+ */
+@Service
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "sharded")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedShortUrlDaoImpl implements ShortUrlDao {
+
+    /**
+     * Maximum number of values in the IN clause of a query : larger collections are searched with several queries.
+     */
+    static final int IN_QUERY_CHUNK_SIZE = 1000;
+
+    /**
+     * The shards of the short urls.
+     */
+    private final ShortUrlShards shortUrlShards;
+
+    /**
+     * Chooses the shard of the tokens and of the original urls.
+     */
+    private final ShortUrlShardRouter shortUrlShardRouter;
+
+    /**
+     * Strategy used to create the tokens (random or sequence). The first characters of its tokens are replaced by the prefix of the bucket.
+     */
+    private final ShortUrlTokenStrategy shortUrlTokenStrategy;
+
+    /**
+     * Access to some of the application parameters.
+     */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    /**
+     * In-memory cache of the ShortUrlEntity, read before the shards.
+     */
+    private final ShortUrlTokenCache shortUrlTokenCache;
+
+    /**
+     * In-memory filter of the existing tokens, to reject unknown tokens without reading the shards.
+     */
+    private final ShortUrlTokenFilter shortUrlTokenFilter;
+
+    /**
+     * Timers of the lookups and of the token creation.
+     */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /**
+     * Makes the concurrent lookups of the same token missed by the token cache read the shard once.
+     */
+    private final ShortUrlLookupCoalescer shortUrlLookupCoalescer;
+
+    /**
+     * Searches for a ShortUrlEntity matching a specific token value.<br/>
+     * If the token filter tells that the token definitely does not exist, null is returned right away. Then the token cache is read.
+     * If the token is not in the cache, the shard of its prefix is read and the ShortUrlEntity found is added to the cache. The concurrent reads of the same token share one query (see ShortUrlLookupCoalescer).
+     *
+     * @param token the value of the token to look for.
+     * @return the ShortUrlEntity found in the cache or in the shard. Can return null if the token was not found.
+     */
+    @Override
+    public ShortUrlEntity findExistingShortUrlEntityByToken(final String token) {
+        requireNonBlank(token, "token");
+
+        if (!shortUrlTokenFilter.mightContain(token)) {
+            return null;
+        }
+        ShortUrlEntity cachedShortUrlEntity = shortUrlTokenCache.getIfPresent(token);
+        if (cachedShortUrlEntity != null) {
+            return cachedShortUrlEntity;
+        }
+
+        ShardRoute route = shortUrlShardRouter.route(shortUrlShardRouter.bucketOfToken(token));
+        ShortUrlEntity shortUrlEntity = shortUrlLookupCoalescer.findByToken(token, () -> urlShortenerMetrics.getDecodeLookupTimer().record(() -> findByToken(route, token)));
+        if (shortUrlEntity != null) {
+            shortUrlTokenCache.put(shortUrlEntity);
+        }
+        return shortUrlEntity;
+    }
+
+    /**
+     * Searches for the ShortUrlEntity matching several token values.<br/>
+     * The tokens rejected by the token filter are not searched, and the tokens found in the token cache are not read from the shards.
+     * The other tokens are read with IN queries, grouped by shard, and the ShortUrlEntity found are added to the cache.
+     *
+     * @param tokens the values of the tokens to look for.
+     * @return the ShortUrlEntity found in the cache or in the shards, by token. The tokens not found are missing.
+     */
+    @Override
+    public Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByTokens(final Collection<String> tokens) {
+        requireNonNull(tokens, "tokens");
+
+        Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+        List<String> missedTokens = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(tokens)) {
+            if (StringUtils.isBlank(token) || !shortUrlTokenFilter.mightContain(token)) {
+                continue;
+            }
+            ShortUrlEntity cachedShortUrlEntity = shortUrlTokenCache.getIfPresent(token);
+            if (cachedShortUrlEntity != null) {
+                shortUrlEntities.put(token, cachedShortUrlEntity);
+            } else {
+                missedTokens.add(token);
+            }
+        }
+
+        urlShortenerMetrics.getDecodeLookupTimer().record(() -> findInShards(groupByRoute(missedTokens, shortUrlShardRouter::bucketOfToken),
+                ShortUrlShard::findByTokenIn, Function.identity(), ShortUrlEntity::getToken)).values().forEach(shortUrlEntity -> {
+            shortUrlTokenCache.put(shortUrlEntity);
+            shortUrlEntities.put(shortUrlEntity.getToken(), shortUrlEntity);
+        });
+        return shortUrlEntities;
+    }
+
+    /**
+     * Searches for a ShortUrlEntity matching a specific original url value, by its hash, in the shard of the bucket of the url.
+     *
+     * @param originalUrl the value of the original url to look for.
+     * @return the ShortUrlEntity found in the shard. Can return null if the url was not found.
+     */
+    @Override
+    public ShortUrlEntity findExistingShortUrlEntityByOriginalUrl(final String originalUrl) {
+        requireNonBlank(originalUrl, "originalUrl");
+
+        ShardRoute route = shortUrlShardRouter.route(shortUrlShardRouter.bucketOfOriginalUrl(originalUrl));
+        return urlShortenerMetrics.getDedupLookupTimer().record(() -> findByOriginalUrl(route, originalUrl));
+    }
+
+    /**
+     * Searches for the ShortUrlEntity matching several original url values, by their hashes, with IN queries grouped by shard.
+     * Only the rows whose url is one of the searched urls are kept.
+     *
+     * @param originalUrls the values of the original urls to look for.
+     * @return the ShortUrlEntity found in the shards, by original url. The urls not found are missing.
+     */
+    @Override
+    public Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByOriginalUrls(final Collection<String> originalUrls) {
+        requireNonNull(originalUrls, "originalUrls");
+
+        Set<String> searchedUrls = originalUrls.stream().filter(StringUtils::isNotBlank).collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, ShortUrlEntity> shortUrlEntities = urlShortenerMetrics.getDedupLookupTimer().record(() -> findInShards(groupByRoute(searchedUrls, shortUrlShardRouter::bucketOfOriginalUrl),
+                ShortUrlShard::findByOriginalUrlHashIn, HashUtils::hash128, ShortUrlEntity::getOriginalUrl));
+        shortUrlEntities.keySet().retainAll(searchedUrls);
+        return shortUrlEntities;
+    }
+
+    /**
+     * Creates a brand-new token for an original url value and inserts a ShortUrlEntity in the shard of the bucket of the url.<br/>
+     * The token is created by the token strategy, then starts with the prefix of the bucket : even with a collision-free strategy, the token can then be already used.
+     * A token already used is created again, up to token.maxAttempts times : then the method fails with ShortUrlTokenAlreadyUsedException.
+     * If the token is null or empty, the method fails with ShortUrlTokenCannotBeCreatedException.<br/>
+     * If another request has created a token for the same url in the meantime, its ShortUrlEntity is returned.<br/>
+     * The new token is added to the token filter, and the new ShortUrlEntity is added to the token cache.
+     *
+     * @param originalUrl the value of the original url.
+     * @return the ShortUrlEntity created in the shard.
+     */
+    @Override
+    public ShortUrlEntity createNewShortUrlEntityRetryable(final String originalUrl) {
+        requireNonBlank(originalUrl, "originalUrl");
+
+        int bucket = shortUrlShardRouter.bucketOfOriginalUrl(originalUrl);
+        String shortUrlToken = null;
+        for (int attempt = 1; attempt <= urlShortenerProperties.token().maxAttempts(); attempt++) {
+            shortUrlToken = createToken(bucket);
+            if (StringUtils.isBlank(shortUrlToken)) {
+                if (log.isWarnEnabled()) {
+                    log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token was null empty or blank [{}]", originalUrl, shortUrlToken);
+                }
+                throw new ShortUrlTokenCannotBeCreatedException(originalUrl);
+            }
+
+            ShardRoute route = shortUrlShardRouter.route(bucket);
+            String token = shortUrlToken;
+            if (shortUrlTokenFilter.mightContain(token) && urlShortenerMetrics.getCollisionCheckTimer().record(() -> findByToken(route, token)) != null) {
+                if (log.isWarnEnabled()) {
+                    log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token [{}] was already taken", originalUrl, token);
+                }
+                urlShortenerMetrics.getTokenRetryCounter().increment();
+                continue;
+            }
+
+            ShortUrlEntity shortUrlEntity = ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+            shortUrlEntity.computeOriginalUrlHash();
+            shortUrlTokenFilter.put(token);
+            try {
+                urlShortenerMetrics.getInsertTimer().record(() -> shortUrlShards.get(route.shard()).insert(shortUrlEntity));
+            } catch (DuplicateKeyException e) {
+                ShortUrlEntity existingShortUrlEntity = findByOriginalUrl(route, originalUrl);
+                if (existingShortUrlEntity != null) {
+                    return existingShortUrlEntity;
+                }
+                urlShortenerMetrics.getTokenRetryCounter().increment();
+                continue;
+            }
+            if (route.hasSecondaryShard()) {
+                shortUrlShards.get(route.secondaryShard()).insertMissing(List.of(shortUrlEntity));
+            }
+            shortUrlTokenCache.put(shortUrlEntity);
+            return shortUrlEntity;
+        }
+        throw new ShortUrlTokenAlreadyUsedException(shortUrlToken, originalUrl);
+    }
+
+    /**
+     * Creates brand-new tokens for several original url values and inserts the ShortUrlEntity with one JDBC batch per shard.<br/>
+     * The new tokens are checked against the existing tokens of their shard with IN queries (only the tokens that the token filter does not reject),
+     * and the tokens already used are created again, up to token.maxAttempts times.<br/>
+     * If the batch insertion of a shard fails (for instance because another request has created a token for one of the urls in the meantime), the ShortUrlEntity of this shard are not returned :
+     * the caller can then create the tokens one by one with createNewShortUrlEntityRetryable.
+     *
+     * @param originalUrls the values of the original urls, which have no token yet.
+     * @return the ShortUrlEntity created in the shards. The urls for which no token could be created are missing.
+     */
+    @Override
+    public List<ShortUrlEntity> createNewShortUrlEntities(final Collection<String> originalUrls) {
+        requireNonNull(originalUrls, "originalUrls");
+
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>();
+        List<String> searchedUrls = originalUrls.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        groupByRoute(searchedUrls, shortUrlShardRouter::bucketOfOriginalUrl).forEach((route, urls) -> {
+            List<ShortUrlEntity> newShortUrlEntities = new ArrayList<>();
+            createUniqueTokens(route, urls).forEach((originalUrl, token) -> {
+                ShortUrlEntity shortUrlEntity = ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+                shortUrlEntity.computeOriginalUrlHash();
+                newShortUrlEntities.add(shortUrlEntity);
+            });
+            if (newShortUrlEntities.isEmpty()) {
+                return;
+            }
+
+            // the tokens are added to the filter before the insertion : if the batch fails after inserting some rows, their tokens must not be rejected
+            newShortUrlEntities.forEach(shortUrlEntity -> shortUrlTokenFilter.put(shortUrlEntity.getToken()));
+            Timer.Sample insertSample = Timer.start();
+            try {
+                shortUrlShards.get(route.shard()).insertAll(newShortUrlEntities);
+            } catch (DataAccessException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("createNewShortUrlEntities : the batch insertion of {} urls in shard[{}] has failed", newShortUrlEntities.size(), route.shard(), e);
+                }
+                return;
+            } finally {
+                insertSample.stop(urlShortenerMetrics.getInsertTimer());
+            }
+            if (route.hasSecondaryShard()) {
+                shortUrlShards.get(route.secondaryShard()).insertMissing(newShortUrlEntities);
+            }
+            newShortUrlEntities.forEach(shortUrlTokenCache::put);
+            shortUrlEntities.addAll(newShortUrlEntities);
+        });
+        return shortUrlEntities;
+    }
+
+    /**
+     * Reads all the existing tokens of the shards, one by one, without keeping them in memory.<br/>
+     * A token is only read from the shard of its bucket : the tokens copied to another shard by a move in progress are read once.
+     *
+     * @param tokenConsumer called for each existing token.
+     */
+    @Override
+    public void forEachExistingToken(final Consumer<String> tokenConsumer) {
+        requireNonNull(tokenConsumer, "tokenConsumer");
+
+        for (ShortUrlShard shard : shortUrlShards.getAll()) {
+            shard.forEachToken(token -> {
+                if (StringUtils.isNotBlank(token) && shortUrlShardRouter.route(shortUrlShardRouter.bucketOfToken(token)).shard() == shard.getIndex()) {
+                    tokenConsumer.accept(token);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads all the existing short urls of the shards, shard after shard, by pages in the order of their ids in the shard (keyset pagination).<br/>
+     * A short url is only read from the shard of its bucket : the short urls copied to another shard by a move in progress are read once.
+     *
+     * @param pageSize number of short urls read at once.
+     * @param shortUrlConsumer called for each existing short url.
+     */
+    @Override
+    public void forEachExistingShortUrl(final int pageSize, final Consumer<ShortUrlEntity> shortUrlConsumer) {
+        requireNonNull(shortUrlConsumer, "shortUrlConsumer");
+
+        for (ShortUrlShard shard : shortUrlShards.getAll()) {
+            long lastId = 0;
+            List<ShortUrlEntity> page;
+            do {
+                page = shard.findAfterId(lastId, pageSize);
+                for (ShortUrlEntity shortUrlEntity : page) {
+                    if (StringUtils.isNotBlank(shortUrlEntity.getToken()) && shortUrlShardRouter.route(shortUrlShardRouter.bucketOfToken(shortUrlEntity.getToken())).shard() == shard.getIndex()) {
+                        shortUrlConsumer.accept(shortUrlEntity);
+                    }
+                }
+                if (!page.isEmpty()) {
+                    lastId = page.getLast().getId();
+                }
+            } while (page.size() == pageSize);
+        }
+    }
+
+    /**
+     * Saves short urls which already have their token (imported from another url shortener), in the shard of the bucket of their token, with one JDBC batch per shard.<br/>
+     * The short urls whose token or original url is already used (or earlier in the list) are skipped : the tokens are searched in the shard of their bucket,
+     * and the original urls in the shard of the bucket of their hash. An imported token usually has another bucket than its url :
+     * like the short urls created before the sharding, its url is only found again by its hash if both buckets are in the same shard.<br/>
+     * The new tokens are added to the token filter, but not to the token cache.
+     *
+     * @param shortUrlEntities the short urls to import, with their token and their original url.
+     * @return the number of short urls inserted in the shards.
+     */
+    @Override
+    public int importShortUrlEntities(final List<ShortUrlEntity> shortUrlEntities) {
+        requireNonNull(shortUrlEntities, "shortUrlEntities");
+
+        Map<String, ShortUrlEntity> shortUrlEntitiesByToken = new LinkedHashMap<>();
+        Set<String> originalUrls = new HashSet<>();
+        for (ShortUrlEntity shortUrlEntity : shortUrlEntities) {
+            if (StringUtils.isNotBlank(shortUrlEntity.getToken()) && StringUtils.isNotBlank(shortUrlEntity.getOriginalUrl())
+                    && !originalUrls.contains(shortUrlEntity.getOriginalUrl()) && shortUrlEntitiesByToken.putIfAbsent(shortUrlEntity.getToken(), shortUrlEntity) == null) {
+                originalUrls.add(shortUrlEntity.getOriginalUrl());
+            }
+        }
+        Set<String> existingUrls = findExistingShortUrlEntitiesByOriginalUrls(originalUrls).keySet();
+        Map<ShardRoute, List<String>> tokensByRoute = groupByRoute(shortUrlEntitiesByToken.keySet(), shortUrlShardRouter::bucketOfToken);
+        urlShortenerMetrics.getCollisionCheckTimer().record(() -> findInShards(tokensByRoute, ShortUrlShard::findByTokenIn, Function.identity(), ShortUrlEntity::getToken))
+                .keySet().forEach(shortUrlEntitiesByToken::remove);
+
+        int insertedCount = 0;
+        for (Map.Entry<ShardRoute, List<String>> routeTokens : tokensByRoute.entrySet()) {
+            ShardRoute route = routeTokens.getKey();
+            List<ShortUrlEntity> newShortUrlEntities = new ArrayList<>();
+            for (String token : routeTokens.getValue()) {
+                ShortUrlEntity shortUrlEntity = shortUrlEntitiesByToken.get(token);
+                if (shortUrlEntity != null && !existingUrls.contains(shortUrlEntity.getOriginalUrl())) {
+                    ShortUrlEntity newShortUrlEntity = ShortUrlEntity.builder().token(token).originalUrl(shortUrlEntity.getOriginalUrl()).build();
+                    newShortUrlEntity.computeOriginalUrlHash();
+                    newShortUrlEntities.add(newShortUrlEntity);
+                }
+            }
+            newShortUrlEntities.forEach(shortUrlEntity -> shortUrlTokenFilter.put(shortUrlEntity.getToken()));
+            insertedCount += urlShortenerMetrics.getInsertTimer().record(() -> shortUrlShards.get(route.shard()).insertMissing(newShortUrlEntities));
+            if (route.hasSecondaryShard()) {
+                shortUrlShards.get(route.secondaryShard()).insertMissing(newShortUrlEntities);
+            }
+        }
+        return insertedCount;
+    }
+
+    /**
+     * Creates a token of a bucket : a token of the token strategy, starting with the prefix of the bucket.
+     *
+     * @param bucket the number of the bucket.
+     * @return the new token. Null or blank if the token strategy cannot create a token.
+     */
+    private String createToken(final int bucket) {
+        String token = urlShortenerMetrics.getTokenGenerationTimer().record(shortUrlTokenStrategy::createToken);
+        return StringUtils.isBlank(token) ? token : shortUrlShardRouter.toBucketToken(bucket, token);
+    }
+
+    /**
+     * Creates a token for each original url of a bucket, different from the existing tokens of the shard and from each other.
+     *
+     * @param route the shards of the bucket of the urls.
+     * @param originalUrls the values of the original urls.
+     * @return the new token of each original url. The urls for which no unique token could be created in token.maxAttempts attempts are missing.
+     */
+    private Map<String, String> createUniqueTokens(final ShardRoute route, final List<String> originalUrls) {
+        Map<String, String> tokensByUrl = new LinkedHashMap<>();
+        Set<String> usedTokens = new HashSet<>();
+        List<String> pendingUrls = originalUrls;
+        for (int attempt = 1; attempt <= urlShortenerProperties.token().maxAttempts() && !pendingUrls.isEmpty(); attempt++) {
+            Map<String, String> candidateTokens = new LinkedHashMap<>();
+            for (String originalUrl : pendingUrls) {
+                String token = createToken(route.bucket());
+                if (StringUtils.isNotBlank(token) && usedTokens.add(token)) {
+                    candidateTokens.put(originalUrl, token);
+                }
+            }
+            List<String> searchedTokens = candidateTokens.values().stream().filter(shortUrlTokenFilter::mightContain).toList();
+            Set<String> takenTokens = urlShortenerMetrics.getCollisionCheckTimer().record(() -> findInShards(Map.of(route, searchedTokens),
+                    ShortUrlShard::findByTokenIn, Function.identity(), ShortUrlEntity::getToken)).keySet();
+            candidateTokens.forEach((originalUrl, token) -> {
+                if (!takenTokens.contains(token)) {
+                    tokensByUrl.put(originalUrl, token);
+                }
+            });
+            urlShortenerMetrics.getTokenRetryCounter().increment(takenTokens.size());
+            pendingUrls = pendingUrls.stream().filter(originalUrl -> !tokensByUrl.containsKey(originalUrl)).toList();
+        }
+        if (!pendingUrls.isEmpty() && log.isWarnEnabled()) {
+            log.warn("createUniqueTokens : no unique token could be created for {} urls", pendingUrls.size());
+        }
+        return tokensByUrl;
+    }
+
+    /**
+     * Searches for a token in the shard of its bucket, then in the secondary shard if the bucket is being moved.
+     */
+    private ShortUrlEntity findByToken(final ShardRoute route, final String token) {
+        ShortUrlEntity shortUrlEntity = shortUrlShards.get(route.shard()).findByToken(token);
+        if (shortUrlEntity == null && route.hasSecondaryShard()) {
+            shortUrlEntity = shortUrlShards.get(route.secondaryShard()).findByToken(token);
+        }
+        return shortUrlEntity;
+    }
+
+    /**
+     * Searches for an original url by its hash in the shard of its bucket, then in the secondary shard if the bucket is being moved.
+     * The url of the row found must be the original url.
+     */
+    private ShortUrlEntity findByOriginalUrl(final ShardRoute route, final String originalUrl) {
+        byte[] originalUrlHash = HashUtils.hash128(originalUrl);
+        ShortUrlEntity shortUrlEntity = shortUrlShards.get(route.shard()).findByOriginalUrlHash(originalUrlHash);
+        if (shortUrlEntity == null && route.hasSecondaryShard()) {
+            shortUrlEntity = shortUrlShards.get(route.secondaryShard()).findByOriginalUrlHash(originalUrlHash);
+        }
+        if (shortUrlEntity != null && !originalUrl.equals(shortUrlEntity.getOriginalUrl())) {
+            if (log.isWarnEnabled()) {
+                log.warn("findByOriginalUrl : the hash of originalUrl[{}] is the same as the hash of originalUrl[{}]", originalUrl, shortUrlEntity.getOriginalUrl());
+            }
+            return null;
+        }
+        return shortUrlEntity;
+    }
+
+    /**
+     * Groups tokens or original urls by the shards of their bucket.
+     *
+     * @param values the tokens or the original urls.
+     * @param bucketOf gives the bucket of a value.
+     * @return the values of each route.
+     */
+    private Map<ShardRoute, List<String>> groupByRoute(final Collection<String> values, final Function<String, Integer> bucketOf) {
+        Map<ShardRoute, List<String>> valuesByRoute = new LinkedHashMap<>();
+        for (String value : values) {
+            valuesByRoute.computeIfAbsent(shortUrlShardRouter.route(bucketOf.apply(value)), route -> new ArrayList<>()).add(value);
+        }
+        return valuesByRoute;
+    }
+
+    /**
+     * Runs an IN query in the shard of each group of values, one query per IN_QUERY_CHUNK_SIZE values.
+     * The values not found are then searched in the secondary shard of their group, if its bucket is being moved.
+     *
+     * @param valuesByRoute the values, grouped by the shards of their bucket.
+     * @param query the IN query.
+     * @param toParameter converts a value to a parameter of the IN query.
+     * @param keyOf gives the value of a ShortUrlEntity found.
+     * @return the ShortUrlEntity found, by value.
+     * @param <P> type of the parameters of the IN query.
+     */
+    private <P> Map<String, ShortUrlEntity> findInShards(final Map<ShardRoute, List<String>> valuesByRoute, final BiFunction<ShortUrlShard, List<P>, List<ShortUrlEntity>> query,
+                                                         final Function<String, P> toParameter, final Function<ShortUrlEntity, String> keyOf) {
+        Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+        valuesByRoute.forEach((route, values) -> {
+            findInChunks(shortUrlShards.get(route.shard()), values, query, toParameter).forEach(shortUrlEntity -> shortUrlEntities.put(keyOf.apply(shortUrlEntity), shortUrlEntity));
+            if (route.hasSecondaryShard()) {
+                List<String> missingValues = values.stream().filter(value -> !shortUrlEntities.containsKey(value)).toList();
+                findInChunks(shortUrlShards.get(route.secondaryShard()), missingValues, query, toParameter)
+                        .forEach(shortUrlEntity -> shortUrlEntities.putIfAbsent(keyOf.apply(shortUrlEntity), shortUrlEntity));
+            }
+        });
+        return shortUrlEntities;
+    }
+
+    /**
+     * Runs an IN query in a shard for each chunk of IN_QUERY_CHUNK_SIZE values, so that a query never has too many parameters.
+     *
+     * @param shard the shard to read.
+     * @param values the values of the IN clause.
+     * @param query the IN query.
+     * @param toParameter converts a value to a parameter of the IN query.
+     * @return the ShortUrlEntity found by all the queries.
+     * @param <P> type of the parameters of the IN query.
+     */
+    private static <P> List<ShortUrlEntity> findInChunks(final ShortUrlShard shard, final List<String> values, final BiFunction<ShortUrlShard, List<P>, List<ShortUrlEntity>> query,
+                                                         final Function<String, P> toParameter) {
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += IN_QUERY_CHUNK_SIZE) {
+            List<P> parameters = values.subList(start, Math.min(start + IN_QUERY_CHUNK_SIZE, values.size())).stream().map(toParameter).toList();
+            shortUrlEntities.addAll(query.apply(shard, parameters));
+        }
+        return shortUrlEntities;
+    }
+
+}
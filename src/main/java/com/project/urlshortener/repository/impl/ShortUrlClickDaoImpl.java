@@ -0,0 +1,112 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlClickEntity;
+import com.project.urlshortener.repository.ShortUrlClickDao;
+import com.project.urlshortener.repository.ShortUrlClickRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Manipulates the SHORT_URL_CLICK table with JDBC batches.<br/>
+ * Implementation of ShortUrlClickDao.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShortUrlClickDaoImpl implements ShortUrlClickDao {
+
+    static final String UPDATE_CLICK_COUNT_SQL = "update SHORT_URL_CLICK set CLICK_COUNT = CLICK_COUNT + ? where TOKEN = ?";
+    static final String INSERT_CLICK_COUNT_SQL = "insert into SHORT_URL_CLICK (TOKEN, CLICK_COUNT) values (?, ?)";
+
+    /**
+     * Spring Data Repository for the SHORT_URL_CLICK table.
+     */
+    private final ShortUrlClickRepository shortUrlClickRepository;
+
+    /**
+     * JDBC access to the database, for the batch updates and insertions.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs the batch insertion in a transaction, so that a failed batch inserts nothing.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Adds clicks to the counts of several tokens at once, with an upsert written in portable SQL (H2 and MySQL do not share an upsert syntax).<br/>
+     * The counts are first increased with one batch of updates. The tokens without any row are then inserted with one batch of insertions.
+     * If another instance has inserted one of these tokens in the meantime, the insertion batch is rolled back, and its tokens are written one by one.<br/>
+     * The tokens are written in their natural order, so that two instances flushing the same tokens lock their rows in the same order.
+     *
+     * @param clickCountsByToken the number of clicks to add to each token.
+     */
+    @Override
+    public void addClicks(final Map<String, Long> clickCountsByToken) {
+        requireNonNull(clickCountsByToken, "clickCountsByToken");
+        if (clickCountsByToken.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> updates = new ArrayList<>(clickCountsByToken.size());
+        new TreeMap<>(clickCountsByToken).forEach((token, clickCount) -> updates.add(new Object[] { clickCount, token }));
+        int[] updatedCounts = jdbcTemplate.batchUpdate(UPDATE_CLICK_COUNT_SQL, updates);
+
+        List<Object[]> insertions = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            if (updatedCounts[i] == 0) {
+                insertions.add(new Object[] { updates.get(i)[1], updates.get(i)[0] });
+            }
+        }
+        if (insertions.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_CLICK_COUNT_SQL, insertions));
+        } catch (DataIntegrityViolationException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("addClicks : some of the {} new tokens were inserted by another instance", insertions.size());
+            }
+            insertions.forEach(insertion -> addClicks((String) insertion[0], (Long) insertion[1]));
+        }
+    }
+
+    /**
+     * Adds clicks to the count of one token : updates its row, or inserts it if it does not exist.
+     *
+     * @param token the short url token.
+     * @param clickCount the number of clicks to add.
+     */
+    private void addClicks(final String token, final Long clickCount) {
+        if (jdbcTemplate.update(UPDATE_CLICK_COUNT_SQL, clickCount, token) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_CLICK_COUNT_SQL, token, clickCount);
+        } catch (DataIntegrityViolationException e) {
+            // inserted by another instance since the update
+            jdbcTemplate.update(UPDATE_CLICK_COUNT_SQL, clickCount, token);
+        }
+    }
+
+    @Override
+    public long getClickCount(final String token) {
+        requireNonBlank(token, "token");
+
+        return shortUrlClickRepository.findById(token).map(ShortUrlClickEntity::getClickCount).orElse(0L);
+    }
+
+}
@@ -1,28 +1,75 @@
 package com.project.urlshortener.repository.impl;
 
+import com.project.urlshortener.cache.ShortUrlTokenCache;
+import com.project.urlshortener.cache.ShortUrlTokenFilter;
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.common.utils.HashUtils;
 import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
 import com.project.urlshortener.exception.ShortUrlTokenCannotBeCreatedException;
 import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.OriginalUrlHashBackfillStatus;
+import com.project.urlshortener.repository.ReadYourWritesGuard;
 import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.repository.ShortUrlExpirationDao;
+import com.project.urlshortener.repository.ShortUrlLookupCoalescer;
 import com.project.urlshortener.repository.ShortUrlRepository;
-import com.project.urlshortener.service.StringTokenService;
+import com.project.urlshortener.repository.ShortUrlWriteBehindQueue;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
 
 /**
  * Manipulates ShortUrlRepository to access the database.<br/>
- * Implementation of ShortUrlDao.
+ * Implementation of ShortUrlDao, used unless url-shortener.storage.engine is mapped-file (see MappedFileShortUrlDaoImpl).<br/>
+ * Implementation of ShortUrlExpirationDao : the expired short urls are never returned by the lookups, which only read the database (a read replica can serve them).
+ * Their rows are deleted by ShortUrlExpirationJob, or by the creation of a new short url for the same url.
  */
 @Service
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "database", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class ShortUrlDaoImpl implements ShortUrlDao {
+public class ShortUrlDaoImpl implements ShortUrlDao, ShortUrlExpirationDao {
+
+    /**
+     * Maximum number of values in the IN clause of a query : larger collections are searched with several queries.
+     */
+    static final int IN_QUERY_CHUNK_SIZE = 1000;
+
+    /**
+     * Insertion of a row of SHORT_URL, used for the batch insertions.
+     */
+    static final String INSERT_SHORT_URL_SQL = "insert into SHORT_URL (TOKEN, ORIGINAL_URL, ORIGINAL_URL_HASH) values (?, ?, ?)";
+
+    /**
+     * Page of the rows of SHORT_URL after an id (keyset pagination), used to read the whole table.
+     */
+    static final String SELECT_SHORT_URL_PAGE_SQL = "select ID, TOKEN, ORIGINAL_URL, ORIGINAL_URL_HASH from SHORT_URL where ID > ? order by ID limit ?";
 
     /**
      * Spring Data Repository for the SHORT_URL table.
@@ -30,9 +77,9 @@ public class ShortUrlDaoImpl implements ShortUrlDao {
     private final ShortUrlRepository urlTokensRepository;
 
     /**
-     * Service to create tokens of characters.
+     * Strategy used to create the tokens (random or sequence).
      */
-    private final StringTokenService stringTokenService;
+    private final ShortUrlTokenStrategy shortUrlTokenStrategy;
 
     /**
      * Access to some of the application parameters.
@@ -40,45 +87,422 @@ public class ShortUrlDaoImpl implements ShortUrlDao {
     private final UrlShortenerProperties urlShortenerProperties;
 
     /**
-     * Searches for a ShortUrlEntity in the database matching a specific token value.
+     * In-memory cache of the ShortUrlEntity, read before the database.
+     */
+    private final ShortUrlTokenCache shortUrlTokenCache;
+
+    /**
+     * In-memory filter of the existing tokens, to reject unknown tokens without reading the database.
+     */
+    private final ShortUrlTokenFilter shortUrlTokenFilter;
+
+    /**
+     * Job computing the hash of the original urls created before the ORIGINAL_URL_HASH column existed.
+     */
+    private final OriginalUrlHashBackfillStatus originalUrlHashBackfillStatus;
+
+    /**
+     * JDBC access to the database, for the batch insertions (the IDENTITY ids prevent Hibernate from batching the insertions).
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs each batch insertion in one transaction, so that a failed batch inserts no row.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Timers of the database queries and of the token creation.
+     */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /**
+     * The new short urls waiting to be inserted in the database, when the write-behind is enabled.
+     */
+    private final ShortUrlWriteBehindQueue shortUrlWriteBehindQueue;
+
+    /**
+     * Sends the lookups of the short urls created recently by this instance to the primary database, when the other lookups are sent to the read replicas.
+     */
+    private final ReadYourWritesGuard readYourWritesGuard;
+
+    /**
+     * Makes the concurrent lookups of the same token missed by the token cache read the database once.
+     */
+    private final ShortUrlLookupCoalescer shortUrlLookupCoalescer;
+
+    /**
+     * Searches for a ShortUrlEntity matching a specific token value.<br/>
+     * A new short url waiting to be inserted (write-behind) is returned right away.<br/>
+     * If the token filter tells that the token definitely does not exist, null is returned right away.<br/>
+     * Then the token cache is read. If the token is not in the cache, the database is read (a read replica, unless the token was created recently by this instance) and the ShortUrlEntity found is added to the cache.
+     * The concurrent reads of the same token share one query (see ShortUrlLookupCoalescer).<br/>
+     * An expired short url is not returned : its expiration time is read with the short url, without another query. An expired cache entry is removed, and the token is read again from the database,
+     * where another instance may have pushed back its expiration.
      *
      * @param token the value of the token to look for.
-     * @return the ShortUrlEntity found in the database. Can return null if the token was not found.
+     * @return the ShortUrlEntity found in the cache or in the database. Can return null if the token was not found, or has expired.
      */
     @Override
     public ShortUrlEntity findExistingShortUrlEntityByToken(final String token) {
         requireNonBlank(token, "token");
 
-        return urlTokensRepository.findByToken(token);
+        ShortUrlEntity pendingShortUrlEntity = shortUrlWriteBehindQueue.findPendingByToken(token);
+        if (pendingShortUrlEntity != null) {
+            return pendingShortUrlEntity;
+        }
+        if (!shortUrlTokenFilter.mightContain(token)) {
+            return null;
+        }
+
+        Instant now = Instant.now();
+        ShortUrlEntity cachedShortUrlEntity = findUnexpiredInCache(token, now);
+        if (cachedShortUrlEntity != null) {
+            return cachedShortUrlEntity;
+        }
+
+        ShortUrlEntity shortUrlEntity = shortUrlLookupCoalescer.findByToken(token, () ->
+                urlShortenerMetrics.getDecodeLookupTimer().record(() -> readYourWritesGuard.read(List.of(token), () -> urlTokensRepository.findProjectionByToken(token))));
+        if (shortUrlEntity == null || shortUrlEntity.isExpired(now)) {
+            return null;
+        }
+        shortUrlTokenCache.put(shortUrlEntity);
+        return shortUrlEntity;
+    }
+
+    /**
+     * Searches for the ShortUrlEntity matching several token values.<br/>
+     * The new short urls waiting to be inserted (write-behind) are returned right away. The tokens rejected by the token filter are not searched, and the tokens found in the token cache are not read from the database.
+     * The other tokens are read with one IN query per IN_QUERY_CHUNK_SIZE tokens, and the ShortUrlEntity found are added to the cache.<br/>
+     * The expired short urls are not returned (see findExistingShortUrlEntityByToken).
+     *
+     * @param tokens the values of the tokens to look for.
+     * @return the ShortUrlEntity found in the cache or in the database, by token. The tokens not found are missing.
+     */
+    @Override
+    public Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByTokens(final Collection<String> tokens) {
+        requireNonNull(tokens, "tokens");
+
+        Instant now = Instant.now();
+        Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+        List<String> missedTokens = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(tokens)) {
+            if (StringUtils.isBlank(token)) {
+                continue;
+            }
+            ShortUrlEntity pendingShortUrlEntity = shortUrlWriteBehindQueue.findPendingByToken(token);
+            if (pendingShortUrlEntity != null) {
+                shortUrlEntities.put(token, pendingShortUrlEntity);
+                continue;
+            }
+            if (!shortUrlTokenFilter.mightContain(token)) {
+                continue;
+            }
+            ShortUrlEntity cachedShortUrlEntity = findUnexpiredInCache(token, now);
+            if (cachedShortUrlEntity != null) {
+                shortUrlEntities.put(token, cachedShortUrlEntity);
+            } else {
+                missedTokens.add(token);
+            }
+        }
+
+        urlShortenerMetrics.getDecodeLookupTimer().record(() -> readYourWritesGuard.read(missedTokens, () -> findInChunks(missedTokens, urlTokensRepository::findProjectionsByTokenIn))).forEach(shortUrlEntity -> {
+            if (!shortUrlEntity.isExpired(now)) {
+                shortUrlTokenCache.put(shortUrlEntity);
+                shortUrlEntities.put(shortUrlEntity.getToken(), shortUrlEntity);
+            }
+        });
+        return shortUrlEntities;
+    }
+
+    /**
+     * Reads a token in the cache. An expired entry is removed from the cache.
+     *
+     * @param token the value of the token.
+     * @param now the current time.
+     * @return the ShortUrlEntity of the cache. Null if the token is not in the cache, or has expired.
+     */
+    private ShortUrlEntity findUnexpiredInCache(final String token, final Instant now) {
+        ShortUrlEntity cachedShortUrlEntity = shortUrlTokenCache.getIfPresent(token);
+        if (cachedShortUrlEntity != null && cachedShortUrlEntity.isExpired(now)) {
+            shortUrlTokenCache.invalidate(token);
+            return null;
+        }
+        return cachedShortUrlEntity;
     }
 
     /**
-     * Searches for a ShortUrlEntity in the database matching a specific original url value.
+     * Searches for a ShortUrlEntity in the database matching a specific original url value.<br/>
+     * A new short url waiting to be inserted (write-behind) is returned right away.<br/>
+     * The url is searched by its hash (indexed fixed-width column), then the url of the row found is compared to the original url.<br/>
+     * While the hashes of the existing rows are being computed (see OriginalUrlHashBackfillStatus), a url not found by its hash is also searched by its value.<br/>
+     * A url created recently by this instance is searched in the primary database, even when the other lookups are sent to the read replicas.<br/>
+     * An expired short url is not returned, but its row is kept : it is deleted by ShortUrlExpirationJob, or by the creation of a new short url for the url.
      *
      * @param originalUrl the value of the original url to look for.
-     * @return the ShortUrlEntity found in the database. Can return null if the url was not found.
+     * @return the ShortUrlEntity found in the database. Can return null if the url was not found, or has expired.
      */
     @Override
     public ShortUrlEntity findExistingShortUrlEntityByOriginalUrl(final String originalUrl) {
         requireNonBlank(originalUrl, "originalUrl");
 
-        return urlTokensRepository.findByOriginalUrl(originalUrl);
+        ShortUrlEntity pendingShortUrlEntity = shortUrlWriteBehindQueue.findPendingByOriginalUrl(originalUrl);
+        if (pendingShortUrlEntity != null) {
+            return pendingShortUrlEntity;
+        }
+        ShortUrlEntity shortUrlEntity = readYourWritesGuard.read(List.of(originalUrl), () -> findShortUrlEntityByOriginalUrl(originalUrl));
+        return shortUrlEntity == null || shortUrlEntity.isExpired(Instant.now()) ? null : shortUrlEntity;
+    }
+
+    /**
+     * Searches for a ShortUrlEntity in the database matching a specific original url value : by its hash, then by its value while the backfill is not completed.
+     *
+     * @param originalUrl the value of the original url to look for.
+     * @return the ShortUrlEntity found in the database, even if it has expired. Can return null if the url was not found.
+     */
+    private ShortUrlEntity findShortUrlEntityByOriginalUrl(final String originalUrl) {
+        ShortUrlEntity shortUrlEntity = urlShortenerMetrics.getDedupLookupTimer().record(() -> urlTokensRepository.findProjectionByOriginalUrlHash(HashUtils.hash128(originalUrl)));
+        if (shortUrlEntity != null) {
+            if (originalUrl.equals(shortUrlEntity.getOriginalUrl())) {
+                return shortUrlEntity;
+            }
+            if (log.isWarnEnabled()) {
+                log.warn("findExistingShortUrlEntityByOriginalUrl : the hash of originalUrl[{}] is the same as the hash of originalUrl[{}]", originalUrl, shortUrlEntity.getOriginalUrl());
+            }
+            return null;
+        }
+
+        return originalUrlHashBackfillStatus.isCompleted() ? null : urlShortenerMetrics.getDedupLookupTimer().record(() -> urlTokensRepository.findByOriginalUrl(originalUrl));
+    }
+
+
+    /**
+     * Searches for the ShortUrlEntity in the database matching several original url values.<br/>
+     * The new short urls waiting to be inserted (write-behind) are returned without reading the database. The other urls are searched by their hashes, with one IN query per IN_QUERY_CHUNK_SIZE urls. Only the rows whose url is one of the searched urls are kept.<br/>
+     * While the hashes of the existing rows are being computed (see OriginalUrlHashBackfillStatus), the urls not found by their hash are also searched by their value.<br/>
+     * If one of the urls was created recently by this instance, all of them are searched in the primary database, even when the other lookups are sent to the read replicas.<br/>
+     * The expired short urls are not returned, but their rows are kept (see findExistingShortUrlEntityByOriginalUrl).
+     *
+     * @param originalUrls the values of the original urls to look for.
+     * @return the ShortUrlEntity found in the database, by original url. The urls not found, or expired, are missing.
+     */
+    @Override
+    public Map<String, ShortUrlEntity> findExistingShortUrlEntitiesByOriginalUrls(final Collection<String> originalUrls) {
+        requireNonNull(originalUrls, "originalUrls");
+
+        Set<String> searchedUrls = new HashSet<>();
+        Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+        for (String originalUrl : originalUrls) {
+            ShortUrlEntity pendingShortUrlEntity = shortUrlWriteBehindQueue.findPendingByOriginalUrl(originalUrl);
+            if (pendingShortUrlEntity != null) {
+                shortUrlEntities.put(originalUrl, pendingShortUrlEntity);
+            } else {
+                searchedUrls.add(originalUrl);
+            }
+        }
+        shortUrlEntities.putAll(readYourWritesGuard.read(searchedUrls, () -> findShortUrlEntitiesByOriginalUrls(searchedUrls)));
+        return shortUrlEntities;
+    }
+
+    /**
+     * Searches for the ShortUrlEntity in the database matching several original url values : by their hashes, then by their values while the backfill is not completed.
+     *
+     * @param searchedUrls the values of the original urls to look for.
+     * @return the ShortUrlEntity found in the database, by original url. The urls not found are missing.
+     */
+    private Map<String, ShortUrlEntity> findShortUrlEntitiesByOriginalUrls(final Set<String> searchedUrls) {
+        Map<String, ShortUrlEntity> shortUrlEntities = new HashMap<>();
+        List<byte[]> originalUrlHashes = searchedUrls.stream().map(HashUtils::hash128).toList();
+        urlShortenerMetrics.getDedupLookupTimer().record(() -> findInChunks(originalUrlHashes, urlTokensRepository::findProjectionsByOriginalUrlHashIn)).stream()
+                .filter(shortUrlEntity -> searchedUrls.contains(shortUrlEntity.getOriginalUrl()))
+                .forEach(shortUrlEntity -> shortUrlEntities.put(shortUrlEntity.getOriginalUrl(), shortUrlEntity));
+
+        List<String> missingUrls = searchedUrls.stream().filter(url -> !shortUrlEntities.containsKey(url)).toList();
+        if (!originalUrlHashBackfillStatus.isCompleted() && !missingUrls.isEmpty()) {
+            urlShortenerMetrics.getDedupLookupTimer().record(() -> findInChunks(missingUrls, urlTokensRepository::findByOriginalUrlIn))
+                    .forEach(shortUrlEntity -> shortUrlEntities.putIfAbsent(shortUrlEntity.getOriginalUrl(), shortUrlEntity));
+        }
+
+        Instant now = Instant.now();
+        shortUrlEntities.values().removeIf(shortUrlEntity -> shortUrlEntity.isExpired(now));
+        return shortUrlEntities;
+    }
+
+    /**
+     * Creates brand new tokens for several original url values and inserts the ShortUrlEntity in the database with one JDBC batch.<br/>
+     * The tokens are created by the token strategy. Unless the strategy is collision-free, the new tokens are checked against the existing tokens with IN queries
+     * (only the tokens that the token filter does not reject), and the tokens already used are created again, up to token.maxAttempts times.<br/>
+     * If the batch insertion fails (for instance because another request has created a token for one of the urls in the meantime), no ShortUrlEntity is returned :
+     * the caller can then create the tokens one by one with createNewShortUrlEntityRetryable.<br/>
+     * The new tokens are added to the token filter, and the new ShortUrlEntity are added to the token cache.
+     *
+     * @param originalUrls the values of the original urls, which have no token yet.
+     * @return the ShortUrlEntity created in the database. The urls for which no token could be created are missing.
+     */
+    @Override
+    public List<ShortUrlEntity> createNewShortUrlEntities(final Collection<String> originalUrls) {
+        requireNonNull(originalUrls, "originalUrls");
+
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>();
+        createUniqueTokens(new LinkedHashSet<>(originalUrls)).forEach((originalUrl, token) -> {
+            ShortUrlEntity shortUrlEntity = ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+            shortUrlEntity.computeOriginalUrlHash();
+            shortUrlEntities.add(shortUrlEntity);
+        });
+        if (shortUrlEntities.isEmpty()) {
+            return shortUrlEntities;
+        }
+
+        // the tokens are added to the filter before the insertion : a token inserted by a concurrent request must not be rejected
+        shortUrlEntities.forEach(shortUrlEntity -> shortUrlTokenFilter.put(shortUrlEntity.getToken()));
+        Timer.Sample insertSample = Timer.start();
+        try {
+            insertBatch(shortUrlEntities);
+        } catch (DataAccessException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("createNewShortUrlEntities : the batch insertion of {} urls has failed", shortUrlEntities.size(), e);
+            }
+            return List.of();
+        } finally {
+            insertSample.stop(urlShortenerMetrics.getInsertTimer());
+        }
+
+        shortUrlEntities.forEach(shortUrlEntity -> {
+            shortUrlTokenCache.put(shortUrlEntity);
+            readYourWritesGuard.recordWrite(shortUrlEntity);
+        });
+        return shortUrlEntities;
     }
 
+    /**
+     * Inserts short urls with one JDBC batch, in one transaction. The ids of the short urls are set to the ids of the new rows.
+     *
+     * @param shortUrlEntities the new short urls.
+     * @throws DataAccessException if the insertion fails, for instance because a token or an original url is already used : the transaction is rolled back, no row is inserted.
+     */
+    private void insertBatch(final List<ShortUrlEntity> shortUrlEntities) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SHORT_URL_SQL, new String[] { "ID" }), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                ShortUrlEntity shortUrlEntity = shortUrlEntities.get(i);
+                ps.setString(1, shortUrlEntity.getToken());
+                ps.setString(2, shortUrlEntity.getOriginalUrl());
+                ps.setBytes(3, shortUrlEntity.getOriginalUrlHash());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return shortUrlEntities.size();
+            }
+        }, keyHolder));
+
+        List<Map<String, Object>> generatedKeys = keyHolder.getKeyList();
+        for (int i = 0; i < shortUrlEntities.size() && i < generatedKeys.size(); i++) {
+            Object id = generatedKeys.get(i).values().stream().findFirst().orElse(null);
+            shortUrlEntities.get(i).setId(id instanceof Number number ? number.longValue() : null);
+        }
+    }
+
+    /**
+     * Creates a token for each original url, different from the existing tokens and from each other.
+     *
+     * @param originalUrls the values of the original urls.
+     * @return the new token of each original url. The urls for which no unique token could be created in token.maxAttempts attempts are missing.
+     */
+    private Map<String, String> createUniqueTokens(final Set<String> originalUrls) {
+        Map<String, String> tokensByUrl = new LinkedHashMap<>();
+        Set<String> usedTokens = new HashSet<>();
+        List<String> pendingUrls = new ArrayList<>(originalUrls);
+        for (int attempt = 1; attempt <= getMaxRetryableAttempts() && !pendingUrls.isEmpty(); attempt++) {
+            Map<String, String> candidateTokens = new LinkedHashMap<>();
+            for (String originalUrl : pendingUrls) {
+                String token = urlShortenerMetrics.getTokenGenerationTimer().record(shortUrlTokenStrategy::createToken);
+                if (StringUtils.isNotBlank(token) && usedTokens.add(token)) {
+                    candidateTokens.put(originalUrl, token);
+                }
+            }
+            Set<String> takenTokens = shortUrlTokenStrategy.isCollisionFree() ? Set.of() : findTakenTokens(candidateTokens.values());
+            candidateTokens.forEach((originalUrl, token) -> {
+                if (!takenTokens.contains(token)) {
+                    tokensByUrl.put(originalUrl, token);
+                }
+            });
+            urlShortenerMetrics.getTokenRetryCounter().increment(takenTokens.size());
+            pendingUrls = pendingUrls.stream().filter(originalUrl -> !tokensByUrl.containsKey(originalUrl)).toList();
+        }
+        if (!pendingUrls.isEmpty() && log.isWarnEnabled()) {
+            log.warn("createUniqueTokens : no unique token could be created for {} urls", pendingUrls.size());
+        }
+        return tokensByUrl;
+    }
+
+    /**
+     * Finds which tokens are already used in the database, or by a short url waiting to be inserted. The tokens rejected by the token filter are not searched in the database.
+     *
+     * @param tokens the tokens to check.
+     * @return the tokens already used.
+     */
+    private Set<String> findTakenTokens(final Collection<String> tokens) {
+        Set<String> takenTokens = new HashSet<>();
+        tokens.stream().filter(token -> shortUrlWriteBehindQueue.findPendingByToken(token) != null).forEach(takenTokens::add);
+        List<String> searchedTokens = tokens.stream().filter(token -> !takenTokens.contains(token) && shortUrlTokenFilter.mightContain(token)).toList();
+        urlShortenerMetrics.getCollisionCheckTimer().record(() -> readYourWritesGuard.read(searchedTokens, () -> findInChunks(searchedTokens, urlTokensRepository::findProjectionsByTokenIn)))
+                .forEach(shortUrlEntity -> takenTokens.add(shortUrlEntity.getToken()));
+        return takenTokens;
+    }
+
+    /**
+     * Runs an IN query for each chunk of IN_QUERY_CHUNK_SIZE values, so that a query never has too many parameters.
+     *
+     * @param values the values of the IN clause.
+     * @param query the query.
+     * @return the results of all the queries.
+     * @param <T> type of the values.
+     */
+    private static <T> List<ShortUrlEntity> findInChunks(final List<T> values, final Function<Collection<T>, List<ShortUrlEntity>> query) {
+        List<ShortUrlEntity> results = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += IN_QUERY_CHUNK_SIZE) {
+            results.addAll(query.apply(values.subList(start, Math.min(values.size(), start + IN_QUERY_CHUNK_SIZE))));
+        }
+        return results;
+    }
 
     /**
      * Creates a brand-new token for an original url value and saves a ShortUrlEntity in the database.<br/>
-     * Double checks if the newly created token is already used in the database. If it is already used, the method will fail with ShortUrlTokenAlreadyUsedException.<br/>
+     * Unless the token strategy is collision-free, double checks if the newly created token is already used in the database (unless the token filter tells that the token definitely does not exist). If it is already used, the method will fail with ShortUrlTokenAlreadyUsedException.<br/>
      * If the newly created token is null or empty, the method will fail with ShortUrlTokenCannotBeCreatedException.<br/>
+     * With the write-behind, the new ShortUrlEntity is returned before being inserted : it is inserted later, with the other new short urls (see ShortUrlWriteBehindQueue).<br/>
      * This method will retry a couple of times (see maxAttemptsExpression) if it fails with any exception.<br/>
-     * If this method fails too many times (more than maxAttemptsExpression), the last exception thrown will escape the method to reach the caller.
+     * If this method fails too many times (more than maxAttemptsExpression), the last exception thrown will escape the method to reach the caller.<br/>
+     * If the insertion breaks a unique constraint because another instance has created a short url for the same url in the meantime, the row of the other instance is read from the primary database and returned.
+     * If this row has expired but is not deleted yet by ShortUrlExpirationJob, it is deleted, and the next attempt inserts the new short url.<br/>
+     * The new token is added to the token filter, and the new ShortUrlEntity is added to the token cache, since a new short url is usually read right after its creation.
      *
      * @param originalUrl the value of the original url.
      * @return the ShortUrlEntity created in the database.
      */
     @Retryable(maxAttemptsExpression = "#{@shortUrlDaoImpl.getMaxRetryableAttempts()}")
     public ShortUrlEntity createNewShortUrlEntityRetryable(final String originalUrl) {
-        String shortUrlToken = stringTokenService.createStringToken(urlShortenerProperties.token().characters(), urlShortenerProperties.token().length());
+        return createNewShortUrlEntity(originalUrl, null);
+    }
+
+    /**
+     * Creates a brand-new token for an original url value and saves a ShortUrlEntity which expires in the database, like createNewShortUrlEntityRetryable(originalUrl).<br/>
+     * A short url which expires is always inserted right away, without the write-behind : its row must exist before ShortUrlExpirationJob can delete it.
+     *
+     * @param originalUrl the value of the original url.
+     * @param expiresAt the time after which the short url does not exist anymore. Null if it never expires.
+     * @return the ShortUrlEntity created in the database.
+     */
+    @Override
+    @Retryable(maxAttemptsExpression = "#{@shortUrlDaoImpl.getMaxRetryableAttempts()}")
+    public ShortUrlEntity createNewShortUrlEntityRetryable(final String originalUrl, final Instant expiresAt) {
+        return createNewShortUrlEntity(originalUrl, expiresAt);
+    }
+
+    private ShortUrlEntity createNewShortUrlEntity(final String originalUrl, final Instant expiresAt) {
+        String shortUrlToken = urlShortenerMetrics.getTokenGenerationTimer().record(shortUrlTokenStrategy::createToken);
         if (StringUtils.isBlank(shortUrlToken)) {
             if (log.isWarnEnabled()) {
                 log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token was null empty or blank [{}]", originalUrl, shortUrlToken);
@@ -86,16 +510,229 @@ public class ShortUrlDaoImpl implements ShortUrlDao {
             throw new ShortUrlTokenCannotBeCreatedException(originalUrl);
         }
 
-        if (urlTokensRepository.findByToken(shortUrlToken) != null) {
+        if (!shortUrlTokenStrategy.isCollisionFree() && (shortUrlWriteBehindQueue.findPendingByToken(shortUrlToken) != null || shortUrlTokenFilter.mightContain(shortUrlToken)
+                && urlShortenerMetrics.getCollisionCheckTimer().record(() -> readYourWritesGuard.read(List.of(shortUrlToken), () -> urlTokensRepository.findProjectionByToken(shortUrlToken))) != null)) {
             // token already taken
             if (log.isWarnEnabled()) {
                 log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token [{}] was already taken", originalUrl, shortUrlToken);
             }
+            urlShortenerMetrics.getTokenRetryCounter().increment();
+            throw new ShortUrlTokenAlreadyUsedException(shortUrlToken, originalUrl);
+        }
+
+        // queue the new short url (write-behind), or save it to the database
+        ShortUrlEntity newShortUrlEntity = ShortUrlEntity.builder().token(shortUrlToken).originalUrl(originalUrl).expiresAt(expiresAt).build();
+        newShortUrlEntity.computeOriginalUrlHash();
+        ShortUrlEntity queuedShortUrlEntity = expiresAt == null ? shortUrlWriteBehindQueue.enqueue(newShortUrlEntity) : null;
+        if (queuedShortUrlEntity != null) {
+            shortUrlTokenFilter.put(queuedShortUrlEntity.getToken());
+            shortUrlTokenCache.put(queuedShortUrlEntity);
+            readYourWritesGuard.recordWrite(queuedShortUrlEntity);
+            return queuedShortUrlEntity;
+        }
+        ShortUrlEntity shortUrlEntity;
+        try {
+            shortUrlEntity = urlShortenerMetrics.getInsertTimer().record(() -> urlTokensRepository.save(newShortUrlEntity));
+        } catch (DataIntegrityViolationException e) {
+            // another instance has created a short url for the same url in the meantime : its row is read from the primary database (the replicas can miss it)
+            ShortUrlEntity existingShortUrlEntity = readYourWritesGuard.readFromPrimary(() -> findShortUrlEntityByOriginalUrl(originalUrl));
+            Instant now = Instant.now();
+            if (existingShortUrlEntity != null && existingShortUrlEntity.isExpired(now)) {
+                // the url still has its expired row : it is deleted here, on the primary database, then the creation is retried
+                deleteExpiredShortUrls(List.of(existingShortUrlEntity.getToken()), now);
+                throw e;
+            }
+            if (existingShortUrlEntity != null) {
+                shortUrlTokenFilter.put(existingShortUrlEntity.getToken());
+                shortUrlTokenCache.put(existingShortUrlEntity);
+                return existingShortUrlEntity;
+            }
+            // else the token was created in the meantime
+            if (log.isWarnEnabled()) {
+                log.warn("createNewShortUrlEntityRetryable : for originalUrl[{}] the token [{}] was taken during the insertion", originalUrl, shortUrlToken);
+            }
+            urlShortenerMetrics.getTokenRetryCounter().increment();
             throw new ShortUrlTokenAlreadyUsedException(shortUrlToken, originalUrl);
         }
+        shortUrlTokenFilter.put(shortUrlToken);
+        shortUrlTokenCache.put(shortUrlEntity);
+        readYourWritesGuard.recordWrite(shortUrlEntity);
+        return shortUrlEntity;
+    }
+
+    /**
+     * Replaces the expiration time of an existing short url in the database, unless it has already expired. The short url is replaced in the token cache.
+     *
+     * @param shortUrlEntity the existing short url.
+     * @param expiresAt the new expiration time. Null if the short url never expires anymore.
+     * @return a copy of the short url with its new expiration time. Null if the short url has expired, or has been deleted, in the meantime.
+     */
+    @Override
+    public ShortUrlEntity updateExpiration(final ShortUrlEntity shortUrlEntity, final Instant expiresAt) {
+        requireNonNull(shortUrlEntity, "shortUrlEntity");
+        requireNonBlank(shortUrlEntity.getToken(), "shortUrlEntity.token");
+
+        if (urlTokensRepository.updateExpiresAtByToken(shortUrlEntity.getToken(), expiresAt, Instant.now()) == 0) {
+            shortUrlTokenCache.invalidate(shortUrlEntity.getToken());
+            return null;
+        }
+        ShortUrlEntity updatedShortUrlEntity = new ShortUrlEntity(shortUrlEntity.getId(), shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl(), shortUrlEntity.getOriginalUrlHash(), expiresAt);
+        shortUrlTokenCache.put(updatedShortUrlEntity);
+        readYourWritesGuard.recordWrite(updatedShortUrlEntity);
+        return updatedShortUrlEntity;
+    }
+
+    /**
+     * Reads the short urls which expire before a time, by pages of rows after the last row read, in the order of the index of EXPIRES_AT (keyset pagination) :
+     * each page is one range query on the index, whatever the size of the table.
+     *
+     * @param until only the short urls expiring strictly before this time are read, including the short urls already expired.
+     * @param pageSize number of short urls read at once.
+     * @param shortUrlConsumer called for each short url, with its token and its expiration time.
+     */
+    @Override
+    public void forEachShortUrlExpiringBefore(final Instant until, final int pageSize, final Consumer<ShortUrlEntity> shortUrlConsumer) {
+        requireNonNull(until, "until");
+        requireNonNull(shortUrlConsumer, "shortUrlConsumer");
+
+        Instant lastExpiresAt = Instant.EPOCH;
+        long lastId = 0;
+        List<ShortUrlEntity> page;
+        do {
+            page = urlTokensRepository.findProjectionsExpiringBefore(until, lastExpiresAt, lastId, Limit.of(pageSize));
+            page.forEach(shortUrlConsumer);
+            if (!page.isEmpty()) {
+                lastExpiresAt = page.getLast().getExpiresAt();
+                lastId = page.getLast().getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    /**
+     * Deletes the short urls of several tokens which have expired, with one query per IN_QUERY_CHUNK_SIZE tokens, and removes them from the token cache.
+     * Each query only deletes the rows which are still expired : a short url whose expiration was pushed back or removed in the meantime is kept.
+     *
+     * @param tokens the values of the tokens.
+     * @param now the current time.
+     * @return the number of short urls deleted.
+     */
+    @Override
+    public int deleteExpiredShortUrls(final Collection<String> tokens, final Instant now) {
+        requireNonNull(tokens, "tokens");
+        requireNonNull(now, "now");
+
+        List<String> tokenList = List.copyOf(tokens);
+        int deletedCount = 0;
+        for (int start = 0; start < tokenList.size(); start += IN_QUERY_CHUNK_SIZE) {
+            deletedCount += urlTokensRepository.deleteExpiredByTokenIn(tokenList.subList(start, Math.min(tokenList.size(), start + IN_QUERY_CHUNK_SIZE)), now);
+        }
+        tokenList.forEach(shortUrlTokenCache::invalidate);
+        urlShortenerMetrics.getExpiredDeletedCounter().increment(deletedCount);
+        return deletedCount;
+    }
+
+    /**
+     * Reads all the existing tokens of the database, one by one, without keeping them in memory.<br/>
+     * The tokens are streamed from the database in a read-only transaction.
+     *
+     * @param tokenConsumer called for each existing token.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachExistingToken(final Consumer<String> tokenConsumer) {
+        requireNonNull(tokenConsumer, "tokenConsumer");
+
+        try (Stream<String> tokens = urlTokensRepository.streamAllTokens()) {
+            tokens.forEach(tokenConsumer);
+        }
+    }
 
-        // save new short url to the database
-        return urlTokensRepository.save(ShortUrlEntity.builder().token(shortUrlToken).originalUrl(originalUrl).build());
+    /**
+     * Reads all the existing short urls of the database, by pages of rows after the last id read (keyset pagination) : each page is one indexed query, whatever the size of the table.<br/>
+     * The rows are read with JDBC, without transaction nor persistence context : only one page is kept in memory.
+     *
+     * @param pageSize number of short urls read at once.
+     * @param shortUrlConsumer called for each existing short url.
+     */
+    @Override
+    public void forEachExistingShortUrl(final int pageSize, final Consumer<ShortUrlEntity> shortUrlConsumer) {
+        requireNonNull(shortUrlConsumer, "shortUrlConsumer");
+
+        long lastId = 0;
+        List<ShortUrlEntity> page;
+        do {
+            page = jdbcTemplate.query(SELECT_SHORT_URL_PAGE_SQL, (rs, rowNum) ->
+                    new ShortUrlEntity(rs.getLong("ID"), rs.getString("TOKEN"), rs.getString("ORIGINAL_URL"), rs.getBytes("ORIGINAL_URL_HASH"), null), lastId, pageSize);
+            page.forEach(shortUrlConsumer);
+            if (!page.isEmpty()) {
+                lastId = page.getLast().getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    /**
+     * Saves short urls which already have their token (imported from another url shortener).<br/>
+     * The short urls whose token or original url is already used in the database (or earlier in the list) are skipped : the tokens are searched with IN queries, and the urls by their hashes.
+     * The other short urls are inserted with one JDBC batch, in one transaction. If the batch fails (for instance because a short url was created in the meantime), it is rolled back,
+     * then the short urls are inserted one by one, and the duplicates are skipped : only the short urls inserted by this call are counted.<br/>
+     * The new tokens are added to the token filter, but not to the token cache : the imported short urls are not expected to be read soon.
+     *
+     * @param shortUrlEntities the short urls to import, with their token and their original url.
+     * @return the number of short urls inserted in the database.
+     */
+    @Override
+    public int importShortUrlEntities(final List<ShortUrlEntity> shortUrlEntities) {
+        requireNonNull(shortUrlEntities, "shortUrlEntities");
+
+        Map<String, ShortUrlEntity> shortUrlEntitiesByToken = new LinkedHashMap<>();
+        Set<String> originalUrls = new HashSet<>();
+        for (ShortUrlEntity shortUrlEntity : shortUrlEntities) {
+            if (StringUtils.isNotBlank(shortUrlEntity.getToken()) && StringUtils.isNotBlank(shortUrlEntity.getOriginalUrl())
+                    && !originalUrls.contains(shortUrlEntity.getOriginalUrl()) && shortUrlEntitiesByToken.putIfAbsent(shortUrlEntity.getToken(), shortUrlEntity) == null) {
+                originalUrls.add(shortUrlEntity.getOriginalUrl());
+            }
+        }
+        urlShortenerMetrics.getCollisionCheckTimer().record(() -> findInChunks(new ArrayList<>(shortUrlEntitiesByToken.keySet()), urlTokensRepository::findProjectionsByTokenIn))
+                .forEach(existingShortUrlEntity -> shortUrlEntitiesByToken.remove(existingShortUrlEntity.getToken()));
+        Set<String> existingUrls = findShortUrlEntitiesByOriginalUrls(originalUrls).keySet();
+
+        List<ShortUrlEntity> newShortUrlEntities = new ArrayList<>();
+        for (ShortUrlEntity shortUrlEntity : shortUrlEntitiesByToken.values()) {
+            if (!existingUrls.contains(shortUrlEntity.getOriginalUrl())) {
+                ShortUrlEntity newShortUrlEntity = ShortUrlEntity.builder().token(shortUrlEntity.getToken()).originalUrl(shortUrlEntity.getOriginalUrl()).build();
+                newShortUrlEntity.computeOriginalUrlHash();
+                newShortUrlEntities.add(newShortUrlEntity);
+            }
+        }
+        if (newShortUrlEntities.isEmpty()) {
+            return 0;
+        }
+
+        newShortUrlEntities.forEach(shortUrlEntity -> shortUrlTokenFilter.put(shortUrlEntity.getToken()));
+        Timer.Sample insertSample = Timer.start();
+        try {
+            insertBatch(newShortUrlEntities);
+            return newShortUrlEntities.size();
+        } catch (DataAccessException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("importShortUrlEntities : the batch insertion of {} short urls has failed, they are inserted one by one", newShortUrlEntities.size(), e);
+            }
+        } finally {
+            insertSample.stop(urlShortenerMetrics.getInsertTimer());
+        }
+
+        int insertedCount = 0;
+        for (ShortUrlEntity shortUrlEntity : newShortUrlEntities) {
+            try {
+                jdbcTemplate.update(INSERT_SHORT_URL_SQL, shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl(), shortUrlEntity.getOriginalUrlHash());
+                insertedCount++;
+            } catch (DataIntegrityViolationException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("importShortUrlEntities : the token[{}] or the originalUrl[{}] is already used", shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl());
+                }
+            }
+        }
+        return insertedCount;
     }
 
     /**
@@ -0,0 +1,234 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Append-only journal of the short urls waiting to be inserted in the database, split in segment files.<br/>
+ * Each record holds the token and the original url of a short url : [length of the payload][CRC32 of the payload][token][original url].
+ * A record which was not completely written (crash during a write) fails its CRC check, and ends the reading of its segment.<br/>
+ * The records are appended to the current segment. A roll closes the current segment : once the rows of the closed segments are inserted,
+ * the segments are deleted. The segments left in the directory when the application starts are replayed.<br/>
+ * Not thread-safe : append and roll must be called under the same lock.
+ */
+@Slf4j
+final class ShortUrlJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "short-url-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /** Size of the header of a record : the length and the CRC32 of its payload. */
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+    /** Directory of the segment files. */
+    private final Path directory;
+
+    /** Whether each record is forced to the disk before append returns. */
+    private final boolean sync;
+
+    /** The segments closed since the last roll, or left by the previous run of the application. */
+    private final List<Path> closedSegments = new ArrayList<>();
+
+    /** Number of the next segment file. */
+    private long nextSegmentNumber;
+
+    /** The segment the records are appended to. Null until the first record after a roll. */
+    private FileChannel currentSegment;
+
+    /**
+     * Default constructor for ShortUrlJournal. Creates the directory if it does not exist.
+     *
+     * @param directory directory of the segment files.
+     * @param sync whether each record is forced to the disk before append returns.
+     */
+    ShortUrlJournal(final Path directory, final boolean sync) {
+        requireNonNull(directory, "directory");
+
+        this.directory = directory;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(ShortUrlJournal::isSegment).sorted().forEach(closedSegments::add);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.nextSegmentNumber = closedSegments.isEmpty() ? 0 : segmentNumber(closedSegments.getLast()) + 1;
+    }
+
+    /**
+     * Reads the records of the segments left by the previous run of the application, in the order they were written.
+     * Must be called before the first append.
+     *
+     * @return the short urls of the records, without id.
+     */
+    List<ShortUrlEntity> replay() {
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>();
+        for (Path segment : closedSegments) {
+            try {
+                readSegment(segment, shortUrlEntities);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return shortUrlEntities;
+    }
+
+    /**
+     * Appends the record of a short url to the current segment.
+     *
+     * @param shortUrlEntity the short url, with its token and its original url.
+     * @throws UncheckedIOException if the record cannot be written.
+     */
+    void append(final ShortUrlEntity shortUrlEntity) {
+        try {
+            if (currentSegment == null) {
+                currentSegment = FileChannel.open(directory.resolve(segmentName(nextSegmentNumber++)),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer record = encode(shortUrlEntity);
+            while (record.hasRemaining()) {
+                currentSegment.write(record);
+            }
+            if (sync) {
+                currentSegment.force(false);
+            }
+        } catch (IOException e) {
+            // the record may be partly written : the next records go to a new segment, so that they can be replayed
+            try {
+                closeCurrentSegment();
+            } catch (UncheckedIOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the current segment : the next records are appended to a new segment.
+     *
+     * @return the segments closed since the last roll. They can be deleted once their rows are inserted.
+     */
+    List<Path> roll() {
+        closeCurrentSegment();
+        List<Path> segments = List.copyOf(closedSegments);
+        closedSegments.clear();
+        return segments;
+    }
+
+    /**
+     * Deletes segments whose rows are inserted.
+     *
+     * @param segments segments returned by roll.
+     */
+    void delete(final List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                // replayed at the next start : the rows already inserted are skipped
+                if (log.isWarnEnabled()) {
+                    log.warn("delete : the segment [{}] could not be deleted", segment, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closeCurrentSegment();
+    }
+
+    private void closeCurrentSegment() {
+        if (currentSegment == null) {
+            return;
+        }
+        try {
+            currentSegment.force(false);
+            currentSegment.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closedSegments.add(directory.resolve(segmentName(nextSegmentNumber - 1)));
+            currentSegment = null;
+        }
+    }
+
+    private static ByteBuffer encode(final ShortUrlEntity shortUrlEntity) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(payload)) {
+            output.writeUTF(shortUrlEntity.getToken());
+            output.writeUTF(shortUrlEntity.getOriginalUrl());
+        }
+        byte[] payloadBytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+        return ByteBuffer.allocate(RECORD_HEADER_BYTES + payloadBytes.length)
+                .putInt(payloadBytes.length)
+                .putInt((int) crc.getValue())
+                .put(payloadBytes)
+                .flip();
+    }
+
+    private static void readSegment(final Path segment, final List<ShortUrlEntity> shortUrlEntities) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (records.hasRemaining()) {
+            int length = records.remaining() >= RECORD_HEADER_BYTES ? records.getInt() : -1;
+            if (length <= 0 || length > records.remaining() - Integer.BYTES) {
+                if (log.isWarnEnabled()) {
+                    log.warn("readSegment : the end of the segment [{}] is not a complete record", segment);
+                }
+                return;
+            }
+            int expectedCrc = records.getInt();
+            byte[] payloadBytes = new byte[length];
+            records.get(payloadBytes);
+            CRC32 crc = new CRC32();
+            crc.update(payloadBytes);
+            if ((int) crc.getValue() != expectedCrc) {
+                if (log.isWarnEnabled()) {
+                    log.warn("readSegment : the segment [{}] has a corrupted record, the next records are ignored", segment);
+                }
+                return;
+            }
+            try (DataInputStream payload = new DataInputStream(new ByteArrayInputStream(payloadBytes))) {
+                shortUrlEntities.add(ShortUrlEntity.builder().token(payload.readUTF()).originalUrl(payload.readUTF()).build());
+            }
+        }
+    }
+
+    private static boolean isSegment(final Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /** Segment names with a fixed width, so that their alphabetical order is the order they were written. */
+    private static String segmentName(final long segmentNumber) {
+        return SEGMENT_PREFIX + String.format("%019d", segmentNumber) + SEGMENT_SUFFIX;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.utils.SingleFlight;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlLookupCoalescer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Implementation of ShortUrlLookupCoalescer, with a SingleFlight by token.<br/>
+ * Runs each lookup on its own when the coalescing is disabled.
+ */
+@Component
+public class ShortUrlLookupCoalescerImpl implements ShortUrlLookupCoalescer {
+
+    /**
+     * Coalesces the concurrent lookups of the same token. Null if the coalescing is disabled.
+     */
+    private final SingleFlight<String, ShortUrlEntity> lookupSingleFlight;
+
+    /**
+     * Default constructor for ShortUrlLookupCoalescerImpl.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param urlShortenerMetrics instance of UrlShortenerMetrics.
+     */
+    public ShortUrlLookupCoalescerImpl(final UrlShortenerProperties urlShortenerProperties, final UrlShortenerMetrics urlShortenerMetrics) {
+        this.lookupSingleFlight = urlShortenerProperties.coalescing().enabled() ? new SingleFlight<>(urlShortenerProperties.coalescing().timeoutMillis(),
+                urlShortenerMetrics.getDecodeCoalescedCounter()::increment, urlShortenerMetrics.getCoalescingTimeoutCounter()::increment) : null;
+    }
+
+    @Override
+    public ShortUrlEntity findByToken(final String token, final Supplier<ShortUrlEntity> lookup) {
+        requireNonBlank(token, "token");
+        requireNonNull(lookup, "lookup");
+
+        return lookupSingleFlight != null ? lookupSingleFlight.execute(token, lookup) : lookup.get();
+    }
+
+}
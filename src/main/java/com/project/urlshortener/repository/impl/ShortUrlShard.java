@@ -0,0 +1,247 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to the SHORT_URL table of one shard. The table has the same columns as in the main database.<br/>
+ * The queries run without transaction : each insertion is committed on its own.
+ */
+@Slf4j
+public class ShortUrlShard implements AutoCloseable {
+
+    private static final String SELECT_SHORT_URL_SQL = "select ID, TOKEN, ORIGINAL_URL, ORIGINAL_URL_HASH from SHORT_URL";
+
+    private static final String INSERT_SHORT_URL_SQL = "insert into SHORT_URL (TOKEN, ORIGINAL_URL, ORIGINAL_URL_HASH) values (:token, :originalUrl, :originalUrlHash)";
+
+    private static final RowMapper<ShortUrlEntity> SHORT_URL_ROW_MAPPER = (rs, rowNum) ->
+            new ShortUrlEntity(rs.getLong("ID"), rs.getString("TOKEN"), rs.getString("ORIGINAL_URL"), rs.getBytes("ORIGINAL_URL_HASH"), null);
+
+    /**
+     * Index of the shard in url-shortener.sharding.datasources.
+     */
+    private final int index;
+
+    /**
+     * The connection pool of the shard.
+     */
+    private final HikariDataSource dataSource;
+
+    /**
+     * JDBC access to the shard.
+     */
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Default constructor for ShortUrlShard.
+     *
+     * @param index index of the shard in url-shortener.sharding.datasources.
+     * @param dataSource the connection pool of the shard.
+     */
+    public ShortUrlShard(final int index, final HikariDataSource dataSource) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.jdbcTemplate.getJdbcTemplate().setFetchSize(1000);
+    }
+
+    /**
+     * Gives the index of the shard in url-shortener.sharding.datasources.
+     *
+     * @return the index of the shard.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Searches for the short url of a token.
+     *
+     * @param token the value of the token.
+     * @return the ShortUrlEntity found. Null if not found.
+     */
+    public ShortUrlEntity findByToken(final String token) {
+        return jdbcTemplate.query(SELECT_SHORT_URL_SQL + " where TOKEN = :token", Map.of("token", token), SHORT_URL_ROW_MAPPER).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Searches for the short urls of several tokens.
+     *
+     * @param tokens the values of the tokens. Must not be empty.
+     * @return the ShortUrlEntity found, in any order.
+     */
+    public List<ShortUrlEntity> findByTokenIn(final Collection<String> tokens) {
+        return jdbcTemplate.query(SELECT_SHORT_URL_SQL + " where TOKEN in (:tokens)", Map.of("tokens", tokens), SHORT_URL_ROW_MAPPER);
+    }
+
+    /**
+     * Searches for the short url of the hash of an original url.
+     *
+     * @param originalUrlHash the hash of the original url (see HashUtils.hash128).
+     * @return the ShortUrlEntity found. Null if not found.
+     */
+    public ShortUrlEntity findByOriginalUrlHash(final byte[] originalUrlHash) {
+        return jdbcTemplate.query(SELECT_SHORT_URL_SQL + " where ORIGINAL_URL_HASH = :originalUrlHash", Map.of("originalUrlHash", originalUrlHash), SHORT_URL_ROW_MAPPER)
+                .stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Searches for the short urls of the hashes of several original urls.
+     *
+     * @param originalUrlHashes the hashes of the original urls. Must not be empty.
+     * @return the ShortUrlEntity found, in any order.
+     */
+    public List<ShortUrlEntity> findByOriginalUrlHashIn(final Collection<byte[]> originalUrlHashes) {
+        return jdbcTemplate.query(SELECT_SHORT_URL_SQL + " where ORIGINAL_URL_HASH in (:originalUrlHashes)", Map.of("originalUrlHashes", originalUrlHashes), SHORT_URL_ROW_MAPPER);
+    }
+
+    /**
+     * Searches for the short urls whose token starts with a prefix, in the order of their ids.
+     *
+     * @param prefix the first characters of the tokens.
+     * @param afterId only the short urls with a greater id are returned.
+     * @param limit maximum number of short urls returned.
+     * @return the ShortUrlEntity found.
+     */
+    public List<ShortUrlEntity> findByTokenPrefix(final String prefix, final long afterId, final int limit) {
+        return jdbcTemplate.query(SELECT_SHORT_URL_SQL + " where TOKEN like :pattern escape '!' and ID > :afterId order by ID limit :limit",
+                new MapSqlParameterSource("pattern", toLikePattern(prefix)).addValue("afterId", afterId).addValue("limit", limit), SHORT_URL_ROW_MAPPER);
+    }
+
+    /**
+     * Searches for the short urls after an id, in the order of their ids (keyset pagination).
+     *
+     * @param afterId only the short urls with a greater id are returned.
+     * @param limit maximum number of short urls returned.
+     * @return the ShortUrlEntity found.
+     */
+    public List<ShortUrlEntity> findAfterId(final long afterId, final int limit) {
+        return jdbcTemplate.query(SELECT_SHORT_URL_SQL + " where ID > :afterId order by ID limit :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), SHORT_URL_ROW_MAPPER);
+    }
+
+    /**
+     * Reads all the tokens of the shard, without keeping them in memory.
+     *
+     * @param tokenConsumer called for each token.
+     */
+    public void forEachToken(final Consumer<String> tokenConsumer) {
+        jdbcTemplate.getJdbcTemplate().query("select TOKEN from SHORT_URL", rs -> {
+            tokenConsumer.accept(rs.getString(1));
+        });
+    }
+
+    /**
+     * Inserts a short url.
+     *
+     * @param shortUrlEntity the new short url. Its id is set to the id of the new row.
+     * @throws DuplicateKeyException if its token or its original url is already used in the shard.
+     */
+    public void insert(final ShortUrlEntity shortUrlEntity) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(INSERT_SHORT_URL_SQL, toParameters(shortUrlEntity), keyHolder, new String[] { "ID" });
+        Number id = keyHolder.getKey();
+        shortUrlEntity.setId(id != null ? id.longValue() : null);
+    }
+
+    /**
+     * Inserts several short urls with one JDBC batch.
+     *
+     * @param shortUrlEntities the new short urls. Their ids are set to the ids of the new rows.
+     * @throws DuplicateKeyException if one of the tokens or of the original urls is already used in the shard : the short urls before it may have been inserted.
+     */
+    public void insertAll(final List<ShortUrlEntity> shortUrlEntities) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_SHORT_URL_SQL, shortUrlEntities.stream().map(ShortUrlShard::toParameters).toArray(SqlParameterSource[]::new), keyHolder, new String[] { "ID" });
+        List<Map<String, Object>> generatedKeys = keyHolder.getKeyList();
+        for (int i = 0; i < shortUrlEntities.size() && i < generatedKeys.size(); i++) {
+            Object id = generatedKeys.get(i).values().stream().findFirst().orElse(null);
+            shortUrlEntities.get(i).setId(id instanceof Number number ? number.longValue() : null);
+        }
+    }
+
+    /**
+     * Inserts the short urls whose token is not in the shard yet : used to copy short urls from another shard.<br/>
+     * The short urls are inserted with one JDBC batch, or one by one if the batch fails. A short url whose original url is already used by another token of the shard
+     * (two short urls created before the sharding) is inserted without the hash of its original url : its token is kept, but it is not found by its original url.
+     *
+     * @param shortUrlEntities the short urls of another shard. Their ids are not used.
+     * @return the number of short urls inserted.
+     */
+    public int insertMissing(final List<ShortUrlEntity> shortUrlEntities) {
+        if (shortUrlEntities.isEmpty()) {
+            return 0;
+        }
+        List<ShortUrlEntity> copies = shortUrlEntities.stream().map(shortUrlEntity -> new ShortUrlEntity(null, shortUrlEntity.getToken(),
+                shortUrlEntity.getOriginalUrl(), shortUrlEntity.getOriginalUrlHash(), null)).toList();
+        try {
+            insertAll(copies);
+            return copies.size();
+        } catch (DuplicateKeyException e) {
+            // some of the short urls are already in the shard : insert them one by one
+        }
+        int insertedCount = 0;
+        for (ShortUrlEntity copy : copies) {
+            if (findByToken(copy.getToken()) != null) {
+                continue;
+            }
+            try {
+                insert(copy);
+            } catch (DuplicateKeyException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("insertMissing : shard[{}] already has another token for originalUrl[{}], token[{}] is copied without the hash of its url", index, copy.getOriginalUrl(), copy.getToken());
+                }
+                copy.setOriginalUrlHash(null);
+                insert(copy);
+            }
+            insertedCount++;
+        }
+        return insertedCount;
+    }
+
+    /**
+     * Deletes short urls.
+     *
+     * @param ids the ids of the short urls. Must not be empty.
+     * @return the number of short urls deleted.
+     */
+    public int deleteByIds(final Collection<Long> ids) {
+        return jdbcTemplate.update("delete from SHORT_URL where ID in (:ids)", Map.of("ids", ids));
+    }
+
+    /**
+     * Closes the connection pool of the shard.
+     */
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private static SqlParameterSource toParameters(final ShortUrlEntity shortUrlEntity) {
+        return new MapSqlParameterSource("token", shortUrlEntity.getToken())
+                .addValue("originalUrl", shortUrlEntity.getOriginalUrl())
+                .addValue("originalUrlHash", shortUrlEntity.getOriginalUrlHash(), Types.VARBINARY);
+    }
+
+    /**
+     * Builds the LIKE pattern of the tokens starting with a prefix, where the wildcard characters of the prefix are escaped with '!'.
+     */
+    private static String toLikePattern(final String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+}
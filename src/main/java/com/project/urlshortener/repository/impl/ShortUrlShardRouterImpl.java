@@ -0,0 +1,225 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.entities.ShardBucketEntity;
+import com.project.urlshortener.model.shard.ShardRoute;
+import com.project.urlshortener.repository.ShardBucketRepository;
+import com.project.urlshortener.repository.ShortUrlShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Implementation of ShortUrlShardRouter. The shard of each bucket is kept in the SHARD_BUCKET table, and read again every sharding.routingRefreshMillis.<br/>
+ * The first instance started creates the buckets, spread over the shards in turn (bucket % number of shards) : the buckets are then only moved by ShortUrlReshardingJob.
+ */
+@Component
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "sharded")
+@Slf4j
+public class ShortUrlShardRouterImpl implements ShortUrlShardRouter {
+
+    /**
+     * Spring Data Repository for the SHARD_BUCKET table.
+     */
+    private final ShardBucketRepository shardBucketRepository;
+
+    /**
+     * Runs the creation of the buckets and each change of their shards in its own transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The characters of the tokens : the index of a character in this string is its value in the number of a bucket.
+     */
+    private final String characters;
+
+    /**
+     * Number of leading characters of a token which choose its bucket.
+     */
+    private final int prefixLength;
+
+    /**
+     * Number of buckets : characters.length ^ prefixLength.
+     */
+    private final int bucketCount;
+
+    /**
+     * Number of shards.
+     */
+    private final int shardCount;
+
+    /**
+     * The shards of each bucket, replaced by each refresh.
+     */
+    private volatile ShardRoute[] routes;
+
+    /**
+     * Default constructor for ShortUrlShardRouterImpl. Creates the missing buckets, then reads the shards of the buckets.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param shardBucketRepository instance of ShardBucketRepository.
+     * @param transactionTemplate instance of TransactionTemplate.
+     */
+    public ShortUrlShardRouterImpl(final UrlShortenerProperties urlShortenerProperties, final ShardBucketRepository shardBucketRepository,
+                                   final TransactionTemplate transactionTemplate) {
+        this.shardBucketRepository = shardBucketRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.characters = urlShortenerProperties.token().characters();
+        this.prefixLength = urlShortenerProperties.sharding().prefixLength();
+        this.bucketCount = Math.toIntExact((long) Math.pow(characters.length(), prefixLength));
+        this.shardCount = urlShortenerProperties.sharding().datasources().size();
+        if (shardCount == 0) {
+            throw new IllegalArgumentException("url-shortener.sharding.datasources must contain at least one shard");
+        }
+        createMissingBuckets();
+        refresh();
+    }
+
+    @Override
+    public int bucketOfToken(final String token) {
+        requireNonBlank(token, "token");
+
+        int bucket = 0;
+        for (int i = 0; i < prefixLength; i++) {
+            int value = i < token.length() ? characters.indexOf(token.charAt(i)) : 0;
+            bucket = bucket * characters.length() + Math.max(value, 0);
+        }
+        return bucket;
+    }
+
+    @Override
+    public int bucketOfOriginalUrl(final String originalUrl) {
+        requireNonBlank(originalUrl, "originalUrl");
+
+        return (int) Long.remainderUnsigned(HashUtils.hash64(originalUrl), bucketCount);
+    }
+
+    @Override
+    public int bucketOfPrefix(final String prefix) {
+        requireNonNull(prefix, "prefix");
+        if (prefix.length() != prefixLength || prefix.chars().anyMatch(c -> characters.indexOf(c) < 0)) {
+            throw new IllegalArgumentException("The prefix [" + prefix + "] must have " + prefixLength + " characters among the token characters");
+        }
+
+        return bucketOfToken(prefix);
+    }
+
+    @Override
+    public String toBucketToken(final int bucket, final String token) {
+        requireNonNull(token, "token");
+
+        return prefixOf(bucket) + token.substring(Math.min(prefixLength, token.length()));
+    }
+
+    @Override
+    public ShardRoute route(final int bucket) {
+        return routes[bucket];
+    }
+
+    @Override
+    public List<ShardRoute> routes() {
+        return List.of(routes);
+    }
+
+    @Override
+    public boolean compareAndSetRoute(final ShardRoute expectedRoute, final int newShard, final int newSecondaryShard) {
+        requireNonNull(expectedRoute, "expectedRoute");
+        requireShard(newShard);
+        if (newSecondaryShard != ShardRoute.NO_SHARD) {
+            requireShard(newSecondaryShard);
+        }
+
+        Integer updated = transactionTemplate.execute(status -> shardBucketRepository.compareAndSetShards(expectedRoute.bucket(),
+                expectedRoute.shard(), expectedRoute.secondaryShard(), newShard, newSecondaryShard));
+        refresh();
+        return updated != null && updated == 1;
+    }
+
+    /**
+     * Reads the shards of all the buckets again, so that the buckets moved by another instance are found in their new shard.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${url-shortener.sharding.routing-refresh-millis}", initialDelayString = "${url-shortener.sharding.routing-refresh-millis}")
+    public void refresh() {
+        ShardRoute[] newRoutes = new ShardRoute[bucketCount];
+        for (ShardBucketEntity shardBucketEntity : shardBucketRepository.findAll()) {
+            int bucket = shardBucketEntity.getBucket();
+            if (bucket >= 0 && bucket < bucketCount) {
+                newRoutes[bucket] = new ShardRoute(bucket, prefixOf(bucket), shardBucketEntity.getShard(), shardBucketEntity.getSecondaryShard());
+            }
+        }
+        if (Arrays.stream(newRoutes).anyMatch(route -> route == null || route.shard() >= shardCount || route.secondaryShard() >= shardCount)) {
+            if (log.isErrorEnabled()) {
+                log.error("refresh : the SHARD_BUCKET table does not match the {} buckets and the {} shards of the configuration, the shards of the buckets are not changed", bucketCount, shardCount);
+            }
+            if (routes == null) {
+                throw new IllegalStateException("The SHARD_BUCKET table does not match the buckets and the shards of the configuration");
+            }
+            return;
+        }
+        routes = newRoutes;
+    }
+
+    /**
+     * Creates the buckets missing from the SHARD_BUCKET table, spread over the shards in turn. A bucket created by another instance at the same time is kept.
+     */
+    private void createMissingBuckets() {
+        Set<Integer> existingBuckets = new HashSet<>();
+        shardBucketRepository.findAll().forEach(shardBucketEntity -> existingBuckets.add(shardBucketEntity.getBucket()));
+        if (existingBuckets.size() >= bucketCount) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int bucket = 0; bucket < bucketCount; bucket++) {
+                    if (!existingBuckets.contains(bucket)) {
+                        shardBucketRepository.insert(bucket, bucket % shardCount);
+                    }
+                }
+            });
+            if (log.isInfoEnabled()) {
+                log.info("createMissingBuckets : {} buckets created over {} shards", bucketCount - existingBuckets.size(), shardCount);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // the buckets were created by another instance at the same time
+            if (log.isDebugEnabled()) {
+                log.debug("createMissingBuckets : the buckets were created by another instance", e);
+            }
+        }
+    }
+
+    /**
+     * Gives the leading characters of the tokens of a bucket.
+     *
+     * @param bucket the number of the bucket.
+     * @return the prefix of the bucket.
+     */
+    private String prefixOf(final int bucket) {
+        char[] prefix = new char[prefixLength];
+        int value = bucket;
+        for (int i = prefixLength - 1; i >= 0; i--) {
+            prefix[i] = characters.charAt(value % characters.length());
+            value /= characters.length();
+        }
+        return new String(prefix);
+    }
+
+    private void requireShard(final int shard) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("The shard [" + shard + "] must be between 0 and " + (shardCount - 1));
+        }
+    }
+
+}
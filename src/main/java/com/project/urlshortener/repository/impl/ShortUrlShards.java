@@ -0,0 +1,70 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The shards of the short urls (url-shortener.sharding.datasources), each with its own connection pool.
+ */
+@Component
+@ConditionalOnProperty(prefix = "url-shortener.storage", name = "engine", havingValue = "sharded")
+public class ShortUrlShards {
+
+    /**
+     * The shards, in the order of the configuration.
+     */
+    private final List<ShortUrlShard> shards;
+
+    /**
+     * Default constructor for ShortUrlShards. Creates the connection pools of the shards : they connect on their first use.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public ShortUrlShards(final UrlShortenerProperties urlShortenerProperties) {
+        UrlShortenerProperties.Sharding sharding = urlShortenerProperties.sharding();
+        List<ShortUrlShard> newShards = new ArrayList<>();
+        for (UrlShortenerProperties.Sharding.Shard shard : sharding.datasources()) {
+            HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(shard.url()).username(shard.username()).password(shard.password()).build();
+            dataSource.setPoolName("shard-" + newShards.size());
+            dataSource.setMaximumPoolSize(sharding.maximumPoolSize());
+            newShards.add(new ShortUrlShard(newShards.size(), dataSource));
+        }
+        this.shards = List.copyOf(newShards);
+    }
+
+    /**
+     * Gives a shard.
+     *
+     * @param index the index of the shard in url-shortener.sharding.datasources.
+     * @return the shard.
+     */
+    public ShortUrlShard get(final int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * Gives all the shards.
+     *
+     * @return the shards, in the order of the configuration.
+     */
+    public List<ShortUrlShard> getAll() {
+        return shards;
+    }
+
+    /**
+     * Closes the connection pools of the shards when the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        shards.forEach(ShortUrlShard::close);
+    }
+
+}
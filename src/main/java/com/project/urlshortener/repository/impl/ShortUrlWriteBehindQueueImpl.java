@@ -0,0 +1,351 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.repository.ShortUrlWriteBehindQueue;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * The new short urls returned before being inserted in the database (see UrlShortenerProperties.WriteBehind).<br/>
+ * Implements ShortUrlWriteBehindQueue : each new short url is appended to a local journal (ShortUrlJournal), then kept in memory until it is inserted,
+ * so that it can already be decoded, and so that its token and its original url are not used again.
+ * The waiting short urls are inserted every flushIntervalMillis, or as soon as flushBatchSize short urls are waiting,
+ * with one JDBC batch per flushBatchSize rows (sent as multi-row insertions by the MySQL driver with rewriteBatchedStatements).<br/>
+ * The journal segments are deleted once their rows are inserted. The segments left by a crash are replayed when the application starts.
+ */
+@Component
+@Slf4j
+public class ShortUrlWriteBehindQueueImpl implements ShortUrlWriteBehindQueue {
+
+    /**
+     * Parameters of the write-behind.
+     */
+    private final UrlShortenerProperties.WriteBehind writeBehindProperties;
+
+    /**
+     * Spring Data Repository for the SHORT_URL table, to check the rows which cannot be inserted.
+     */
+    private final ShortUrlRepository shortUrlRepository;
+
+    /**
+     * JDBC access to the database, for the batch insertions.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs each batch in a transaction, so that a failed batch inserts nothing.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Runs the insertions started by a full batch, in the background.
+     */
+    private final Executor executor;
+
+    /**
+     * Timer of the insertions.
+     */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /**
+     * The journal of the waiting short urls. Null if the write-behind is disabled.
+     */
+    private final ShortUrlJournal journal;
+
+    /**
+     * The waiting short urls, by token. A short url is removed once it is inserted.
+     */
+    private final Map<String, ShortUrlEntity> pendingByToken = new ConcurrentHashMap<>();
+
+    /**
+     * The waiting short urls, by original url.
+     */
+    private final Map<String, ShortUrlEntity> pendingByOriginalUrl = new ConcurrentHashMap<>();
+
+    /**
+     * Held while a short url is appended to the journal and to queuedRows, or while the journal is rolled.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    /**
+     * The short urls appended to the journal since the last flush. Guarded by appendLock.
+     */
+    private List<ShortUrlEntity> queuedRows = new ArrayList<>();
+
+    /**
+     * Held by the flush : only one flush inserts rows at a time.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * The short urls taken by a flush, but not inserted yet because the database was not available. Guarded by flushLock.
+     */
+    private final List<ShortUrlEntity> unflushedRows = new ArrayList<>();
+
+    /**
+     * The journal segments to delete once unflushedRows are inserted. Guarded by flushLock.
+     */
+    private final List<Path> unflushedSegments = new ArrayList<>();
+
+    /**
+     * Whether a flush started by a full batch is waiting for the executor.
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /**
+     * Default constructor for ShortUrlWriteBehindQueueImpl. If the write-behind is enabled, the short urls of the journal left by the previous run are waiting to be inserted.
+     *
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @param shortUrlRepository instance of ShortUrlRepository.
+     * @param jdbcTemplate instance of JdbcTemplate.
+     * @param transactionTemplate instance of TransactionTemplate.
+     * @param executor the executor of the insertions started by a full batch (spring-boot applicationTaskExecutor).
+     * @param urlShortenerMetrics instance of UrlShortenerMetrics.
+     */
+    public ShortUrlWriteBehindQueueImpl(final UrlShortenerProperties urlShortenerProperties, final ShortUrlRepository shortUrlRepository, final JdbcTemplate jdbcTemplate,
+                                        final TransactionTemplate transactionTemplate, @Qualifier("applicationTaskExecutor") final Executor executor,
+                                        final UrlShortenerMetrics urlShortenerMetrics) {
+        this.writeBehindProperties = urlShortenerProperties.writeBehind();
+        this.shortUrlRepository = shortUrlRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.urlShortenerMetrics = urlShortenerMetrics;
+        this.journal = writeBehindProperties.enabled() ? new ShortUrlJournal(Path.of(writeBehindProperties.journalDirectory()), writeBehindProperties.journalSync()) : null;
+        if (journal != null) {
+            replayJournal();
+        }
+    }
+
+    /**
+     * Adds a new short url to the journal and to the waiting short urls.<br/>
+     * If flushBatchSize short urls are waiting, their insertion is started in the background.
+     *
+     * @param shortUrlEntity the new short url, with its token, its original url and the hash of its original url.
+     * @return shortUrlEntity, or the short url waiting for the same original url.
+     *         Null if the write-behind is disabled, if maxPendingRows short urls are already waiting, or if the journal cannot be written.
+     * @throws ShortUrlTokenAlreadyUsedException if the token is already used by a waiting short url.
+     */
+    @Override
+    public ShortUrlEntity enqueue(final ShortUrlEntity shortUrlEntity) {
+        requireNonNull(shortUrlEntity, "shortUrlEntity");
+        requireNonBlank(shortUrlEntity.getToken(), "shortUrlEntity.token");
+        requireNonBlank(shortUrlEntity.getOriginalUrl(), "shortUrlEntity.originalUrl");
+        if (journal == null || pendingByToken.size() >= writeBehindProperties.maxPendingRows()) {
+            return null;
+        }
+
+        String token = shortUrlEntity.getToken();
+        String originalUrl = shortUrlEntity.getOriginalUrl();
+        ShortUrlEntity pendingShortUrlEntity = pendingByOriginalUrl.putIfAbsent(originalUrl, shortUrlEntity);
+        if (pendingShortUrlEntity != null) {
+            return pendingShortUrlEntity;
+        }
+        if (pendingByToken.putIfAbsent(token, shortUrlEntity) != null) {
+            pendingByOriginalUrl.remove(originalUrl, shortUrlEntity);
+            throw new ShortUrlTokenAlreadyUsedException(token, originalUrl);
+        }
+
+        int queuedRowCount;
+        appendLock.lock();
+        try {
+            journal.append(shortUrlEntity);
+            queuedRows.add(shortUrlEntity);
+            queuedRowCount = queuedRows.size();
+        } catch (UncheckedIOException e) {
+            removePending(shortUrlEntity);
+            if (log.isWarnEnabled()) {
+                log.warn("enqueue : for originalUrl[{}] the journal could not be written, the short url is inserted right away", originalUrl, e);
+            }
+            return null;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (queuedRowCount >= writeBehindProperties.flushBatchSize()) {
+            requestFlush();
+        }
+        return shortUrlEntity;
+    }
+
+    @Override
+    public ShortUrlEntity findPendingByToken(final String token) {
+        return token != null ? pendingByToken.get(token) : null;
+    }
+
+    @Override
+    public ShortUrlEntity findPendingByOriginalUrl(final String originalUrl) {
+        return originalUrl != null ? pendingByOriginalUrl.get(originalUrl) : null;
+    }
+
+    /**
+     * Inserts the waiting short urls, every url-shortener.write-behind.flush-interval-millis.<br/>
+     * The journal is rolled, so that the short urls added during the insertion go to a new segment.
+     * The rows are inserted in batches of flushBatchSize rows, each batch in a transaction. If a batch fails because a token or an original url
+     * is already used by a row of the database, its rows are inserted one by one. If the database is not available, the rows left are kept for the next flush.
+     * Once every row is inserted, the rolled segments are deleted.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${url-shortener.write-behind.flush-interval-millis}")
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            appendLock.lock();
+            try {
+                unflushedSegments.addAll(journal.roll());
+                unflushedRows.addAll(queuedRows);
+                queuedRows = new ArrayList<>();
+            } finally {
+                appendLock.unlock();
+            }
+
+            while (!unflushedRows.isEmpty()) {
+                List<ShortUrlEntity> batch = unflushedRows.subList(0, Math.min(unflushedRows.size(), writeBehindProperties.flushBatchSize()));
+                try {
+                    insertBatch(batch);
+                } catch (DataAccessException e) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("flush : {} short urls could not be inserted, they are kept for the next flush", unflushedRows.size(), e);
+                    }
+                    return;
+                }
+                batch.forEach(this::removePending);
+                batch.clear();
+            }
+            journal.delete(unflushedSegments);
+            unflushedSegments.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the waiting short urls before the application stops, then closes the journal.
+     * The short urls which could not be inserted stay in the journal, and are inserted at the next start.
+     */
+    @PreDestroy
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        flush();
+        appendLock.lock();
+        try {
+            journal.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Makes the short urls of the journal left by the previous run wait to be inserted again.
+     * Their rows may already be inserted, if the application stopped before deleting the segments : they are then skipped by insertRow.
+     */
+    private void replayJournal() {
+        List<ShortUrlEntity> replayedShortUrlEntities = journal.replay();
+        for (ShortUrlEntity shortUrlEntity : replayedShortUrlEntities) {
+            shortUrlEntity.computeOriginalUrlHash();
+            if (pendingByOriginalUrl.putIfAbsent(shortUrlEntity.getOriginalUrl(), shortUrlEntity) == null) {
+                pendingByToken.putIfAbsent(shortUrlEntity.getToken(), shortUrlEntity);
+                unflushedRows.add(shortUrlEntity);
+            }
+        }
+        if (!replayedShortUrlEntities.isEmpty() && log.isInfoEnabled()) {
+            log.info("replayJournal : {} short urls of the journal are waiting to be inserted", unflushedRows.size());
+        }
+    }
+
+    /**
+     * Starts a flush in the background, unless a flush is already waiting for the executor.
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RuntimeException e) {
+                // the executor refused the task : the rows are inserted by the next scheduled flush
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch of rows with one JDBC batch, in a transaction. If a token or an original url is already used, the rows are inserted one by one.
+     *
+     * @param batch the rows to insert.
+     */
+    private void insertBatch(final List<ShortUrlEntity> batch) {
+        try {
+            urlShortenerMetrics.getInsertTimer().record(() -> transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(ShortUrlDaoImpl.INSERT_SHORT_URL_SQL, batch, batch.size(), (ps, shortUrlEntity) -> {
+                        ps.setString(1, shortUrlEntity.getToken());
+                        ps.setString(2, shortUrlEntity.getOriginalUrl());
+                        ps.setBytes(3, shortUrlEntity.getOriginalUrlHash());
+                    })));
+        } catch (DataIntegrityViolationException e) {
+            batch.forEach(this::insertRow);
+        }
+    }
+
+    /**
+     * Inserts one row. If its token or its original url is already used, the row is skipped :
+     * either it was already inserted before a crash (same token and original url), or the short url returned for it is lost.
+     * If its original url is used by an expired short url, not deleted yet by ShortUrlExpirationJob, the expired row is deleted and the row is inserted again.
+     *
+     * @param shortUrlEntity the row to insert.
+     */
+    private void insertRow(final ShortUrlEntity shortUrlEntity) {
+        try {
+            urlShortenerMetrics.getInsertTimer().record(() -> jdbcTemplate.update(ShortUrlDaoImpl.INSERT_SHORT_URL_SQL,
+                    shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl(), shortUrlEntity.getOriginalUrlHash()));
+        } catch (DataIntegrityViolationException e) {
+            ShortUrlEntity existingShortUrlEntity = shortUrlRepository.findByToken(shortUrlEntity.getToken());
+            if (existingShortUrlEntity != null && shortUrlEntity.getOriginalUrl().equals(existingShortUrlEntity.getOriginalUrl())) {
+                return;
+            }
+            if (existingShortUrlEntity == null && shortUrlRepository.deleteExpiredByOriginalUrlHash(shortUrlEntity.getOriginalUrlHash(), Instant.now()) > 0) {
+                insertRow(shortUrlEntity);
+                return;
+            }
+            if (log.isErrorEnabled()) {
+                log.error("insertRow : the short url [{}] of originalUrl[{}] is lost, its token or its original url is already used", shortUrlEntity.getToken(), shortUrlEntity.getOriginalUrl(), e);
+            }
+        }
+    }
+
+    private void removePending(final ShortUrlEntity shortUrlEntity) {
+        pendingByToken.remove(shortUrlEntity.getToken(), shortUrlEntity);
+        pendingByOriginalUrl.remove(shortUrlEntity.getOriginalUrl(), shortUrlEntity);
+    }
+
+}
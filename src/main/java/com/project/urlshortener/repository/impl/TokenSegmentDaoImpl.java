@@ -0,0 +1,91 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.exception.TokenSegmentAllocationException;
+import com.project.urlshortener.model.entities.TokenSegmentEntity;
+import com.project.urlshortener.repository.TokenSegmentDao;
+import com.project.urlshortener.repository.TokenSegmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireStrictlyPositiveValue;
+
+/**
+ * Manipulates TokenSegmentRepository to access the database.<br/>
+ * Implementation of TokenSegmentDao.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenSegmentDaoImpl implements TokenSegmentDao {
+
+    /**
+     * Maximum number of attempts to allocate a range, when other instances allocate ranges of the same sequence at the same time.
+     */
+    static final int MAX_ALLOCATION_ATTEMPTS = 20;
+
+    /**
+     * Spring Data Repository for the TOKEN_SEGMENT table.
+     */
+    private final TokenSegmentRepository tokenSegmentRepository;
+
+    /**
+     * Runs each attempt in its own transaction, so that each attempt reads the latest next value.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Allocates a range of consecutive numbers of a sequence.<br/>
+     * The next value of the sequence is read, then replaced by next value + count only if no other instance has changed it in the meantime (compare-and-set).
+     * If another instance has changed it, or has created the sequence at the same time, the allocation is attempted again (see MAX_ALLOCATION_ATTEMPTS).<br/>
+     * If the sequence does not exist yet, it is created.
+     *
+     * @param segmentName the name of the sequence.
+     * @param count the amount of numbers to allocate.
+     * @return the first number of the range.
+     */
+    @Override
+    public long allocate(final String segmentName, final long count) {
+        requireNonBlank(segmentName, "segmentName");
+        requireStrictlyPositiveValue(count, "count");
+
+        for (int attempt = 1; attempt <= MAX_ALLOCATION_ATTEMPTS; attempt++) {
+            try {
+                Long first = transactionTemplate.execute(status -> tryAllocate(segmentName, count));
+                if (first != null) {
+                    return first;
+                }
+            } catch (DataIntegrityViolationException e) {
+                // the sequence was created by another instance at the same time
+                if (log.isDebugEnabled()) {
+                    log.debug("allocate : segmentName[{}] was created by another instance", segmentName);
+                }
+            }
+        }
+        if (log.isErrorEnabled()) {
+            log.error("allocate : segmentName[{}] could not be allocated after {} attempts", segmentName, MAX_ALLOCATION_ATTEMPTS);
+        }
+        throw new TokenSegmentAllocationException(segmentName);
+    }
+
+    /**
+     * One attempt to allocate a range of numbers, inside a transaction.
+     *
+     * @param segmentName the name of the sequence.
+     * @param count the amount of numbers to allocate.
+     * @return the first number of the range, or null if another instance has changed the sequence since it was read.
+     */
+    private Long tryAllocate(final String segmentName, final long count) {
+        TokenSegmentEntity tokenSegmentEntity = tokenSegmentRepository.findById(segmentName).orElse(null);
+        if (tokenSegmentEntity == null) {
+            tokenSegmentRepository.insert(segmentName, count);
+            return 0L;
+        }
+        long first = tokenSegmentEntity.getNextValue();
+        return tokenSegmentRepository.compareAndSetNextValue(segmentName, first, Math.addExact(first, count)) == 1 ? first : null;
+    }
+
+}
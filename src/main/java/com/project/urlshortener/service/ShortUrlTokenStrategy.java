@@ -0,0 +1,22 @@
+package com.project.urlshortener.service;
+
+/**
+ * Strategy used to create the short url tokens (see UrlShortenerProperties.Token.strategy).
+ */
+public interface ShortUrlTokenStrategy {
+
+    /**
+     * Creates a new short url token.
+     *
+     * @return a new token, of the configured length and characters. Can return null if no token can be created anymore.
+     */
+    String createToken();
+
+    /**
+     * Indicates whether the tokens created by this strategy are unique by construction.<br/>
+     * The tokens of a strategy that is not collision-free must be checked against the existing tokens.
+     *
+     * @return true if a new token can never be an existing token.
+     */
+    boolean isCollisionFree();
+}
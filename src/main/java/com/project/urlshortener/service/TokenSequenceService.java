@@ -0,0 +1,15 @@
+package com.project.urlshortener.service;
+
+/**
+ * Service to hand out the numbers of the sequence of the short url tokens.
+ */
+public interface TokenSequenceService {
+
+    /**
+     * Gives a number of the sequence. A number is never given twice, by any instance of the application.<br/>
+     * The numbers given by an instance increase, but the numbers given by several instances are interleaved, and some numbers are never given.
+     *
+     * @return a number of the sequence.
+     */
+    long nextNumber();
+}
@@ -1,6 +1,11 @@
 package com.project.urlshortener.service;
 
 import com.project.urlshortener.exception.*;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
+import com.project.urlshortener.model.shorturl.DecodeShortUrlsResult;
+
+import java.time.Instant;
+import java.util.List;
 
 /**
  * Service to control the creation of short urls and the retrieval of complete urls.
@@ -17,12 +22,43 @@ public interface UrlShortenerService {
     String obtainShortUrlForOriginalCompleteUrl(final String originalUrl) throws ShortUrlInvalidUrlException;
 
     /**
-     * Get the original complete url for a short url token.
+     * Obtain a short url for a complete url, which expires.<br/>
+     * If the url already has a short url which expires earlier, its expiration is pushed back to expiresAt. Without expiresAt, the short url never expires.
+     *
+     * @param originalUrl the complete url for which we want a short url.
+     * @param expiresAt the time after which the short url does not exist anymore. Null if it never expires.
+     * @return the short url which is immediately usable.
+     * @throws ShortUrlInvalidUrlException if the submitted url is not a valid url.
+     * @throws ShortUrlInvalidExpirationException if expiresAt is not in the future, or the expiration is not enabled.
+     */
+    String obtainShortUrlForOriginalCompleteUrl(final String originalUrl, final Instant expiresAt) throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException;
+
+    /**
+     * Obtain short urls for several complete urls at once.<br/>
+     * Each url has its own result : an invalid url, or a url for which no token could be created, does not prevent the other urls from getting their short url.
+     *
+     * @param originalUrls the complete urls for which we want short urls.
+     * @return the result of each url, in the order of originalUrls.
+     * @throws ShortUrlBatchTooLargeException if there are more urls than UrlShortenerProperties.Batch.maxSize.
+     */
+    List<CreateShortUrlResult> obtainShortUrlsForOriginalCompleteUrls(final List<String> originalUrls) throws ShortUrlBatchTooLargeException;
+
+    /**
+     * Get the original complete url for a short url token. The click on the short url is counted (see ClickRecorder).
      *
      * @param shortUrlToken the short url token.
      * @return the original complete url.
-     * @throws ShortUrlTokenNotFoundException the token does not exist and no complete url could be found.
+     * @throws ShortUrlTokenNotFoundException the token does not exist, or has expired, and no complete url could be found.
      * @throws ShortUrlInvalidTokenException the token is empty or null.
      */
     String getOriginalUrlForShortUrlToken(final String shortUrlToken) throws ShortUrlTokenNotFoundException, ShortUrlInvalidTokenException;
+
+    /**
+     * Get the original complete urls of several short url tokens at once.
+     *
+     * @param shortUrlTokens the short url tokens.
+     * @return the original complete url of each known token, and the unknown tokens.
+     * @throws ShortUrlBatchTooLargeException if there are more tokens than UrlShortenerProperties.Batch.maxSize.
+     */
+    DecodeShortUrlsResult getOriginalUrlsForShortUrlTokens(final List<String> shortUrlTokens) throws ShortUrlBatchTooLargeException;
 }
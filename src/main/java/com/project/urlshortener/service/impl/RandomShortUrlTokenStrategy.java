@@ -0,0 +1,40 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import com.project.urlshortener.service.StringTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates short url tokens of random characters.<br/>
+ * Implements ShortUrlTokenStrategy. This is the default strategy (url-shortener.token.strategy=random).
+ */
+@Service
+@ConditionalOnProperty(prefix = "url-shortener.token", name = "strategy", havingValue = "random", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RandomShortUrlTokenStrategy implements ShortUrlTokenStrategy {
+
+    /** Service to create tokens of random characters. */
+    private final StringTokenService stringTokenService;
+
+    /** Access to some of the application parameters. */
+    private final UrlShortenerProperties urlShortenerProperties;
+
+    @Override
+    public String createToken() {
+        return stringTokenService.createStringToken(urlShortenerProperties.token().characters(), urlShortenerProperties.token().length());
+    }
+
+    /**
+     * A random token can be an existing token.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean isCollisionFree() {
+        return false;
+    }
+
+}
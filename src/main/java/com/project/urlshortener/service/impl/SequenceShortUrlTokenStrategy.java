@@ -0,0 +1,124 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.common.utils.FeistelPermutation;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import com.project.urlshortener.service.TokenSequenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
+
+/**
+ * Creates short url tokens from a sequence of numbers (url-shortener.token.strategy=sequence).<br/>
+ * Implements ShortUrlTokenStrategy.<br/>
+ * Each token is a number of a sequence leased from the TOKEN_SEGMENT table (see TokenSequenceService), written in base N with the N configured characters,
+ * left-padded with the first character to the configured length. Two numbers are never written the same way, so a new token is never an existing token.<br/>
+ * If the sequence is scrambled, each number is first permuted with a keyed FeistelPermutation, so that the next tokens cannot be guessed from the previous ones.
+ */
+@Service
+@ConditionalOnProperty(prefix = "url-shortener.token", name = "strategy", havingValue = "sequence")
+@Slf4j
+public class SequenceShortUrlTokenStrategy implements ShortUrlTokenStrategy {
+
+    /** Service handing out the numbers of the sequence. */
+    private final TokenSequenceService tokenSequenceService;
+
+    /** The characters of the tokens : the digits of the base. */
+    private final char[] characters;
+
+    /** Length of a token. */
+    private final int length;
+
+    /** Number of tokens which can be written with the length and the characters (Long.MAX_VALUE if there are more). */
+    private final long capacity;
+
+    /** Permutation of the numbers, null if the sequence is not scrambled. */
+    private final FeistelPermutation permutation;
+
+    /**
+     * Default constructor for SequenceShortUrlTokenStrategy.
+     *
+     * @param tokenSequenceService instance of TokenSequenceService.
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     * @throws RequiredValueException if the sequence is scrambled without url-shortener.sequence.scramble-key.
+     */
+    public SequenceShortUrlTokenStrategy(final TokenSequenceService tokenSequenceService, final UrlShortenerProperties urlShortenerProperties) {
+        this.tokenSequenceService = tokenSequenceService;
+        this.characters = urlShortenerProperties.token().characters().toCharArray();
+        this.length = urlShortenerProperties.token().length();
+        if (urlShortenerProperties.token().characters().chars().distinct().count() != characters.length) {
+            throw new IllegalArgumentException("url-shortener.token.characters must not contain the same character twice");
+        }
+        this.capacity = capacity(characters.length, length);
+        UrlShortenerProperties.Sequence sequenceProperties = urlShortenerProperties.sequence();
+        if (sequenceProperties.scrambled()) {
+            requireNonNull(sequenceProperties.scrambleKey(), "sequence.scrambleKey");
+        }
+        this.permutation = sequenceProperties.scrambled() ? new FeistelPermutation(capacity, sequenceProperties.scrambleKey()) : null;
+    }
+
+    /**
+     * Takes the next number of the sequence and writes it as a token.
+     *
+     * @return the new token, or null if all the tokens of the configured length have been created.
+     */
+    @Override
+    public String createToken() {
+        long number = tokenSequenceService.nextNumber();
+        if (number >= capacity) {
+            if (log.isErrorEnabled()) {
+                log.error("createToken : the number [{}] is greater than the {} tokens of {} characters", number, capacity, length);
+            }
+            return null;
+        }
+        return encode(permutation != null ? permutation.permute(number) : number);
+    }
+
+    /**
+     * Two different numbers of the sequence are always two different tokens.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean isCollisionFree() {
+        return true;
+    }
+
+    /**
+     * Writes a number in base N with the N characters, left-padded with the first character.
+     *
+     * @param number a number lower than capacity.
+     * @return the token of the number.
+     */
+    String encode(final long number) {
+        char[] token = new char[length];
+        long remaining = number;
+        for (int i = length - 1; i >= 0; i--) {
+            token[i] = characters[(int) (remaining % characters.length)];
+            remaining /= characters.length;
+        }
+        return new String(token);
+    }
+
+    /**
+     * Number of tokens of a length written with a number of characters : base^length, or Long.MAX_VALUE if it is greater.
+     *
+     * @param base the number of characters.
+     * @param length the length of a token.
+     * @return the number of tokens.
+     */
+    static long capacity(final int base, final int length) {
+        long capacity = 1;
+        for (int i = 0; i < length; i++) {
+            if (capacity > Long.MAX_VALUE / base) {
+                return Long.MAX_VALUE;
+            }
+            capacity *= base;
+        }
+        return capacity;
+    }
+
+}
@@ -3,33 +3,78 @@ package com.project.urlshortener.service.impl;
 import com.project.urlshortener.service.StringTokenService;
 import org.springframework.stereotype.Service;
 
+import java.security.DrbgParameters;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.util.Random;
-import java.util.stream.Collector;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
 import static com.project.urlshortener.common.utils.ArgumentUtils.requireStrictlyPositiveValue;
 
 /**
  * Service to create tokens of random characters.<br/>
- * Implements StringTokenService.
+ * Implements StringTokenService.<br/>
+ * The random bytes come from several non-blocking DRBG SecureRandom instances (one slot per stripe), so that concurrent threads
+ * do not wait for each other : a thread borrows a free slot without any lock, uses it, then gives it back.<br/>
+ * Each character of a token is chosen with a random byte, masked to the smallest power of two containing the number of available characters.
+ * The masked values out of range are rejected, so that every character has the same probability (no modulo bias).
  */
 @Service
 public class StringTokenServiceImpl implements StringTokenService {
 
     /**
-     * Randomizer, used to create random sequence of characters.<br/>
-     * Uses the InstanceStrong implementation from SecureRandom.
+     * Name of the SecureRandom algorithm : a deterministic random bit generator (NIST SP 800-90Ar1) seeded once, which never blocks.
      */
-    private final Random random;
+    static final String DRBG_ALGORITHM = "DRBG";
 
     /**
-     * Default constructor for StringTokenServiceImpl.
-     * @throws NoSuchAlgorithmException if SecureRandom.getInstanceStrong() fails
+     * Number of random bytes read from the SecureRandom at once, then consumed one by one.
+     */
+    static final int RANDOM_BUFFER_BYTES = 256;
+
+    /**
+     * Maximum number of available characters chosen with a single random byte. Larger alphabets use SecureRandom.nextInt.
+     */
+    private static final int MAX_BYTE_ALPHABET_SIZE = 256;
+
+    /**
+     * Number of passes over the slots with a spin-wait hint, when every slot is used, before the thread yields between passes.
+     */
+    static final int SPIN_PASSES_BEFORE_YIELD = 16;
+
+    /**
+     * The slots of random generators. A slot is null while a thread is using it.
+     */
+    private final AtomicReferenceArray<RandomSlot> slots;
+
+    /**
+     * Lookup table of the last available characters used, so that it is not rebuilt for every token.
+     */
+    private volatile Alphabet lastAlphabet;
+
+    /**
+     * Default constructor for StringTokenServiceImpl.<br/>
+     * Creates at least 4 slots per available processor (rounded to a power of two).
+     * @throws NoSuchAlgorithmException if the DRBG SecureRandom is not available
      */
     public StringTokenServiceImpl() throws NoSuchAlgorithmException {
-        this.random = SecureRandom.getInstanceStrong();
+        this(Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 8 - 1));
+    }
+
+    /**
+     * Constructor for StringTokenServiceImpl with a specific number of slots.
+     * @param slotCount number of random generators, must be a power of two.
+     * @throws NoSuchAlgorithmException if the DRBG SecureRandom is not available
+     */
+    StringTokenServiceImpl(final int slotCount) throws NoSuchAlgorithmException {
+        requireStrictlyPositiveValue(slotCount, "slotCount");
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("slotCount must be a power of two : " + slotCount);
+        }
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.set(i, new RandomSlot(i, SecureRandom.getInstance(DRBG_ALGORITHM, DrbgParameters.instantiation(256, DrbgParameters.Capability.NONE, null))));
+        }
     }
 
     @Override
@@ -37,15 +82,122 @@ public class StringTokenServiceImpl implements StringTokenService {
         requireNonBlank(availableCharacters, "availableCharacters");
         requireStrictlyPositiveValue(nbCharacters, "nbCharacters");
 
-        return random.ints(nbCharacters, 0, availableCharacters.length())
-                    .mapToObj(availableCharacters::charAt)
-                    .collect(Collector.of(
-                        StringBuilder::new,
-                        StringBuilder::append,
-                        StringBuilder::append,
-                        StringBuilder::toString)
-                    );
+        Alphabet alphabet = alphabetOf(availableCharacters);
+        RandomSlot slot = borrowSlot();
+        try {
+            char[] token = slot.tokenBuffer(nbCharacters);
+            for (int i = 0; i < nbCharacters; i++) {
+                token[i] = alphabet.characters[slot.nextIndex(alphabet)];
+            }
+            return new String(token, 0, nbCharacters);
+        } finally {
+            slots.set(slot.index, slot);
+        }
+    }
+
+    /**
+     * Finds a free slot, starting from a slot chosen by the id of the current thread, and takes it.<br/>
+     * When every slot is used by another thread, the thread spins a few passes (a slot is held only while a token is created),
+     * then yields between passes, so that a virtual thread gives its carrier thread back instead of burning it.
+     *
+     * @return the slot taken. It must be given back in slots, at its index.
+     */
+    private RandomSlot borrowSlot() {
+        int mask = slots.length() - 1;
+        int index = (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32) & mask;
+        int passes = 0;
+        while (true) {
+            for (int attempt = 0; attempt <= mask; attempt++) {
+                RandomSlot slot = slots.getAndSet(index, null);
+                if (slot != null) {
+                    return slot;
+                }
+                Thread.onSpinWait();
+                index = (index + 1) & mask;
+            }
+            // every slot is used by another thread
+            if (++passes >= SPIN_PASSES_BEFORE_YIELD) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Lookup table of the available characters, reused while the same characters are requested.
+     *
+     * @param availableCharacters the available characters.
+     * @return the Alphabet of these characters.
+     */
+    private Alphabet alphabetOf(final String availableCharacters) {
+        Alphabet alphabet = lastAlphabet;
+        if (alphabet == null || !alphabet.source.equals(availableCharacters)) {
+            alphabet = new Alphabet(availableCharacters);
+            lastAlphabet = alphabet;
+        }
+        return alphabet;
+    }
+
+    /**
+     * Lookup table of the available characters, and the mask of the random values used to choose one of them.
+     */
+    private static final class Alphabet {
+
+        private final String source;
+        private final char[] characters;
+        private final int mask;
+
+        private Alphabet(final String source) {
+            this.source = source;
+            this.characters = source.toCharArray();
+            this.mask = characters.length == 1 ? 0 : -1 >>> Integer.numberOfLeadingZeros(characters.length - 1);
+        }
     }
 
+    /**
+     * A random generator, with its buffer of random bytes and the buffer of the token being created.<br/>
+     * Used by one thread at a time.
+     */
+    private static final class RandomSlot {
+
+        private final int index;
+        private final SecureRandom random;
+        private final byte[] randomBytes = new byte[RANDOM_BUFFER_BYTES];
+        private int randomBytesPosition = RANDOM_BUFFER_BYTES;
+        private char[] token = new char[16];
+
+        private RandomSlot(final int index, final SecureRandom random) {
+            this.index = index;
+            this.random = random;
+        }
+
+        private char[] tokenBuffer(final int nbCharacters) {
+            if (token.length < nbCharacters) {
+                token = new char[nbCharacters];
+            }
+            return token;
+        }
+
+        /**
+         * Chooses the index of a character with uniform probability : the masked random values not lower than the number of characters are rejected.
+         *
+         * @param alphabet the available characters.
+         * @return an index in alphabet.characters.
+         */
+        private int nextIndex(final Alphabet alphabet) {
+            int size = alphabet.characters.length;
+            if (size > MAX_BYTE_ALPHABET_SIZE) {
+                return random.nextInt(size);
+            }
+            int characterIndex;
+            do {
+                if (randomBytesPosition == RANDOM_BUFFER_BYTES) {
+                    random.nextBytes(randomBytes);
+                    randomBytesPosition = 0;
+                }
+                characterIndex = randomBytes[randomBytesPosition++] & alphabet.mask;
+            } while (characterIndex >= size);
+            return characterIndex;
+        }
+    }
 
 }
@@ -0,0 +1,162 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.repository.TokenSegmentDao;
+import com.project.urlshortener.service.TokenSequenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service to hand out the numbers of the sequence of the short url tokens.<br/>
+ * Implements TokenSequenceService.<br/>
+ * The numbers are leased from the TOKEN_SEGMENT table by segments of consecutive numbers (see UrlShortenerProperties.Sequence.segmentSize),
+ * then handed out from memory with an atomic counter : creating a token does not read the database.
+ * When only a few numbers are left in the current segment (see UrlShortenerProperties.Sequence.prefetchThreshold), the next segment is leased in the background,
+ * so that the threads do not wait for the database when the current segment is exhausted.<br/>
+ * The numbers left in the segments when the application stops are never used.
+ */
+@Service
+@ConditionalOnProperty(prefix = "url-shortener.token", name = "strategy", havingValue = "sequence")
+@Slf4j
+public class TokenSequenceServiceImpl implements TokenSequenceService {
+
+    /** Name of the sequence of the short url tokens in the TOKEN_SEGMENT table. */
+    static final String SEGMENT_NAME = "SHORT_URL_TOKEN";
+
+    /** Main functions to access the TOKEN_SEGMENT table. */
+    private final TokenSegmentDao tokenSegmentDao;
+
+    /** Runs the lease of the next segment in the background. */
+    private final Executor executor;
+
+    /** Number of numbers leased at once. */
+    private final int segmentSize;
+
+    /** Number of numbers left in the current segment when the next segment is leased. */
+    private final int prefetchThreshold;
+
+    /** The segment the numbers are handed out from. Empty until the first number is requested. */
+    private volatile Segment currentSegment = new Segment(0, 0);
+
+    /** The lease of the next segment, started in the background. Null if it was not started yet. */
+    private final AtomicReference<CompletableFuture<Segment>> nextSegment = new AtomicReference<>();
+
+    /** Held by the thread replacing an exhausted segment. */
+    private final ReentrantLock segmentSwitchLock = new ReentrantLock();
+
+    /**
+     * Default constructor for TokenSequenceServiceImpl.
+     *
+     * @param tokenSegmentDao instance of TokenSegmentDao.
+     * @param executor the executor of the background leases (spring-boot applicationTaskExecutor).
+     * @param urlShortenerProperties instance of UrlShortenerProperties.
+     */
+    public TokenSequenceServiceImpl(final TokenSegmentDao tokenSegmentDao, @Qualifier("applicationTaskExecutor") final Executor executor, final UrlShortenerProperties urlShortenerProperties) {
+        this.tokenSegmentDao = tokenSegmentDao;
+        this.executor = executor;
+        this.segmentSize = urlShortenerProperties.sequence().segmentSize();
+        this.prefetchThreshold = Math.min(urlShortenerProperties.sequence().prefetchThreshold(), segmentSize - 1);
+    }
+
+    @Override
+    public long nextNumber() {
+        while (true) {
+            Segment segment = currentSegment;
+            long number = segment.next.getAndIncrement();
+            if (number < segment.end) {
+                // exactly one thread gets the number at the threshold
+                if (segment.end - number == prefetchThreshold + 1) {
+                    prefetchNextSegment();
+                }
+                return number;
+            }
+            switchSegment(segment);
+        }
+    }
+
+    /**
+     * Starts the lease of the next segment in the background, unless it was already started.
+     */
+    private void prefetchNextSegment() {
+        CompletableFuture<Segment> lease = new CompletableFuture<>();
+        if (nextSegment.compareAndSet(null, lease)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        lease.complete(leaseSegment());
+                    } catch (RuntimeException e) {
+                        lease.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the executor refused the task : the next segment will be leased when the current segment is exhausted
+                lease.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the exhausted segment with the next segment : the segment leased in the background if there is one, otherwise a segment leased now.<br/>
+     * Only one thread replaces the segment, the other threads wait for it, then use the new segment.
+     *
+     * @param exhaustedSegment the segment which has no number left.
+     */
+    private void switchSegment(final Segment exhaustedSegment) {
+        segmentSwitchLock.lock();
+        try {
+            if (currentSegment != exhaustedSegment) {
+                // already replaced by another thread
+                return;
+            }
+            currentSegment = takeNextSegment();
+        } finally {
+            segmentSwitchLock.unlock();
+        }
+    }
+
+    private Segment takeNextSegment() {
+        CompletableFuture<Segment> lease = nextSegment.getAndSet(null);
+        if (lease != null) {
+            try {
+                return lease.join();
+            } catch (CompletionException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("takeNextSegment : the background lease of a segment has failed, leasing a segment now", e.getCause());
+                }
+            }
+        }
+        return leaseSegment();
+    }
+
+    private Segment leaseSegment() {
+        long start = tokenSegmentDao.allocate(SEGMENT_NAME, segmentSize);
+        if (log.isInfoEnabled()) {
+            log.info("leaseSegment : numbers [{}, {}[ leased", start, start + segmentSize);
+        }
+        return new Segment(start, start + segmentSize);
+    }
+
+    /**
+     * A range of consecutive numbers [start, end[ leased by this instance, and the next number to hand out.
+     */
+    private static final class Segment {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Segment(final long start, final long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+}
@@ -1,18 +1,28 @@
 package com.project.urlshortener.service.impl;
 
+import com.project.urlshortener.click.ClickRecorder;
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.common.exception.ExceptionWithMessageKey;
+import com.project.urlshortener.common.utils.SingleFlight;
 import com.project.urlshortener.exception.*;
+import com.project.urlshortener.job.ShortUrlExpirationJob;
 import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
+import com.project.urlshortener.model.shorturl.DecodeShortUrlsResult;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
 import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.repository.ShortUrlExpirationDao;
 import com.project.urlshortener.service.UrlShortenerService;
 import io.micrometer.common.util.StringUtils;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.time.Instant;
+import java.util.*;
 
 import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonBlank;
+import static com.project.urlshortener.common.utils.ArgumentUtils.requireNonNull;
 
 /**
  * Service to control the creation of short urls and the retrieval of complete urls.<br/>
@@ -27,26 +37,75 @@ public class UrlShortenerServiceImpl implements UrlShortenerService  {
     /** Main functions to access the database. */
     private final ShortUrlDao shortUrlDao;
 
+    /** Creates the short urls which expire, and changes their expiration. Null if the storage does not support the expiration. */
+    private final ShortUrlExpirationDao shortUrlExpirationDao;
+
     /** Apache commons validation routines for URLs. */
     private final UrlValidator urlValidator;
 
+    /** Timers and counters of the creation and the decode of the short urls. */
+    private final UrlShortenerMetrics urlShortenerMetrics;
+
+    /** Counts the clicks on the short urls in the background. */
+    private final ClickRecorder clickRecorder;
+
+    /** Coalesces the concurrent creations of a short url for the same original url. Null if the coalescing is disabled. */
+    private final SingleFlight<String, ShortUrlEntity> createSingleFlight;
+
+    /** Deletes the expired short urls. Null if the expiration is not enabled, or not supported by the storage. */
+    private final ShortUrlExpirationJob shortUrlExpirationJob;
+
     /**
      * Default constructor for UrlShortenerServiceImpl.
      *
      * @param urlShortenerProperties instance of UrlShortenerProperties.
      * @param shortUrlDao instance of ShortUrlDao.
+     * @param shortUrlExpirationDao instance of ShortUrlExpirationDao, if the storage supports the expiration (url-shortener.storage.engine is database).
      * @param urlValidator instance of UrlValidator.
+     * @param urlShortenerMetrics instance of UrlShortenerMetrics.
+     * @param clickRecorder instance of ClickRecorder.
+     * @param shortUrlExpirationJob instance of ShortUrlExpirationJob, if the expiration is enabled and supported by the storage.
      */
     @Autowired
-    public UrlShortenerServiceImpl(final UrlShortenerProperties urlShortenerProperties, final ShortUrlDao shortUrlDao, final UrlValidator urlValidator) {
+    public UrlShortenerServiceImpl(final UrlShortenerProperties urlShortenerProperties, final ShortUrlDao shortUrlDao, final Optional<ShortUrlExpirationDao> shortUrlExpirationDao,
+                                   final UrlValidator urlValidator, final UrlShortenerMetrics urlShortenerMetrics, final ClickRecorder clickRecorder,
+                                   final Optional<ShortUrlExpirationJob> shortUrlExpirationJob) {
         this.urlShortenerProperties = urlShortenerProperties;
         this.shortUrlDao = shortUrlDao;
+        this.shortUrlExpirationDao = shortUrlExpirationDao.orElse(null);
         this.urlValidator = urlValidator;
+        this.urlShortenerMetrics = urlShortenerMetrics;
+        this.clickRecorder = clickRecorder;
+        this.createSingleFlight = urlShortenerProperties.coalescing().enabled() ? new SingleFlight<>(urlShortenerProperties.coalescing().timeoutMillis(),
+                urlShortenerMetrics.getCreateCoalescedCounter()::increment, urlShortenerMetrics.getCoalescingTimeoutCounter()::increment) : null;
+        this.shortUrlExpirationJob = shortUrlExpirationJob.orElse(null);
     }
 
 
     @Override
     public String obtainShortUrlForOriginalCompleteUrl(final String originalUrl) throws ShortUrlInvalidUrlException {
+        return obtainShortUrl(originalUrl, null);
+    }
+
+    /**
+     * Obtains a short url for a complete url, which expires.<br/>
+     * The expiration time must be in the future, and the expiration must be enabled with a storage which supports it (see ShortUrlExpirationJob).
+     *
+     * @param originalUrl the complete url for which we want a short url.
+     * @param expiresAt the time after which the short url does not exist anymore. Null if it never expires.
+     * @return the short url which is immediately usable.
+     * @throws ShortUrlInvalidUrlException if the submitted url is not a valid url.
+     * @throws ShortUrlInvalidExpirationException if expiresAt is not in the future, or the expiration is not available.
+     */
+    @Override
+    public String obtainShortUrlForOriginalCompleteUrl(final String originalUrl, final Instant expiresAt) throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException {
+        if (expiresAt != null && (shortUrlExpirationDao == null || shortUrlExpirationJob == null || !expiresAt.isAfter(Instant.now()))) {
+            throw new ShortUrlInvalidExpirationException(expiresAt);
+        }
+        return obtainShortUrl(originalUrl, expiresAt);
+    }
+
+    private String obtainShortUrl(final String originalUrl, final Instant expiresAt) throws ShortUrlInvalidUrlException {
 
         // validate the url
         if (!isUrlValid(originalUrl)) {
@@ -55,7 +114,7 @@ public class UrlShortenerServiceImpl implements UrlShortenerService  {
 
         try {
             // obtain the token
-            String shortUrlToken = findOrCreateShortUrlToken(originalUrl);
+            String shortUrlToken = findOrCreateShortUrlToken(originalUrl, expiresAt);
             requireNonBlank(shortUrlToken, "shortUrlToken");
 
             // build the url
@@ -67,6 +126,77 @@ public class UrlShortenerServiceImpl implements UrlShortenerService  {
 
     }
 
+    /**
+     * Obtains short urls for several complete urls at once.<br/>
+     * The urls are validated first. Then the existing tokens of the valid urls are searched with one DAO call,
+     * and the tokens of the other urls are created and inserted with one DAO call.
+     * The urls left without token (for instance if the batch insertion has failed) are then processed one by one, like obtainShortUrlForOriginalCompleteUrl.
+     *
+     * @param originalUrls the complete urls for which we want short urls.
+     * @return the result of each url, in the order of originalUrls.
+     * @throws ShortUrlBatchTooLargeException if there are more urls than UrlShortenerProperties.Batch.maxSize.
+     */
+    @Override
+    public List<CreateShortUrlResult> obtainShortUrlsForOriginalCompleteUrls(final List<String> originalUrls) throws ShortUrlBatchTooLargeException {
+        requireNonNull(originalUrls, "originalUrls");
+        if (originalUrls.size() > urlShortenerProperties.batch().maxSize()) {
+            throw new ShortUrlBatchTooLargeException(originalUrls.size(), urlShortenerProperties.batch().maxSize());
+        }
+
+        // validate the urls
+        Set<String> validUrls = new LinkedHashSet<>();
+        originalUrls.stream().filter(this::isUrlValid).forEach(validUrls::add);
+
+        // obtain the tokens : existing tokens, then new tokens in a batch
+        Map<String, String> tokensByUrl = new HashMap<>();
+        shortUrlDao.findExistingShortUrlEntitiesByOriginalUrls(validUrls).forEach((url, shortUrlEntity) -> tokensByUrl.put(url, shortUrlEntity.getToken()));
+        List<String> missingUrls = validUrls.stream().filter(url -> !tokensByUrl.containsKey(url)).toList();
+        if (!missingUrls.isEmpty()) {
+            shortUrlDao.createNewShortUrlEntities(missingUrls).forEach(shortUrlEntity -> tokensByUrl.put(shortUrlEntity.getOriginalUrl(), shortUrlEntity.getToken()));
+        }
+
+        // build the results, in the order of the request
+        Map<String, CreateShortUrlResult> resultsByUrl = new HashMap<>();
+        List<CreateShortUrlResult> results = new ArrayList<>(originalUrls.size());
+        for (String originalUrl : originalUrls) {
+            results.add(resultsByUrl.computeIfAbsent(originalUrl, url -> buildCreateShortUrlResult(url, validUrls.contains(url), tokensByUrl.get(url))));
+        }
+        return results;
+    }
+
+    /**
+     * Builds the result of one url of a batch. A valid url without token is processed alone, so that its error does not concern the other urls.
+     *
+     * @param originalUrl the complete url.
+     * @param valid whether the url is valid.
+     * @param shortUrlToken the token found or created in batch for the url. Can be null.
+     * @return the result of the url.
+     */
+    private CreateShortUrlResult buildCreateShortUrlResult(final String originalUrl, final boolean valid, final String shortUrlToken) {
+        if (!valid) {
+            return new CreateShortUrlResult(originalUrl, null, new ShortUrlInvalidUrlException(originalUrl));
+        }
+        if (shortUrlToken != null) {
+            return new CreateShortUrlResult(originalUrl, buildShortUrlForToken(shortUrlToken), null);
+        }
+        try {
+            return new CreateShortUrlResult(originalUrl, buildShortUrlForToken(findOrCreateShortUrlToken(originalUrl)), null);
+        } catch (RuntimeException e) {
+            ExceptionWithMessageKey error = e instanceof ExceptionWithMessageKey exceptionWithMessageKey && !(e instanceof ShortUrlTokenAlreadyUsedException)
+                    ? exceptionWithMessageKey : new ShortUrlTokenCannotBeCreatedException(originalUrl);
+            return new CreateShortUrlResult(originalUrl, null, error);
+        }
+    }
+
+    /**
+     * Get the original complete url of a short url token. The click on the short url is counted (see ClickRecorder). An expired short url is not found.<br/>
+     * The concurrent decodes of the same token missed by the token cache share one lookup (see ShortUrlLookupCoalescer).
+     *
+     * @param shortUrlToken the short url token.
+     * @return the original complete url.
+     * @throws ShortUrlTokenNotFoundException if the token has no short url, or if it has expired.
+     * @throws ShortUrlInvalidTokenException if the token is null, empty or blank.
+     */
     @Override
     public String getOriginalUrlForShortUrlToken(final String shortUrlToken) throws ShortUrlTokenNotFoundException, ShortUrlInvalidTokenException {
         // validate the url
@@ -74,31 +204,130 @@ public class UrlShortenerServiceImpl implements UrlShortenerService  {
             throw new ShortUrlInvalidTokenException(shortUrlToken);
         }
 
-        return Optional.ofNullable(shortUrlDao.findExistingShortUrlEntityByToken(shortUrlToken)).orElseThrow(() -> new ShortUrlTokenNotFoundException(shortUrlToken)).getOriginalUrl();
+        ShortUrlEntity shortUrlEntity = shortUrlDao.findExistingShortUrlEntityByToken(shortUrlToken);
+        if (shortUrlEntity == null) {
+            urlShortenerMetrics.getTokenNotFoundCounter().increment();
+            throw new ShortUrlTokenNotFoundException(shortUrlToken);
+        }
+        clickRecorder.recordClick(shortUrlToken);
+        return shortUrlEntity.getOriginalUrl();
+
+    }
+
+    /**
+     * Get the original complete urls of several short url tokens at once.<br/>
+     * The valid tokens are searched with one DAO call. The invalid tokens, the tokens not found and the expired tokens are returned as unknown tokens.
+     *
+     * @param shortUrlTokens the short url tokens.
+     * @return the original complete url of each known token, and the unknown tokens, in the order of shortUrlTokens. A repeated token appears once.
+     * @throws ShortUrlBatchTooLargeException if there are more tokens than UrlShortenerProperties.Batch.maxSize.
+     */
+    @Override
+    public DecodeShortUrlsResult getOriginalUrlsForShortUrlTokens(final List<String> shortUrlTokens) throws ShortUrlBatchTooLargeException {
+        requireNonNull(shortUrlTokens, "shortUrlTokens");
+        if (shortUrlTokens.size() > urlShortenerProperties.batch().maxSize()) {
+            throw new ShortUrlBatchTooLargeException(shortUrlTokens.size(), urlShortenerProperties.batch().maxSize());
+        }
+
+        Set<String> requestedTokens = new LinkedHashSet<>(shortUrlTokens);
+        List<String> validTokens = requestedTokens.stream().filter(this::isTokenValid).toList();
+        Map<String, ShortUrlEntity> shortUrlEntities = shortUrlDao.findExistingShortUrlEntitiesByTokens(validTokens);
 
+        Map<String, String> originalUrls = new LinkedHashMap<>();
+        List<String> unknownTokens = new ArrayList<>();
+        for (String shortUrlToken : requestedTokens) {
+            ShortUrlEntity shortUrlEntity = shortUrlToken != null ? shortUrlEntities.get(shortUrlToken) : null;
+            if (shortUrlEntity != null) {
+                originalUrls.put(shortUrlToken, shortUrlEntity.getOriginalUrl());
+            } else {
+                unknownTokens.add(shortUrlToken);
+            }
+        }
+        urlShortenerMetrics.getTokenNotFoundCounter().increment(validTokens.size() - (double) originalUrls.size());
+        return new DecodeShortUrlsResult(originalUrls, unknownTokens);
     }
 
     /**
      * Obtains a short url token for an original url.<br/>
      * It will try to find an already existing short url token for an original url.<br/>
      * If it cannot find one, it will trigger the creation of a brand-new token.<br/>
+     * The concurrent requests for the same original url share one search and one creation (see url-shortener.coalescing) : only the first one reaches the database,
+     * the other ones wait for its token, or its exception.<br/>
      * Can throw ShortUrlTokenCannotBeCreatedException if the token cannot be created for technical issues.
      *
      * @param originalUrl the complete url for which we want a short url token.
      * @return a short url token
      */
     protected String findOrCreateShortUrlToken(final String originalUrl) {
+        return findOrCreateShortUrlToken(originalUrl, null);
+    }
+
+    /**
+     * Obtains a short url token for an original url, which expires (see findOrCreateShortUrlToken(originalUrl)).<br/>
+     * An existing short url keeps the later of its expiration and of expiresAt : its expiration is pushed back if needed, or removed if expiresAt is null.
+     * The requests with an expiration are not coalesced, since each one may change the expiration of the short url.
+     *
+     * @param originalUrl the complete url for which we want a short url token.
+     * @param expiresAt the time after which the short url does not exist anymore. Null if it never expires.
+     * @return a short url token
+     */
+    protected String findOrCreateShortUrlToken(final String originalUrl, final Instant expiresAt) {
         requireNonBlank(originalUrl, "originalUrl");
 
         // search in the database for the token if it already exists for this url?
         // OR create a new token if there wasn't already one
-        ShortUrlEntity shortUrlEntity = Optional.ofNullable(shortUrlDao.findExistingShortUrlEntityByOriginalUrl(originalUrl)).orElseGet(() -> shortUrlDao.createNewShortUrlEntityRetryable(originalUrl));
+        ShortUrlEntity shortUrlEntity = createSingleFlight != null && expiresAt == null ? createSingleFlight.execute(originalUrl, () -> findOrCreateShortUrlEntity(originalUrl, null))
+                : findOrCreateShortUrlEntity(originalUrl, expiresAt);
         if (shortUrlEntity == null) {
             throw new ShortUrlTokenCannotBeCreatedException(originalUrl);
         }
         return shortUrlEntity.getToken();
     }
 
+    private ShortUrlEntity findOrCreateShortUrlEntity(final String originalUrl, final Instant expiresAt) {
+        ShortUrlEntity shortUrlEntity = shortUrlDao.findExistingShortUrlEntityByOriginalUrl(originalUrl);
+        // only the storage supporting the expiration returns short urls which expire
+        if (shortUrlEntity != null && shortUrlExpirationDao != null && !outlives(shortUrlEntity, expiresAt)) {
+            // the existing short url expires before the requested one : its expiration is pushed back, or removed
+            ShortUrlEntity updatedShortUrlEntity = shortUrlExpirationDao.updateExpiration(shortUrlEntity, expiresAt);
+            if (updatedShortUrlEntity != null) {
+                scheduleExpiration(updatedShortUrlEntity);
+                return updatedShortUrlEntity;
+            }
+            // it has expired in the meantime : the search does not return it anymore
+            shortUrlEntity = shortUrlDao.findExistingShortUrlEntityByOriginalUrl(originalUrl);
+        }
+        if (shortUrlEntity != null) {
+            return shortUrlEntity;
+        }
+        if (expiresAt == null) {
+            return shortUrlDao.createNewShortUrlEntityRetryable(originalUrl);
+        }
+        ShortUrlEntity newShortUrlEntity = shortUrlExpirationDao.createNewShortUrlEntityRetryable(originalUrl, expiresAt);
+        scheduleExpiration(newShortUrlEntity);
+        return newShortUrlEntity;
+    }
+
+    /**
+     * Indicates whether an existing short url lives at least until a requested expiration time.
+     *
+     * @param shortUrlEntity the existing short url.
+     * @param expiresAt the requested expiration time. Null if the short url must never expire.
+     * @return true if the short url never expires, or expires at or after expiresAt.
+     */
+    private static boolean outlives(final ShortUrlEntity shortUrlEntity, final Instant expiresAt) {
+        return shortUrlEntity.getExpiresAt() == null || expiresAt != null && !shortUrlEntity.getExpiresAt().isBefore(expiresAt);
+    }
+
+    /**
+     * Tells the expiration job that a short url was created or that its expiration was changed.
+     */
+    private void scheduleExpiration(final ShortUrlEntity shortUrlEntity) {
+        if (shortUrlEntity != null && shortUrlExpirationJob != null) {
+            shortUrlExpirationJob.schedule(shortUrlEntity);
+        }
+    }
+
     /**
      * Creates a short url using a short url token<br/>
      * Combines the token with the base url (from UrlShortenerProperties) to create the final usable short url.
@@ -123,7 +352,11 @@ public class UrlShortenerServiceImpl implements UrlShortenerService  {
      * @return true if the url is valid, false it is not.
      */
     protected boolean isUrlValid(final String url) {
-        return this.urlValidator.isValid(url);
+        boolean valid = urlShortenerMetrics.getUrlValidationTimer().record(() -> this.urlValidator.isValid(url));
+        if (!valid) {
+            urlShortenerMetrics.getInvalidUrlCounter().increment();
+        }
+        return valid;
     }
 
     /**
@@ -0,0 +1,189 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.CANNOT_BE_BLANK;
+import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.CANNOT_BE_NULL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShortUrlTokenCacheImplTest {
+
+    private static final ShortUrlEntity SHORT_URL_ABCD = ShortUrlEntity.builder().id(1L).originalUrl("http://originalurl").token("abcd").build();
+
+    @Nested
+    @DisplayName("ShortUrlTokenCache.getIfPresent and ShortUrlTokenCache.put tests")
+    class GetIfPresentAndPutTest {
+
+        @Test
+        @DisplayName("getIfPresent : when the entity was put in the cache, then it is returned and a hit is counted")
+        void getIfPresent_entityInCache() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+            cache.put(SHORT_URL_ABCD);
+
+            var result = cache.getIfPresent("abcd");
+
+            assertThat(result).isEqualTo(SHORT_URL_ABCD);
+            assertThat(cache.getStatistics().hitCount()).isEqualTo(1);
+            assertThat(cache.getStatistics().missCount()).isZero();
+            assertThat(cache.getStatistics().entryCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("getIfPresent : when the token is not in the cache, then null is returned and a miss is counted")
+        void getIfPresent_entityNotInCache() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+
+            var result = cache.getIfPresent("unknown");
+
+            assertThat(result).isNull();
+            assertThat(cache.getStatistics().hitCount()).isZero();
+            assertThat(cache.getStatistics().missCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("getIfPresent : when the cache is disabled, then nothing is kept in the cache")
+        void getIfPresent_cacheDisabled() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().withCacheEnabled(false).buildSpy());
+            cache.put(SHORT_URL_ABCD);
+
+            var result = cache.getIfPresent("abcd");
+
+            assertThat(result).isNull();
+            assertThat(cache.getStatistics().entryCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("getIfPresent : when the token is blank, then RequiredValueException")
+        void getIfPresent_error_blankToken() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+
+            assertThatThrownBy(() -> cache.getIfPresent(StringUtils.SPACE))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "token")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_BLANK);
+        }
+
+        @Test
+        @DisplayName("put : when the entity is null, then RequiredValueException")
+        void put_error_nullEntity() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+
+            assertThatThrownBy(() -> cache.put(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "shortUrlEntity")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+        }
+
+        @Test
+        @DisplayName("invalidate : when the entity was put in the cache, then it is removed from the cache")
+        void invalidate_entityInCache() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+            cache.put(SHORT_URL_ABCD);
+
+            cache.invalidate("abcd");
+
+            assertThat(cache.getIfPresent("abcd")).isNull();
+        }
+
+    }
+
+    @Nested
+    @DisplayName("ShortUrlTokenCache.getHottest tests")
+    class GetHottestTest {
+
+        @Test
+        @DisplayName("getHottest : the entries read the most often come first, and no more than limit entries are returned")
+        void getHottest_mostReadEntriesFirst() {
+            // Caffeine counts the frequencies once the cache is half full
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().withCacheMaxEntries(20).withCacheMaxBytes(20_000L).buildSpy());
+            IntStream.range(0, 15).forEach(i -> cache.put(ShortUrlEntity.builder().id((long) i).token("t" + i).originalUrl("http://url/" + i).build()));
+            cache.getStatistics();
+            IntStream.range(0, 20).forEach(i -> {
+                cache.getIfPresent("t7");
+                if (i % 2 == 0) {
+                    cache.getIfPresent("t3");
+                }
+                cache.getStatistics();
+            });
+
+            var result = cache.getHottest(2);
+
+            assertThat(result).extracting(ShortUrlEntity::getToken).containsExactly("t7", "t3");
+        }
+
+        @Test
+        @DisplayName("getHottest : when the cache is disabled, then no entry is returned")
+        void getHottest_cacheDisabled() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().withCacheEnabled(false).buildSpy());
+            cache.put(SHORT_URL_ABCD);
+
+            assertThat(cache.getHottest(10)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlTokenCache size limits tests")
+    class SizeLimitsTest {
+
+        @Test
+        @DisplayName("put : when more entries than maxEntries are put in the cache, then entries are evicted and evictions are counted")
+        void put_moreEntriesThanMaxEntries() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().withCacheMaxEntries(10).withCacheMaxBytes(1_000_000L).buildSpy());
+
+            IntStream.range(0, 100).forEach(i -> cache.put(ShortUrlEntity.builder().id((long) i).token("t" + i).originalUrl("http://url/" + i).build()));
+
+            var statistics = cache.getStatistics();
+            assertThat(statistics.entryCount()).isLessThanOrEqualTo(10);
+            assertThat(statistics.evictionCount()).isGreaterThanOrEqualTo(90);
+        }
+
+        @Test
+        @DisplayName("put : when the entries use more bytes than maxBytes, then entries are evicted even if maxEntries is not reached")
+        void put_moreBytesThanMaxBytes() {
+            var longUrl = "http://url/" + "a".repeat(1000);
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().withCacheMaxEntries(1000).withCacheMaxBytes(10_000L).buildSpy());
+
+            IntStream.range(0, 100).forEach(i -> cache.put(ShortUrlEntity.builder().id((long) i).token("t" + i).originalUrl(longUrl + i).build()));
+
+            var statistics = cache.getStatistics();
+            assertThat(statistics.estimatedBytes()).isLessThanOrEqualTo(10_000L);
+            assertThat(statistics.entryCount()).isLessThan(10);
+            assertThat(statistics.evictionCount()).isGreaterThan(90);
+        }
+
+        @Test
+        @DisplayName("put : when a token is read often, then it stays in the cache while tokens read only once are evicted")
+        void put_frequentlyReadTokenIsKept() {
+            var cache = new ShortUrlTokenCacheImpl(new UrlShortenerPropertiesBuilder().withCacheMaxEntries(100).withCacheMaxBytes(1_000_000L).buildSpy());
+            cache.put(SHORT_URL_ABCD);
+
+            // "abcd" keeps being read while a lot of tokens are read only once
+            IntStream.range(0, 2000).forEach(i -> {
+                cache.put(ShortUrlEntity.builder().id((long) i).token("t" + i).originalUrl("http://url/" + i).build());
+                if (i % 10 == 0) {
+                    cache.getIfPresent("abcd");
+                }
+                cache.getStatistics();
+            });
+
+            assertThat(cache.getIfPresent("abcd")).isEqualTo(SHORT_URL_ABCD);
+        }
+
+        @Test
+        @DisplayName("estimateEntryBytes : the estimation is the overhead plus the characters of the token and of the url")
+        void estimateEntryBytes() {
+            assertThat(ShortUrlTokenCacheImpl.estimateEntryBytes(SHORT_URL_ABCD))
+                    .isEqualTo(ShortUrlTokenCacheImpl.ENTRY_OVERHEAD_BYTES + "abcd".length() + "http://originalurl".length());
+        }
+
+    }
+}
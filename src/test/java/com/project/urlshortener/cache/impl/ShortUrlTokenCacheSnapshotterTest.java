@@ -0,0 +1,155 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShortUrlTokenCacheSnapshotterTest {
+
+    @TempDir
+    private Path snapshotDirectory;
+
+    private UrlShortenerPropertiesBuilder propertiesBuilder() {
+        return new UrlShortenerPropertiesBuilder().withCacheSnapshotEnabled(true).withCacheSnapshotFile(snapshotDirectory.resolve("cache/decode-cache.snapshot").toString());
+    }
+
+    private static void putShortUrls(final ShortUrlTokenCacheImpl cache, final int count) {
+        IntStream.range(0, count).forEach(i -> cache.put(ShortUrlEntity.builder().id((long) i).token("t" + i).originalUrl("http://url/" + i + "?q=é").build()));
+    }
+
+    @Nested
+    @DisplayName("ShortUrlTokenCacheSnapshotter.saveSnapshot and ShortUrlTokenCacheSnapshotter.loadSnapshot tests")
+    class SaveAndLoadSnapshotTest {
+
+        @Test
+        @DisplayName("loadSnapshot : the entries of the snapshot written by the previous run are put in the cache")
+        void loadSnapshot_shouldRestoreSavedEntries() {
+            // ---- GIVEN ----
+            var properties = propertiesBuilder().buildSpy();
+            var previousCache = new ShortUrlTokenCacheImpl(properties);
+            putShortUrls(previousCache, 100);
+            var previousSnapshotter = new ShortUrlTokenCacheSnapshotter(previousCache, properties);
+            previousSnapshotter.loadSnapshot();
+            previousSnapshotter.close();
+
+            // ---- WHEN ----
+            var cache = new ShortUrlTokenCacheImpl(properties);
+            new ShortUrlTokenCacheSnapshotter(cache, properties).loadSnapshot();
+
+            // ---- THEN ----
+            assertThat(cache.getStatistics().entryCount()).isEqualTo(100);
+            assertThat(cache.getIfPresent("t42")).extracting(ShortUrlEntity::getToken, ShortUrlEntity::getOriginalUrl).containsExactly("t42", "http://url/42?q=é");
+        }
+
+        @Test
+        @DisplayName("saveSnapshot : only the maxEntries entries read the most often are written")
+        void saveSnapshot_shouldKeepHottestEntries() {
+            // ---- GIVEN ----
+            // Caffeine counts the frequencies once the cache is half full
+            var properties = propertiesBuilder().withCacheSnapshotMaxEntries(1).withCacheMaxEntries(20).withCacheMaxBytes(20_000L).buildSpy();
+            var previousCache = new ShortUrlTokenCacheImpl(properties);
+            putShortUrls(previousCache, 15);
+            previousCache.getStatistics();
+            IntStream.range(0, 20).forEach(i -> {
+                previousCache.getIfPresent("t4");
+                previousCache.getStatistics();
+            });
+            var previousSnapshotter = new ShortUrlTokenCacheSnapshotter(previousCache, properties);
+            previousSnapshotter.loadSnapshot();
+
+            // ---- WHEN ----
+            previousSnapshotter.saveSnapshot();
+
+            // ---- THEN ----
+            var cache = new ShortUrlTokenCacheImpl(properties);
+            new ShortUrlTokenCacheSnapshotter(cache, properties).loadSnapshot();
+            assertThat(cache.getStatistics().entryCount()).isEqualTo(1);
+            assertThat(cache.getIfPresent("t4")).isNotNull();
+        }
+
+        @Test
+        @DisplayName("loadSnapshot : when a record of the snapshot is corrupted, then the records before it are put in the cache and the next ones are ignored")
+        void loadSnapshot_corruptedRecord_shouldKeepPreviousRecords() throws IOException {
+            // ---- GIVEN ----
+            var properties = propertiesBuilder().buildSpy();
+            var previousCache = new ShortUrlTokenCacheImpl(properties);
+            putShortUrls(previousCache, 3);
+            var previousSnapshotter = new ShortUrlTokenCacheSnapshotter(previousCache, properties);
+            previousSnapshotter.loadSnapshot();
+            previousSnapshotter.saveSnapshot();
+            var file = Path.of(properties.cacheSnapshot().file());
+            byte[] bytes = Files.readAllBytes(file);
+            // last character of the url of the last record
+            bytes[bytes.length - 1] ^= 0x01;
+            Files.write(file, bytes);
+
+            // ---- WHEN ----
+            var cache = new ShortUrlTokenCacheImpl(properties);
+            new ShortUrlTokenCacheSnapshotter(cache, properties).loadSnapshot();
+
+            // ---- THEN ----
+            assertThat(cache.getStatistics().entryCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("loadSnapshot : when there is no snapshot, then the cache starts empty")
+        void loadSnapshot_noSnapshot_shouldLeaveCacheEmpty() {
+            var properties = propertiesBuilder().buildSpy();
+            var cache = new ShortUrlTokenCacheImpl(properties);
+
+            new ShortUrlTokenCacheSnapshotter(cache, properties).loadSnapshot();
+
+            assertThat(cache.getStatistics().entryCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("saveSnapshot : when the snapshot is not loaded yet or is disabled, then nothing is written")
+        void saveSnapshot_notLoadedOrDisabled_shouldNotWrite() {
+            var properties = propertiesBuilder().buildSpy();
+            var cache = new ShortUrlTokenCacheImpl(properties);
+            putShortUrls(cache, 10);
+            new ShortUrlTokenCacheSnapshotter(cache, properties).saveSnapshot();
+
+            var disabledProperties = propertiesBuilder().withCacheSnapshotEnabled(false).buildSpy();
+            var disabledSnapshotter = new ShortUrlTokenCacheSnapshotter(cache, disabledProperties);
+            disabledSnapshotter.loadSnapshot();
+            disabledSnapshotter.saveSnapshot();
+
+            assertThat(Path.of(properties.cacheSnapshot().file())).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("saveSnapshot : the short urls which expire are not written")
+        void saveSnapshot_shouldSkipExpiringEntries() {
+            // ---- GIVEN ----
+            var properties = propertiesBuilder().buildSpy();
+            var previousCache = new ShortUrlTokenCacheImpl(properties);
+            putShortUrls(previousCache, 3);
+            previousCache.put(ShortUrlEntity.builder().id(3L).token("expiring").originalUrl("http://url/expiring").expiresAt(Instant.now().plus(1, ChronoUnit.DAYS)).build());
+            var previousSnapshotter = new ShortUrlTokenCacheSnapshotter(previousCache, properties);
+            previousSnapshotter.loadSnapshot();
+            previousSnapshotter.close();
+
+            // ---- WHEN ----
+            var cache = new ShortUrlTokenCacheImpl(properties);
+            new ShortUrlTokenCacheSnapshotter(cache, properties).loadSnapshot();
+
+            // ---- THEN ----
+            assertThat(cache.getStatistics().entryCount()).isEqualTo(3);
+            assertThat(cache.getIfPresent("expiring")).isNull();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.CANNOT_BE_BLANK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShortUrlTokenFilterImplTest {
+
+    @Nested
+    @DisplayName("ShortUrlTokenFilter.mightContain tests")
+    class MightContainTest {
+
+        @Test
+        @DisplayName("mightContain : when the filter is loaded, then every token put in the filter might exist")
+        void mightContain_tokensPutInFilter() {
+            var filter = new ShortUrlTokenFilterImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+            IntStream.range(0, 10_000).forEach(i -> filter.put("token" + i));
+            filter.markAsLoaded();
+
+            assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("token" + i))).isTrue();
+        }
+
+        @Test
+        @DisplayName("mightContain : when the filter is loaded, then most unknown tokens definitely do not exist (about the configured false positive rate)")
+        void mightContain_unknownTokens() {
+            var filter = new ShortUrlTokenFilterImpl(new UrlShortenerPropertiesBuilder().withBloomFilterExpectedInsertions(10_000L).withBloomFilterFalsePositiveRate(0.01).buildSpy());
+            IntStream.range(0, 10_000).forEach(i -> filter.put("token" + i));
+            filter.markAsLoaded();
+
+            long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("unknown" + i)).count();
+
+            // 1% expected, with some margin
+            assertThat(falsePositives).isLessThan(2_000);
+        }
+
+        @Test
+        @DisplayName("mightContain : when the filter is not loaded yet, then every token might exist")
+        void mightContain_filterNotLoaded() {
+            var filter = new ShortUrlTokenFilterImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+
+            assertThat(filter.mightContain("unknown")).isTrue();
+        }
+
+        @Test
+        @DisplayName("mightContain : when the filter is disabled, then every token might exist")
+        void mightContain_filterDisabled() {
+            var filter = new ShortUrlTokenFilterImpl(new UrlShortenerPropertiesBuilder().withBloomFilterEnabled(false).buildSpy());
+            filter.markAsLoaded();
+
+            assertThat(filter.mightContain("unknown")).isTrue();
+            assertThat(filter.getStatistics().loaded()).isFalse();
+        }
+
+        @Test
+        @DisplayName("mightContain : when the token is blank, then RequiredValueException")
+        void mightContain_error_blankToken() {
+            var filter = new ShortUrlTokenFilterImpl(new UrlShortenerPropertiesBuilder().buildSpy());
+
+            assertThatThrownBy(() -> filter.mightContain(StringUtils.SPACE))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "token")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_BLANK);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlTokenFilter.getStatistics tests")
+    class GetStatisticsTest {
+
+        @Test
+        @DisplayName("getStatistics : the filter is sized from the expected insertions and the false positive rate, and reports its memory use")
+        void getStatistics_sizing() {
+            var filter = new ShortUrlTokenFilterImpl(new UrlShortenerPropertiesBuilder().withBloomFilterExpectedInsertions(1_000_000L).withBloomFilterFalsePositiveRate(0.01).buildSpy());
+            IntStream.range(0, 1000).forEach(i -> filter.put("token" + i));
+            filter.markAsLoaded();
+
+            var statistics = filter.getStatistics();
+
+            // about 9.6 bits and 7 hash functions per token for 1%
+            assertThat(statistics.loaded()).isTrue();
+            assertThat(statistics.insertedCount()).isEqualTo(1000);
+            assertThat(statistics.bitCount()).isBetween(9_500_000L, 9_700_000L);
+            assertThat(statistics.hashFunctionCount()).isEqualTo(7);
+            assertThat(statistics.memoryBytes()).isEqualTo(statistics.bitCount() / 8);
+            assertThat(statistics.expectedFalsePositiveRate()).isLessThan(0.01);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.urlshortener.cache.impl;
+
+import com.project.urlshortener.cache.ShortUrlTokenFilter;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "url-shortener.bloom-filter.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShortUrlTokenFilterLoaderSpringTest {
+
+	@Autowired
+	private ShortUrlTokenFilterLoader shortUrlTokenFilterLoader;
+
+	@Autowired
+	private ShortUrlTokenFilter shortUrlTokenFilter;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Test
+	@DisplayName("loadExistingTokens : the tokens of the SHORT_URL table are streamed into the filter, and the filter is marked as loaded")
+	void loadExistingTokens_tokensOfTheDatabaseAreInTheFilter() {
+		shortUrlRepository.save(ShortUrlEntity.builder().token("abcdeFGHIJ").originalUrl("https://www.journaldemontreal.com/").build());
+		shortUrlRepository.save(ShortUrlEntity.builder().token("klmnoPQRST").originalUrl("https://www.lapresse.ca/").build());
+
+		shortUrlTokenFilterLoader.loadExistingTokens();
+
+		assertThat(shortUrlTokenFilter.getStatistics().loaded()).isTrue();
+		assertThat(shortUrlTokenFilter.mightContain("abcdeFGHIJ")).isTrue();
+		assertThat(shortUrlTokenFilter.mightContain("klmnoPQRST")).isTrue();
+		assertThat(shortUrlTokenFilter.mightContain("0123456789")).isFalse();
+	}
+
+}
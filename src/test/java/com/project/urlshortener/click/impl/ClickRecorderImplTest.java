@@ -0,0 +1,161 @@
+package com.project.urlshortener.click.impl;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlClickDao;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClickRecorderImplTest {
+
+    @Mock
+    private ShortUrlClickDao mockShortUrlClickDao;
+
+    private final UrlShortenerMetrics urlShortenerMetrics = new UrlShortenerMetrics(new SimpleMeterRegistry());
+
+    private ClickRecorderImpl buildClickRecorder(final UrlShortenerPropertiesBuilder propertiesBuilder) {
+        return new ClickRecorderImpl(propertiesBuilder.buildSpy(), mockShortUrlClickDao, urlShortenerMetrics);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<Map<String, Long>> clickCountsCaptor() {
+        return ArgumentCaptor.forClass(Map.class);
+    }
+
+    @Nested
+    @DisplayName("ClickRecorderImpl.recordClick and ClickRecorderImpl.flush tests")
+    class RecordClickTest {
+
+        @Test
+        @DisplayName("flush : the recorded clicks are summed by token and written once, then the next flush writes nothing")
+        void flush_clicksSummedByToken() {
+            // ---- GIVEN ----
+            var clickRecorder = buildClickRecorder(new UrlShortenerPropertiesBuilder());
+            clickRecorder.recordClick("token1");
+            clickRecorder.recordClick("token2");
+            clickRecorder.recordClick("token1");
+
+            // ---- WHEN ----
+            clickRecorder.flush();
+            clickRecorder.flush();
+
+            // ---- THEN ----
+            var captor = clickCountsCaptor();
+            verify(mockShortUrlClickDao).addClicks(captor.capture());
+            assertThat(captor.getValue()).containsOnly(entry("token1", 2L), entry("token2", 1L));
+            assertThat(urlShortenerMetrics.getClickFlushTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("flush : the tokens are written in batches of flushBatchSize tokens")
+        void flush_batches() {
+            // ---- GIVEN ----
+            var clickRecorder = buildClickRecorder(new UrlShortenerPropertiesBuilder().withClicksFlushBatchSize(2));
+            for (int i = 0; i < 5; i++) {
+                clickRecorder.recordClick("token" + i);
+            }
+
+            // ---- WHEN ----
+            clickRecorder.flush();
+
+            // ---- THEN ----
+            var captor = clickCountsCaptor();
+            verify(mockShortUrlClickDao, times(3)).addClicks(captor.capture());
+            assertThat(captor.getAllValues()).extracting(Map::size).containsExactly(2, 2, 1);
+        }
+
+        @Test
+        @DisplayName("recordClick : with the DROP policy, the clicks which do not fit in the buffer are dropped and counted")
+        void recordClick_dropPolicy() {
+            // ---- GIVEN ----
+            var clickRecorder = buildClickRecorder(new UrlShortenerPropertiesBuilder()
+                    .withClicksBufferSize(4)
+                    .withClicksOverflowPolicy(UrlShortenerProperties.Clicks.OverflowPolicy.DROP));
+
+            // ---- WHEN ----
+            for (int i = 0; i < 10; i++) {
+                clickRecorder.recordClick("token");
+            }
+            clickRecorder.flush();
+
+            // ---- THEN ----
+            verify(mockShortUrlClickDao).addClicks(Map.of("token", 4L));
+            assertThat(urlShortenerMetrics.getClicksDroppedCounter().count()).isEqualTo(6);
+        }
+
+        @Test
+        @DisplayName("recordClick : with the SAMPLE policy, once the buffer is half full, the kept clicks count for sampleRate clicks")
+        void recordClick_samplePolicy() {
+            // ---- GIVEN ----
+            var clickRecorder = buildClickRecorder(new UrlShortenerPropertiesBuilder()
+                    .withClicksBufferSize(4096)
+                    .withClicksOverflowPolicy(UrlShortenerProperties.Clicks.OverflowPolicy.SAMPLE)
+                    .withClicksSampleRate(4));
+
+            // ---- WHEN ----
+            for (int i = 0; i < 6000; i++) {
+                clickRecorder.recordClick("token");
+            }
+            clickRecorder.flush();
+
+            // ---- THEN ----
+            var captor = clickCountsCaptor();
+            verify(mockShortUrlClickDao).addClicks(captor.capture());
+            long countedClicks = captor.getValue().get("token");
+            long droppedClicks = (long) urlShortenerMetrics.getClicksDroppedCounter().count();
+            // 2048 exact clicks, then 3952 clicks estimated by 1 click out of 4 : the buffer does not fill up
+            assertThat(droppedClicks).isZero();
+            assertThat(countedClicks).isBetween(5400L, 6600L);
+            assertThat((countedClicks - 2048) % 4).isZero();
+        }
+
+        @Test
+        @DisplayName("recordClick and flush : if the clicks are disabled, then nothing is recorded nor written")
+        void recordClick_disabled() {
+            // ---- GIVEN ----
+            var clickRecorder = buildClickRecorder(new UrlShortenerPropertiesBuilder().withClicksEnabled(false));
+
+            // ---- WHEN ----
+            clickRecorder.recordClick("token");
+            clickRecorder.flush();
+
+            // ---- THEN ----
+            verifyNoInteractions(mockShortUrlClickDao);
+        }
+
+        @Test
+        @DisplayName("flush : if the clicks cannot be written, then they are counted as dropped and not written again")
+        void flush_error_databaseFailure() {
+            // ---- GIVEN ----
+            var clickRecorder = buildClickRecorder(new UrlShortenerPropertiesBuilder());
+            doThrow(new DataAccessResourceFailureException("junit")).when(mockShortUrlClickDao).addClicks(anyMap());
+            clickRecorder.recordClick("token1");
+            clickRecorder.recordClick("token1");
+
+            // ---- WHEN ----
+            clickRecorder.flush();
+            clickRecorder.flush();
+
+            // ---- THEN ----
+            verify(mockShortUrlClickDao).addClicks(anyMap());
+            assertThat(urlShortenerMetrics.getClicksDroppedCounter().count()).isEqualTo(2);
+        }
+    }
+
+}
@@ -340,4 +340,69 @@ public class ArgumentUtilsTest {
 
     }
 
+    @Nested
+    @DisplayName("ArgumentUtils.requireStrictlyPositiveValue (Long) tests")
+    class RequireStrictlyPositiveLongValueTest {
+
+        private Long parameterLong;
+        private Exception caughtException;
+
+        @BeforeEach
+        void setUp() {
+            this.parameterLong = null;
+            this.caughtException = null;
+        }
+
+        @Test
+        @DisplayName("requireStrictlyPositiveValue : when long is a positive value, then no exception")
+        void requireStrictlyPositiveValue_longIsPositiveNumber() {
+            given_long(10_000_000_000L);
+
+            when_requireStrictlyPositiveValue();
+
+            then_noException();
+        }
+
+        @Test
+        @DisplayName("requireStrictlyPositiveValue : when long is zero, then RequiredValueException CANNOT_BE_ZERO with field name")
+        void requireStrictlyPositiveValue_error_longIsZero() {
+            given_long(0L);
+
+            when_requireStrictlyPositiveValue();
+
+            then_exceptionThrown(RequiredValueException.class, "[fieldName=fieldname,requirementType=CANNOT_BE_ZERO]");
+        }
+
+        @Test
+        @DisplayName("requireStrictlyPositiveValue : when long is a negative value, then RequiredValueException CANNOT_BE_NEGATIVE with field name")
+        void requireStrictlyPositiveValue_error_longIsNegative() {
+            given_long(-10_000_000_000L);
+
+            when_requireStrictlyPositiveValue();
+
+            then_exceptionThrown(RequiredValueException.class, "[fieldName=fieldname,requirementType=CANNOT_BE_NEGATIVE]");
+        }
+
+        private void given_long(final Long l) {
+            this.parameterLong = l;
+        }
+
+        private void when_requireStrictlyPositiveValue() {
+            try {
+                ArgumentUtils.requireStrictlyPositiveValue(parameterLong, "fieldname");
+            } catch(Exception e) {
+                caughtException = e;
+            }
+        }
+
+        private void then_exceptionThrown(final Class<? extends Exception> expectedException, final String expectedExceptionMessage) {
+            assertException(caughtException, expectedException, expectedExceptionMessage);
+        }
+
+        private void then_noException() {
+            assertNoException(caughtException);
+        }
+
+    }
+
 }
@@ -0,0 +1,91 @@
+package com.project.urlshortener.common.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FeistelPermutationTest {
+
+    @Nested
+    @DisplayName("FeistelPermutation.permute tests")
+    class PermuteTest {
+
+        @Test
+        @DisplayName("permute : every number of the domain is mapped to a different number of the domain")
+        void permute_isBijection() {
+            // 62^2 : not a power of two, so that cycle walking is needed
+            long domainSize = 3844;
+            var permutation = new FeistelPermutation(domainSize, 123L);
+
+            BitSet seen = new BitSet((int) domainSize);
+            for (long value = 0; value < domainSize; value++) {
+                long permuted = permutation.permute(value);
+                assertThat(permuted).isBetween(0L, domainSize - 1);
+                assertThat(seen.get((int) permuted)).isFalse();
+                seen.set((int) permuted);
+            }
+            assertThat(seen.cardinality()).isEqualTo((int) domainSize);
+        }
+
+        @Test
+        @DisplayName("permute : consecutive numbers are not mapped to consecutive numbers, and another key gives another permutation")
+        void permute_scramblesConsecutiveNumbers() {
+            var permutation = new FeistelPermutation(839_299_365_868_340_224L, 123L);
+            var otherPermutation = new FeistelPermutation(839_299_365_868_340_224L, 124L);
+
+            long[] permuted = LongStream.range(0, 100).map(permutation::permute).toArray();
+            long consecutiveCount = LongStream.range(1, 100).filter(i -> Math.abs(permuted[(int) i] - permuted[(int) i - 1]) == 1).count();
+            assertThat(consecutiveCount).isZero();
+            assertThat(otherPermutation.permute(0)).isNotEqualTo(permuted[0]);
+        }
+
+        @Test
+        @DisplayName("permute : the largest domain (Long.MAX_VALUE) is supported")
+        void permute_largestDomain() {
+            var permutation = new FeistelPermutation(Long.MAX_VALUE, 7L);
+
+            LongStream.of(0, 1, Long.MAX_VALUE - 1).forEach(value -> {
+                long permuted = permutation.permute(value);
+                assertThat(permuted).isNotNegative();
+                assertThat(permutation.inverse(permuted)).isEqualTo(value);
+            });
+        }
+
+        @Test
+        @DisplayName("permute : when the number is out of the domain, then IllegalArgumentException")
+        void permute_error_outOfDomain() {
+            var permutation = new FeistelPermutation(100, 1L);
+
+            assertThatThrownBy(() -> permutation.permute(100)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> permutation.permute(-1)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("FeistelPermutation.inverse tests")
+    class InverseTest {
+
+        @Test
+        @DisplayName("inverse : inverse(permute(x)) == x")
+        void inverse_ofPermute() {
+            var permutation = new FeistelPermutation(238_328, 99L);
+
+            LongStream.range(0, 10_000).forEach(value -> assertThat(permutation.inverse(permutation.permute(value))).isEqualTo(value));
+        }
+
+        @Test
+        @DisplayName("inverse : the domain of one number is supported")
+        void inverse_singleNumberDomain() {
+            var permutation = new FeistelPermutation(1, 99L);
+
+            assertThat(permutation.permute(0)).isZero();
+            assertThat(permutation.inverse(0)).isZero();
+        }
+    }
+}
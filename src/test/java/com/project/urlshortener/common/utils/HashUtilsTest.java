@@ -0,0 +1,73 @@
+package com.project.urlshortener.common.utils;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HashUtilsTest {
+
+    @Nested
+    @DisplayName("HashUtils.hash128 tests")
+    class Hash128Test {
+
+        @Test
+        @DisplayName("hash128 : the hash is the first 16 bytes of the SHA-256 digest")
+        void hash128_firstBytesOfSha256() {
+            // SHA-256("abc") = ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad
+            assertThat(HexFormat.of().formatHex(HashUtils.hash128("abc"))).isEqualTo("ba7816bf8f01cfea414140de5dae2223");
+        }
+
+        @Test
+        @DisplayName("hash128 : the same value always has the same hash, different values have different hashes")
+        void hash128_stable() {
+            assertThat(HashUtils.hash128("http://originalurl")).hasSize(HashUtils.HASH_128_BYTES).isEqualTo(HashUtils.hash128("http://originalurl"));
+            assertThat(HashUtils.hash128("http://originalurl")).isNotEqualTo(HashUtils.hash128("http://originalurl/"));
+        }
+
+        @Test
+        @DisplayName("hash128 : when value is null, then RequiredValueException")
+        void hash128_null() {
+            assertThatThrownBy(() -> HashUtils.hash128(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "value");
+        }
+    }
+
+    @Nested
+    @DisplayName("HashUtils.hash64 tests")
+    class Hash64Test {
+
+        @Test
+        @DisplayName("hash64 : the same value always has the same hash, close values have different hashes")
+        void hash64_stable() {
+            assertThat(HashUtils.hash64("abcd")).isEqualTo(HashUtils.hash64(new StringBuilder("abcd")));
+            assertThat(HashUtils.hash64("abcd")).isNotEqualTo(HashUtils.hash64("abce")).isNotEqualTo(HashUtils.hash64("bacd"));
+        }
+
+        @Test
+        @DisplayName("hash64 : when value is null, then RequiredValueException")
+        void hash64_null() {
+            assertThatThrownBy(() -> HashUtils.hash64(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "value");
+        }
+    }
+
+    @Nested
+    @DisplayName("HashUtils.toLong tests")
+    class ToLongTest {
+
+        @Test
+        @DisplayName("toLong : the first 8 bytes are read big-endian, the next bytes are ignored")
+        void toLong_firstBytes() {
+            assertThat(HashUtils.toLong(HexFormat.of().parseHex("0102030405060708ff"))).isEqualTo(0x0102030405060708L);
+            assertThat(HashUtils.toLong(HexFormat.of().parseHex("ffffffffffffffff"))).isEqualTo(-1L);
+        }
+    }
+}
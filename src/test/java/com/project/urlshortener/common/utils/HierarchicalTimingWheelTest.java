@@ -0,0 +1,123 @@
+package com.project.urlshortener.common.utils;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HierarchicalTimingWheelTest {
+
+    @Nested
+    @DisplayName("HierarchicalTimingWheel constructor tests")
+    class ConstructorTest {
+
+        @Test
+        @DisplayName("constructor : the levels are added until the wheel covers the horizon")
+        void constructor_levelsCoverHorizon() {
+            assertThat(new HierarchicalTimingWheel<String>(10, 8, 70, 0).levels()).isEqualTo(1);
+            assertThat(new HierarchicalTimingWheel<String>(10, 8, 80, 0).levels()).isEqualTo(2);
+            assertThat(new HierarchicalTimingWheel<String>(10, 8, 639, 0).levels()).isEqualTo(2);
+            assertThat(new HierarchicalTimingWheel<String>(10, 8, 640, 0).levels()).isEqualTo(3);
+            assertThat(new HierarchicalTimingWheel<String>(1000, 500, 86_400_000L * 30, 0).levels()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("constructor : if the tick is not strictly positive, then RequiredValueException is thrown")
+        void constructor_error_tickIsZero() {
+            assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(0, 8, 1000, 0)).isInstanceOf(RequiredValueException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("HierarchicalTimingWheel.add and HierarchicalTimingWheel.advance tests")
+    class AddAdvanceTest {
+
+        @Test
+        @DisplayName("advance : an item is given back once the tick of its deadline is over, not before")
+        void advance_itemGivenBackAfterDeadline() {
+            // ---- GIVEN ----
+            var wheel = new HierarchicalTimingWheel<String>(10, 8, 1000, 1000);
+            var fired = new ArrayList<String>();
+            wheel.add("a", 1025);
+            wheel.add("b", 1031);
+
+            // ---- WHEN / THEN ----
+            assertThat(wheel.advance(1029, fired::add)).isZero();
+            assertThat(wheel.advance(1030, fired::add)).isEqualTo(1);
+            assertThat(fired).containsExactly("a");
+            assertThat(wheel.advance(1039, fired::add)).isZero();
+            assertThat(wheel.advance(1040, fired::add)).isEqualTo(1);
+            assertThat(fired).containsExactly("a", "b");
+            assertThat(wheel.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("advance : when the deadline of an item is already over, then it is given back by the next advance")
+        void advance_pastDeadline_shouldGiveBackRightAway() {
+            var wheel = new HierarchicalTimingWheel<String>(10, 8, 1000, 1000);
+            var fired = new ArrayList<String>();
+            wheel.advance(1500, fired::add);
+
+            wheel.add("late", 1200);
+
+            assertThat(wheel.size()).isEqualTo(1);
+            assertThat(wheel.advance(1500, fired::add)).isEqualTo(1);
+            assertThat(fired).containsExactly("late");
+        }
+
+        @Test
+        @DisplayName("advance : the items of the higher levels and beyond the horizon are given back in the order of their ticks, at most one tick late")
+        void advance_manyItems_shouldGiveBackInOrder() {
+            // ---- GIVEN ----
+            var wheel = new HierarchicalTimingWheel<Integer>(10, 4, 500, 0);
+            var random = new Random(42);
+            Map<Integer, Long> deadlines = new HashMap<>();
+            for (int item = 0; item < 2000; item++) {
+                long deadline = random.nextLong(5000);
+                deadlines.put(item, deadline);
+                wheel.add(item, deadline);
+            }
+            var fired = new ArrayList<Integer>();
+
+            // ---- WHEN ----
+            List<Long> firedTimes = new ArrayList<>();
+            for (long now = 0; now <= 6000; now += 7) {
+                final long time = now;
+                wheel.advance(now, item -> {
+                    fired.add(item);
+                    firedTimes.add(time);
+                    // ---- THEN ----
+                    assertThat(time).isGreaterThanOrEqualTo(deadlines.get(item)).isLessThan(deadlines.get(item) + 10 + 7);
+                });
+            }
+
+            assertThat(fired).hasSize(2000).doesNotHaveDuplicates();
+            assertThat(firedTimes).isSorted();
+            assertThat(wheel.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("advance : when the wheel is empty, then the time jumps to now")
+        void advance_emptyWheel_shouldJump() {
+            var wheel = new HierarchicalTimingWheel<String>(1, 8, 100, 0);
+            var fired = new ArrayList<String>();
+
+            assertThat(wheel.advance(Long.MAX_VALUE / 2, fired::add)).isZero();
+            wheel.add("a", Long.MAX_VALUE / 2 + 3);
+
+            assertThat(wheel.advance(Long.MAX_VALUE / 2 + 2, fired::add)).isZero();
+            assertThat(wheel.advance(Long.MAX_VALUE / 2 + 4, fired::add)).isEqualTo(1);
+            assertThat(fired).containsExactly("a");
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.project.urlshortener.common.utils;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MpscRingBufferTest {
+
+    @Nested
+    @DisplayName("MpscRingBuffer constructor tests")
+    class ConstructorTest {
+
+        @Test
+        @DisplayName("constructor : the capacity is rounded up to a power of two")
+        void constructor_capacityIsPowerOfTwo() {
+            assertThat(new MpscRingBuffer<String>(1).capacity()).isEqualTo(1);
+            assertThat(new MpscRingBuffer<String>(8).capacity()).isEqualTo(8);
+            assertThat(new MpscRingBuffer<String>(9).capacity()).isEqualTo(16);
+            assertThat(new MpscRingBuffer<String>(1000).capacity()).isEqualTo(1024);
+        }
+
+        @Test
+        @DisplayName("constructor : if the capacity is not strictly positive, then RequiredValueException is thrown")
+        void constructor_error_capacityIsZero() {
+            assertThatThrownBy(() -> new MpscRingBuffer<String>(0)).isInstanceOf(RequiredValueException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("MpscRingBuffer.offer and MpscRingBuffer.poll tests")
+    class OfferPollTest {
+
+        @Test
+        @DisplayName("offer and poll : the elements are read in the order they were added, then poll returns null")
+        void offerPoll_fifo() {
+            var buffer = new MpscRingBuffer<String>(4);
+
+            assertThat(buffer.poll()).isNull();
+            assertThat(buffer.offer("a")).isTrue();
+            assertThat(buffer.offer("b")).isTrue();
+            assertThat(buffer.size()).isEqualTo(2);
+
+            assertThat(buffer.poll()).isEqualTo("a");
+            assertThat(buffer.poll()).isEqualTo("b");
+            assertThat(buffer.poll()).isNull();
+            assertThat(buffer.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("offer : if the buffer is full, then the element is rejected, until an element is read")
+        void offer_full() {
+            var buffer = new MpscRingBuffer<String>(2);
+            assertThat(buffer.offer("a")).isTrue();
+            assertThat(buffer.offer("b")).isTrue();
+
+            assertThat(buffer.offer("c")).isFalse();
+            assertThat(buffer.size()).isEqualTo(2);
+
+            assertThat(buffer.poll()).isEqualTo("a");
+            assertThat(buffer.offer("c")).isTrue();
+            assertThat(buffer.poll()).isEqualTo("b");
+            assertThat(buffer.poll()).isEqualTo("c");
+        }
+
+        @Test
+        @DisplayName("offer : if the element is null, then RequiredValueException is thrown")
+        void offer_error_elementIsNull() {
+            var buffer = new MpscRingBuffer<String>(2);
+
+            assertThatThrownBy(() -> buffer.offer(null)).isInstanceOf(RequiredValueException.class);
+        }
+
+        @Test
+        @DisplayName("offer : concurrent producers never lose nor duplicate an element, while the consumer reads them")
+        void offer_concurrentProducers() throws Exception {
+            var buffer = new MpscRingBuffer<Integer>(64);
+            int producerCount = 4;
+            int elementCountPerProducer = 5_000;
+            boolean[] received = new boolean[producerCount * elementCountPerProducer];
+
+            try (ExecutorService executorService = Executors.newFixedThreadPool(producerCount)) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int producer = 0; producer < producerCount; producer++) {
+                    int first = producer * elementCountPerProducer;
+                    futures.add(executorService.submit(() -> {
+                        for (int element = first; element < first + elementCountPerProducer; element++) {
+                            while (!buffer.offer(element)) {
+                                Thread.yield();
+                            }
+                        }
+                    }));
+                }
+
+                int receivedCount = 0;
+                while (receivedCount < received.length) {
+                    Integer element = buffer.poll();
+                    if (element != null) {
+                        assertThat(received[element]).isFalse();
+                        received[element] = true;
+                        receivedCount++;
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            assertThat(buffer.poll()).isNull();
+        }
+    }
+
+}
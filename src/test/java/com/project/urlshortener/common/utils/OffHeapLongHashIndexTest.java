@@ -0,0 +1,102 @@
+package com.project.urlshortener.common.utils;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OffHeapLongHashIndexTest {
+
+    @Nested
+    @DisplayName("OffHeapLongHashIndex constructor tests")
+    class ConstructorTest {
+
+        @Test
+        @DisplayName("constructor : the capacity is a power of two, large enough to hold the expected entries without growing")
+        void constructor_capacityIsPowerOfTwo() {
+            assertThat(new OffHeapLongHashIndex(1).capacity()).isEqualTo(2);
+            assertThat(new OffHeapLongHashIndex(3).capacity()).isEqualTo(8);
+            assertThat(new OffHeapLongHashIndex(1000).capacity()).isEqualTo(2048);
+        }
+
+        @Test
+        @DisplayName("constructor : if the expected entries are not strictly positive, then RequiredValueException is thrown")
+        void constructor_error_expectedEntriesIsZero() {
+            assertThatThrownBy(() -> new OffHeapLongHashIndex(0)).isInstanceOf(RequiredValueException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("OffHeapLongHashIndex.put and OffHeapLongHashIndex.find tests")
+    class PutFindTest {
+
+        @Test
+        @DisplayName("find : the value of a key is found, an unknown key returns -1")
+        void find_valueOfKey() {
+            // ---- GIVEN ----
+            var index = new OffHeapLongHashIndex(16);
+            index.put(42L, 0L);
+            index.put(-7L, 123_456_789_012L);
+
+            // ---- WHEN / THEN ----
+            assertThat(index.find(42L, value -> true)).isZero();
+            assertThat(index.find(-7L, value -> true)).isEqualTo(123_456_789_012L);
+            assertThat(index.find(43L, value -> true)).isEqualTo(-1L);
+            assertThat(index.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("find : when several values have the same key, then they are given to the predicate in the order they were added, until it accepts one")
+        void find_sameKey() {
+            // ---- GIVEN ----
+            var index = new OffHeapLongHashIndex(16);
+            index.put(42L, 1L);
+            index.put(42L, 2L);
+            index.put(42L, 3L);
+            List<Long> candidates = new ArrayList<>();
+
+            // ---- WHEN ----
+            long result = index.find(42L, value -> {
+                candidates.add(value);
+                return value == 2L;
+            });
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo(2L);
+            assertThat(candidates).containsExactly(1L, 2L);
+            assertThat(index.find(42L, value -> false)).isEqualTo(-1L);
+        }
+
+        @Test
+        @DisplayName("put : when the table is 3/4 full, then it grows and keeps all the entries")
+        void put_grows() {
+            // ---- GIVEN ----
+            var index = new OffHeapLongHashIndex(4);
+            int initialCapacity = index.capacity();
+
+            // ---- WHEN ----
+            for (long key = 0; key < 10_000; key++) {
+                index.put(key, key * 10);
+            }
+
+            // ---- THEN ----
+            assertThat(index.capacity()).isGreaterThan(initialCapacity).isGreaterThanOrEqualTo(10_000 * 4 / 3);
+            assertThat(index.size()).isEqualTo(10_000);
+            for (long key = 0; key < 10_000; key++) {
+                assertThat(index.find(key, value -> true)).isEqualTo(key * 10);
+            }
+        }
+
+        @Test
+        @DisplayName("put : when the value is negative, then IllegalArgumentException")
+        void put_negativeValue() {
+            assertThatThrownBy(() -> new OffHeapLongHashIndex(16).put(42L, -1L)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.project.urlshortener.common.utils;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private final AtomicInteger joinCount = new AtomicInteger();
+    private final AtomicInteger timeoutCount = new AtomicInteger();
+
+    private SingleFlight<String, String> buildSingleFlight(final long timeoutMillis) {
+        return new SingleFlight<>(timeoutMillis, joinCount::incrementAndGet, timeoutCount::incrementAndGet);
+    }
+
+    /**
+     * Waits until the given number of threads wait for the running call.
+     */
+    private void awaitJoins(final int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (joinCount.get() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("SingleFlight constructor tests")
+    class ConstructorTest {
+
+        @Test
+        @DisplayName("constructor : if the timeout is not strictly positive, then RequiredValueException is thrown")
+        void constructor_error_timeoutIsZero() {
+            assertThatThrownBy(() -> buildSingleFlight(0)).isInstanceOf(RequiredValueException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("SingleFlight.execute tests")
+    class ExecuteTest {
+
+        @Test
+        @DisplayName("execute : the threads asking for a key while its call is running get the result of this call, without running it again")
+        void execute_concurrentCalls_shouldShareResult() throws Exception {
+            // ---- GIVEN ----
+            var singleFlight = buildSingleFlight(5000);
+            var callCount = new AtomicInteger();
+            var callStarted = new CountDownLatch(1);
+            var releaseCall = new CountDownLatch(1);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                // ---- WHEN ----
+                var first = executor.submit(() -> singleFlight.execute("key", () -> {
+                    callCount.incrementAndGet();
+                    callStarted.countDown();
+                    awaitQuietly(releaseCall);
+                    return "result";
+                }));
+                callStarted.await();
+                var second = executor.submit(() -> singleFlight.execute("key", () -> "other result " + callCount.incrementAndGet()));
+                var third = executor.submit(() -> singleFlight.execute("key", () -> "other result " + callCount.incrementAndGet()));
+                awaitJoins(2);
+                releaseCall.countDown();
+
+                // ---- THEN ----
+                assertThat(first.get()).isEqualTo("result");
+                assertThat(second.get()).isEqualTo("result");
+                assertThat(third.get()).isEqualTo("result");
+            }
+            assertThat(callCount.get()).isEqualTo(1);
+            assertThat(joinCount.get()).isEqualTo(2);
+            assertThat(singleFlight.runningCalls()).isZero();
+
+            // a new call is run once the previous one is completed
+            assertThat(singleFlight.execute("key", () -> "new result")).isEqualTo("new result");
+        }
+
+        @Test
+        @DisplayName("execute : when the running call fails, then its exception is thrown to the threads waiting for it")
+        void execute_failure_shouldPropagateException() throws Exception {
+            // ---- GIVEN ----
+            var singleFlight = buildSingleFlight(5000);
+            var failure = new IllegalStateException("database down");
+            var callStarted = new CountDownLatch(1);
+            var releaseCall = new CountDownLatch(1);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                // ---- WHEN ----
+                var first = executor.submit(() -> singleFlight.execute("key", () -> {
+                    callStarted.countDown();
+                    awaitQuietly(releaseCall);
+                    throw failure;
+                }));
+                callStarted.await();
+                var second = executor.submit(() -> singleFlight.execute("key", () -> "other result"));
+                awaitJoins(1);
+                releaseCall.countDown();
+
+                // ---- THEN ----
+                assertThatThrownBy(first::get).isInstanceOf(ExecutionException.class).hasCause(failure);
+                assertThatThrownBy(second::get).isInstanceOf(ExecutionException.class).hasCause(failure);
+            }
+            assertThat(singleFlight.runningCalls()).isZero();
+        }
+
+        @Test
+        @DisplayName("execute : when the running call lasts more than the timeout, then the waiting thread runs its own call")
+        void execute_timeout_shouldRunOwnCall() throws Exception {
+            // ---- GIVEN ----
+            var singleFlight = buildSingleFlight(20);
+            var callStarted = new CountDownLatch(1);
+            var releaseCall = new CountDownLatch(1);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var first = executor.submit(() -> singleFlight.execute("key", () -> {
+                    callStarted.countDown();
+                    awaitQuietly(releaseCall);
+                    return "slow result";
+                }));
+                callStarted.await();
+
+                // ---- WHEN ----
+                var result = singleFlight.execute("key", () -> "own result");
+
+                // ---- THEN ----
+                assertThat(result).isEqualTo("own result");
+                assertThat(timeoutCount.get()).isEqualTo(1);
+                releaseCall.countDown();
+                assertThat(first.get()).isEqualTo("slow result");
+            }
+        }
+
+        @Test
+        @DisplayName("execute : the calls of different keys do not wait for each other")
+        void execute_differentKeys_shouldNotCoalesce() {
+            var singleFlight = buildSingleFlight(5000);
+
+            assertThat(singleFlight.execute("key1", () -> singleFlight.execute("key2", () -> "result2") + "+result1")).isEqualTo("result2+result1");
+            assertThat(joinCount.get()).isZero();
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.project.urlshortener.configuration;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.service.UrlShortenerService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"url-shortener.read-replicas.enabled=true",
+		"url-shortener.read-replicas.datasources[0].url=" + ReadReplicaDataSourceConfigurationSpringTest.REPLICA_URL,
+		"url-shortener.read-replicas.datasources[0].username=sa",
+		"url-shortener.cache.enabled=false",
+		"url-shortener.bloom-filter.enabled=false"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReadReplicaDataSourceConfigurationSpringTest {
+
+	/**
+	 * A second H2 database, playing the read replica : it is not replicated, so that the tests can tell which database has been read.
+	 */
+	static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=CREATE TABLE IF NOT EXISTS SHORT_URL"
+			+ "(ID BIGINT AUTO_INCREMENT PRIMARY KEY, TOKEN VARCHAR(255) UNIQUE, ORIGINAL_URL VARCHAR(2048), ORIGINAL_URL_HASH BINARY(16) UNIQUE, EXPIRES_AT TIMESTAMP(6))";
+
+	@Autowired
+	private UrlShortenerService urlShortenerService;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private HikariDataSource primaryDataSource;
+
+	private final JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+	@BeforeEach
+	void setUp() {
+		replicaJdbcTemplate.update("delete from SHORT_URL");
+	}
+
+	@Test
+	@DisplayName("read replicas : a short url token is decoded from the read replica")
+	void decode_fromReplica() throws Exception {
+		// ---- GIVEN ----
+		String originalUrl = "https://www.journaldemontreal.com/replica";
+		replicaJdbcTemplate.update("insert into SHORT_URL (TOKEN, ORIGINAL_URL, ORIGINAL_URL_HASH) values (?, ?, ?)", "replicaTok", originalUrl, HashUtils.hash128(originalUrl));
+
+		// ---- WHEN / THEN ----
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken("replicaTok")).isEqualTo(originalUrl);
+		assertThat(countShortUrls(new JdbcTemplate(primaryDataSource), originalUrl)).isZero();
+	}
+
+	@Test
+	@DisplayName("read replicas : a new short url is inserted in the primary database, and is decoded from the primary database right after its creation")
+	void create_readYourWrites() throws Exception {
+		// ---- GIVEN ----
+		String originalUrl = "https://www.journaldemontreal.com/primary";
+
+		// ---- WHEN ----
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+
+		// ---- THEN ----
+		assertThat(countShortUrls(new JdbcTemplate(primaryDataSource), originalUrl)).isEqualTo(1);
+		assertThat(countShortUrls(replicaJdbcTemplate, originalUrl)).isZero();
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+		assertThat(urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl)).isEqualTo(shortUrl);
+	}
+
+	private static int countShortUrls(final JdbcTemplate jdbcTemplate, final String originalUrl) {
+		Integer count = jdbcTemplate.queryForObject("select count(*) from SHORT_URL where ORIGINAL_URL = ?", Integer.class, originalUrl);
+		return count == null ? 0 : count;
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.project.urlshortener.configuration;
+
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReadReplicaDataSourceTest {
+
+    @Mock
+    private HikariDataSource mockReplica1;
+    @Mock
+    private HikariDataSource mockReplica2;
+    @Mock
+    private HikariDataSource mockReplica3;
+
+    private static HikariPoolMXBean mockPool(final int activeConnections, final int threadsAwaitingConnection) {
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(pool.getActiveConnections()).thenReturn(activeConnections);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(threadsAwaitingConnection);
+        return pool;
+    }
+
+    @Nested
+    @DisplayName("ReadReplicaDataSource constructor tests")
+    class ConstructorTest {
+
+        @Test
+        @DisplayName("constructor : when there is no replica, then IllegalArgumentException")
+        void constructor_noReplica() {
+            assertThatThrownBy(() -> new ReadReplicaDataSource(List.of(), UrlShortenerProperties.ReadReplicas.Selection.ROUND_ROBIN))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("ReadReplicaDataSource.selectReplica tests")
+    class SelectReplicaTest {
+
+        @Test
+        @DisplayName("selectReplica : with ROUND_ROBIN, then each replica is chosen in turn")
+        void selectReplica_roundRobin() {
+            // ---- GIVEN ----
+            var dataSource = new ReadReplicaDataSource(List.of(mockReplica1, mockReplica2, mockReplica3), UrlShortenerProperties.ReadReplicas.Selection.ROUND_ROBIN);
+
+            // ---- WHEN ----
+            var replicas = IntStream.range(0, 6).mapToObj(i -> dataSource.selectReplica()).toList();
+
+            // ---- THEN ----
+            assertThat(replicas).containsExactly(mockReplica1, mockReplica2, mockReplica3, mockReplica1, mockReplica2, mockReplica3);
+        }
+
+        @Test
+        @DisplayName("selectReplica : with LEAST_LOADED, then the replica with the fewest connections in use or awaited is chosen")
+        void selectReplica_leastLoaded() {
+            // ---- GIVEN ----
+            var pool1 = mockPool(3, 0);
+            var pool2 = mockPool(2, 2);
+            var pool3 = mockPool(1, 1);
+            when(mockReplica1.getHikariPoolMXBean()).thenReturn(pool1);
+            when(mockReplica2.getHikariPoolMXBean()).thenReturn(pool2);
+            when(mockReplica3.getHikariPoolMXBean()).thenReturn(pool3);
+            var dataSource = new ReadReplicaDataSource(List.of(mockReplica1, mockReplica2, mockReplica3), UrlShortenerProperties.ReadReplicas.Selection.LEAST_LOADED);
+
+            // ---- WHEN / THEN ----
+            assertThat(dataSource.selectReplica()).isEqualTo(mockReplica3);
+            assertThat(dataSource.selectReplica()).isEqualTo(mockReplica3);
+        }
+
+        @Test
+        @DisplayName("selectReplica : with LEAST_LOADED, when the replicas have the same load (or have not started yet), then they are chosen in turn")
+        void selectReplica_leastLoaded_ties() {
+            // ---- GIVEN ----
+            when(mockReplica1.getHikariPoolMXBean()).thenReturn(null);
+            when(mockReplica2.getHikariPoolMXBean()).thenReturn(null);
+            var dataSource = new ReadReplicaDataSource(List.of(mockReplica1, mockReplica2), UrlShortenerProperties.ReadReplicas.Selection.LEAST_LOADED);
+
+            // ---- WHEN ----
+            var replicas = IntStream.range(0, 4).mapToObj(i -> dataSource.selectReplica()).toList();
+
+            // ---- THEN ----
+            assertThat(replicas).containsExactly(mockReplica1, mockReplica2, mockReplica1, mockReplica2);
+        }
+    }
+
+    @Nested
+    @DisplayName("ReadReplicaDataSource.close tests")
+    class CloseTest {
+
+        @Test
+        @DisplayName("close : then the pools of all the replicas are closed")
+        void close_closesAllReplicas() {
+            // ---- GIVEN ----
+            var dataSource = new ReadReplicaDataSource(List.of(mockReplica1, mockReplica2), UrlShortenerProperties.ReadReplicas.Selection.ROUND_ROBIN);
+
+            // ---- WHEN ----
+            dataSource.close();
+
+            // ---- THEN ----
+            verify(mockReplica1).close();
+            verify(mockReplica2).close();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.project.urlshortener.controller;
 
+import com.project.urlshortener.common.utils.HashUtils;
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchItem;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchResponse;
 import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlResponse;
 import com.project.urlshortener.model.entities.ShortUrlEntity;
 import com.project.urlshortener.repository.ShortUrlRepository;
@@ -18,6 +21,8 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.util.List;
+
 import static com.project.urlshortener.utils.AssertionUtils.assertStringStartsWith;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -435,4 +440,103 @@ public class CreateShortUrlControllerSpringTest {
 
 	}
 
+	@Nested
+	@DisplayName("POST /batch Spring tests")
+	class CreateShortUrlsTest {
+
+		private String jsonObject;
+		private ResponseEntity<UrlShortenerCreateShortUrlBatchResponse> responseEntity;
+
+		@BeforeEach
+		void setUp() {
+			this.jsonObject = null;
+			this.responseEntity = null;
+		}
+
+		@Test
+		@DisplayName("POST /batch : when some urls already exist, some are new, some are invalid and some are repeated, then httpStatus is OK and each url has its own result, in the order of the request")
+		void createShortUrls_resultPerUrl() {
+			given_alreadyExistingUrl("https://www.journaldemontreal.com/", "abcdeFGHIJ");
+			given_jsonRequest("""
+			{
+				"urls": [ "https://www.tvanouvelles.ca/", "https://www.journaldemontreal.com/", "invalidurl", "https://www.tvanouvelles.ca/", "https://www.lapresse.ca/" ]
+			}
+			""");
+
+			when_callEndpointCreateShortUrls("lang=en");
+
+			then_responseHttpCodeIs(HttpStatus.OK);
+			List<UrlShortenerCreateShortUrlBatchItem> results = responseEntity.getBody().getResults();
+			assertEquals(5, results.size());
+			assertEquals("https://www.tvanouvelles.ca/", results.get(0).getUrl());
+			assertTrue(results.get(0).isSuccess());
+			assertStringStartsWith("http://junit-hostname/", results.get(0).getShortUrl());
+			assertEquals("http://junit-hostname/abcdeFGHIJ", results.get(1).getShortUrl());
+			assertFalse(results.get(2).isSuccess());
+			assertNull(results.get(2).getShortUrl());
+			assertEquals("The url [invalidurl] is invalid.", results.get(2).getError());
+			assertEquals(results.get(0).getShortUrl(), results.get(3).getShortUrl());
+			assertTrue(results.get(4).isSuccess());
+			assertNotEquals(results.get(0).getShortUrl(), results.get(4).getShortUrl());
+		}
+
+		@Test
+		@DisplayName("POST /batch : the new short urls are saved with the hash of their url, and are returned again by the single url endpoint")
+		void createShortUrls_newRowsAreFoundByHash() {
+			given_jsonRequest("""
+			{
+				"urls": [ "https://www.tvanouvelles.ca/", "https://www.lapresse.ca/" ]
+			}
+			""");
+
+			when_callEndpointCreateShortUrls(null);
+
+			then_responseHttpCodeIs(HttpStatus.OK);
+			ShortUrlEntity savedEntity = shortUrlRepository.findByOriginalUrlHash(HashUtils.hash128("https://www.lapresse.ca/"));
+			assertNotNull(savedEntity);
+			assertNotNull(savedEntity.getId());
+			assertEquals(urlShortenerProperties.baseUrl() + savedEntity.getToken(), responseEntity.getBody().getResults().get(1).getShortUrl());
+			assertEquals(2, shortUrlRepository.count());
+		}
+
+		@Test
+		@DisplayName("POST /batch : when the urls are missing, then httpStatus is BAD_REQUEST")
+		void createShortUrls_error_noUrls() {
+			given_jsonRequest("""
+			{
+				"urls": [ ]
+			}
+			""");
+
+			when_callEndpointCreateShortUrls(null);
+
+			then_responseHttpCodeIs(HttpStatus.BAD_REQUEST);
+			assertFalse(responseEntity.getBody().isSuccess());
+		}
+
+		private void given_alreadyExistingUrl(final String originalUrl, final String shortUrlToken) {
+			shortUrlRepository.save(ShortUrlEntity.builder().token(shortUrlToken).originalUrl(originalUrl).build());
+		}
+
+		private void given_jsonRequest(final String json) {
+			jsonObject = json;
+		}
+
+		private void when_callEndpointCreateShortUrls(final String optionalParameterLanguageParam) {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			HttpEntity<String> httpRequest = new HttpEntity<>(jsonObject, headers);
+
+			String endpoint = "/batch" + (optionalParameterLanguageParam != null ? "?" + optionalParameterLanguageParam : StringUtils.EMPTY);
+			responseEntity = restTemplate.exchange(endpoint, HttpMethod.POST, httpRequest, new ParameterizedTypeReference<>(){});
+		}
+
+		private void then_responseHttpCodeIs(final HttpStatus expectedHttpStatus) {
+			assertNotNull(responseEntity);
+			assertEquals(expectedHttpStatus, responseEntity.getStatusCode());
+			assertNotNull(responseEntity.getBody());
+		}
+
+	}
+
 }
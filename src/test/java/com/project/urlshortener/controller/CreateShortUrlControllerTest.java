@@ -1,9 +1,16 @@
 package com.project.urlshortener.controller;
 
 import com.project.urlshortener.common.model.RestBasicResponse;
+import com.project.urlshortener.exception.ShortUrlBatchTooLargeException;
+import com.project.urlshortener.exception.ShortUrlInvalidExpirationException;
 import com.project.urlshortener.exception.ShortUrlInvalidUrlException;
+import com.project.urlshortener.exception.ShortUrlRateLimitExceededException;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchItem;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchRequest;
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlBatchResponse;
 import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlRequest;
 import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlResponse;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
 import com.project.urlshortener.service.UrlShortenerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,15 +21,19 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Locale;
 
 import static com.project.urlshortener.utils.AssertionUtils.assertException;
 import static com.project.urlshortener.utils.AssertionUtils.assertNoException;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class CreateShortUrlControllerTest {
@@ -65,33 +76,61 @@ public class CreateShortUrlControllerTest {
 
 		@Test
 		@DisplayName("createShortUrl : when originalUrl is passed as a parameter and service.createShortUrlTokenForOriginalUrl returns the short url, then service.getOriginalUrlForShortUrlToken is called and short url is returned")
-		void createShortUrl_shortUrlCreated() throws ShortUrlInvalidUrlException {
-			when(mockUrlShortenerService.obtainShortUrlForOriginalCompleteUrl("http://myurl")).thenReturn("http://shorturl/0123456789");
+		void createShortUrl_shortUrlCreated() throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException {
+			when(mockUrlShortenerService.obtainShortUrlForOriginalCompleteUrl("http://myurl", null)).thenReturn("http://shorturl/0123456789");
 
 
 			given_createShortUrlRequest(UrlShortenerCreateShortUrlRequest.builder().url("http://myurl").build());
 
 			when_createShortUrl();
 
-			then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled("http://myurl");
+			then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled("http://myurl", null);
 			then_noException();
 			then_resultShortUrlIs("http://shorturl/0123456789");
 		}
 
 		@Test
 		@DisplayName("createShortUrl : when originalUrl is passed as a parameter but service.createShortUrlTokenForOriginalUrl throws ShortUrlInvalidUrlException, then service.getOriginalUrlForShortUrlToken is called and ShortUrlInvalidUrlException is thrown")
-		void createShortUrl_error_invalidUrl() throws ShortUrlInvalidUrlException {
-			when(mockUrlShortenerService.obtainShortUrlForOriginalCompleteUrl("httpmyurl")).thenThrow(new ShortUrlInvalidUrlException("httpmyurl"));
+		void createShortUrl_error_invalidUrl() throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException {
+			when(mockUrlShortenerService.obtainShortUrlForOriginalCompleteUrl("httpmyurl", null)).thenThrow(new ShortUrlInvalidUrlException("httpmyurl"));
 
 
 			given_createShortUrlRequest(UrlShortenerCreateShortUrlRequest.builder().url("httpmyurl").build());
 
 			when_createShortUrl();
 
-			then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled("httpmyurl");
+			then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled("httpmyurl", null);
 			then_exceptionThrown(ShortUrlInvalidUrlException.class, "[url=httpmyurl]");
 		}
 
+		@Test
+		@DisplayName("createShortUrl : when an expiration time is passed as a parameter, then it is passed to service.obtainShortUrlForOriginalCompleteUrl and short url is returned")
+		void createShortUrl_withExpiration_shortUrlCreated() throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException {
+			Instant expiresAt = Instant.parse("2030-01-31T23:59:59Z");
+			when(mockUrlShortenerService.obtainShortUrlForOriginalCompleteUrl("http://myurl", expiresAt)).thenReturn("http://shorturl/0123456789");
+
+			given_createShortUrlRequest(UrlShortenerCreateShortUrlRequest.builder().url("http://myurl").expiresAt(expiresAt).build());
+
+			when_createShortUrl();
+
+			then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled("http://myurl", expiresAt);
+			then_noException();
+			then_resultShortUrlIs("http://shorturl/0123456789");
+		}
+
+		@Test
+		@DisplayName("createShortUrl : when service.obtainShortUrlForOriginalCompleteUrl throws ShortUrlInvalidExpirationException, then ShortUrlInvalidExpirationException is thrown")
+		void createShortUrl_error_invalidExpiration() throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException {
+			Instant expiresAt = Instant.parse("2020-01-31T23:59:59Z");
+			when(mockUrlShortenerService.obtainShortUrlForOriginalCompleteUrl("http://myurl", expiresAt)).thenThrow(new ShortUrlInvalidExpirationException(expiresAt));
+
+			given_createShortUrlRequest(UrlShortenerCreateShortUrlRequest.builder().url("http://myurl").expiresAt(expiresAt).build());
+
+			when_createShortUrl();
+
+			then_exceptionThrown(ShortUrlInvalidExpirationException.class, "[expiresAt=2020-01-31T23:59:59Z]");
+		}
+
 
 
 		private void given_createShortUrlRequest(UrlShortenerCreateShortUrlRequest request) {
@@ -106,8 +145,8 @@ public class CreateShortUrlControllerTest {
 			}
 		}
 
-		private void then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled(String token) throws ShortUrlInvalidUrlException {
-			verify(mockUrlShortenerService, times(1)).obtainShortUrlForOriginalCompleteUrl(token);
+		private void then_urlShortenerServiceCreateShortUrlTokenForOriginalUrlWasCalled(String token, Instant expiresAt) throws ShortUrlInvalidUrlException, ShortUrlInvalidExpirationException {
+			verify(mockUrlShortenerService, times(1)).obtainShortUrlForOriginalCompleteUrl(token, expiresAt);
 		}
 
 		private void then_exceptionThrown(final Class<? extends Exception> expectedException, final String expectedExceptionMessage) {
@@ -128,6 +167,94 @@ public class CreateShortUrlControllerTest {
 	}
 
 
+	@Nested
+	@DisplayName("CreateShortUrlController.createShortUrls tests")
+	class CreateShortUrlsTest {
+
+		@Mock
+		private UrlShortenerService mockUrlShortenerService;
+
+		@Mock
+		private MessageSource mockMessageSource;
+
+		@InjectMocks
+		private CreateShortUrlController createShortUrlController;
+
+		private UrlShortenerCreateShortUrlBatchRequest parameterUrlShortenerCreateShortUrlBatchRequest;
+		private ResponseEntity<UrlShortenerCreateShortUrlBatchResponse> resultCreateShortUrlBatchResponse;
+		private Exception caughtException;
+
+		@BeforeEach
+		void setUp() {
+			MockitoAnnotations.openMocks(this);
+			parameterUrlShortenerCreateShortUrlBatchRequest = null;
+			resultCreateShortUrlBatchResponse = null;
+			caughtException = null;
+			setUpMessageSourceForExceptions(mockMessageSource);
+		}
+
+		@Test
+		@DisplayName("createShortUrls : when urls are passed as a parameter, then service.obtainShortUrlsForOriginalCompleteUrls is called and each url has its short url or its localized error")
+		void createShortUrls_resultPerUrl() throws ShortUrlBatchTooLargeException {
+			when(mockUrlShortenerService.obtainShortUrlsForOriginalCompleteUrls(List.of("http://myurl", "httpmyurl"))).thenReturn(List.of(
+					new CreateShortUrlResult("http://myurl", "http://shorturl/0123456789", null),
+					new CreateShortUrlResult("httpmyurl", null, new ShortUrlInvalidUrlException("httpmyurl"))));
+			given_locale(Locale.ENGLISH);
+			given_createShortUrlBatchRequest(UrlShortenerCreateShortUrlBatchRequest.builder().urls(List.of("http://myurl", "httpmyurl")).build());
+
+			when_createShortUrls();
+
+			then_noException();
+			then_resultItemsAre(
+					UrlShortenerCreateShortUrlBatchItem.builder().url("http://myurl").shortUrl("http://shorturl/0123456789").success(true).build(),
+					UrlShortenerCreateShortUrlBatchItem.builder().url("httpmyurl").success(false).error("error.shorturl.InvalidUrl-en-param=[httpmyurl]").build());
+		}
+
+		@Test
+		@DisplayName("createShortUrls : when service.obtainShortUrlsForOriginalCompleteUrls throws ShortUrlBatchTooLargeException, then ShortUrlBatchTooLargeException is thrown")
+		void createShortUrls_error_batchTooLarge() throws ShortUrlBatchTooLargeException {
+			when(mockUrlShortenerService.obtainShortUrlsForOriginalCompleteUrls(anyList())).thenThrow(new ShortUrlBatchTooLargeException(3, 2));
+			given_createShortUrlBatchRequest(UrlShortenerCreateShortUrlBatchRequest.builder().urls(List.of("http://url1", "http://url2", "http://url3")).build());
+
+			when_createShortUrls();
+
+			then_exceptionThrown(ShortUrlBatchTooLargeException.class, "[size=3,maxSize=2]");
+		}
+
+		private void given_locale(final Locale locale) {
+			LocaleContextHolder.setDefaultLocale(locale);
+		}
+
+		private void given_createShortUrlBatchRequest(final UrlShortenerCreateShortUrlBatchRequest request) {
+			this.parameterUrlShortenerCreateShortUrlBatchRequest = request;
+		}
+
+		private void when_createShortUrls() {
+			try {
+				resultCreateShortUrlBatchResponse = createShortUrlController.createShortUrls(parameterUrlShortenerCreateShortUrlBatchRequest);
+			} catch(Exception e) {
+				caughtException = e;
+			}
+		}
+
+		private void then_exceptionThrown(final Class<? extends Exception> expectedException, final String expectedExceptionMessage) {
+			assertException(caughtException, expectedException, expectedExceptionMessage);
+		}
+
+		private void then_noException() {
+			assertNoException(caughtException);
+		}
+
+		private void then_resultItemsAre(final UrlShortenerCreateShortUrlBatchItem... expectedItems) {
+			assertNotNull(resultCreateShortUrlBatchResponse);
+			assertEquals(HttpStatus.OK, resultCreateShortUrlBatchResponse.getStatusCode());
+			assertNotNull(resultCreateShortUrlBatchResponse.getBody());
+			assertTrue(resultCreateShortUrlBatchResponse.getBody().isSuccess());
+			assertEquals(List.of(expectedItems), resultCreateShortUrlBatchResponse.getBody().getResults());
+		}
+	}
+
+
 	@Nested
 	@DisplayName("CreateShortUrlController.onShortUrlInvalidUrlException tests")
 	class OnShortUrlInvalidUrlExceptionTest {
@@ -198,5 +325,39 @@ public class CreateShortUrlControllerTest {
 
 	}
 
+	@Nested
+	@DisplayName("CreateShortUrlController.onShortUrlRateLimitExceededException tests")
+	class OnShortUrlRateLimitExceededExceptionTest {
+
+		@Mock
+		private UrlShortenerService mockUrlShortenerService;
+
+		@Mock
+		private MessageSource mockMessageSource;
+
+		@InjectMocks
+		private CreateShortUrlController createShortUrlController;
+
+		@BeforeEach
+		void setUp() {
+			MockitoAnnotations.openMocks(this);
+			setUpMessageSourceForExceptions(mockMessageSource);
+		}
+
+		@Test
+		@DisplayName("onShortUrlRateLimitExceededException : should return TOO_MANY_REQUESTS with the delay in the Retry-After header, and a localized error with the delay as a parameter")
+		void onShortUrlRateLimitExceededException_localeEnglish() {
+			LocaleContextHolder.setDefaultLocale(Locale.ENGLISH);
+
+			ResponseEntity<RestBasicResponse> result = createShortUrlController.onShortUrlRateLimitExceededException(new ShortUrlRateLimitExceededException(3L));
+
+			assertEquals(HttpStatus.TOO_MANY_REQUESTS, result.getStatusCode());
+			assertEquals("3", result.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+			assertEquals(RestBasicResponse.builder().success(false).error("error.shorturl.RateLimitExceeded-en-param=[3]").build(), result.getBody());
+			verify(mockMessageSource, times(1)).getMessage("error.shorturl.RateLimitExceeded", new String[] { "3" }, Locale.ENGLISH);
+		}
+
+	}
+
 
 }
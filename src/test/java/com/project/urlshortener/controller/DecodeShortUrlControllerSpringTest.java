@@ -1,6 +1,7 @@
 package com.project.urlshortener.controller;
 
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlBatchResponse;
 import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlResponse;
 import com.project.urlshortener.model.entities.ShortUrlEntity;
 import com.project.urlshortener.repository.ShortUrlRepository;
@@ -13,11 +14,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.*;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment= SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -207,5 +209,75 @@ public class DecodeShortUrlControllerSpringTest {
 
 	}
 
+	@Nested
+	@DisplayName("POST /decode/batch Spring tests")
+	class DecodeShortUrlsTest {
+
+		private String jsonObject;
+		private ResponseEntity<UrlShortenerDecodeShortUrlBatchResponse> responseEntity;
+
+		@BeforeEach
+		void setUp() {
+			this.jsonObject = null;
+			this.responseEntity = null;
+		}
+
+		@Test
+		@DisplayName("POST /decode/batch : when some tokens exist and some do not, then httpStatus is OK, the original url of each known token is returned and the other tokens are listed as unknown")
+		void decodeShortUrls_knownAndUnknownTokens() {
+			given_alreadyExistingUrl("https://www.journaldemontreal.com/", "abcdeFGHIJ");
+			given_alreadyExistingUrl("https://www.lapresse.ca/", "KLMNOpqrst");
+			given_jsonRequest("""
+			{
+				"tokens": [ "KLMNOpqrst", "0123456789", "abcdeFGHIJ", "", "KLMNOpqrst" ]
+			}
+			""");
+
+			when_callEndpointDecodeShortUrls();
+
+			then_responseHttpCodeIs(HttpStatus.OK);
+			assertTrue(responseEntity.getBody().isSuccess());
+			assertEquals(Map.of("KLMNOpqrst", "https://www.lapresse.ca/", "abcdeFGHIJ", "https://www.journaldemontreal.com/"), responseEntity.getBody().getOriginalCompleteUrls());
+			assertEquals(List.of("0123456789", StringUtils.EMPTY), responseEntity.getBody().getUnknownTokens());
+		}
+
+		@Test
+		@DisplayName("POST /decode/batch : when the tokens are missing, then httpStatus is BAD_REQUEST")
+		void decodeShortUrls_error_noTokens() {
+			given_jsonRequest("""
+			{
+				"tokens": [ ]
+			}
+			""");
+
+			when_callEndpointDecodeShortUrls();
+
+			then_responseHttpCodeIs(HttpStatus.BAD_REQUEST);
+			assertFalse(responseEntity.getBody().isSuccess());
+		}
+
+		private void given_alreadyExistingUrl(final String originalUrl, final String shortUrlToken) {
+			shortUrlRepository.save(ShortUrlEntity.builder().token(shortUrlToken).originalUrl(originalUrl).build());
+		}
+
+		private void given_jsonRequest(final String json) {
+			jsonObject = json;
+		}
+
+		private void when_callEndpointDecodeShortUrls() {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			HttpEntity<String> httpRequest = new HttpEntity<>(jsonObject, headers);
+
+			responseEntity = restTemplate.exchange("/decode/batch", HttpMethod.POST, httpRequest, new ParameterizedTypeReference<>(){});
+		}
+
+		private void then_responseHttpCodeIs(final HttpStatus expectedHttpStatus) {
+			assertNotNull(responseEntity);
+			assertEquals(expectedHttpStatus, responseEntity.getStatusCode());
+			assertNotNull(responseEntity.getBody());
+		}
+
+	}
 
 }
@@ -1,9 +1,13 @@
 package com.project.urlshortener.controller;
 
 import com.project.urlshortener.common.model.RestBasicResponse;
+import com.project.urlshortener.exception.ShortUrlBatchTooLargeException;
 import com.project.urlshortener.exception.ShortUrlInvalidTokenException;
 import com.project.urlshortener.exception.ShortUrlTokenNotFoundException;
+import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlBatchRequest;
+import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlBatchResponse;
 import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlResponse;
+import com.project.urlshortener.model.shorturl.DecodeShortUrlsResult;
 import com.project.urlshortener.service.UrlShortenerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,7 +21,9 @@ import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import static com.project.urlshortener.utils.AssertionUtils.assertException;
 import static com.project.urlshortener.utils.AssertionUtils.assertNoException;
@@ -124,6 +130,83 @@ public class DecodeShortUrlControllerTest {
 	}
 
 
+	@Nested
+	@DisplayName("DecodeShortUrlController.decodeShortUrls tests")
+	class DecodeShortUrlsTest {
+
+		@Mock
+		private UrlShortenerService mockUrlShortenerService;
+
+		@Mock
+		private MessageSource mockMessageSource;
+
+		@InjectMocks
+		private DecodeShortUrlController decodeShortUrlController;
+
+		private UrlShortenerDecodeShortUrlBatchRequest parameterUrlShortenerDecodeShortUrlBatchRequest;
+		private ResponseEntity<UrlShortenerDecodeShortUrlBatchResponse> resultDecodeShortUrlBatchResponse;
+		private Exception caughtException;
+
+		@BeforeEach
+		void setUp() {
+			MockitoAnnotations.openMocks(this);
+			parameterUrlShortenerDecodeShortUrlBatchRequest = null;
+			resultDecodeShortUrlBatchResponse = null;
+			caughtException = null;
+		}
+
+		@Test
+		@DisplayName("decodeShortUrls : when tokens are passed as a parameter, then service.getOriginalUrlsForShortUrlTokens is called and the original urls and the unknown tokens are returned")
+		void decodeShortUrls_originalUrlsFound() throws ShortUrlBatchTooLargeException {
+			when(mockUrlShortenerService.getOriginalUrlsForShortUrlTokens(List.of("abcde12345", "unknown")))
+					.thenReturn(new DecodeShortUrlsResult(Map.of("abcde12345", "http://junit-url-for-token/"), List.of("unknown")));
+			given_decodeShortUrlBatchRequest(UrlShortenerDecodeShortUrlBatchRequest.builder().tokens(List.of("abcde12345", "unknown")).build());
+
+			when_decodeShortUrls();
+
+			then_noException();
+			assertNotNull(resultDecodeShortUrlBatchResponse);
+			assertEquals(HttpStatus.OK, resultDecodeShortUrlBatchResponse.getStatusCode());
+			assertEquals(UrlShortenerDecodeShortUrlBatchResponse.builder()
+					.originalCompleteUrls(Map.of("abcde12345", "http://junit-url-for-token/"))
+					.unknownTokens(List.of("unknown"))
+					.success(true)
+					.build(), resultDecodeShortUrlBatchResponse.getBody());
+		}
+
+		@Test
+		@DisplayName("decodeShortUrls : when service.getOriginalUrlsForShortUrlTokens throws ShortUrlBatchTooLargeException, then ShortUrlBatchTooLargeException is thrown")
+		void decodeShortUrls_error_batchTooLarge() throws ShortUrlBatchTooLargeException {
+			when(mockUrlShortenerService.getOriginalUrlsForShortUrlTokens(anyList())).thenThrow(new ShortUrlBatchTooLargeException(3, 2));
+			given_decodeShortUrlBatchRequest(UrlShortenerDecodeShortUrlBatchRequest.builder().tokens(List.of("a", "b", "c")).build());
+
+			when_decodeShortUrls();
+
+			then_exceptionThrown(ShortUrlBatchTooLargeException.class, "[size=3,maxSize=2]");
+		}
+
+		private void given_decodeShortUrlBatchRequest(final UrlShortenerDecodeShortUrlBatchRequest request) {
+			this.parameterUrlShortenerDecodeShortUrlBatchRequest = request;
+		}
+
+		private void when_decodeShortUrls() {
+			try {
+				resultDecodeShortUrlBatchResponse = decodeShortUrlController.decodeShortUrls(parameterUrlShortenerDecodeShortUrlBatchRequest);
+			} catch(Exception e) {
+				caughtException = e;
+			}
+		}
+
+		private void then_exceptionThrown(final Class<? extends Exception> expectedException, final String expectedExceptionMessage) {
+			assertException(caughtException, expectedException, expectedExceptionMessage);
+		}
+
+		private void then_noException() {
+			assertNoException(caughtException);
+		}
+	}
+
+
 	@Nested
 	@DisplayName("DecodeShortUrlController.onShortUrlInvalidTokenException tests")
 	class OnShortUrlInvalidTokenExceptionTest {
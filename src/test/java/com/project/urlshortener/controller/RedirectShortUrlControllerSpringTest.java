@@ -0,0 +1,129 @@
+package com.project.urlshortener.controller;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static com.project.urlshortener.utils.AssertionUtils.assertStringContains;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment= SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class RedirectShortUrlControllerSpringTest {
+
+	private static final String BROWSER_ACCEPT = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Nested
+	@DisplayName("GET / (text/html) Spring tests")
+	class RedirectShortUrlTest {
+
+		private String parameterShortUrlToken;
+		private String accept;
+		private ResponseEntity<String> responseEntity;
+
+		@BeforeEach
+		void setUp() {
+			this.parameterShortUrlToken = null;
+			this.accept = null;
+			this.responseEntity = null;
+		}
+
+		@Test
+		@DisplayName("GET / : when a browser reads a url token which exists in the database, then httpStatus is FOUND, with the original url in the Location header, the Cache-Control header and no body")
+		void redirectShortUrl_TokenFound() {
+			given_alreadyExistingUrl("https://www.journaldemontreal.com/", "abcdeFGHIJ");
+			given_shortUrlToken("abcdeFGHIJ");
+			given_accept(BROWSER_ACCEPT);
+
+			when_callEndpointDecodeShortUrl();
+
+			then_responseHttpCodeIs(HttpStatus.FOUND);
+			assertEquals("https://www.journaldemontreal.com/", responseEntity.getHeaders().getFirst(HttpHeaders.LOCATION));
+			assertEquals("no-store", responseEntity.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+			assertNull(responseEntity.getBody());
+		}
+
+		@Test
+		@DisplayName("GET / : when a browser reads a url token which does not exist, then httpStatus is NOT FOUND, and error is error.shorturl.TokenNotFound")
+		void redirectShortUrl_error_TokenNotFound() {
+			given_shortUrlToken("0123456789");
+			given_accept(BROWSER_ACCEPT);
+
+			when_callEndpointDecodeShortUrl();
+
+			then_responseHttpCodeIs(HttpStatus.NOT_FOUND);
+			assertNull(responseEntity.getHeaders().getFirst(HttpHeaders.LOCATION));
+			assertStringContains("No url could be found for the token[0123456789].", responseEntity.getBody());
+		}
+
+		@Test
+		@DisplayName("GET / : when a browser accepting only text/html reads a url token which does not exist, then httpStatus is NOT FOUND with an html page, and the token is escaped")
+		void redirectShortUrl_error_TokenNotFound_htmlOnly() {
+			given_shortUrlToken("<b>bad");
+			given_accept(MediaType.TEXT_HTML_VALUE);
+
+			when_callEndpointDecodeShortUrl();
+
+			then_responseHttpCodeIs(HttpStatus.NOT_FOUND);
+			assertNotNull(responseEntity.getHeaders().getContentType());
+			assertTrue(responseEntity.getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_HTML));
+			assertStringContains("&lt;b&gt;bad", responseEntity.getBody());
+			assertFalse(responseEntity.getBody().contains("<b>bad"));
+		}
+
+		@Test
+		@DisplayName("GET / : when a program reads a url token with application/json, then httpStatus is OK and the JSON response is returned")
+		void redirectShortUrl_jsonStillAvailable() {
+			given_alreadyExistingUrl("https://www.journaldemontreal.com/", "abcdeFGHIJ");
+			given_shortUrlToken("abcdeFGHIJ");
+			given_accept(MediaType.APPLICATION_JSON_VALUE);
+
+			when_callEndpointDecodeShortUrl();
+
+			then_responseHttpCodeIs(HttpStatus.OK);
+			assertNull(responseEntity.getHeaders().getFirst(HttpHeaders.LOCATION));
+			assertStringContains("\"originalCompleteUrl\":\"https://www.journaldemontreal.com/\"", responseEntity.getBody());
+		}
+
+		private void given_alreadyExistingUrl(final String originalUrl, final String shortUrlToken) {
+			shortUrlRepository.save(ShortUrlEntity.builder().token(shortUrlToken).originalUrl(originalUrl).build());
+		}
+
+		private void given_shortUrlToken(final String shortUrlToken) {
+			this.parameterShortUrlToken = shortUrlToken;
+		}
+
+		private void given_accept(final String accept) {
+			this.accept = accept;
+		}
+
+		private void when_callEndpointDecodeShortUrl() {
+			HttpHeaders headers = new HttpHeaders();
+			headers.set(HttpHeaders.ACCEPT, accept);
+			// the redirections are not followed, so that the redirection itself is tested
+			responseEntity = restTemplate.withRequestFactorySettings(settings -> settings.withRedirects(ClientHttpRequestFactorySettings.Redirects.DONT_FOLLOW))
+					.exchange("/" + parameterShortUrlToken, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+		}
+
+		private void then_responseHttpCodeIs(final HttpStatus expectedHttpStatus) {
+			assertNotNull(responseEntity);
+			assertEquals(expectedHttpStatus, responseEntity.getStatusCode());
+		}
+	}
+
+}
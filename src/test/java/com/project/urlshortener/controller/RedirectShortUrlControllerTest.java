@@ -0,0 +1,132 @@
+package com.project.urlshortener.controller;
+
+import com.project.urlshortener.exception.ShortUrlInvalidTokenException;
+import com.project.urlshortener.exception.ShortUrlTokenNotFoundException;
+import com.project.urlshortener.service.UrlShortenerService;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static com.project.urlshortener.utils.AssertionUtils.assertException;
+import static com.project.urlshortener.utils.AssertionUtils.assertNoException;
+import static com.project.urlshortener.utils.AssertionUtils.assertStringContains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class RedirectShortUrlControllerTest {
+
+	@Nested
+	@DisplayName("RedirectShortUrlController.redirectShortUrl tests")
+	class RedirectShortUrlTest {
+
+		@Mock
+		private UrlShortenerService mockUrlShortenerService;
+
+		@Mock
+		private MessageSource mockMessageSource;
+
+		private RedirectShortUrlController redirectShortUrlController;
+
+		private MockHttpServletResponse response;
+		private Exception caughtException;
+
+		@BeforeEach
+		void setUp() {
+			MockitoAnnotations.openMocks(this);
+			response = new MockHttpServletResponse();
+			caughtException = null;
+		}
+
+		@Test
+		@DisplayName("redirectShortUrl : when service.getOriginalUrlForShortUrlToken returns the original url, then the configured status, the Location header and the Cache-Control header are written, without body")
+		void redirectShortUrl_originalUrlFound() throws ShortUrlInvalidTokenException, ShortUrlTokenNotFoundException {
+			when(mockUrlShortenerService.getOriginalUrlForShortUrlToken("abcde12345")).thenReturn("http://junit-url-for-token/");
+			given_redirectProperties(301, "public, max-age=86400");
+
+			when_redirectShortUrl("abcde12345");
+
+			then_noException();
+			assertEquals(301, response.getStatus());
+			assertEquals("http://junit-url-for-token/", response.getHeader(HttpHeaders.LOCATION));
+			assertEquals("public, max-age=86400", response.getHeader(HttpHeaders.CACHE_CONTROL));
+			assertEquals(0, response.getContentLength());
+		}
+
+		@Test
+		@DisplayName("redirectShortUrl : when the configured Cache-Control is blank, then no Cache-Control header is written")
+		void redirectShortUrl_noCacheControl() throws ShortUrlInvalidTokenException, ShortUrlTokenNotFoundException {
+			when(mockUrlShortenerService.getOriginalUrlForShortUrlToken("abcde12345")).thenReturn("http://junit-url-for-token/");
+			given_redirectProperties(302, StringUtils.SPACE);
+
+			when_redirectShortUrl("abcde12345");
+
+			then_noException();
+			assertEquals(302, response.getStatus());
+			assertNull(response.getHeader(HttpHeaders.CACHE_CONTROL));
+		}
+
+		@Test
+		@DisplayName("redirectShortUrl : when service.getOriginalUrlForShortUrlToken throws ShortUrlTokenNotFoundException, then ShortUrlTokenNotFoundException is thrown and no Location header is written")
+		void redirectShortUrl_error_tokenNotFound() throws ShortUrlInvalidTokenException, ShortUrlTokenNotFoundException {
+			when(mockUrlShortenerService.getOriginalUrlForShortUrlToken("abcde12345")).thenThrow(new ShortUrlTokenNotFoundException("abcde12345"));
+			given_redirectProperties(302, "private, max-age=300");
+
+			when_redirectShortUrl("abcde12345");
+
+			then_exceptionThrown(ShortUrlTokenNotFoundException.class, "[token=abcde12345]");
+			assertNull(response.getHeader(HttpHeaders.LOCATION));
+		}
+
+		@Test
+		@DisplayName("onShortUrlInvalidTokenException : then BAD_REQUEST with an html page containing the escaped localized error")
+		void onShortUrlInvalidTokenException_htmlPage() {
+			when(mockMessageSource.getMessage(anyString(), any(), any())).thenReturn("The token [<script>] is invalid.");
+			given_redirectProperties(302, "no-store");
+
+			ResponseEntity<String> result = redirectShortUrlController.onShortUrlInvalidTokenException(new ShortUrlInvalidTokenException("<script>"));
+
+			assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+			assertNotNull(result.getHeaders().getContentType());
+			assertTrue(result.getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_HTML));
+			assertStringContains("The token [&lt;script&gt;] is invalid.", result.getBody());
+		}
+
+		private void given_redirectProperties(final int status, final String cacheControl) {
+			redirectShortUrlController = new RedirectShortUrlController(mockUrlShortenerService, mockMessageSource,
+					new UrlShortenerPropertiesBuilder().withRedirectStatus(status).withRedirectCacheControl(cacheControl).buildSpy());
+		}
+
+		private void when_redirectShortUrl(final String token) {
+			try {
+				redirectShortUrlController.redirectShortUrl(token, response);
+			} catch(Exception e) {
+				caughtException = e;
+			}
+		}
+
+		private void then_exceptionThrown(final Class<? extends Exception> expectedException, final String expectedExceptionMessage) {
+			assertException(caughtException, expectedException, expectedExceptionMessage);
+		}
+
+		private void then_noException() {
+			assertNoException(caughtException);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.project.urlshortener.job;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.OriginalUrlHashBackfillStatus;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OriginalUrlHashBackfillJobTest {
+
+    @Mock
+    private ShortUrlRepository mockShortUrlRepository;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    private final OriginalUrlHashBackfillStatus originalUrlHashBackfillStatus = new OriginalUrlHashBackfillStatus();
+
+    private OriginalUrlHashBackfillJob originalUrlHashBackfillJob;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        originalUrlHashBackfillJob = new OriginalUrlHashBackfillJob(mockShortUrlRepository, mockTransactionTemplate, new UrlShortenerPropertiesBuilder().withBackfillBatchSize(2).buildSpy(),
+                originalUrlHashBackfillStatus);
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(mockTransactionTemplate).executeWithoutResult(any());
+    }
+
+    private static ShortUrlEntity shortUrl(final long id, final String originalUrl) {
+        return ShortUrlEntity.builder().id(id).token("token" + id).originalUrl(originalUrl).build();
+    }
+
+    @Nested
+    @DisplayName("OriginalUrlHashBackfillJob.backfillOriginalUrlHashes tests")
+    class BackfillOriginalUrlHashesTest {
+
+        @Test
+        @DisplayName("backfillOriginalUrlHashes : the rows are read in batches after the last id, their hash is computed and saved, then the job is completed")
+        void backfillOriginalUrlHashes_batches() {
+            // ---- GIVEN ----
+            var row1 = shortUrl(1, "http://url1");
+            var row2 = shortUrl(2, "http://url2");
+            var row3 = shortUrl(3, "http://url3");
+            when(mockShortUrlRepository.findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(row1, row2));
+            when(mockShortUrlRepository.findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(List.of(row3));
+            when(mockShortUrlRepository.findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(3L, Limit.of(2))).thenReturn(List.of());
+            assertThat(originalUrlHashBackfillStatus.isCompleted()).isFalse();
+
+            // ---- WHEN ----
+            originalUrlHashBackfillJob.backfillOriginalUrlHashes();
+
+            // ---- THEN ----
+            verify(mockShortUrlRepository).saveAll(List.of(row1, row2));
+            verify(mockShortUrlRepository).saveAll(List.of(row3));
+            assertThat(row1.getOriginalUrlHash()).isEqualTo(HashUtils.hash128("http://url1"));
+            assertThat(row3.getOriginalUrlHash()).isEqualTo(HashUtils.hash128("http://url3"));
+            assertThat(originalUrlHashBackfillStatus.isCompleted()).isTrue();
+        }
+
+        @Test
+        @DisplayName("backfillOriginalUrlHashes : when a batch contains a duplicated url, then the rows are saved one by one and the job goes on")
+        void backfillOriginalUrlHashes_duplicatedUrl() {
+            // ---- GIVEN ----
+            var row1 = shortUrl(1, "http://url1");
+            var row2 = shortUrl(2, "http://url1");
+            when(mockShortUrlRepository.findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(row1, row2));
+            when(mockShortUrlRepository.findByOriginalUrlHashIsNullAndOriginalUrlIsNotNullAndIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(List.of());
+            when(mockShortUrlRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<ShortUrlEntity> rows = invocation.getArgument(0);
+                if (rows.size() > 1 || rows.getFirst() == row2) {
+                    throw new DataIntegrityViolationException("duplicate");
+                }
+                return rows;
+            });
+
+            // ---- WHEN ----
+            originalUrlHashBackfillJob.backfillOriginalUrlHashes();
+
+            // ---- THEN ----
+            verify(mockShortUrlRepository).saveAll(List.of(row1));
+            verify(mockShortUrlRepository).saveAll(List.of(row2));
+            assertThat(originalUrlHashBackfillStatus.isCompleted()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.urlshortener.job;
+
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlResponse;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static com.project.urlshortener.utils.AssertionUtils.assertStringContains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShortUrlExpirationJobSpringTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Autowired
+	private ShortUrlExpirationJob shortUrlExpirationJob;
+
+	@Nested
+	@DisplayName("ShortUrlExpirationJob Spring tests")
+	class ExpirationTest {
+
+		@Test
+		@DisplayName("POST / with expiresAt : the short url is decoded until its expiration time, then the sweep deletes its row and the token is not found anymore")
+		void createShortUrl_withExpiration_deletedOnceExpired() {
+			// ---- GIVEN ----
+			Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+			ResponseEntity<UrlShortenerCreateShortUrlResponse> createResponse = restTemplate.postForEntity("/",
+					Map.of("url", "https://www.journaldemontreal.com/", "expiresAt", expiresAt.toString()), UrlShortenerCreateShortUrlResponse.class);
+			assertEquals(HttpStatus.OK, createResponse.getStatusCode());
+			assertNotNull(createResponse.getBody());
+			String token = StringUtils.substringAfterLast(createResponse.getBody().getShortUrl(), "/");
+			assertEquals(HttpStatus.OK, restTemplate.getForEntity("/" + token, String.class).getStatusCode());
+
+			// ---- WHEN ----
+			int deletedCount = shortUrlExpirationJob.sweep(expiresAt.plusSeconds(1).toEpochMilli());
+
+			// ---- THEN ----
+			assertEquals(1, deletedCount);
+			assertNull(shortUrlRepository.findProjectionByToken(token));
+			assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/" + token, String.class).getStatusCode());
+		}
+
+		@Test
+		@DisplayName("POST / with expiresAt in the past : then httpStatus is BAD_REQUEST with a localized error, and no short url is created")
+		void createShortUrl_error_expirationInThePast() {
+			// ---- WHEN ----
+			ResponseEntity<String> response = restTemplate.postForEntity("/", Map.of("url", "https://www.journaldemontreal.com/", "expiresAt", "2020-01-31T23:59:59Z"), String.class);
+
+			// ---- THEN ----
+			assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+			assertStringContains("2020-01-31T23:59:59Z", response.getBody());
+			assertFalse(shortUrlRepository.findAll().iterator().hasNext());
+		}
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.project.urlshortener.job;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlExpirationDao;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShortUrlExpirationJobTest {
+
+    private static final long START = 1_000_000L;
+
+    @Mock
+    private ShortUrlExpirationDao mockShortUrlExpirationDao;
+
+    private ShortUrlExpirationJob shortUrlExpirationJob;
+
+    @BeforeEach
+    void setUp() {
+        shortUrlExpirationJob = new ShortUrlExpirationJob(mockShortUrlExpirationDao, new UrlShortenerPropertiesBuilder()
+                .withExpirationTickMillis(100L)
+                .withExpirationWheelSize(8)
+                .withExpirationPreloadWindowMillis(10_000L)
+                .withExpirationPageSize(100)
+                .withExpirationDeleteBatchSize(2)
+                .buildSpy());
+    }
+
+    private static ShortUrlEntity shortUrl(final String token, final long expiresAtMillis) {
+        return ShortUrlEntity.builder().token(token).originalUrl("http://" + token).expiresAt(Instant.ofEpochMilli(expiresAtMillis)).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void given_preloadedShortUrls(final ShortUrlEntity... shortUrlEntities) {
+        doAnswer(invocation -> {
+            for (ShortUrlEntity shortUrlEntity : shortUrlEntities) {
+                ((Consumer<ShortUrlEntity>) invocation.getArgument(2)).accept(shortUrlEntity);
+            }
+            return null;
+        }).when(mockShortUrlExpirationDao).forEachShortUrlExpiringBefore(eq(Instant.ofEpochMilli(START + 10_000L)), eq(100), any());
+    }
+
+    @Nested
+    @DisplayName("ShortUrlExpirationJob.sweep tests")
+    class SweepTest {
+
+        @Test
+        @DisplayName("sweep : the short urls expiring in the preloaded window are deleted once their expiration time is over, in batches")
+        void sweep_preloadedShortUrls_shouldBeDeletedWhenExpired() {
+            // ---- GIVEN ----
+            given_preloadedShortUrls(shortUrl("past", START - 5_000L), shortUrl("soon1", START + 500L), shortUrl("soon2", START + 550L), shortUrl("soon3", START + 580L),
+                    shortUrl("later", START + 5_000L));
+            when(mockShortUrlExpirationDao.deleteExpiredShortUrls(any(), any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+            // ---- WHEN / THEN ----
+            assertThat(shortUrlExpirationJob.sweep(START)).isEqualTo(1);
+            verify(mockShortUrlExpirationDao).deleteExpiredShortUrls(List.of("past"), Instant.ofEpochMilli(START));
+            assertThat(shortUrlExpirationJob.sweep(START + 400L)).isZero();
+            assertThat(shortUrlExpirationJob.sweep(START + 700L)).isEqualTo(3);
+            verify(mockShortUrlExpirationDao).deleteExpiredShortUrls(List.of("soon1", "soon2"), Instant.ofEpochMilli(START + 700L));
+            verify(mockShortUrlExpirationDao).deleteExpiredShortUrls(List.of("soon3"), Instant.ofEpochMilli(START + 700L));
+            assertThat(shortUrlExpirationJob.getScheduledCount()).isEqualTo(1);
+            verify(mockShortUrlExpirationDao, times(1)).forEachShortUrlExpiringBefore(any(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("sweep : the short urls scheduled by the requests are deleted once expired, unless their expiration was pushed back or removed")
+        void sweep_scheduledShortUrls_shouldFollowTheirLatestExpiration() {
+            // ---- GIVEN ----
+            when(mockShortUrlExpirationDao.deleteExpiredShortUrls(any(), any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+            shortUrlExpirationJob.sweep(START);
+            shortUrlExpirationJob.schedule(shortUrl("expiring", START + 300L));
+            shortUrlExpirationJob.schedule(shortUrl("pushed-back", START + 300L));
+            shortUrlExpirationJob.schedule(shortUrl("pushed-back", START + 2_000L));
+            shortUrlExpirationJob.schedule(shortUrl("removed", START + 300L));
+            shortUrlExpirationJob.schedule(ShortUrlEntity.builder().token("removed").originalUrl("http://removed").build());
+            shortUrlExpirationJob.schedule(shortUrl("beyond-window", START + 20_000L));
+
+            // ---- WHEN / THEN ----
+            assertThat(shortUrlExpirationJob.sweep(START + 500L)).isEqualTo(1);
+            verify(mockShortUrlExpirationDao).deleteExpiredShortUrls(List.of("expiring"), Instant.ofEpochMilli(START + 500L));
+            assertThat(shortUrlExpirationJob.sweep(START + 2_100L)).isEqualTo(1);
+            verify(mockShortUrlExpirationDao).deleteExpiredShortUrls(List.of("pushed-back"), Instant.ofEpochMilli(START + 2_100L));
+            // the short url beyond the preloaded window is read by a next preload
+            assertThat(shortUrlExpirationJob.getScheduledCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("sweep : when the preload fails, then it is tried again by the next sweep")
+        void sweep_preloadFailure_shouldRetry() {
+            // ---- GIVEN ----
+            doThrow(new QueryTimeoutException("timeout")).doNothing()
+                    .when(mockShortUrlExpirationDao).forEachShortUrlExpiringBefore(any(), anyInt(), any());
+
+            // ---- WHEN ----
+            assertThat(shortUrlExpirationJob.sweep(START)).isZero();
+            shortUrlExpirationJob.sweep(START + 100L);
+            shortUrlExpirationJob.sweep(START + 200L);
+
+            // ---- THEN ----
+            verify(mockShortUrlExpirationDao, times(2)).forEachShortUrlExpiringBefore(any(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("sweep : when a batch cannot be deleted, then the other batches are deleted")
+        void sweep_deleteFailure_shouldGoOn() {
+            // ---- GIVEN ----
+            given_preloadedShortUrls(shortUrl("a", START - 3L), shortUrl("b", START - 2L), shortUrl("c", START - 1L));
+            when(mockShortUrlExpirationDao.deleteExpiredShortUrls(List.of("a", "b"), Instant.ofEpochMilli(START))).thenThrow(new QueryTimeoutException("timeout"));
+            when(mockShortUrlExpirationDao.deleteExpiredShortUrls(List.of("c"), Instant.ofEpochMilli(START))).thenReturn(1);
+
+            // ---- WHEN / THEN ----
+            assertThat(shortUrlExpirationJob.sweep(START)).isEqualTo(1);
+        }
+
+    }
+
+}
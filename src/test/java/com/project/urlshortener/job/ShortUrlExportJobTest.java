@@ -0,0 +1,145 @@
+package com.project.urlshortener.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.urlshortener.model.bulkexport.ShortUrlExportProgress;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shorturl.ShortUrlFileFormat;
+import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShortUrlExportJobTest {
+
+    @TempDir
+    private Path exportDirectory;
+
+    @Mock
+    private ShortUrlDao mockShortUrlDao;
+
+    private ShortUrlExportJob shortUrlExportJob;
+
+    @BeforeEach
+    void setUp() {
+        shortUrlExportJob = new ShortUrlExportJob(mockShortUrlDao, new ObjectMapper(),
+                new UrlShortenerPropertiesBuilder().withBulkExportDirectory(exportDirectory.toString()).withBulkExportBufferSize(16).buildSpy());
+    }
+
+    private void using_mocked_forEachExistingShortUrl(final ShortUrlEntity... shortUrlEntities) {
+        doAnswer(invocation -> {
+            Consumer<ShortUrlEntity> consumer = invocation.getArgument(1);
+            Stream.of(shortUrlEntities).forEach(consumer);
+            return null;
+        }).when(mockShortUrlDao).forEachExistingShortUrl(anyInt(), any());
+    }
+
+    private static ShortUrlEntity shortUrl(final String token, final String originalUrl) {
+        return ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+    }
+
+    @Nested
+    @DisplayName("ShortUrlExportJob.export tests")
+    class ExportTest {
+
+        @Test
+        @DisplayName("export : when the format is csv, then a header line, then one line per short url, the values with a comma or a quote being quoted")
+        void export_csv_shouldWriteCsvLines() throws IOException {
+            // ---- GIVEN ----
+            using_mocked_forEachExistingShortUrl(shortUrl("abc", "http://url1"), shortUrl("def", "http://url2?a=1,b=\"2\""));
+            var outputStream = new ByteArrayOutputStream();
+
+            // ---- WHEN ----
+            var exportedCount = shortUrlExportJob.export(outputStream, ShortUrlFileFormat.CSV, false, count -> {});
+
+            // ---- THEN ----
+            assertThat(exportedCount).isEqualTo(2);
+            assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("token,url\nabc,http://url1\ndef,\"http://url2?a=1,b=\"\"2\"\"\"\n");
+            verify(mockShortUrlDao, times(1)).forEachExistingShortUrl(eq(100), any());
+        }
+
+        @Test
+        @DisplayName("export : when the format is ndjson and gzip is true, then one json object per line, compressed with gzip")
+        void export_ndjsonGzip_shouldWriteCompressedJsonLines() throws IOException {
+            // ---- GIVEN ----
+            using_mocked_forEachExistingShortUrl(shortUrl("abc", "http://url1"), shortUrl("def", "http://url2?q=\"é\""));
+            var outputStream = new ByteArrayOutputStream();
+
+            // ---- WHEN ----
+            var exportedCount = shortUrlExportJob.export(outputStream, ShortUrlFileFormat.NDJSON, true, count -> {});
+
+            // ---- THEN ----
+            assertThat(exportedCount).isEqualTo(2);
+            try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+                assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+                        .isEqualTo("{\"token\":\"abc\",\"url\":\"http://url1\"}\n{\"token\":\"def\",\"url\":\"http://url2?q=\\\"é\\\"\"}\n");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlExportJob.exportFile tests")
+    class ExportFileTest {
+
+        @Test
+        @DisplayName("exportFile : when the export is completed, then the file is in the export directory, without temporary file")
+        void exportFile_shouldWriteFile() throws Exception {
+            // ---- GIVEN ----
+            using_mocked_forEachExistingShortUrl(shortUrl("abc", "http://url1"), shortUrl("def", "http://url2"));
+
+            // ---- WHEN ----
+            var progress = shortUrlExportJob.exportFile(ShortUrlFileFormat.CSV, false).get();
+
+            // ---- THEN ----
+            assertThat(progress).extracting("status", "exportedCount").containsExactly(ShortUrlExportProgress.Status.COMPLETED, 2L);
+            assertThat(progress.file()).startsWith("short-urls-").endsWith(".csv");
+            assertThat(Files.readAllLines(exportDirectory.resolve(progress.file()))).containsExactly("token,url", "abc,http://url1", "def,http://url2");
+            try (var files = Files.list(exportDirectory)) {
+                assertThat(files.toList()).hasSize(1);
+            }
+            assertThat(shortUrlExportJob.getProgress()).isEqualTo(progress);
+            assertThat(shortUrlExportJob.isRunning()).isFalse();
+        }
+
+        @Test
+        @DisplayName("exportFile : when the short urls cannot be read, then the export fails and its temporary file is deleted")
+        void exportFile_failure_shouldDeleteTemporaryFile() throws IOException {
+            // ---- GIVEN ----
+            doThrow(new DataAccessResourceFailureException("database down")).when(mockShortUrlDao).forEachExistingShortUrl(anyInt(), any());
+
+            // ---- WHEN ----
+            var failedExport = shortUrlExportJob.exportFile(ShortUrlFileFormat.NDJSON, true);
+
+            // ---- THEN ----
+            assertThat(failedExport).isCompletedExceptionally();
+            assertThat(shortUrlExportJob.getProgress()).extracting("status").isEqualTo(ShortUrlExportProgress.Status.FAILED);
+            try (var files = Files.list(exportDirectory)) {
+                assertThat(files.toList()).isEmpty();
+            }
+            assertThat(shortUrlExportJob.isRunning()).isFalse();
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.project.urlshortener.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.urlshortener.model.bulkimport.ShortUrlImportProgress;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.apache.commons.validator.routines.UrlValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShortUrlImportJobTest {
+
+    @TempDir
+    private Path importDirectory;
+
+    @Mock
+    private ShortUrlDao mockShortUrlDao;
+
+    private ShortUrlImportJob shortUrlImportJob;
+
+    private final List<List<ShortUrlEntity>> importedBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        shortUrlImportJob = new ShortUrlImportJob(mockShortUrlDao, new UrlValidator(UrlValidator.ALLOW_LOCAL_URLS), new ObjectMapper(),
+                new UrlShortenerPropertiesBuilder().withBulkImportDirectory(importDirectory.toString()).withBulkImportBatchSize(2).buildSpy());
+        lenient().when(mockShortUrlDao.importShortUrlEntities(anyList())).thenAnswer(invocation -> {
+            List<ShortUrlEntity> batch = invocation.getArgument(0);
+            importedBatches.add(List.copyOf(batch));
+            return batch.size();
+        });
+    }
+
+    private void writeFile(final String fileName, final String... lines) throws IOException {
+        Files.write(importDirectory.resolve(fileName), List.of(lines));
+    }
+
+    @Nested
+    @DisplayName("ShortUrlImportJob.importFile tests")
+    class ImportFileTest {
+
+        @Test
+        @DisplayName("importFile : when the file is a csv file, then its valid lines are imported by batches, the header, the blank lines and the invalid lines are skipped")
+        void importFile_csv_shouldImportValidLinesByBatches() throws Exception {
+            // ---- GIVEN ----
+            writeFile("urls.csv", "token,url", "abc,http://url1", "def,\"http://url2?a=1,b=2\"", "", "ghi,not an url", "jkl,http://url3");
+
+            // ---- WHEN ----
+            var progress = shortUrlImportJob.importFile("urls.csv").get();
+
+            // ---- THEN ----
+            assertThat(importedBatches).hasSize(3);
+            assertThat(importedBatches.stream().flatMap(List::stream).toList()).extracting("token", "originalUrl")
+                    .containsExactly(tuple("abc", "http://url1"), tuple("def", "http://url2?a=1,b=2"), tuple("jkl", "http://url3"));
+            assertThat(progress).extracting("status", "lineCount", "importedCount", "skippedCount", "invalidCount")
+                    .containsExactly(ShortUrlImportProgress.Status.COMPLETED, 6L, 3L, 0L, 1L);
+            assertThat(shortUrlImportJob.getProgress()).isEqualTo(progress);
+            assertThat(importDirectory.resolve("urls.csv.checkpoint")).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("importFile : when the file is a ndjson file, then the token and the url of each json line are imported, and the short urls already used are counted as skipped")
+        void importFile_ndjson_shouldImportJsonLines() throws Exception {
+            // ---- GIVEN ----
+            writeFile("urls.ndjson", "{\"token\": \"abc\", \"url\": \"http://url1\"}", "{\"token\": \"def\"", "{\"token\": \"ghi\", \"url\": \"http://url2\"}");
+            when(mockShortUrlDao.importShortUrlEntities(anyList())).thenReturn(1, 0);
+
+            // ---- WHEN ----
+            var progress = shortUrlImportJob.importFile("urls.ndjson").get();
+
+            // ---- THEN ----
+            assertThat(progress).extracting("status", "lineCount", "importedCount", "skippedCount", "invalidCount")
+                    .containsExactly(ShortUrlImportProgress.Status.COMPLETED, 3L, 1L, 1L, 1L);
+        }
+
+        @Test
+        @DisplayName("importFile : when a batch fails, then the import stops with its checkpoint after the last batch saved, and resumes from it when started again")
+        void importFile_failure_shouldResumeFromCheckpoint() throws Exception {
+            // ---- GIVEN ----
+            writeFile("urls.csv", "abc,http://url1", "def,http://url2", "ghi,http://url3", "jkl,http://url4", "mno,http://url5");
+            when(mockShortUrlDao.importShortUrlEntities(anyList())).thenReturn(2).thenThrow(new DataAccessResourceFailureException("database down"));
+
+            // ---- WHEN ----
+            var failedImport = shortUrlImportJob.importFile("urls.csv");
+
+            // ---- THEN ----
+            assertThat(failedImport).isCompletedExceptionally();
+            assertThat(shortUrlImportJob.getProgress()).extracting("status", "lineCount").containsExactly(ShortUrlImportProgress.Status.FAILED, 2L);
+            assertThat(importDirectory.resolve("urls.csv.checkpoint")).exists();
+            assertThat(shortUrlImportJob.isRunning()).isFalse();
+
+            // ---- WHEN ----
+            reset(mockShortUrlDao);
+            when(mockShortUrlDao.importShortUrlEntities(anyList())).thenAnswer(invocation -> {
+                importedBatches.add(List.copyOf(invocation.getArgument(0)));
+                return invocation.<List<?>>getArgument(0).size();
+            });
+            var progress = shortUrlImportJob.importFile("urls.csv").get();
+
+            // ---- THEN ----
+            assertThat(importedBatches.stream().flatMap(List::stream).toList()).extracting("token").containsExactly("ghi", "jkl", "mno");
+            assertThat(progress).extracting("status", "lineCount", "importedCount").containsExactly(ShortUrlImportProgress.Status.COMPLETED, 5L, 5L);
+            assertThat(importDirectory.resolve("urls.csv.checkpoint")).doesNotExist();
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlImportJob.resolveFile tests")
+    class ResolveFileTest {
+
+        @Test
+        @DisplayName("resolveFile : when the file is outside the import directory, missing, or neither csv nor ndjson, then IllegalArgumentException")
+        void resolveFile_invalidFile_shouldThrowException() throws Exception {
+            writeFile("urls.txt", "abc,http://url1");
+
+            assertThatThrownBy(() -> shortUrlImportJob.resolveFile("../urls.csv")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> shortUrlImportJob.resolveFile("missing.csv")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> shortUrlImportJob.resolveFile("urls.txt")).isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(mockShortUrlDao);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.project.urlshortener.monitoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Map;
+
+import static com.project.urlshortener.utils.AssertionUtils.assertStringContains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment= SpringBootTest.WebEnvironment.RANDOM_PORT)
+// the metrics exporters (Prometheus) are disabled in the tests by default
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class UrlShortenerMetricsSpringTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Nested
+	@DisplayName("GET /actuator/prometheus Spring tests")
+	class PrometheusTest {
+
+		@Test
+		@DisplayName("GET /actuator/prometheus : after a creation, an invalid url and an unknown token, then the timers are published as histograms and the counters are incremented")
+		void prometheus_timersAndCounters() {
+			assertEquals(HttpStatus.OK, restTemplate.postForEntity("/", Map.of("url", "https://www.journaldemontreal.com/"), String.class).getStatusCode());
+			assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity("/", Map.of("url", "not a valid url"), String.class).getStatusCode());
+			assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/0123456789", String.class).getStatusCode());
+
+			ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			String metrics = response.getBody();
+			assertStringContains("url_shortener_url_validation_seconds_bucket", metrics);
+			assertStringContains("url_shortener_url_validation_seconds_count 2", metrics);
+			assertStringContains("url_shortener_dedup_lookup_seconds_count 1", metrics);
+			assertStringContains("url_shortener_token_generation_seconds_count 1", metrics);
+			assertStringContains("url_shortener_insert_seconds_count 1", metrics);
+			assertStringContains("url_shortener_decode_lookup_seconds_bucket", metrics);
+			assertStringContains("url_shortener_token_retries_total 0", metrics);
+			assertStringContains("url_shortener_token_not_found_total 1", metrics);
+			assertStringContains("url_shortener_url_invalid_total 1", metrics);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.project.urlshortener.monitoring;
+
+import com.project.urlshortener.service.impl.StringTokenServiceImpl;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new VirtualThreadPinningMonitor(new UrlShortenerPropertiesBuilder()
+                .withPinningMonitorEnabled(true)
+                .withPinningMonitorThresholdMillis(10L)
+                .buildSpy());
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Nested
+    @DisplayName("VirtualThreadPinningMonitor.onPinnedEvent tests")
+    class OnPinnedEventTest {
+
+        @Test
+        @DisplayName("onPinnedEvent : when a virtual thread sleeps inside a synchronized block, then the pinning is reported as a pinning of the application code")
+        void onPinnedEvent_synchronizedBlock_shouldBeReported() throws InterruptedException {
+            // ---- GIVEN ----
+            final Object monitorLock = new Object();
+
+            // ---- WHEN ----
+            Thread.ofVirtual().start(() -> {
+                synchronized (monitorLock) {
+                    sleep(100);
+                }
+            }).join();
+
+            // ---- THEN ----
+            waitForCount(monitor::getApplicationPinnedCount, 1);
+            assertThat(monitor.getPinnedCount()).isGreaterThanOrEqualTo(1);
+            assertThat(monitor.getApplicationPinnedCount()).isGreaterThanOrEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("onPinnedEvent : when a virtual thread sleeps while holding a ReentrantLock, then no pinning is reported")
+        void onPinnedEvent_reentrantLock_shouldNotBeReported() throws InterruptedException {
+            // ---- GIVEN ----
+            final ReentrantLock lock = new ReentrantLock();
+
+            // ---- WHEN ----
+            Thread.ofVirtual().start(() -> {
+                lock.lock();
+                try {
+                    sleep(100);
+                } finally {
+                    lock.unlock();
+                }
+            }).join();
+
+            // ---- THEN ----
+            // the JFR stream is flushed about once per second
+            Thread.sleep(2000);
+            assertThat(monitor.getPinnedCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("onPinnedEvent : when tokens are created by many virtual threads, then StringTokenServiceImpl does not pin them (the synchronized DRBG never blocks)")
+        void onPinnedEvent_stringTokenService_shouldNotBeReported() throws Exception {
+            // ---- GIVEN ----
+            StringTokenServiceImpl stringTokenService = new StringTokenServiceImpl();
+
+            // ---- WHEN ----
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 10_000; i++) {
+                    executor.submit(() -> stringTokenService.createStringToken("abcdefghijklmnopqrstuvwxyz0123456789", 10));
+                }
+            }
+
+            // ---- THEN ----
+            Thread.sleep(2000);
+            assertThat(monitor.getApplicationPinnedCount()).isZero();
+        }
+
+        private static void waitForCount(final LongSupplier count, final long expectedCount) throws InterruptedException {
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (count.getAsLong() < expectedCount && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+
+        private static void sleep(final long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.project.urlshortener.monitoring;
+
+import com.project.urlshortener.model.api.createshorturl.UrlShortenerCreateShortUrlResponse;
+import com.project.urlshortener.model.api.decodeshorturl.UrlShortenerDecodeShortUrlResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment= SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual-threads")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class VirtualThreadsSpringTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ServletWebServerApplicationContext applicationContext;
+
+	@Autowired
+	private VirtualThreadPinningMonitor virtualThreadPinningMonitor;
+
+	@Nested
+	@DisplayName("virtual-threads profile Spring tests")
+	class VirtualThreadsProfileTest {
+
+		@Test
+		@DisplayName("virtual-threads profile : the Tomcat requests run on virtual threads")
+		void virtualThreads_tomcatExecutorIsVirtual() {
+			TomcatWebServer webServer = (TomcatWebServer) applicationContext.getWebServer();
+
+			assertInstanceOf(VirtualThreadExecutor.class, webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+		}
+
+		@Test
+		@DisplayName("virtual-threads profile : when short urls are created and decoded concurrently, then no virtual thread is pinned by the application code")
+		void virtualThreads_createAndDecode_noApplicationPinning() throws Exception {
+			try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+				List<Future<String>> tokens = IntStream.range(0, 200)
+						.mapToObj(i -> executor.submit(() -> createShortUrl("https://www.journaldemontreal.com/" + i)))
+						.toList();
+				for (Future<String> token : tokens) {
+					String shortUrl = token.get();
+					ResponseEntity<UrlShortenerDecodeShortUrlResponse> response = restTemplate.getForEntity("/" + shortUrl.substring(shortUrl.lastIndexOf('/') + 1), UrlShortenerDecodeShortUrlResponse.class);
+					assertEquals(HttpStatus.OK, response.getStatusCode());
+				}
+			}
+
+			// the JFR stream is flushed about once per second
+			Thread.sleep(2000);
+			assertEquals(0, virtualThreadPinningMonitor.getApplicationPinnedCount());
+		}
+
+		private String createShortUrl(final String url) {
+			ResponseEntity<UrlShortenerCreateShortUrlResponse> response = restTemplate.postForEntity("/", Map.of("url", url), UrlShortenerCreateShortUrlResponse.class);
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			assertNotNull(response.getBody());
+			return response.getBody().getShortUrl();
+		}
+	}
+
+}
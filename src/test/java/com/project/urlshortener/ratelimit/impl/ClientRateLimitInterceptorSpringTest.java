@@ -0,0 +1,98 @@
+package com.project.urlshortener.ratelimit.impl;
+
+import com.project.urlshortener.common.model.RestBasicResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Map;
+
+import static com.project.urlshortener.utils.AssertionUtils.assertStringStartsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"url-shortener.rate-limit.enabled=true",
+		"url-shortener.rate-limit.capacity=2",
+		"url-shortener.rate-limit.refill-per-second=0.01",
+		"url-shortener.rate-limit.client-key-header=X-Api-Key",
+		"url-shortener.rate-limit.api-keys=client-a,client-b"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ClientRateLimitInterceptorSpringTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Nested
+	@DisplayName("ClientRateLimitInterceptor Spring tests")
+	class RateLimitTest {
+
+		private ResponseEntity<RestBasicResponse> postWithApiKey(final String path, final Object body, final String apiKey) {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			if (apiKey != null) {
+				headers.set("X-Api-Key", apiKey);
+			}
+			return restTemplate.postForEntity(path, new HttpEntity<>(body, headers), RestBasicResponse.class);
+		}
+
+		@Test
+		@DisplayName("POST / : when a client has sent capacity requests, then httpStatus is TOO_MANY_REQUESTS with a Retry-After header and a localized error, and the other clients can go on")
+		void createShortUrl_error_rateLimitExceeded() {
+			// ---- GIVEN ----
+			Map<String, String> body = Map.of("url", "https://www.journaldemontreal.com/");
+			assertEquals(HttpStatus.OK, postWithApiKey("/", body, "client-a").getStatusCode());
+			assertEquals(HttpStatus.OK, postWithApiKey("/batch", Map.of("urls", new String[] { "https://www.lapresse.ca/" }), "client-a").getStatusCode());
+
+			// ---- WHEN ----
+			ResponseEntity<RestBasicResponse> response = postWithApiKey("/?lang=fr", body, "client-a");
+
+			// ---- THEN ----
+			assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+			assertEquals("100", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+			assertNotNull(response.getBody());
+			assertFalse(response.getBody().isSuccess());
+			assertStringStartsWith("Trop de requêtes. Réessayez dans [100] secondes.", response.getBody().getError());
+			assertEquals(HttpStatus.OK, postWithApiKey("/", body, "client-b").getStatusCode());
+			// without API key, the client is identified by its IP address
+			assertEquals(HttpStatus.OK, postWithApiKey("/", body, null).getStatusCode());
+		}
+
+		@Test
+		@DisplayName("POST / : when the API keys are unknown, then the client is identified by its IP address, so that new keys do not give new buckets")
+		void createShortUrl_error_unknownApiKeys() {
+			// ---- GIVEN ----
+			Map<String, String> body = Map.of("url", "https://www.journaldemontreal.com/");
+			assertEquals(HttpStatus.OK, postWithApiKey("/", body, "random-1").getStatusCode());
+			assertEquals(HttpStatus.OK, postWithApiKey("/", body, "random-2").getStatusCode());
+
+			// ---- WHEN ----
+			ResponseEntity<RestBasicResponse> response = postWithApiKey("/", body, "random-3");
+
+			// ---- THEN ----
+			assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+			assertEquals(HttpStatus.TOO_MANY_REQUESTS, postWithApiKey("/", body, null).getStatusCode());
+			assertEquals(HttpStatus.OK, postWithApiKey("/", body, "client-a").getStatusCode());
+		}
+
+		@Test
+		@DisplayName("GET /{token} : the decodes of the short urls are not limited")
+		void decodeShortUrl_notLimited() {
+			for (int i = 0; i < 5; i++) {
+				assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/unknown", String.class).getStatusCode());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+package com.project.urlshortener.ratelimit.impl;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.CANNOT_BE_BLANK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ClientRateLimiterImplTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final UrlShortenerMetrics urlShortenerMetrics = new UrlShortenerMetrics(new SimpleMeterRegistry());
+
+    @Nested
+    @DisplayName("ClientRateLimiter.tryAcquire tests")
+    class TryAcquireTest {
+
+        @Test
+        @DisplayName("tryAcquire : a client can send capacity requests at once, then the next one is rejected with the delay before a new token")
+        void tryAcquire_burstUpToCapacity() {
+            // ---- GIVEN ----
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitCapacity(5).withRateLimitRefillPerSecond(2.0).buildSpy(), urlShortenerMetrics);
+
+            // ---- WHEN / THEN ----
+            IntStream.range(0, 5).forEach(i -> assertThat(limiter.tryAcquire("key:a", START)).isZero());
+            assertThat(limiter.tryAcquire("key:a", START)).isEqualTo(500L);
+            assertThat(limiter.tryAcquire("key:a", START + TimeUnit.MILLISECONDS.toNanos(300))).isEqualTo(200L);
+            assertThat(urlShortenerMetrics.getRateLimitRejectedCounter().count()).isEqualTo(2.0);
+            // the other clients have their own bucket
+            assertThat(limiter.tryAcquire("key:b", START)).isZero();
+        }
+
+        @Test
+        @DisplayName("tryAcquire : the tokens are refilled over time, up to capacity")
+        void tryAcquire_refillOverTime() {
+            // ---- GIVEN ----
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitCapacity(3).withRateLimitRefillPerSecond(1.0).buildSpy(), urlShortenerMetrics);
+            IntStream.range(0, 3).forEach(i -> limiter.tryAcquire("ip:10.0.0.1", START));
+
+            // ---- WHEN / THEN ----
+            assertThat(limiter.tryAcquire("ip:10.0.0.1", START + ONE_SECOND)).isZero();
+            assertThat(limiter.tryAcquire("ip:10.0.0.1", START + ONE_SECOND)).isEqualTo(1000L);
+            // a long idle period does not give more than capacity tokens
+            long later = START + 60 * ONE_SECOND;
+            IntStream.range(0, 3).forEach(i -> assertThat(limiter.tryAcquire("ip:10.0.0.1", later)).isZero());
+            assertThat(limiter.tryAcquire("ip:10.0.0.1", later)).isPositive();
+        }
+
+        @Test
+        @DisplayName("tryAcquire : when the rate limit is disabled, then all the requests can go on and no bucket is kept")
+        void tryAcquire_disabled() {
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitEnabled(false).withRateLimitCapacity(1).buildSpy(), urlShortenerMetrics);
+
+            IntStream.range(0, 100).forEach(i -> assertThat(limiter.tryAcquire("key:a", START)).isZero());
+
+            assertThat(limiter.getClientCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("tryAcquire : when the client key is blank, then RequiredValueException")
+        void tryAcquire_error_blankClientKey() {
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().buildSpy(), urlShortenerMetrics);
+
+            assertThatThrownBy(() -> limiter.tryAcquire(StringUtils.SPACE))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "clientKey")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_BLANK);
+        }
+
+        @Test
+        @DisplayName("tryAcquire : when several threads take tokens of the same client at the same time, then exactly capacity requests can go on")
+        void tryAcquire_concurrentRequests() throws Exception {
+            // ---- GIVEN ----
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitCapacity(100).withRateLimitRefillPerSecond(0.001).buildSpy(), urlShortenerMetrics);
+            var startLatch = new CountDownLatch(1);
+            ExecutorService executorService = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> futures = new ArrayList<>();
+
+            // ---- WHEN ----
+            try {
+                for (int t = 0; t < 8; t++) {
+                    futures.add(executorService.submit(() -> {
+                        startLatch.await();
+                        int acquiredCount = 0;
+                        for (int i = 0; i < 1000; i++) {
+                            if (limiter.tryAcquire("key:shared", START) == 0) {
+                                acquiredCount++;
+                            }
+                        }
+                        return acquiredCount;
+                    }));
+                }
+                startLatch.countDown();
+                int acquiredCount = 0;
+                for (Future<Integer> future : futures) {
+                    acquiredCount += future.get(10, TimeUnit.SECONDS);
+                }
+
+                // ---- THEN ----
+                assertThat(acquiredCount).isEqualTo(100);
+                assertThat(urlShortenerMetrics.getRateLimitRejectedCounter().count()).isEqualTo(7900.0);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+    }
+
+    @Nested
+    @DisplayName("ClientRateLimiter buckets eviction tests")
+    class EvictionTest {
+
+        @Test
+        @DisplayName("tryAcquire : when the stripes are full of full buckets, then they are forgotten without being counted as evicted")
+        void tryAcquire_idleBucketsForgotten() {
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitMaxClients(8).withRateLimitStripes(2).buildSpy(), urlShortenerMetrics);
+
+            // each client is full again when the next one comes
+            IntStream.range(0, 1000).forEach(i -> assertThat(limiter.tryAcquire("ip:" + i, START + i * 10 * ONE_SECOND)).isZero());
+
+            assertThat(limiter.getClientCount()).isLessThanOrEqualTo(8);
+            assertThat(urlShortenerMetrics.getRateLimitEvictedCounter().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("tryAcquire : when the stripes are full of active buckets, then the least recently seen ones are evicted and counted, and the map stays bounded")
+        void tryAcquire_activeBucketsEvicted() {
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitMaxClients(64).withRateLimitStripes(4).buildSpy(), urlShortenerMetrics);
+
+            IntStream.range(0, 10_000).forEach(i -> assertThat(limiter.tryAcquire("ip:" + i, START)).isZero());
+
+            assertThat(limiter.getClientCount()).isLessThanOrEqualTo(64);
+            assertThat(urlShortenerMetrics.getRateLimitEvictedCounter().count()).isGreaterThanOrEqualTo(10_000.0 - 64);
+        }
+
+        @Test
+        @DisplayName("tryAcquire : when the stripes are full of active buckets, then the buckets of the least recently seen clients are evicted, and a throttled client which keeps sending requests stays throttled")
+        void tryAcquire_leastRecentlySeenEvicted() {
+            // ---- GIVEN ----
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitCapacity(2).withRateLimitRefillPerSecond(0.001)
+                    .withRateLimitMaxClients(16).withRateLimitStripes(2).buildSpy(), urlShortenerMetrics);
+            IntStream.range(0, 2).forEach(i -> limiter.tryAcquire("key:throttled", START));
+            assertThat(limiter.tryAcquire("key:throttled", START)).isPositive();
+
+            // ---- WHEN ----
+            // a flood of new clients, while the throttled client keeps sending requests
+            for (int i = 0; i < 1000; i++) {
+                limiter.tryAcquire("ip:" + i, START + 2L * i + 1);
+                assertThat(limiter.tryAcquire("key:throttled", START + 2L * i + 2)).isPositive();
+            }
+
+            // ---- THEN ----
+            assertThat(limiter.getClientCount()).isLessThanOrEqualTo(16);
+            assertThat(urlShortenerMetrics.getRateLimitEvictedCounter().count()).isPositive();
+            // the first new clients were evicted : they start again with a full bucket
+            assertThat(limiter.tryAcquire("ip:0", START + 3000)).isZero();
+            assertThat(limiter.tryAcquire("ip:0", START + 3000)).isZero();
+        }
+
+        @Test
+        @DisplayName("tryAcquire : the clients are spread over the stripes, so that 100k distinct clients are kept up to maxClients")
+        void tryAcquire_manyClientsSpreadOverStripes() {
+            var limiter = new ClientRateLimiterImpl(new UrlShortenerPropertiesBuilder().withRateLimitMaxClients(200_000).withRateLimitStripes(64).buildSpy(), urlShortenerMetrics);
+
+            IntStream.range(0, 100_000).forEach(i -> limiter.tryAcquire("key:client-" + i, START));
+
+            assertThat(limiter.getClientCount()).isEqualTo(100_000);
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.exception.ShortUrlInvalidExpirationException;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
+import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.repository.ShortUrlExpirationDao;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"url-shortener.storage.engine=mapped-file",
+		"url-shortener.storage.directory=target/short-url-storage-spring-test"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MappedFileShortUrlDaoImplSpringTest {
+
+	@Autowired
+	private ShortUrlDao shortUrlDao;
+
+	@Autowired
+	private UrlShortenerService urlShortenerService;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Autowired
+	private ObjectProvider<ShortUrlExpirationDao> shortUrlExpirationDao;
+
+	@BeforeAll
+	static void deleteStorage() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of("target/short-url-storage-spring-test"));
+	}
+
+	@Test
+	@DisplayName("engine mapped-file : the short urls are created and decoded through the mapped files, without any row in the database")
+	void mappedFile_createAndDecode() throws Exception {
+		assertThat(shortUrlDao).isInstanceOf(MappedFileShortUrlDaoImpl.class);
+
+		String originalUrl = "https://www.journaldemontreal.com/mapped-file";
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+		assertThat(urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl)).isEqualTo(shortUrl);
+		assertThat(urlShortenerService.obtainShortUrlsForOriginalCompleteUrls(List.of(originalUrl, "https://www.journaldemontreal.com/mapped-file/2")))
+				.allMatch(CreateShortUrlResult::isSuccess)
+				.first().extracting(CreateShortUrlResult::shortUrl).isEqualTo(shortUrl);
+		assertThat(shortUrlRepository.count()).isZero();
+	}
+
+	@Test
+	@DisplayName("engine mapped-file : the expiration is not supported, so a short url which expires is rejected with ShortUrlInvalidExpirationException")
+	void mappedFile_expirationRejected() {
+		assertThat(shortUrlExpirationDao.getIfAvailable()).isNull();
+
+		Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+		assertThatThrownBy(() -> urlShortenerService.obtainShortUrlForOriginalCompleteUrl("https://www.journaldemontreal.com/mapped-file/expiring", expiresAt))
+				.isInstanceOf(ShortUrlInvalidExpirationException.class);
+	}
+
+}
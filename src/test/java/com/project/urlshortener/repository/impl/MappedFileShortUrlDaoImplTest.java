@@ -0,0 +1,455 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
+import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
+import com.project.urlshortener.exception.ShortUrlTokenCannotBeCreatedException;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MappedFileShortUrlDaoImplTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private ShortUrlTokenStrategy mockShortUrlTokenStrategy;
+
+    private final UrlShortenerMetrics urlShortenerMetrics = new UrlShortenerMetrics(new SimpleMeterRegistry());
+
+    private UrlShortenerProperties urlShortenerProperties;
+
+    private MappedFileShortUrlDaoImpl mappedFileShortUrlDaoImpl;
+
+    @BeforeEach
+    void setUp() {
+        urlShortenerProperties = new UrlShortenerPropertiesBuilder()
+                .withStorageEngine(UrlShortenerProperties.Storage.Engine.MAPPED_FILE)
+                .withStorageDirectory(directory.toString())
+                .withStorageIndexInitialCapacity(4)
+                .withTokenMaxAttempts(3)
+                .buildSpy();
+        mappedFileShortUrlDaoImpl = new MappedFileShortUrlDaoImpl(mockShortUrlTokenStrategy, urlShortenerProperties, urlShortenerMetrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mappedFileShortUrlDaoImpl.close();
+    }
+
+    /** Creates short urls whose tokens are "token" + index and whose urls are "https://www.journaldemontreal.com/" + index. */
+    private void createShortUrls(final int count) {
+        for (int i = 0; i < count; i++) {
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("token" + i);
+            mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("https://www.journaldemontreal.com/" + i);
+        }
+    }
+
+    private MappedFileShortUrlDaoImpl reopen() {
+        mappedFileShortUrlDaoImpl.close();
+        mappedFileShortUrlDaoImpl = new MappedFileShortUrlDaoImpl(mockShortUrlTokenStrategy, urlShortenerProperties, urlShortenerMetrics);
+        return mappedFileShortUrlDaoImpl;
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.findExistingShortUrlEntityByToken tests")
+    class FindExistingShortUrlEntityByTokenTest {
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : the short url of an existing token is returned, also after the files are opened again")
+        void findExistingShortUrlEntityByToken_existingToken() {
+            // ---- GIVEN ----
+            createShortUrls(20);
+
+            // ---- WHEN / THEN ----
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("token7"))
+                    .extracting("token", "originalUrl", "originalUrlHash")
+                    .containsExactly("token7", "https://www.journaldemontreal.com/7", HashUtils.hash128("https://www.journaldemontreal.com/7"));
+            assertThat(reopen().findExistingShortUrlEntityByToken("token19"))
+                    .extracting("token", "originalUrl")
+                    .containsExactly("token19", "https://www.journaldemontreal.com/19");
+            assertThat(urlShortenerMetrics.getDecodeLookupTimer().count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when the token does not exist, then null")
+        void findExistingShortUrlEntityByToken_unknownToken() {
+            createShortUrls(2);
+
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("unknown")).isNull();
+        }
+
+        @ParameterizedTest
+        @NullAndEmptySource
+        @DisplayName("findExistingShortUrlEntityByToken : when token is null or empty, then RequiredValueException")
+        void findExistingShortUrlEntityByToken_nullOrEmpty(final String token) {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken(token))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "token");
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when token is blank, then RequiredValueException")
+        void findExistingShortUrlEntityByToken_blank() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("   "))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_BLANK);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.findExistingShortUrlEntitiesByTokens tests")
+    class FindExistingShortUrlEntitiesByTokensTest {
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByTokens : the existing tokens are returned by token, the unknown and blank tokens are missing")
+        void findExistingShortUrlEntitiesByTokens_existingTokens() {
+            createShortUrls(3);
+
+            var result = mappedFileShortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(Arrays.asList("token0", "token2", "unknown", " ", null));
+
+            assertThat(result).containsOnlyKeys("token0", "token2");
+            assertThat(result.get("token2").getOriginalUrl()).isEqualTo("https://www.journaldemontreal.com/2");
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByTokens : when tokens is null, then RequiredValueException")
+        void findExistingShortUrlEntitiesByTokens_null() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "tokens");
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.findExistingShortUrlEntityByOriginalUrl tests")
+    class FindExistingShortUrlEntityByOriginalUrlTest {
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : the short url of an existing url is returned, also after the files are opened again")
+        void findExistingShortUrlEntityByOriginalUrl_existingUrl() {
+            createShortUrls(20);
+
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("https://www.journaldemontreal.com/3").getToken()).isEqualTo("token3");
+            assertThat(reopen().findExistingShortUrlEntityByOriginalUrl("https://www.journaldemontreal.com/15").getToken()).isEqualTo("token15");
+            assertThat(urlShortenerMetrics.getDedupLookupTimer().count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when the url does not exist, then null")
+        void findExistingShortUrlEntityByOriginalUrl_unknownUrl() {
+            createShortUrls(2);
+
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("https://www.journaldemontreal.com/")).isNull();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when originalUrl is blank, then RequiredValueException")
+        void findExistingShortUrlEntityByOriginalUrl_blank() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl(" "))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "originalUrl");
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.findExistingShortUrlEntitiesByOriginalUrls tests")
+    class FindExistingShortUrlEntitiesByOriginalUrlsTest {
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : the existing urls are returned by original url, the unknown urls are missing")
+        void findExistingShortUrlEntitiesByOriginalUrls_existingUrls() {
+            createShortUrls(3);
+
+            var result = mappedFileShortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(List.of("https://www.journaldemontreal.com/1", "https://www.journaldemontreal.com/"));
+
+            assertThat(result).containsOnlyKeys("https://www.journaldemontreal.com/1");
+            assertThat(result.get("https://www.journaldemontreal.com/1").getToken()).isEqualTo("token1");
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : when originalUrls is null, then RequiredValueException")
+        void findExistingShortUrlEntitiesByOriginalUrls_null() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "originalUrls");
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.createNewShortUrlEntityRetryable tests")
+    class CreateNewShortUrlEntityRetryableTest {
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : the new short url is returned with the address of its record as id, and can be found by token and by url")
+        void createNewShortUrlEntityRetryable_newShortUrl() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
+
+            // ---- WHEN ----
+            var result = mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            // ---- THEN ----
+            assertThat(result).extracting("id", "token", "originalUrl").containsExactly(0L, "MY_TOKEN", "http://originalurl");
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("MY_TOKEN")).isEqualTo(result);
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("http://originalurl")).isEqualTo(result);
+            assertThat(urlShortenerMetrics.getTokenGenerationTimer().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getCollisionCheckTimer().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getInsertTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the new token is already used, then another token is created")
+        void createNewShortUrlEntityRetryable_tokenAlreadyUsed() {
+            // ---- GIVEN ----
+            createShortUrls(1);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("token0", "token1");
+
+            // ---- WHEN ----
+            var result = mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            // ---- THEN ----
+            assertThat(result.getToken()).isEqualTo("token1");
+            assertThat(urlShortenerMetrics.getTokenRetryCounter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the token strategy is collision-free, then the token is not checked")
+        void createNewShortUrlEntityRetryable_collisionFree() {
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
+            when(mockShortUrlTokenStrategy.isCollisionFree()).thenReturn(true);
+
+            mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            assertThat(urlShortenerMetrics.getCollisionCheckTimer().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the url got a token in the meantime, then its existing short url is returned")
+        void createNewShortUrlEntityRetryable_urlAlreadyCreated() {
+            createShortUrls(1);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("OTHER_TOKEN");
+
+            var result = mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("https://www.journaldemontreal.com/0");
+
+            assertThat(result.getToken()).isEqualTo("token0");
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("OTHER_TOKEN")).isNull();
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when createToken returns null, then ShortUrlTokenCannotBeCreatedException")
+        void createNewShortUrlEntityRetryable_nullToken() {
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn(null);
+
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl"))
+                    .isInstanceOf(ShortUrlTokenCannotBeCreatedException.class);
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when every token created is already used, then ShortUrlTokenAlreadyUsedException after token.maxAttempts attempts")
+        void createNewShortUrlEntityRetryable_maxAttempts() {
+            // ---- GIVEN ----
+            createShortUrls(1);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("token0");
+
+            // ---- WHEN / THEN ----
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl"))
+                    .isInstanceOf(ShortUrlTokenAlreadyUsedException.class);
+            verify(mockShortUrlTokenStrategy, times(1 + 3)).createToken();
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.createNewShortUrlEntities tests")
+    class CreateNewShortUrlEntitiesTest {
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : a token is created for each distinct url, and a token already used is created again")
+        void createNewShortUrlEntities_newShortUrls() {
+            // ---- GIVEN ----
+            createShortUrls(1);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("tokenA", "token0", "tokenB");
+
+            // ---- WHEN ----
+            var result = mappedFileShortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1", "http://url2", "http://url1"));
+
+            // ---- THEN ----
+            assertThat(result).extracting("originalUrl", "token").containsExactlyInAnyOrder(tuple("http://url1", "tokenA"), tuple("http://url2", "tokenB"));
+            assertThat(reopen().findExistingShortUrlEntitiesByOriginalUrls(List.of("http://url1", "http://url2")))
+                    .extractingByKeys("http://url1", "http://url2").extracting("token").containsExactly("tokenA", "tokenB");
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : when no token can be created, then the url is missing")
+        void createNewShortUrlEntities_noToken() {
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("");
+
+            assertThat(mappedFileShortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1"))).isEmpty();
+            verify(mockShortUrlTokenStrategy, times(3)).createToken();
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : when originalUrls is null, then RequiredValueException")
+        void createNewShortUrlEntities_null() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.createNewShortUrlEntities(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "originalUrls");
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.forEachExistingToken tests")
+    class ForEachExistingTokenTest {
+
+        @Test
+        @DisplayName("forEachExistingToken : every token is passed to the consumer, in the order they were created")
+        void forEachExistingToken_allTokens() {
+            createShortUrls(5);
+            List<String> tokens = new ArrayList<>();
+
+            mappedFileShortUrlDaoImpl.forEachExistingToken(tokens::add);
+
+            assertThat(tokens).containsExactlyElementsOf(IntStream.range(0, 5).mapToObj(i -> "token" + i).toList());
+        }
+
+        @Test
+        @DisplayName("forEachExistingToken : when the consumer is null, then RequiredValueException")
+        void forEachExistingToken_null() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.forEachExistingToken(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "tokenConsumer");
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.forEachExistingShortUrl tests")
+    class ForEachExistingShortUrlTest {
+
+        @Test
+        @DisplayName("forEachExistingShortUrl : the short urls are read by pages, and passed to the consumer outside the lock : the consumer can create short urls, which are read too")
+        void forEachExistingShortUrl_pagesOutsideLock() {
+            // ---- GIVEN ----
+            createShortUrls(5);
+            List<String> tokens = new ArrayList<>();
+
+            // ---- WHEN ----
+            mappedFileShortUrlDaoImpl.forEachExistingShortUrl(2, shortUrlEntity -> {
+                tokens.add(shortUrlEntity.getToken());
+                if (tokens.size() == 1) {
+                    when(mockShortUrlTokenStrategy.createToken()).thenReturn("token5");
+                    mappedFileShortUrlDaoImpl.createNewShortUrlEntityRetryable("https://www.journaldemontreal.com/5");
+                }
+            });
+
+            // ---- THEN ----
+            assertThat(tokens).containsExactlyElementsOf(IntStream.range(0, 6).mapToObj(i -> "token" + i).toList());
+        }
+
+        @Test
+        @DisplayName("forEachExistingShortUrl : when a compaction is asked while the short urls are read, then it is put off until they are read")
+        void forEachExistingShortUrl_compactionPutOff() {
+            // ---- GIVEN ----
+            urlShortenerProperties = new UrlShortenerPropertiesBuilder()
+                    .withStorageDirectory(directory.resolve("small").toString())
+                    .withStorageSegmentSizeBytes(100)
+                    .withStorageCompactionMinGarbageRatio(0.1)
+                    .buildSpy();
+            // a second record of token0 : its space is wasted, so the compaction moves the next records
+            try (var shortUrlLog = new MappedShortUrlLog(directory.resolve("small"), 100, false)) {
+                for (int i : new int[] { 0, 0, 1, 2, 3 }) {
+                    String originalUrl = "https://www.journaldemontreal.com/" + i;
+                    shortUrlLog.append("token" + i, originalUrl, HashUtils.hash128(originalUrl));
+                }
+            }
+            reopen();
+            var address3Before = mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("token3").getId();
+            List<String> tokens = new ArrayList<>();
+
+            // ---- WHEN ----
+            mappedFileShortUrlDaoImpl.forEachExistingShortUrl(1, shortUrlEntity -> {
+                tokens.add(shortUrlEntity.getToken());
+                mappedFileShortUrlDaoImpl.compact();
+            });
+
+            // ---- THEN ----
+            assertThat(tokens).containsExactly("token0", "token1", "token2", "token3");
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("token3").getId()).isEqualTo(address3Before);
+            mappedFileShortUrlDaoImpl.compact();
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("token3").getId()).isNotEqualTo(address3Before);
+        }
+
+        @Test
+        @DisplayName("forEachExistingShortUrl : when the page size is not strictly positive, then RequiredValueException")
+        void forEachExistingShortUrl_invalidPageSize() {
+            assertThatThrownBy(() -> mappedFileShortUrlDaoImpl.forEachExistingShortUrl(0, shortUrlEntity -> { }))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "pageSize");
+        }
+    }
+
+    @Nested
+    @DisplayName("MappedFileShortUrlDaoImpl.compact tests")
+    class CompactTest {
+
+        @Test
+        @DisplayName("compact : when enough space is wasted, then the files are rewritten and the short urls are still found")
+        void compact_wastedSpace() {
+            // ---- GIVEN ----
+            urlShortenerProperties = new UrlShortenerPropertiesBuilder()
+                    .withStorageDirectory(directory.resolve("small").toString())
+                    .withStorageSegmentSizeBytes(100)
+                    .withStorageCompactionMinGarbageRatio(0.1)
+                    .buildSpy();
+            reopen();
+            // each record takes more than half a segment : a segment per short url
+            createShortUrls(4);
+
+            // ---- WHEN ----
+            mappedFileShortUrlDaoImpl.compact();
+
+            // ---- THEN ----
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(List.of("token0", "token3")))
+                    .containsOnlyKeys("token0", "token3")
+                    .hasEntrySatisfying("token3", shortUrlEntity -> assertThat(shortUrlEntity.getOriginalUrl()).isEqualTo("https://www.journaldemontreal.com/3"));
+            assertThat(reopen().findExistingShortUrlEntityByOriginalUrl("https://www.journaldemontreal.com/2")).extracting("token").isEqualTo("token2");
+        }
+
+        @Test
+        @DisplayName("compact : when not enough space is wasted, then the files are kept")
+        void compact_notEnoughWastedSpace() {
+            createShortUrls(2);
+            var addressBefore = mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("token1").getId();
+
+            mappedFileShortUrlDaoImpl.compact();
+
+            assertThat(mappedFileShortUrlDaoImpl.findExistingShortUrlEntityByToken("token1").getId()).isEqualTo(addressBefore);
+        }
+    }
+}
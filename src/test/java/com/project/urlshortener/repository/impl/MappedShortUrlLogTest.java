@@ -0,0 +1,213 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class MappedShortUrlLogTest {
+
+    /** Size of the record of token1 and https://www.journaldemontreal.com/1 : header (8), token (2 + 6), hash (16), url (2 + 35). */
+    private static final int RECORD_BYTES = 69;
+
+    @TempDir
+    private Path directory;
+
+    private static long append(final MappedShortUrlLog shortUrlLog, final String token, final String originalUrl) {
+        return shortUrlLog.append(token, originalUrl, HashUtils.hash128(originalUrl));
+    }
+
+    private static List<ShortUrlEntity> readAll(final MappedShortUrlLog shortUrlLog) {
+        List<ShortUrlEntity> shortUrlEntities = new ArrayList<>();
+        shortUrlLog.forEach(address -> shortUrlEntities.add(shortUrlLog.read(address)));
+        return shortUrlEntities;
+    }
+
+    @Nested
+    @DisplayName("MappedShortUrlLog.append and MappedShortUrlLog.read tests")
+    class AppendReadTest {
+
+        @Test
+        @DisplayName("read : the short url of a record is read at its address, and the records are read again in the order they were written when the log is opened again")
+        void read_recordsInOrder() {
+            // ---- GIVEN ----
+            long address1;
+            long address2;
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+                address1 = append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1");
+                address2 = append(shortUrlLog, "token2", "https://www.journaldemontreal.com/é");
+
+                // ---- WHEN / THEN ----
+                assertThat(shortUrlLog.read(address2)).extracting("id", "token", "originalUrl", "originalUrlHash")
+                        .containsExactly(address2, "token2", "https://www.journaldemontreal.com/é", HashUtils.hash128("https://www.journaldemontreal.com/é"));
+                assertThat(shortUrlLog.readToken(address1)).isEqualTo("token1");
+            }
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+                assertThat(readAll(shortUrlLog)).extracting("id", "token", "originalUrl").containsExactly(
+                        tuple(address1, "token1", "https://www.journaldemontreal.com/1"),
+                        tuple(address2, "token2", "https://www.journaldemontreal.com/é"));
+                assertThat(shortUrlLog.garbageRatio()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("append : when a record does not fit in the end of the segment, then it is written to a new segment and the end of the previous segment is wasted")
+        void append_newSegment() throws IOException {
+            // ---- GIVEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 2 * RECORD_BYTES + 10, false)) {
+                append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1");
+                append(shortUrlLog, "token2", "https://www.journaldemontreal.com/2");
+
+                // ---- WHEN ----
+                long address3 = append(shortUrlLog, "token3", "https://www.journaldemontreal.com/3");
+
+                // ---- THEN ----
+                assertThat(address3).isEqualTo(1L << 32);
+                assertThat(readAll(shortUrlLog)).extracting("token").containsExactly("token1", "token2", "token3");
+                assertThat(shortUrlLog.garbageRatio()).isEqualTo(1 - 3.0 * RECORD_BYTES / (2 * RECORD_BYTES + 10 + RECORD_BYTES));
+            }
+            assertThat(listSegments()).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("append : when the record is larger than a segment, then IllegalArgumentException")
+        void append_recordLargerThanSegment() {
+            try (var shortUrlLog = new MappedShortUrlLog(directory, RECORD_BYTES - 1, false)) {
+                assertThatThrownBy(() -> append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1")).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+
+        @Test
+        @DisplayName("constructor : when a record is corrupted, then the next records of its segment are ignored, and the new records replace them")
+        void constructor_corruptedRecord() throws IOException {
+            // ---- GIVEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+                append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1");
+                append(shortUrlLog, "token2", "https://www.journaldemontreal.com/2");
+                append(shortUrlLog, "token3", "https://www.journaldemontreal.com/3");
+            }
+            Path segment = listSegments().getFirst();
+            byte[] bytes = Files.readAllBytes(segment);
+            // last character of the second original url
+            bytes[2 * RECORD_BYTES - 1] ^= 1;
+            Files.write(segment, bytes);
+
+            // ---- WHEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+                assertThat(readAll(shortUrlLog)).extracting("token").containsExactly("token1");
+                append(shortUrlLog, "token4", "https://www.journaldemontreal.com/4");
+            }
+
+            // ---- THEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+                assertThat(readAll(shortUrlLog)).extracting("token").containsExactly("token1", "token4");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("MappedShortUrlLog.compact tests")
+    class CompactTest {
+
+        @Test
+        @DisplayName("compact : only the records still used are copied, and the new log replaces the previous segments")
+        void compact_liveRecords() throws IOException {
+            // ---- GIVEN ----
+            var shortUrlLog = new MappedShortUrlLog(directory, 2 * RECORD_BYTES + 10, false);
+            append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1");
+            long address2 = append(shortUrlLog, "token2", "https://www.journaldemontreal.com/2");
+            append(shortUrlLog, "token3", "https://www.journaldemontreal.com/3");
+            shortUrlLog.release(address2);
+
+            // ---- WHEN ----
+            try (var compactedLog = shortUrlLog.compact(address -> address != address2)) {
+
+                // ---- THEN ----
+                assertThat(readAll(compactedLog)).extracting("token").containsExactly("token1", "token3");
+                assertThat(compactedLog.garbageRatio()).isZero();
+                assertThat(compactedLog.isOpen()).isTrue();
+                assertThat(shortUrlLog.isOpen()).isFalse();
+            }
+            assertThat(listSegments()).hasSize(1);
+            try (var reopenedLog = new MappedShortUrlLog(directory, 2 * RECORD_BYTES + 10, false)) {
+                assertThat(readAll(reopenedLog)).extracting("token").containsExactly("token1", "token3");
+            }
+        }
+
+        @Test
+        @DisplayName("constructor : when a compaction was interrupted after its copy, then the copy replaces the segments ; an incomplete copy is deleted")
+        void constructor_interruptedCompaction() throws IOException {
+            // ---- GIVEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+                append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1");
+                append(shortUrlLog, "token2", "https://www.journaldemontreal.com/2");
+            }
+            try (var copiedLog = new MappedShortUrlLog(directory.resolve("compacted"), 4096, false)) {
+                append(copiedLog, "token2", "https://www.journaldemontreal.com/2");
+            }
+            try (var incompleteLog = new MappedShortUrlLog(directory.resolve("compacting"), 4096, false)) {
+                append(incompleteLog, "token3", "https://www.journaldemontreal.com/3");
+            }
+
+            // ---- WHEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, 4096, false)) {
+
+                // ---- THEN ----
+                assertThat(readAll(shortUrlLog)).extracting("token").containsExactly("token2");
+            }
+            assertThat(listSegments()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("constructor : when the replacement of the segments by the copy was interrupted, then the segments already replaced are kept and the others are replaced")
+        void constructor_interruptedReplacement() throws IOException {
+            // ---- GIVEN ----
+            int segmentSize = RECORD_BYTES + 10;
+            try (var shortUrlLog = new MappedShortUrlLog(directory, segmentSize, false)) {
+                append(shortUrlLog, "token1", "https://www.journaldemontreal.com/1");
+                append(shortUrlLog, "token2", "https://www.journaldemontreal.com/2");
+                append(shortUrlLog, "token3", "https://www.journaldemontreal.com/3");
+            }
+            Path compactedDirectory = directory.resolve("compacted");
+            try (var copiedLog = new MappedShortUrlLog(compactedDirectory, segmentSize, false)) {
+                append(copiedLog, "token2", "https://www.journaldemontreal.com/2");
+                append(copiedLog, "token3", "https://www.journaldemontreal.com/3");
+            }
+            // the first segment of the copy has already replaced the first segment
+            Path firstCopiedSegment;
+            try (var files = Files.list(compactedDirectory)) {
+                firstCopiedSegment = files.sorted().findFirst().orElseThrow();
+            }
+            Files.move(firstCopiedSegment, directory.resolve(firstCopiedSegment.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+
+            // ---- WHEN ----
+            try (var shortUrlLog = new MappedShortUrlLog(directory, segmentSize, false)) {
+
+                // ---- THEN ----
+                assertThat(readAll(shortUrlLog)).extracting("token").containsExactly("token2", "token3");
+            }
+            assertThat(listSegments()).hasSize(2);
+            assertThat(compactedDirectory).doesNotExist();
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+}
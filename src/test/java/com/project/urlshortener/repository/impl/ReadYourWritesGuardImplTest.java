@@ -0,0 +1,114 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReadYourWritesGuardImplTest {
+
+    private static final ShortUrlEntity SHORT_URL_ABCD = ShortUrlEntity.builder().originalUrl("http://originalurl").token("abcd").build();
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
+    private ReadYourWritesGuardImpl buildGuard(final boolean readReplicasEnabled) {
+        return new ReadYourWritesGuardImpl(new UrlShortenerPropertiesBuilder().withReadReplicasEnabled(readReplicasEnabled).buildSpy(), mockTransactionManager);
+    }
+
+    @Nested
+    @DisplayName("ReadYourWritesGuard.read tests")
+    class ReadTest {
+
+        @Test
+        @DisplayName("read : when the token or the original url was created recently, then the lookup runs in a new read-write transaction")
+        void read_recentWrite_shouldRunInReadWriteTransaction() {
+            // ---- GIVEN ----
+            when(mockTransactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+            var guard = buildGuard(true);
+            guard.recordWrite(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var byToken = guard.read(List.of("other", "abcd"), () -> "result");
+            var byOriginalUrl = guard.read(List.of("http://originalurl"), () -> "result");
+
+            // ---- THEN ----
+            assertThat(byToken).isEqualTo("result");
+            assertThat(byOriginalUrl).isEqualTo("result");
+            var definitionCaptor = ArgumentCaptor.forClass(TransactionDefinition.class);
+            verify(mockTransactionManager, times(2)).getTransaction(definitionCaptor.capture());
+            assertThat(definitionCaptor.getAllValues()).allSatisfy(definition -> {
+                assertThat(definition.isReadOnly()).isFalse();
+                assertThat(definition.getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            });
+        }
+
+        @Test
+        @DisplayName("read : when none of the values was created recently, then the lookup runs as is")
+        void read_noRecentWrite_shouldRunLookupAsIs() {
+            // ---- GIVEN ----
+            var guard = buildGuard(true);
+            guard.recordWrite(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = guard.read(List.of("other"), () -> "result");
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo("result");
+            verifyNoInteractions(mockTransactionManager);
+        }
+
+        @Test
+        @DisplayName("read : when the read replicas are disabled, then the lookup runs as is, even for a recent write")
+        void read_readReplicasDisabled_shouldRunLookupAsIs() {
+            // ---- GIVEN ----
+            var guard = buildGuard(false);
+            guard.recordWrite(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = guard.read(List.of("abcd"), () -> "result");
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo("result");
+            verifyNoInteractions(mockTransactionManager);
+        }
+    }
+
+    @Nested
+    @DisplayName("ReadYourWritesGuard.readFromPrimary tests")
+    class ReadFromPrimaryTest {
+
+        @Test
+        @DisplayName("readFromPrimary : the lookup runs in a new read-write transaction when the read replicas are enabled, as is when they are disabled")
+        void readFromPrimary_shouldRunInReadWriteTransactionWithReplicas() {
+            // ---- GIVEN ----
+            when(mockTransactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+            // ---- WHEN ----
+            var withReplicas = buildGuard(true).readFromPrimary(() -> "result");
+            var withoutReplicas = buildGuard(false).readFromPrimary(() -> "result");
+
+            // ---- THEN ----
+            assertThat(withReplicas).isEqualTo("result");
+            assertThat(withoutReplicas).isEqualTo("result");
+            var definitionCaptor = ArgumentCaptor.forClass(TransactionDefinition.class);
+            verify(mockTransactionManager, times(1)).getTransaction(definitionCaptor.capture());
+            assertThat(definitionCaptor.getValue().isReadOnly()).isFalse();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.job.ShortUrlReshardingJob;
+import com.project.urlshortener.model.shard.ShardRoute;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
+import com.project.urlshortener.monitoring.ShortUrlShardsEndpoint;
+import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.repository.ShortUrlShardRouter;
+import com.project.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"url-shortener.storage.engine=sharded",
+		"url-shortener.sharding.routing-refresh-millis=50",
+		"url-shortener.sharding.move-batch-size=2",
+		"url-shortener.sharding.datasources[0].url=" + ShardedShortUrlDaoImplSpringTest.SHARD_0_URL,
+		"url-shortener.sharding.datasources[0].username=sa",
+		"url-shortener.sharding.datasources[1].url=" + ShardedShortUrlDaoImplSpringTest.SHARD_1_URL,
+		"url-shortener.sharding.datasources[1].username=sa",
+		"url-shortener.cache.enabled=false",
+		"url-shortener.bloom-filter.enabled=false"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShardedShortUrlDaoImplSpringTest {
+
+	private static final String SHORT_URL_TABLE = ";DB_CLOSE_DELAY=-1;INIT=CREATE TABLE IF NOT EXISTS SHORT_URL"
+			+ "(ID BIGINT AUTO_INCREMENT PRIMARY KEY, TOKEN VARCHAR(255) UNIQUE, ORIGINAL_URL VARCHAR(2048), ORIGINAL_URL_HASH BINARY(16) UNIQUE)";
+
+	/**
+	 * Two other H2 databases, playing the shards.
+	 */
+	static final String SHARD_0_URL = "jdbc:h2:mem:shard0" + SHORT_URL_TABLE;
+	static final String SHARD_1_URL = "jdbc:h2:mem:shard1" + SHORT_URL_TABLE;
+
+	@Autowired
+	private ShortUrlDao shortUrlDao;
+
+	@Autowired
+	private UrlShortenerService urlShortenerService;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Autowired
+	private ShortUrlShardRouter shortUrlShardRouter;
+
+	@Autowired
+	private ShortUrlReshardingJob shortUrlReshardingJob;
+
+	@Autowired
+	private ShortUrlShardsEndpoint shortUrlShardsEndpoint;
+
+	private final List<JdbcTemplate> shardJdbcTemplates = List.of(new JdbcTemplate(new DriverManagerDataSource(SHARD_0_URL, "sa", "")),
+			new JdbcTemplate(new DriverManagerDataSource(SHARD_1_URL, "sa", "")));
+
+	@BeforeEach
+	void setUp() {
+		shardJdbcTemplates.forEach(jdbcTemplate -> jdbcTemplate.update("delete from SHORT_URL"));
+	}
+
+	@Test
+	@DisplayName("engine sharded : the short urls are created in the shard of the prefix of their token, decoded and found again by their url, without any row in the database")
+	void sharded_createAndDecode() throws Exception {
+		assertThat(shortUrlDao).isInstanceOf(ShardedShortUrlDaoImpl.class);
+
+		List<String> originalUrls = List.of("https://www.journaldemontreal.com/sharded/1", "https://www.journaldemontreal.com/sharded/2",
+				"https://www.journaldemontreal.com/sharded/3", "https://www.journaldemontreal.com/sharded/4");
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrls.getFirst());
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrls.getFirst());
+		assertThat(urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrls.getFirst())).isEqualTo(shortUrl);
+		assertThat(countTokens(shortUrlShardRouter.route(shortUrlShardRouter.bucketOfToken(token)).shard(), token)).isEqualTo(1);
+
+		List<CreateShortUrlResult> results = urlShortenerService.obtainShortUrlsForOriginalCompleteUrls(originalUrls);
+		assertThat(results).allMatch(CreateShortUrlResult::isSuccess)
+				.first().extracting(CreateShortUrlResult::shortUrl).isEqualTo(shortUrl);
+		for (int i = 0; i < originalUrls.size(); i++) {
+			String resultToken = results.get(i).shortUrl().substring(results.get(i).shortUrl().lastIndexOf('/') + 1);
+			assertThat(shortUrlShardRouter.bucketOfToken(resultToken)).isEqualTo(shortUrlShardRouter.bucketOfOriginalUrl(originalUrls.get(i)));
+			assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(resultToken)).isEqualTo(originalUrls.get(i));
+		}
+		assertThat(shortUrlRepository.count()).isZero();
+	}
+
+	@Test
+	@DisplayName("engine sharded : a bucket moved to the other shard has its short urls copied then deleted from its former shard, and they are still decoded and found by their url")
+	void sharded_moveBucket() throws Exception {
+		String originalUrl = "https://www.journaldemontreal.com/sharded/move";
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+		ShardRoute route = shortUrlShardRouter.route(shortUrlShardRouter.bucketOfToken(token));
+		int targetShard = 1 - route.shard();
+
+		assertThat(shortUrlReshardingJob.moveBucket(route.prefix(), targetShard).get(10, TimeUnit.SECONDS)).isEqualTo(1L);
+
+		assertThat(shortUrlShardRouter.route(route.bucket())).isEqualTo(new ShardRoute(route.bucket(), route.prefix(), targetShard, ShardRoute.NO_SHARD));
+		assertThat(countTokens(route.shard(), token)).isZero();
+		assertThat(countTokens(targetShard, token)).isEqualTo(1);
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+		assertThat(urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl)).isEqualTo(shortUrl);
+	}
+
+	@Test
+	@DisplayName("engine sharded : when a move asked to the shards endpoint is not valid, then the error is thrown before the move is started ; otherwise the bucket is moved in the background")
+	void sharded_moveEndpoint() throws Exception {
+		String originalUrl = "https://www.journaldemontreal.com/sharded/endpoint";
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+		ShardRoute route = shortUrlShardRouter.route(shortUrlShardRouter.bucketOfToken(token));
+		int targetShard = 1 - route.shard();
+
+		assertThatThrownBy(() -> shortUrlShardsEndpoint.move(route.prefix(), 2)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> shortUrlShardsEndpoint.move(route.prefix() + "??", targetShard)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(shortUrlShardRouter.route(route.bucket())).isEqualTo(route);
+
+		assertThat(shortUrlShardsEndpoint.move(route.prefix(), targetShard).bucket()).isEqualTo(route.bucket());
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (shortUrlShardRouter.route(route.bucket()).shard() != targetShard || shortUrlShardRouter.route(route.bucket()).hasSecondaryShard()) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+	}
+
+	private int countTokens(final int shard, final String token) {
+		Integer count = shardJdbcTemplates.get(shard).queryForObject("select count(*) from SHORT_URL where TOKEN = ?", Integer.class, token);
+		return count == null ? 0 : count;
+	}
+
+}
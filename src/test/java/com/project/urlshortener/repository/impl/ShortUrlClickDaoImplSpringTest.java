@@ -0,0 +1,86 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.click.ClickRecorder;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlClickDao;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShortUrlClickDaoImplSpringTest {
+
+	@Autowired
+	private ShortUrlClickDao shortUrlClickDao;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Autowired
+	private UrlShortenerService urlShortenerService;
+
+	@Autowired
+	private ClickRecorder clickRecorder;
+
+	@Test
+	@DisplayName("addClicks : the new tokens are inserted, then the clicks are added to the existing counts")
+	void addClicks_insertThenUpdate() {
+		shortUrlClickDao.addClicks(Map.of("token1", 2L, "token2", 1L));
+		shortUrlClickDao.addClicks(Map.of("token1", 3L, "token3", 5L));
+
+		assertThat(shortUrlClickDao.getClickCount("token1")).isEqualTo(5L);
+		assertThat(shortUrlClickDao.getClickCount("token2")).isEqualTo(1L);
+		assertThat(shortUrlClickDao.getClickCount("token3")).isEqualTo(5L);
+		assertThat(shortUrlClickDao.getClickCount("unknown")).isZero();
+	}
+
+	@Test
+	@DisplayName("addClicks : concurrent batches inserting the same new tokens never lose a click")
+	void addClicks_concurrent() throws Exception {
+		try (ExecutorService executorService = Executors.newFixedThreadPool(4)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 4; thread++) {
+				futures.add(executorService.submit(() -> {
+					for (int i = 0; i < 25; i++) {
+						shortUrlClickDao.addClicks(Map.of("token" + i, 1L, "shared", 1L));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+
+		assertThat(shortUrlClickDao.getClickCount("shared")).isEqualTo(100L);
+		assertThat(shortUrlClickDao.getClickCount("token0")).isEqualTo(4L);
+		assertThat(shortUrlClickDao.getClickCount("token24")).isEqualTo(4L);
+	}
+
+	@Test
+	@DisplayName("getOriginalUrlForShortUrlToken : each decode is counted once the clicks are flushed, and the unknown tokens are not counted")
+	void getOriginalUrlForShortUrlToken_clicksCounted() throws Exception {
+		shortUrlRepository.save(ShortUrlEntity.builder().token("clicked").originalUrl("https://www.journaldemontreal.com/").build());
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(urlShortenerService.getOriginalUrlForShortUrlToken("clicked")).isEqualTo("https://www.journaldemontreal.com/");
+		}
+		clickRecorder.flush();
+
+		assertThat(shortUrlClickDao.getClickCount("clicked")).isEqualTo(3L);
+	}
+
+}
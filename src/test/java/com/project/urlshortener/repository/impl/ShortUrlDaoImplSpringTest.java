@@ -0,0 +1,63 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShortUrlDaoImplSpringTest {
+
+	@Autowired
+	private ShortUrlDaoImpl shortUrlDaoImpl;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	private void given_existingShortUrl(final String token, final String originalUrl) {
+		ShortUrlEntity shortUrlEntity = ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+		shortUrlEntity.computeOriginalUrlHash();
+		shortUrlRepository.save(shortUrlEntity);
+	}
+
+	@Test
+	@DisplayName("createNewShortUrlEntities : when a row of the batch cannot be inserted, then no row of the batch is inserted")
+	void createNewShortUrlEntities_failedBatch_shouldInsertNothing() {
+		// ---- GIVEN ----
+		given_existingShortUrl("existing01", "http://url2");
+
+		// ---- WHEN ----
+		var result = shortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1", "http://url2", "http://url3"));
+
+		// ---- THEN ----
+		assertThat(result).isEmpty();
+		assertThat(shortUrlRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("importShortUrlEntities : when a row of the batch cannot be inserted, then the batch is rolled back and the other rows are imported one by one and counted")
+	void importShortUrlEntities_failedBatch_shouldCountImportedRows() {
+		// ---- GIVEN ----
+		String tooLongUrl = "http://url2/" + "a".repeat(3000);
+
+		// ---- WHEN ----
+		int result = shortUrlDaoImpl.importShortUrlEntities(List.of(
+				ShortUrlEntity.builder().token("import0001").originalUrl("http://url1").build(),
+				ShortUrlEntity.builder().token("import0002").originalUrl(tooLongUrl).build(),
+				ShortUrlEntity.builder().token("import0003").originalUrl("http://url3").build()));
+
+		// ---- THEN ----
+		assertThat(result).isEqualTo(2);
+		assertThat(shortUrlRepository.count()).isEqualTo(2);
+		assertThat(shortUrlRepository.findProjectionByToken("import0003")).isNotNull();
+	}
+
+}
@@ -1,13 +1,22 @@
 package com.project.urlshortener.repository.impl;
 
+import com.project.urlshortener.cache.ShortUrlTokenCache;
+import com.project.urlshortener.cache.ShortUrlTokenFilter;
 import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.common.utils.HashUtils;
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
 import com.project.urlshortener.exception.ShortUrlTokenAlreadyUsedException;
 import com.project.urlshortener.exception.ShortUrlTokenCannotBeCreatedException;
 import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.OriginalUrlHashBackfillStatus;
+import com.project.urlshortener.repository.ReadYourWritesGuard;
+import com.project.urlshortener.repository.ShortUrlLookupCoalescer;
 import com.project.urlshortener.repository.ShortUrlRepository;
-import com.project.urlshortener.service.StringTokenService;
+import com.project.urlshortener.repository.ShortUrlWriteBehindQueue;
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
 import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,15 +28,36 @@ import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -40,7 +70,25 @@ public class ShortUrlDaoImplTest {
     @Mock
     private ShortUrlRepository mockUrlTokensRepository;
     @Mock
-    private StringTokenService mockStringTokenService;
+    private ShortUrlTokenStrategy mockShortUrlTokenStrategy;
+    @Mock
+    private ShortUrlTokenCache mockShortUrlTokenCache;
+    @Mock
+    private ShortUrlTokenFilter mockShortUrlTokenFilter;
+    @Mock
+    private OriginalUrlHashBackfillStatus mockOriginalUrlHashBackfillStatus;
+    @Mock
+    private JdbcTemplate mockJdbcTemplate;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+    @Mock
+    private ShortUrlWriteBehindQueue mockShortUrlWriteBehindQueue;
+    @Mock
+    private ReadYourWritesGuard mockReadYourWritesGuard;
+    @Mock
+    private ShortUrlLookupCoalescer mockShortUrlLookupCoalescer;
+    @Spy
+    private UrlShortenerMetrics urlShortenerMetrics = new UrlShortenerMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private ShortUrlDaoImpl shortUrlDaoImpl;
@@ -49,6 +97,14 @@ public class ShortUrlDaoImplTest {
     void setUp() {
         urlShortenerProperties = new UrlShortenerPropertiesBuilder().buildSpy();
         ReflectionTestUtils.setField(shortUrlDaoImpl, "urlShortenerProperties", urlShortenerProperties);
+        lenient().when(mockShortUrlTokenFilter.mightContain(anyString())).thenReturn(true);
+        lenient().when(mockOriginalUrlHashBackfillStatus.isCompleted()).thenReturn(true);
+        lenient().when(mockReadYourWritesGuard.read(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        lenient().when(mockShortUrlLookupCoalescer.findByToken(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(mockTransactionTemplate).executeWithoutResult(any());
     }
 
     @Nested
@@ -56,17 +112,107 @@ public class ShortUrlDaoImplTest {
     class FindExistingShortUrlEntityByTokenTest {
 
         @Test
-        @DisplayName("findExistingShortUrlEntityByToken : when token is passed as a parameter, then repository.findByToken should be called and should return result from repository")
+        @DisplayName("findExistingShortUrlEntityByToken : when token is passed as a parameter, then repository.findProjectionByToken should be called and should return result from repository")
         void findExistingShortUrlEntityByToken_shouldCallRepositoryFindByToken() {
             // ---- GIVEN ----
-            when(mockUrlTokensRepository.findByToken("abcd")).thenReturn(SHORT_URL_ABCD);
+            when(mockUrlTokensRepository.findProjectionByToken("abcd")).thenReturn(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("abcd");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, times(1)).findProjectionByToken("abcd");
+            assertThat(result).isEqualTo(SHORT_URL_ABCD);
+            assertThat(urlShortenerMetrics.getDecodeLookupTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when token is not in the cache but is found in the repository, then the result from repository is added to the cache")
+        void findExistingShortUrlEntityByToken_cacheMiss_shouldAddResultToCache() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenCache.getIfPresent("abcd")).thenReturn(null);
+            when(mockUrlTokensRepository.findProjectionByToken("abcd")).thenReturn(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("abcd");
+
+            // ---- THEN ----
+            verify(mockShortUrlTokenCache).getIfPresent("abcd");
+            verify(mockShortUrlLookupCoalescer).findByToken(eq("abcd"), any());
+            verify(mockShortUrlTokenCache).put(SHORT_URL_ABCD);
+            assertThat(result).isEqualTo(SHORT_URL_ABCD);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when token is waiting to be inserted (write-behind), then neither the cache nor the repository should be read")
+        void findExistingShortUrlEntityByToken_pending_shouldNotReadCacheNorRepository() {
+            // ---- GIVEN ----
+            when(mockShortUrlWriteBehindQueue.findPendingByToken("abcd")).thenReturn(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("abcd");
+
+            // ---- THEN ----
+            verifyNoInteractions(mockUrlTokensRepository, mockShortUrlTokenCache);
+            assertThat(result).isEqualTo(SHORT_URL_ABCD);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when token is in the cache, then repository.findProjectionByToken should not be called and should return result from the cache")
+        void findExistingShortUrlEntityByToken_cacheHit_shouldNotCallRepository() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenCache.getIfPresent("abcd")).thenReturn(SHORT_URL_ABCD);
 
             // ---- WHEN ----
             var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("abcd");
 
             // ---- THEN ----
-            verify(mockUrlTokensRepository, times(1)).findByToken("abcd");
+            verifyNoInteractions(mockUrlTokensRepository, mockShortUrlLookupCoalescer);
+            verify(mockShortUrlTokenCache, never()).put(any());
             assertThat(result).isEqualTo(SHORT_URL_ABCD);
+            assertThat(urlShortenerMetrics.getDecodeLookupTimer().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when token is neither in the cache nor in the repository, then null is returned and nothing is added to the cache")
+        void findExistingShortUrlEntityByToken_notFound_shouldNotAddToCache() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionByToken("zzzz")).thenReturn(null);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("zzzz");
+
+            // ---- THEN ----
+            verify(mockShortUrlTokenCache, never()).put(any());
+            assertThat(result).isNull();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when the token filter tells that the token does not exist, then null is returned without reading the cache or the repository")
+        void findExistingShortUrlEntityByToken_filterDefiniteMiss_shouldNotCallCacheNorRepository() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenFilter.mightContain("unknown")).thenReturn(false);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("unknown");
+
+            // ---- THEN ----
+            assertThat(result).isNull();
+            verifyNoInteractions(mockShortUrlTokenCache);
+            verifyNoInteractions(mockUrlTokensRepository);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when token is not in the cache, then the repository is read through the read-your-writes guard")
+        void findExistingShortUrlEntityByToken_cacheMiss_shouldReadThroughReadYourWritesGuard() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionByToken("abcd")).thenReturn(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            shortUrlDaoImpl.findExistingShortUrlEntityByToken("abcd");
+
+            // ---- THEN ----
+            verify(mockReadYourWritesGuard).read(eq(List.of("abcd")), any());
         }
 
         @ParameterizedTest
@@ -95,14 +241,121 @@ public class ShortUrlDaoImplTest {
 
     }
 
+    @Nested
+    @DisplayName("ShortUrlDao.findExistingShortUrlEntitiesByTokens tests")
+    class FindExistingShortUrlEntitiesByTokensTest {
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByTokens : the tokens found in the cache are not searched, the other tokens are searched with one query and the results are added to the cache")
+        void findExistingShortUrlEntitiesByTokens_cacheThenOneQuery() {
+            // ---- GIVEN ----
+            ShortUrlEntity shortUrlEfgh = ShortUrlEntity.builder().originalUrl("http://otherurl").token("efgh").build();
+            when(mockShortUrlTokenCache.getIfPresent("abcd")).thenReturn(SHORT_URL_ABCD);
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(List.of("efgh", "ijkl"))).thenReturn(List.of(shortUrlEfgh));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(List.of("abcd", "efgh", "ijkl", "efgh"));
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, times(1)).findProjectionsByTokenIn(any());
+            verify(mockShortUrlTokenCache).put(shortUrlEfgh);
+            verify(mockShortUrlTokenCache, never()).put(SHORT_URL_ABCD);
+            assertThat(result).containsOnly(entry("abcd", SHORT_URL_ABCD), entry("efgh", shortUrlEfgh));
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByTokens : the tokens rejected by the token filter are neither read from the cache nor searched")
+        void findExistingShortUrlEntitiesByTokens_filterRejectsToken() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenFilter.mightContain("abcd")).thenReturn(false);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(List.of("abcd"));
+
+            // ---- THEN ----
+            verify(mockShortUrlTokenCache, never()).getIfPresent(anyString());
+            verifyNoInteractions(mockUrlTokensRepository);
+            assertThat(result).isEmpty();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByTokens : when there are more tokens than IN_QUERY_CHUNK_SIZE, then several queries are run")
+        void findExistingShortUrlEntitiesByTokens_manyTokens_shouldRunSeveralQueries() {
+            // ---- GIVEN ----
+            List<String> tokens = IntStream.range(0, ShortUrlDaoImpl.IN_QUERY_CHUNK_SIZE * 2 + 1).mapToObj(i -> "token" + i).toList();
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(any())).thenReturn(List.of());
+
+            // ---- WHEN ----
+            shortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(tokens);
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, times(3)).findProjectionsByTokenIn(any());
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByTokens : when tokens is null, then RequiredValueException")
+        void findExistingShortUrlEntitiesByTokens_error_nullTokens() {
+            assertThatThrownBy(() -> shortUrlDaoImpl.findExistingShortUrlEntitiesByTokens(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "tokens")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+        }
+    }
+
     @Nested
     @DisplayName("ShortUrlDao.findExistingShortUrlEntityByOriginalUrl tests")
     class FindExistingShortUrlEntityByOriginalUrlTest {
 
         @Test
-        @DisplayName("findExistingShortUrlEntityByToken : when token is passed as a parameter, then repository.findByToken should be called and should return result from repository")
-        void findExistingShortUrlEntityByOriginalUrl_shouldCallRepositoryFindByToken() {
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when originalUrl is passed as a parameter, then repository.findProjectionByOriginalUrlHash should be called and should return result from repository")
+        void findExistingShortUrlEntityByOriginalUrl_shouldCallRepositoryFindByOriginalUrlHash() {
             // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(HashUtils.hash128("http://originalurl"))).thenReturn(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("http://originalurl");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository).findProjectionByOriginalUrlHash(HashUtils.hash128("http://originalurl"));
+            verify(mockUrlTokensRepository, never()).findByOriginalUrl(anyString());
+            assertThat(result).isEqualTo(SHORT_URL_ABCD);
+            assertThat(urlShortenerMetrics.getDedupLookupTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when the row found by hash has another url, then null")
+        void findExistingShortUrlEntityByOriginalUrl_hashCollision() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(HashUtils.hash128("http://otherurl"))).thenReturn(SHORT_URL_ABCD);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("http://otherurl");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, never()).findByOriginalUrl(anyString());
+            assertThat(result).isNull();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when not found by hash and the backfill is completed, then null without reading the url column")
+        void findExistingShortUrlEntityByOriginalUrl_notFound_backfillCompleted() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(any())).thenReturn(null);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("http://originalurl");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, never()).findByOriginalUrl(anyString());
+            assertThat(result).isNull();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when not found by hash and the backfill is running, then repository.findByOriginalUrl should be called")
+        void findExistingShortUrlEntityByOriginalUrl_notFound_backfillRunning() {
+            // ---- GIVEN ----
+            when(mockOriginalUrlHashBackfillStatus.isCompleted()).thenReturn(false);
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(any())).thenReturn(null);
             when(mockUrlTokensRepository.findByOriginalUrl("http://originalurl")).thenReturn(SHORT_URL_ABCD);
 
             // ---- WHEN ----
@@ -152,17 +405,17 @@ public class ShortUrlDaoImplTest {
         }
 
         @Test
-        @DisplayName("createNewShortUrlEntityRetryable : when token is passed as a parameter, then repository.findByToken should be called and should return result from repository")
+        @DisplayName("createNewShortUrlEntityRetryable : when token is passed as a parameter, then repository.findProjectionByToken should be called and should return result from repository")
         void createNewShortUrlEntityRetryable_shouldCallRepositoryFindByTokenAndShouldCallRepositorySave() {
             // ---- GIVEN ----
             using_mocked_urlTokensRepository_save();
-            when(mockStringTokenService.createStringToken(anyString(), anyInt())).thenReturn("MY_TOKEN");
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
 
             // ---- WHEN ----
             var result = shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
 
             // ---- THEN ----
-            verify(mockUrlTokensRepository).findByToken("MY_TOKEN");
+            verify(mockUrlTokensRepository).findProjectionByToken("MY_TOKEN");
 
             var entityCaptor = ArgumentCaptor.forClass(ShortUrlEntity.class);
             verify(mockUrlTokensRepository).save(entityCaptor.capture());
@@ -175,12 +428,126 @@ public class ShortUrlDaoImplTest {
             assertThat(result.getId()).isNotNull();
             assertThat(result.getOriginalUrl()).isEqualTo(savedEntity.getOriginalUrl());
             assertThat(result.getToken()).isEqualTo(savedEntity.getToken());
+            verify(mockShortUrlTokenCache).put(result);
+            verify(mockShortUrlTokenFilter).put("MY_TOKEN");
+            verify(mockReadYourWritesGuard).recordWrite(result);
+            assertThat(urlShortenerMetrics.getTokenGenerationTimer().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getCollisionCheckTimer().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getInsertTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the insertion breaks a unique constraint because another instance has created the url, then the row of the other instance is read from the primary database and returned")
+        void createNewShortUrlEntityRetryable_urlCreatedByAnotherInstance_shouldReturnExistingRow() {
+            // ---- GIVEN ----
+            var existingShortUrlEntity = ShortUrlEntity.builder().id(7L).originalUrl("http://originalurl").token("WINNER").build();
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
+            when(mockUrlTokensRepository.save(any(ShortUrlEntity.class))).thenThrow(new DataIntegrityViolationException("UK_SHORT_URL_ORIGINAL_URL_HASH"));
+            when(mockReadYourWritesGuard.readFromPrimary(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(HashUtils.hash128("http://originalurl"))).thenReturn(existingShortUrlEntity);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            // ---- THEN ----
+            assertThat(result).isSameAs(existingShortUrlEntity);
+            verify(mockReadYourWritesGuard).readFromPrimary(any());
+            verify(mockShortUrlTokenFilter).put("WINNER");
+            verify(mockShortUrlTokenCache).put(existingShortUrlEntity);
+            verify(mockReadYourWritesGuard, never()).recordWrite(any());
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the insertion breaks a unique constraint and the url has no row, then the token was taken in the meantime : ShortUrlTokenAlreadyUsedException")
+        void createNewShortUrlEntityRetryable_tokenTakenDuringInsertion_shouldThrowException() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
+            when(mockUrlTokensRepository.save(any(ShortUrlEntity.class))).thenThrow(new DataIntegrityViolationException("UK_SHORT_URL_TOKEN"));
+            when(mockReadYourWritesGuard.readFromPrimary(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+            // ---- WHEN ----
+            assertThatThrownBy(() -> shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl"))
+                    .isInstanceOf(ShortUrlTokenAlreadyUsedException.class);
+
+            // ---- THEN ----
+            assertThat(urlShortenerMetrics.getTokenRetryCounter().count()).isEqualTo(1);
+            verify(mockShortUrlTokenCache, never()).put(any());
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the token filter tells that the new token does not exist, then repository.findProjectionByToken should not be called and repository.save should be called")
+        void createNewShortUrlEntityRetryable_filterDefiniteMiss_shouldNotCallRepositoryFindByToken() {
+            // ---- GIVEN ----
+            using_mocked_urlTokensRepository_save();
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("NEW_TOKEN");
+            when(mockShortUrlTokenFilter.mightContain("NEW_TOKEN")).thenReturn(false);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, never()).findProjectionByToken(anyString());
+            verify(mockUrlTokensRepository).save(any(ShortUrlEntity.class));
+            verify(mockShortUrlTokenFilter).put("NEW_TOKEN");
+            assertThat(result.getToken()).isEqualTo("NEW_TOKEN");
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the token strategy is collision-free, then repository.findProjectionByToken should not be called and repository.save should be called")
+        void createNewShortUrlEntityRetryable_collisionFreeStrategy_shouldNotCallRepositoryFindByToken() {
+            // ---- GIVEN ----
+            using_mocked_urlTokensRepository_save();
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("SEQ_TOKEN");
+            when(mockShortUrlTokenStrategy.isCollisionFree()).thenReturn(true);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, never()).findProjectionByToken(anyString());
+            verify(mockShortUrlTokenFilter, never()).mightContain(anyString());
+            verify(mockUrlTokensRepository).save(any(ShortUrlEntity.class));
+            verify(mockShortUrlTokenFilter).put("SEQ_TOKEN");
+            assertThat(result.getToken()).isEqualTo("SEQ_TOKEN");
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the write-behind takes the new short url, then repository.save should not be called and the queued short url is returned")
+        void createNewShortUrlEntityRetryable_writeBehind_shouldNotCallRepositorySave() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
+            when(mockShortUrlWriteBehindQueue.enqueue(any(ShortUrlEntity.class))).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl");
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, never()).save(any());
+            assertThat(result).extracting("id", "originalUrl", "token").containsExactly(null, "http://originalurl", "MY_TOKEN");
+            assertThat(result.getOriginalUrlHash()).isEqualTo(HashUtils.hash128("http://originalurl"));
+            verify(mockShortUrlTokenCache).put(result);
+            verify(mockShortUrlTokenFilter).put("MY_TOKEN");
+            assertThat(urlShortenerMetrics.getInsertTimer().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the new token is used by a short url waiting to be inserted, then ShortUrlTokenAlreadyUsedException")
+        void createNewShortUrlEntityRetryable_error_tokenPending() {
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("TOKEN");
+            when(mockShortUrlWriteBehindQueue.findPendingByToken("TOKEN")).thenReturn(ShortUrlEntity.builder().token("TOKEN").originalUrl("pending").build());
+
+            assertThatThrownBy(() -> shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl-fail-token"))
+                    .isInstanceOf(ShortUrlTokenAlreadyUsedException.class)
+                    .hasFieldOrPropertyWithValue("shortUrlToken", "TOKEN");
+
+            verify(mockUrlTokensRepository, never()).findProjectionByToken(anyString());
+            verify(mockShortUrlWriteBehindQueue, never()).enqueue(any());
         }
 
         @Test
         @DisplayName("createNewShortUrlEntityRetryable : when token is passed as a parameter but createStringToken returns null, then ShortUrlTokenCannotBeCreatedException")
         void createNewShortUrlEntityRetryable_error_createStringTokenReturnsNull() {
-            when(mockStringTokenService.createStringToken(anyString(), anyInt())).thenReturn(null);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn(null);
 
             assertThatThrownBy(() -> shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl-fail"))
                     .isInstanceOf(ShortUrlTokenCannotBeCreatedException.class)
@@ -192,8 +559,8 @@ public class ShortUrlDaoImplTest {
         @Test
         @DisplayName("createNewShortUrlEntityRetryable : when token is passed as a parameter but createStringToken returns a token that is already used, then ShortUrlTokenCannotBeCreatedException")
         void createNewShortUrlEntityRetryable_error_tokenAlreadyUsed() {
-            when(mockStringTokenService.createStringToken(anyString(), anyInt())).thenReturn("TOKEN");
-            when(mockUrlTokensRepository.findByToken("TOKEN")).thenReturn(ShortUrlEntity.builder().id(1L).token("TOKEN").originalUrl("alreadyUsed").build());
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("TOKEN");
+            when(mockUrlTokensRepository.findProjectionByToken("TOKEN")).thenReturn(ShortUrlEntity.builder().id(1L).token("TOKEN").originalUrl("alreadyUsed").build());
 
             assertThatThrownBy(() -> shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://originalurl-fail-token"))
                     .isInstanceOf(ShortUrlTokenAlreadyUsedException.class)
@@ -201,6 +568,7 @@ public class ShortUrlDaoImplTest {
                     .hasFieldOrPropertyWithValue("originalUrl", "http://originalurl-fail-token");
 
             verify(mockUrlTokensRepository, never()).save(any());
+            assertThat(urlShortenerMetrics.getTokenRetryCounter().count()).isEqualTo(1);
         }
 
         private void using_mocked_urlTokensRepository_save() {
@@ -213,6 +581,459 @@ public class ShortUrlDaoImplTest {
     }
 
 
+    @Nested
+    @DisplayName("ShortUrlDao.findExistingShortUrlEntitiesByOriginalUrls tests")
+    class FindExistingShortUrlEntitiesByOriginalUrlsTest {
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : the urls are searched by their hashes with one query, and the rows are returned by original url")
+        void findExistingShortUrlEntitiesByOriginalUrls_shouldCallRepositoryFindByOriginalUrlHashIn() {
+            // ---- GIVEN ----
+            ShortUrlEntity shortUrlEfgh = ShortUrlEntity.builder().originalUrl("http://otherurl").token("efgh").build();
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of(SHORT_URL_ABCD, shortUrlEfgh));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(List.of("http://originalurl", "http://otherurl", "http://unknownurl"));
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, times(1)).findProjectionsByOriginalUrlHashIn(any());
+            verify(mockUrlTokensRepository, never()).findByOriginalUrlIn(any());
+            assertThat(result).containsOnly(entry("http://originalurl", SHORT_URL_ABCD), entry("http://otherurl", shortUrlEfgh));
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : the urls waiting to be inserted (write-behind) are not searched in the repository")
+        void findExistingShortUrlEntitiesByOriginalUrls_pending_shouldNotBeSearched() {
+            // ---- GIVEN ----
+            when(mockShortUrlWriteBehindQueue.findPendingByOriginalUrl("http://originalurl")).thenReturn(SHORT_URL_ABCD);
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of());
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(List.of("http://originalurl", "http://unknownurl"));
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository).findProjectionsByOriginalUrlHashIn(argThat(hashes -> hashes.size() == 1));
+            assertThat(result).containsOnly(entry("http://originalurl", SHORT_URL_ABCD));
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : when a row found by hash has an url which was not searched, then it is ignored")
+        void findExistingShortUrlEntitiesByOriginalUrls_hashCollision_shouldIgnoreOtherUrls() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of(SHORT_URL_ABCD));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(List.of("http://collidingurl"));
+
+            // ---- THEN ----
+            assertThat(result).isEmpty();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : when there are more urls than IN_QUERY_CHUNK_SIZE, then several queries are run")
+        void findExistingShortUrlEntitiesByOriginalUrls_manyUrls_shouldRunSeveralQueries() {
+            // ---- GIVEN ----
+            List<String> originalUrls = IntStream.range(0, ShortUrlDaoImpl.IN_QUERY_CHUNK_SIZE + 1).mapToObj(i -> "http://url" + i).toList();
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of());
+
+            // ---- WHEN ----
+            shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(originalUrls);
+
+            // ---- THEN ----
+            verify(mockUrlTokensRepository, times(2)).findProjectionsByOriginalUrlHashIn(any());
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : when the backfill is running, then the urls not found by hash are searched by value")
+        void findExistingShortUrlEntitiesByOriginalUrls_backfillRunning_shouldCallRepositoryFindByOriginalUrlIn() {
+            // ---- GIVEN ----
+            when(mockOriginalUrlHashBackfillStatus.isCompleted()).thenReturn(false);
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of());
+            when(mockUrlTokensRepository.findByOriginalUrlIn(List.of("http://originalurl"))).thenReturn(List.of(SHORT_URL_ABCD));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(List.of("http://originalurl"));
+
+            // ---- THEN ----
+            assertThat(result).containsOnly(entry("http://originalurl", SHORT_URL_ABCD));
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntitiesByOriginalUrls : when originalUrls is null, then RequiredValueException")
+        void findExistingShortUrlEntitiesByOriginalUrls_error_nullUrls() {
+            assertThatThrownBy(() -> shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "originalUrls")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+
+            verifyNoInteractions(mockUrlTokensRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.createNewShortUrlEntities tests")
+    class CreateNewShortUrlEntitiesTest {
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : the new tokens are checked with one query, inserted with one JDBC batch, added to the filter and to the cache")
+        void createNewShortUrlEntities_shouldInsertWithOneBatch() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("TOKEN1", "TOKEN2");
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(any())).thenReturn(List.of());
+            using_mocked_jdbcTemplate_batchUpdate();
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1", "http://url2"));
+
+            // ---- THEN ----
+            assertThat(result).extracting("id", "originalUrl", "token")
+                    .containsExactly(tuple(1L, "http://url1", "TOKEN1"), tuple(2L, "http://url2", "TOKEN2"));
+            assertThat(result.get(0).getOriginalUrlHash()).isEqualTo(HashUtils.hash128("http://url1"));
+            verify(mockUrlTokensRepository, times(1)).findProjectionsByTokenIn(any());
+            verify(mockJdbcTemplate, times(1)).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+            verify(mockShortUrlTokenFilter).put("TOKEN1");
+            verify(mockShortUrlTokenFilter).put("TOKEN2");
+            verify(mockShortUrlTokenCache, times(2)).put(any());
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : when a new token is already used, then another token is created for its url")
+        void createNewShortUrlEntities_tokenAlreadyUsed_shouldCreateAnotherToken() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("TOKEN1", "USED", "TOKEN2");
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(any()))
+                    .thenReturn(List.of(ShortUrlEntity.builder().originalUrl("http://usedurl").token("USED").build()))
+                    .thenReturn(List.of());
+            using_mocked_jdbcTemplate_batchUpdate();
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1", "http://url2"));
+
+            // ---- THEN ----
+            assertThat(result).extracting("originalUrl", "token")
+                    .containsExactly(tuple("http://url1", "TOKEN1"), tuple("http://url2", "TOKEN2"));
+            verify(mockUrlTokensRepository, times(2)).findProjectionsByTokenIn(any());
+            assertThat(urlShortenerMetrics.getTokenGenerationTimer().count()).isEqualTo(3);
+            assertThat(urlShortenerMetrics.getCollisionCheckTimer().count()).isEqualTo(2);
+            assertThat(urlShortenerMetrics.getTokenRetryCounter().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getInsertTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : when the token strategy is collision-free, then the tokens are not checked")
+        void createNewShortUrlEntities_collisionFreeStrategy_shouldNotCallRepositoryFindByTokenIn() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.isCollisionFree()).thenReturn(true);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("TOKEN1");
+            using_mocked_jdbcTemplate_batchUpdate();
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1"));
+
+            // ---- THEN ----
+            assertThat(result).extracting("token").containsExactly("TOKEN1");
+            verify(mockUrlTokensRepository, never()).findProjectionsByTokenIn(any());
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : when the batch insertion fails, then no ShortUrlEntity is returned nor cached")
+        void createNewShortUrlEntities_batchFailure_shouldReturnNoEntity() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("TOKEN1");
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(any())).thenReturn(List.of());
+            when(mockJdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                    .thenThrow(new DuplicateKeyException("duplicate"));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1"));
+
+            // ---- THEN ----
+            assertThat(result).isEmpty();
+            verify(mockShortUrlTokenCache, never()).put(any());
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntities : when no token can be created, then nothing is inserted")
+        void createNewShortUrlEntities_noToken_shouldNotInsert() {
+            // ---- GIVEN ----
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn(null);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntities(List.of("http://url1"));
+
+            // ---- THEN ----
+            assertThat(result).isEmpty();
+            verifyNoInteractions(mockJdbcTemplate);
+        }
+
+        private void using_mocked_jdbcTemplate_batchUpdate() {
+            when(mockJdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                    .thenAnswer(invocation -> {
+                        BatchPreparedStatementSetter setter = invocation.getArgument(1);
+                        KeyHolder keyHolder = invocation.getArgument(2);
+                        for (int i = 0; i < setter.getBatchSize(); i++) {
+                            keyHolder.getKeyList().add(Map.of("ID", (long) i + 1));
+                        }
+                        return new int[setter.getBatchSize()];
+                    });
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.importShortUrlEntities tests")
+    class ImportShortUrlEntitiesTest {
+
+        @Test
+        @DisplayName("importShortUrlEntities : the short urls whose token or url is already used are skipped, the others are inserted with one JDBC batch and added to the filter")
+        void importShortUrlEntities_shouldSkipExistingAndInsertWithOneBatch() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(any())).thenReturn(List.of(SHORT_URL_ABCD));
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of(ShortUrlEntity.builder().originalUrl("http://url2").token("other").build()));
+            when(mockJdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class))).thenReturn(new int[1]);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.importShortUrlEntities(List.of(
+                    ShortUrlEntity.builder().token("abcd").originalUrl("http://url0").build(),
+                    ShortUrlEntity.builder().token("TOKEN1").originalUrl("http://url1").build(),
+                    ShortUrlEntity.builder().token("TOKEN1").originalUrl("http://url3").build(),
+                    ShortUrlEntity.builder().token("TOKEN2").originalUrl("http://url2").build()));
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo(1);
+            verify(mockJdbcTemplate, times(1)).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+            verify(mockShortUrlTokenFilter).put("TOKEN1");
+            verify(mockShortUrlTokenFilter, never()).put("TOKEN2");
+            verify(mockShortUrlTokenCache, never()).put(any());
+        }
+
+        @Test
+        @DisplayName("importShortUrlEntities : when the batch insertion fails, then the short urls are inserted one by one and the duplicates are skipped")
+        void importShortUrlEntities_batchFailure_shouldInsertOneByOne() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.findProjectionsByTokenIn(any())).thenReturn(List.of());
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of());
+            when(mockJdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                    .thenThrow(new DuplicateKeyException("duplicate"));
+            when(mockJdbcTemplate.update(anyString(), eq("TOKEN1"), any(), any())).thenThrow(new DuplicateKeyException("duplicate"));
+            when(mockJdbcTemplate.update(anyString(), eq("TOKEN2"), any(), any())).thenReturn(1);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.importShortUrlEntities(List.of(ShortUrlEntity.builder().token("TOKEN1").originalUrl("http://url1").build(),
+                    ShortUrlEntity.builder().token("TOKEN2").originalUrl("http://url2").build()));
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo(1);
+            verify(mockJdbcTemplate, times(2)).update(anyString(), any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.forEachExistingToken tests")
+    class ForEachExistingTokenTest {
+
+        @Test
+        @DisplayName("forEachExistingToken : every token streamed by the repository is passed to the consumer")
+        void forEachExistingToken_shouldStreamRepositoryTokens() {
+            // ---- GIVEN ----
+            when(mockUrlTokensRepository.streamAllTokens()).thenReturn(Stream.of("abc", "def", "ghi"));
+            List<String> consumedTokens = new ArrayList<>();
+
+            // ---- WHEN ----
+            shortUrlDaoImpl.forEachExistingToken(consumedTokens::add);
+
+            // ---- THEN ----
+            assertThat(consumedTokens).containsExactly("abc", "def", "ghi");
+        }
+
+        @Test
+        @DisplayName("forEachExistingToken : when the consumer is null, then RequiredValueException")
+        void forEachExistingToken_error_nullConsumer() {
+            assertThatThrownBy(() -> shortUrlDaoImpl.forEachExistingToken(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "tokenConsumer")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+
+            verifyNoInteractions(mockUrlTokensRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao.forEachExistingShortUrl tests")
+    class ForEachExistingShortUrlTest {
+
+        @Test
+        @DisplayName("forEachExistingShortUrl : the short urls are read by pages, each page starting after the last id of the previous one, until a page is not full")
+        void forEachExistingShortUrl_shouldReadPagesAfterLastId() {
+            // ---- GIVEN ----
+            var shortUrl1 = ShortUrlEntity.builder().id(1L).token("abc").originalUrl("http://url1").build();
+            var shortUrl2 = ShortUrlEntity.builder().id(4L).token("def").originalUrl("http://url2").build();
+            var shortUrl3 = ShortUrlEntity.builder().id(7L).token("ghi").originalUrl("http://url3").build();
+            when(mockJdbcTemplate.query(eq(ShortUrlDaoImpl.SELECT_SHORT_URL_PAGE_SQL), any(RowMapper.class), eq(0L), eq(2))).thenReturn(List.of(shortUrl1, shortUrl2));
+            when(mockJdbcTemplate.query(eq(ShortUrlDaoImpl.SELECT_SHORT_URL_PAGE_SQL), any(RowMapper.class), eq(4L), eq(2))).thenReturn(List.of(shortUrl3));
+            List<ShortUrlEntity> consumedShortUrls = new ArrayList<>();
+
+            // ---- WHEN ----
+            shortUrlDaoImpl.forEachExistingShortUrl(2, consumedShortUrls::add);
+
+            // ---- THEN ----
+            assertThat(consumedShortUrls).containsExactly(shortUrl1, shortUrl2, shortUrl3);
+            verify(mockJdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), any(), any());
+            verifyNoInteractions(mockUrlTokensRepository);
+        }
+
+        @Test
+        @DisplayName("forEachExistingShortUrl : when the consumer is null, then RequiredValueException")
+        void forEachExistingShortUrl_error_nullConsumer() {
+            assertThatThrownBy(() -> shortUrlDaoImpl.forEachExistingShortUrl(2, null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "shortUrlConsumer")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+
+            verifyNoInteractions(mockJdbcTemplate);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlDao expiration tests")
+    class ExpirationTest {
+
+        private static ShortUrlEntity expiringShortUrl(final long id, final String token, final Instant expiresAt) {
+            return ShortUrlEntity.builder().id(id).token(token).originalUrl("http://" + token).expiresAt(expiresAt).build();
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByToken : when the cached short url has expired, then it is removed from the cache, and the expired row of the repository is not returned")
+        void findExistingShortUrlEntityByToken_expired_shouldReturnNull() {
+            // ---- GIVEN ----
+            var expiredShortUrl = expiringShortUrl(1L, "abcd", Instant.now().minusSeconds(1));
+            when(mockShortUrlTokenCache.getIfPresent("abcd")).thenReturn(expiredShortUrl);
+            when(mockUrlTokensRepository.findProjectionByToken("abcd")).thenReturn(expiredShortUrl);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByToken("abcd");
+
+            // ---- THEN ----
+            assertThat(result).isNull();
+            verify(mockShortUrlTokenCache).invalidate("abcd");
+            verify(mockShortUrlTokenCache, never()).put(any());
+        }
+
+        @Test
+        @DisplayName("findExistingShortUrlEntityByOriginalUrl : when the short url found has expired, then null is returned and its row is not deleted by the lookup")
+        void findExistingShortUrlEntityByOriginalUrl_expired_shouldReturnNullWithoutDeleting() {
+            // ---- GIVEN ----
+            var expiredShortUrl = expiringShortUrl(1L, "abcd", Instant.now().minusSeconds(1));
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(HashUtils.hash128("http://abcd"))).thenReturn(expiredShortUrl);
+            when(mockUrlTokensRepository.findProjectionsByOriginalUrlHashIn(any())).thenReturn(List.of(expiredShortUrl));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.findExistingShortUrlEntityByOriginalUrl("http://abcd");
+            var results = shortUrlDaoImpl.findExistingShortUrlEntitiesByOriginalUrls(List.of("http://abcd"));
+
+            // ---- THEN ----
+            assertThat(result).isNull();
+            assertThat(results).isEmpty();
+            verify(mockUrlTokensRepository, never()).deleteExpiredByTokenIn(any(), any());
+            assertThat(urlShortenerMetrics.getExpiredDeletedCounter().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the insertion breaks a unique constraint because the url still has its expired row, then the row is deleted and the insertion is retried")
+        void createNewShortUrlEntityRetryable_expiredRowOfUrl_shouldDeleteItAndRetry() {
+            // ---- GIVEN ----
+            var expiredShortUrl = expiringShortUrl(1L, "abcd", Instant.now().minusSeconds(1));
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("MY_TOKEN");
+            when(mockShortUrlTokenStrategy.isCollisionFree()).thenReturn(true);
+            var integrityViolation = new DataIntegrityViolationException("UK_SHORT_URL_ORIGINAL_URL_HASH");
+            when(mockUrlTokensRepository.save(any(ShortUrlEntity.class))).thenThrow(integrityViolation);
+            when(mockReadYourWritesGuard.readFromPrimary(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+            when(mockUrlTokensRepository.findProjectionByOriginalUrlHash(HashUtils.hash128("http://abcd"))).thenReturn(expiredShortUrl);
+            when(mockUrlTokensRepository.deleteExpiredByTokenIn(eq(List.of("abcd")), any())).thenReturn(1);
+
+            // ---- WHEN ----
+            // the exception makes @Retryable create the short url again
+            assertThatThrownBy(() -> shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://abcd"))
+                    .isSameAs(integrityViolation);
+
+            // ---- THEN ----
+            verify(mockShortUrlTokenCache).invalidate("abcd");
+            verify(mockShortUrlTokenCache, never()).put(any());
+            assertThat(urlShortenerMetrics.getExpiredDeletedCounter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("createNewShortUrlEntityRetryable : when the short url expires, then it is saved right away without the write-behind")
+        void createNewShortUrlEntityRetryable_withExpiration_shouldSaveRightAway() {
+            // ---- GIVEN ----
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            when(mockShortUrlTokenStrategy.createToken()).thenReturn("abcd");
+            when(mockShortUrlTokenStrategy.isCollisionFree()).thenReturn(true);
+            when(mockUrlTokensRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.createNewShortUrlEntityRetryable("http://abcd", expiresAt);
+
+            // ---- THEN ----
+            assertThat(result).extracting(ShortUrlEntity::getToken, ShortUrlEntity::getExpiresAt).containsExactly("abcd", expiresAt);
+            verify(mockShortUrlWriteBehindQueue, never()).enqueue(any());
+            verify(mockShortUrlTokenCache).put(result);
+        }
+
+        @Test
+        @DisplayName("updateExpiration : when the short url has not expired, then its new expiration time is saved and put in the cache, otherwise null is returned")
+        void updateExpiration_shouldUpdateUnlessExpired() {
+            // ---- GIVEN ----
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            var shortUrl = expiringShortUrl(1L, "abcd", Instant.now().plus(1, ChronoUnit.HOURS));
+            var expiredShortUrl = expiringShortUrl(2L, "efgh", Instant.now().minusSeconds(1));
+            when(mockUrlTokensRepository.updateExpiresAtByToken(eq("abcd"), eq(expiresAt), any())).thenReturn(1);
+            when(mockUrlTokensRepository.updateExpiresAtByToken(eq("efgh"), eq(expiresAt), any())).thenReturn(0);
+
+            // ---- WHEN / THEN ----
+            var result = shortUrlDaoImpl.updateExpiration(shortUrl, expiresAt);
+            assertThat(result).extracting(ShortUrlEntity::getToken, ShortUrlEntity::getExpiresAt).containsExactly("abcd", expiresAt);
+            verify(mockShortUrlTokenCache).put(result);
+            assertThat(shortUrlDaoImpl.updateExpiration(expiredShortUrl, expiresAt)).isNull();
+            verify(mockShortUrlTokenCache).invalidate("efgh");
+        }
+
+        @Test
+        @DisplayName("forEachShortUrlExpiringBefore : the short urls are read by pages, each page starting after the expiration time and the id of the last row of the previous one")
+        void forEachShortUrlExpiringBefore_shouldReadPagesAfterLastRow() {
+            // ---- GIVEN ----
+            Instant until = Instant.parse("2030-01-01T00:00:00Z");
+            var shortUrl1 = expiringShortUrl(5L, "abc", Instant.parse("2029-01-01T00:00:00Z"));
+            var shortUrl2 = expiringShortUrl(2L, "def", Instant.parse("2029-06-01T00:00:00Z"));
+            var shortUrl3 = expiringShortUrl(9L, "ghi", Instant.parse("2029-06-01T00:00:00Z"));
+            when(mockUrlTokensRepository.findProjectionsExpiringBefore(until, Instant.EPOCH, 0L, Limit.of(2))).thenReturn(List.of(shortUrl1, shortUrl2));
+            when(mockUrlTokensRepository.findProjectionsExpiringBefore(until, shortUrl2.getExpiresAt(), 2L, Limit.of(2))).thenReturn(List.of(shortUrl3));
+            List<ShortUrlEntity> consumedShortUrls = new ArrayList<>();
+
+            // ---- WHEN ----
+            shortUrlDaoImpl.forEachShortUrlExpiringBefore(until, 2, consumedShortUrls::add);
+
+            // ---- THEN ----
+            assertThat(consumedShortUrls).containsExactly(shortUrl1, shortUrl2, shortUrl3);
+        }
+
+        @Test
+        @DisplayName("deleteExpiredShortUrls : the tokens are deleted with the guard on the expiration time, removed from the cache, and the deleted rows are counted")
+        void deleteExpiredShortUrls_shouldDeleteAndInvalidate() {
+            // ---- GIVEN ----
+            Instant now = Instant.now();
+            when(mockUrlTokensRepository.deleteExpiredByTokenIn(List.of("abc", "def"), now)).thenReturn(1);
+
+            // ---- WHEN ----
+            var result = shortUrlDaoImpl.deleteExpiredShortUrls(List.of("abc", "def"), now);
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo(1);
+            verify(mockShortUrlTokenCache).invalidate("abc");
+            verify(mockShortUrlTokenCache).invalidate("def");
+            assertThat(urlShortenerMetrics.getExpiredDeletedCounter().count()).isEqualTo(1);
+        }
+    }
+
     @Nested
     class GetMaxRetryableAttemptsTest {
 
@@ -0,0 +1,132 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class ShortUrlJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    private static ShortUrlEntity shortUrl(final String token, final String originalUrl) {
+        return ShortUrlEntity.builder().token(token).originalUrl(originalUrl).build();
+    }
+
+    @Nested
+    @DisplayName("ShortUrlJournal.append and ShortUrlJournal.replay tests")
+    class ReplayTest {
+
+        @Test
+        @DisplayName("replay : the records of the segments left by the previous run are read in the order they were written")
+        void replay_recordsInOrder() {
+            // ---- GIVEN ----
+            try (var journal = new ShortUrlJournal(directory, false)) {
+                journal.append(shortUrl("token1", "https://www.journaldemontreal.com/1"));
+                journal.roll();
+                journal.append(shortUrl("token2", "https://www.journaldemontreal.com/2"));
+                journal.append(shortUrl("token3", "https://www.journaldemontreal.com/é"));
+            }
+
+            // ---- WHEN ----
+            var result = new ShortUrlJournal(directory, true).replay();
+
+            // ---- THEN ----
+            assertThat(result).extracting("token", "originalUrl").containsExactly(
+                    tuple("token1", "https://www.journaldemontreal.com/1"),
+                    tuple("token2", "https://www.journaldemontreal.com/2"),
+                    tuple("token3", "https://www.journaldemontreal.com/é"));
+        }
+
+        @Test
+        @DisplayName("replay : when the last record of a segment was not completely written, then the previous records are read")
+        void replay_incompleteLastRecord() throws IOException {
+            // ---- GIVEN ----
+            try (var journal = new ShortUrlJournal(directory, false)) {
+                journal.append(shortUrl("token1", "https://www.journaldemontreal.com/1"));
+                journal.append(shortUrl("token2", "https://www.journaldemontreal.com/2"));
+            }
+            Path segment = listSegments().getFirst();
+            byte[] bytes = Files.readAllBytes(segment);
+            Files.write(segment, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+            // ---- WHEN ----
+            var result = new ShortUrlJournal(directory, false).replay();
+
+            // ---- THEN ----
+            assertThat(result).extracting("token").containsExactly("token1");
+        }
+
+        @Test
+        @DisplayName("replay : when a record is corrupted, then the next records of its segment are ignored")
+        void replay_corruptedRecord() throws IOException {
+            // ---- GIVEN ----
+            try (var journal = new ShortUrlJournal(directory, false)) {
+                journal.append(shortUrl("token1", "https://www.journaldemontreal.com/1"));
+                journal.append(shortUrl("token2", "https://www.journaldemontreal.com/2"));
+            }
+            Path segment = listSegments().getFirst();
+            byte[] bytes = Files.readAllBytes(segment);
+            // last character of the first original url
+            bytes[bytes.length / 2 - 1] ^= 1;
+            Files.write(segment, bytes);
+
+            // ---- WHEN ----
+            var result = new ShortUrlJournal(directory, false).replay();
+
+            // ---- THEN ----
+            assertThat(result).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlJournal.roll and ShortUrlJournal.delete tests")
+    class RollTest {
+
+        @Test
+        @DisplayName("roll : the closed segments are returned once, the next records go to a new segment, and delete removes the returned segments")
+        void roll_thenDelete() throws IOException {
+            // ---- GIVEN ----
+            var journal = new ShortUrlJournal(directory, false);
+            journal.append(shortUrl("token1", "https://www.journaldemontreal.com/1"));
+
+            // ---- WHEN ----
+            List<Path> rolledSegments = journal.roll();
+            journal.append(shortUrl("token2", "https://www.journaldemontreal.com/2"));
+            journal.delete(rolledSegments);
+            journal.close();
+
+            // ---- THEN ----
+            assertThat(rolledSegments).hasSize(1);
+            assertThat(listSegments()).hasSize(1).doesNotContainAnyElementsOf(rolledSegments);
+            assertThat(new ShortUrlJournal(directory, false).replay()).extracting("token").containsExactly("token2");
+        }
+
+        @Test
+        @DisplayName("roll : when nothing was appended, then no segment is returned")
+        void roll_empty() {
+            var journal = new ShortUrlJournal(directory, false);
+
+            assertThat(journal.roll()).isEmpty();
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShortUrlLookupCoalescerImplTest {
+
+    private static final ShortUrlEntity SHORT_URL_VIRAL = ShortUrlEntity.builder().originalUrl("http://viral-url").token("viral").build();
+
+    private final UrlShortenerMetrics urlShortenerMetrics = new UrlShortenerMetrics(new SimpleMeterRegistry());
+
+    private ShortUrlLookupCoalescerImpl buildCoalescer(final boolean coalescingEnabled) {
+        return new ShortUrlLookupCoalescerImpl(new UrlShortenerPropertiesBuilder().withCoalescingEnabled(coalescingEnabled).buildSpy(), urlShortenerMetrics);
+    }
+
+    /**
+     * Waits until a counter reaches a count : for instance until the lookups are waiting for the coalesced lookup.
+     */
+    private static void awaitCounter(final Counter counter, final int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.count() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlLookupCoalescer.findByToken tests")
+    class FindByTokenTest {
+
+        @Test
+        @DisplayName("findByToken : when several threads look for the same token at once, then only the first one runs the lookup, and the others get its result")
+        void findByToken_concurrentLookups_shouldLookupOnce() throws Exception {
+            // ---- GIVEN ----
+            var coalescer = buildCoalescer(true);
+            var lookupStarted = new CountDownLatch(1);
+            var releaseLookup = new CountDownLatch(1);
+            var lookupCount = new AtomicInteger();
+            Supplier<ShortUrlEntity> lookup = () -> {
+                lookupCount.incrementAndGet();
+                lookupStarted.countDown();
+                try {
+                    releaseLookup.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return SHORT_URL_VIRAL;
+            };
+
+            // ---- WHEN ----
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var first = executor.submit(() -> coalescer.findByToken("viral", lookup));
+                lookupStarted.await();
+                var others = IntStream.range(0, 10).mapToObj(i -> executor.submit(() -> coalescer.findByToken("viral", lookup))).toList();
+                awaitCounter(urlShortenerMetrics.getDecodeCoalescedCounter(), 10);
+                releaseLookup.countDown();
+
+                // ---- THEN ----
+                assertThat(first.get()).isEqualTo(SHORT_URL_VIRAL);
+                for (Future<ShortUrlEntity> other : others) {
+                    assertThat(other.get()).isEqualTo(SHORT_URL_VIRAL);
+                }
+            }
+            assertThat(lookupCount).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("findByToken : when the shared lookup fails, then its exception is thrown to all the threads waiting for it")
+        void findByToken_concurrentLookups_shouldPropagateFailure() throws Exception {
+            // ---- GIVEN ----
+            var coalescer = buildCoalescer(true);
+            var lookupStarted = new CountDownLatch(1);
+            var releaseLookup = new CountDownLatch(1);
+            var failure = new IllegalStateException("database down");
+            Supplier<ShortUrlEntity> lookup = () -> {
+                lookupStarted.countDown();
+                try {
+                    releaseLookup.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw failure;
+            };
+
+            // ---- WHEN ----
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var first = executor.submit(() -> coalescer.findByToken("viral", lookup));
+                lookupStarted.await();
+                var second = executor.submit(() -> coalescer.findByToken("viral", lookup));
+                awaitCounter(urlShortenerMetrics.getDecodeCoalescedCounter(), 1);
+                releaseLookup.countDown();
+
+                // ---- THEN ----
+                assertThatThrownBy(first::get).hasCause(failure);
+                assertThatThrownBy(second::get).hasCause(failure);
+            }
+        }
+
+        @Test
+        @DisplayName("findByToken : when the coalescing is disabled, then each lookup runs on its own")
+        void findByToken_coalescingDisabled() {
+            var coalescer = buildCoalescer(false);
+            var lookupCount = new AtomicInteger();
+
+            IntStream.range(0, 3).forEach(i -> assertThat(coalescer.findByToken("viral", () -> {
+                lookupCount.incrementAndGet();
+                return SHORT_URL_VIRAL;
+            })).isEqualTo(SHORT_URL_VIRAL));
+
+            assertThat(lookupCount).hasValue(3);
+            assertThat(urlShortenerMetrics.getDecodeCoalescedCounter().count()).isZero();
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.model.entities.ShardBucketEntity;
+import com.project.urlshortener.model.shard.ShardRoute;
+import com.project.urlshortener.repository.ShardBucketRepository;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShortUrlShardRouterImplTest {
+
+    private static final String CHARACTERS = "abcd";
+
+    @Mock
+    private ShardBucketRepository mockShardBucketRepository;
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
+    private ShortUrlShardRouterImpl buildRouter(final int shardCount, final List<ShardBucketEntity> buckets) {
+        var builder = new UrlShortenerPropertiesBuilder().withTokenCharacters(CHARACTERS).withShardingPrefixLength(1);
+        for (int shard = 0; shard < shardCount; shard++) {
+            builder.withShardingDatasource("jdbc:h2:mem:shard" + shard, "sa", "");
+        }
+        when(mockShardBucketRepository.findAll()).thenReturn(buckets);
+        return new ShortUrlShardRouterImpl(builder.buildSpy(), mockShardBucketRepository, new TransactionTemplate(mockTransactionManager));
+    }
+
+    private static List<ShardBucketEntity> buckets(final int... shards) {
+        List<ShardBucketEntity> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < shards.length; bucket++) {
+            buckets.add(new ShardBucketEntity(bucket, shards[bucket], ShardRoute.NO_SHARD));
+        }
+        return buckets;
+    }
+
+    @Nested
+    @DisplayName("ShortUrlShardRouterImpl constructor tests")
+    class ConstructorTest {
+
+        @Test
+        @DisplayName("constructor : when the buckets do not exist, then they are created over the shards in turn")
+        void constructor_noBucket_shouldCreateBuckets() {
+            // ---- GIVEN ----
+            when(mockShardBucketRepository.findAll()).thenReturn(List.of(), buckets(0, 1, 0, 1));
+
+            // ---- WHEN ----
+            var router = new ShortUrlShardRouterImpl(new UrlShortenerPropertiesBuilder().withTokenCharacters(CHARACTERS)
+                    .withShardingDatasource("jdbc:h2:mem:shard0", "sa", "").withShardingDatasource("jdbc:h2:mem:shard1", "sa", "").buildSpy(),
+                    mockShardBucketRepository, new TransactionTemplate(mockTransactionManager));
+
+            // ---- THEN ----
+            verify(mockShardBucketRepository).insert(0, 0);
+            verify(mockShardBucketRepository).insert(1, 1);
+            verify(mockShardBucketRepository).insert(2, 0);
+            verify(mockShardBucketRepository).insert(3, 1);
+            assertThat(router.routes()).extracting(ShardRoute::prefix).containsExactly("a", "b", "c", "d");
+        }
+
+        @Test
+        @DisplayName("constructor : when the SHARD_BUCKET table names a shard missing from the configuration, then an IllegalStateException is thrown")
+        void constructor_unknownShard_shouldThrowException() {
+            assertThatThrownBy(() -> buildRouter(2, buckets(0, 1, 2, 1))).isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("constructor : when no shard is configured, then an IllegalArgumentException is thrown")
+        void constructor_noShard_shouldThrowException() {
+            assertThatThrownBy(() -> new ShortUrlShardRouterImpl(new UrlShortenerPropertiesBuilder().buildSpy(), mockShardBucketRepository,
+                    new TransactionTemplate(mockTransactionManager))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlShardRouterImpl.bucketOf tests")
+    class BucketOfTest {
+
+        @Test
+        @DisplayName("bucketOfToken : when the token starts with a character of the tokens, then its bucket is the index of this character")
+        void bucketOfToken_shouldUseFirstCharacter() {
+            var router = buildRouter(2, buckets(0, 1, 0, 1));
+
+            assertThat(router.bucketOfToken("abcd")).isZero();
+            assertThat(router.bucketOfToken("dcba")).isEqualTo(3);
+            assertThat(router.bucketOfToken("zzzz")).isZero();
+        }
+
+        @Test
+        @DisplayName("toBucketToken : when a token is given, then its first character is replaced by the prefix of the bucket")
+        void toBucketToken_shouldReplacePrefix() {
+            var router = buildRouter(2, buckets(0, 1, 0, 1));
+
+            assertThat(router.toBucketToken(2, "abcd")).isEqualTo("cbcd");
+            assertThat(router.bucketOfToken(router.toBucketToken(router.bucketOfOriginalUrl("http://originalurl"), "abcd")))
+                    .isEqualTo(router.bucketOfOriginalUrl("http://originalurl"));
+        }
+
+        @Test
+        @DisplayName("bucketOfPrefix : when the prefix has a character which is not a token character, then an IllegalArgumentException is thrown")
+        void bucketOfPrefix_invalidPrefix_shouldThrowException() {
+            var router = buildRouter(2, buckets(0, 1, 0, 1));
+
+            assertThat(router.bucketOfPrefix("c")).isEqualTo(2);
+            assertThatThrownBy(() -> router.bucketOfPrefix("z")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> router.bucketOfPrefix("ab")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("ShortUrlShardRouterImpl.compareAndSetRoute tests")
+    class CompareAndSetRouteTest {
+
+        @Test
+        @DisplayName("compareAndSetRoute : when the route has not changed, then the shards of the bucket are replaced and the routes are read again")
+        void compareAndSetRoute_shouldReplaceShards() {
+            // ---- GIVEN ----
+            var router = buildRouter(2, buckets(0, 1, 0, 1));
+            when(mockShardBucketRepository.compareAndSetShards(2, 0, ShardRoute.NO_SHARD, 1, 0)).thenReturn(1);
+            when(mockShardBucketRepository.findAll()).thenReturn(List.of(new ShardBucketEntity(0, 0, -1), new ShardBucketEntity(1, 1, -1),
+                    new ShardBucketEntity(2, 1, 0), new ShardBucketEntity(3, 1, -1)));
+
+            // ---- WHEN ----
+            var updated = router.compareAndSetRoute(router.route(2), 1, 0);
+
+            // ---- THEN ----
+            assertThat(updated).isTrue();
+            assertThat(router.route(2)).isEqualTo(new ShardRoute(2, "c", 1, 0));
+            assertThat(router.route(2).hasSecondaryShard()).isTrue();
+        }
+
+        @Test
+        @DisplayName("compareAndSetRoute : when the route was changed by another instance, then false is returned")
+        void compareAndSetRoute_changedRoute_shouldReturnFalse() {
+            var router = buildRouter(2, buckets(0, 1, 0, 1));
+            when(mockShardBucketRepository.compareAndSetShards(anyInt(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(0);
+
+            assertThat(router.compareAndSetRoute(router.route(2), 1, 0)).isFalse();
+        }
+
+        @Test
+        @DisplayName("compareAndSetRoute : when the new shard is not configured, then an IllegalArgumentException is thrown")
+        void compareAndSetRoute_unknownShard_shouldThrowException() {
+            var router = buildRouter(2, buckets(0, 1, 0, 1));
+
+            assertThatThrownBy(() -> router.compareAndSetRoute(router.route(2), 2, ShardRoute.NO_SHARD)).isInstanceOf(IllegalArgumentException.class);
+            verify(mockShardBucketRepository, never()).compareAndSetShards(anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        }
+    }
+
+}
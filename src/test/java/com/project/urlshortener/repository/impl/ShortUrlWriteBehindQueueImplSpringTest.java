@@ -0,0 +1,140 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.common.utils.HashUtils;
+import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
+import com.project.urlshortener.repository.ShortUrlRepository;
+import com.project.urlshortener.repository.ShortUrlWriteBehindQueue;
+import com.project.urlshortener.service.UrlShortenerService;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"url-shortener.write-behind.enabled=true",
+		"url-shortener.write-behind.journal-directory=target/short-url-journal-spring-test",
+		// the tests flush the short urls themselves
+		"url-shortener.write-behind.flush-interval-millis=3600000"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShortUrlWriteBehindQueueImplSpringTest {
+
+	@Autowired
+	private UrlShortenerService urlShortenerService;
+
+	@Autowired
+	private ShortUrlWriteBehindQueue shortUrlWriteBehindQueue;
+
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private UrlShortenerMetrics urlShortenerMetrics;
+
+	@TempDir
+	private Path journalDirectory;
+
+	@Test
+	@DisplayName("obtainShortUrlForOriginalCompleteUrl : the short url is returned and decoded before being inserted, then the flush inserts it and deletes the journal")
+	void obtainShortUrlForOriginalCompleteUrl_insertedByFlush() throws Exception {
+		String originalUrl = "https://www.journaldemontreal.com/write-behind";
+
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+
+		assertThat(shortUrlRepository.findByToken(token)).isNull();
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+		assertThat(urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl)).isEqualTo(shortUrl);
+		assertThat(listSegments(Path.of("target/short-url-journal-spring-test"))).hasSize(1);
+
+		shortUrlWriteBehindQueue.flush();
+
+		ShortUrlEntity shortUrlEntity = shortUrlRepository.findByToken(token);
+		assertThat(shortUrlEntity).isNotNull();
+		assertThat(shortUrlEntity.getOriginalUrl()).isEqualTo(originalUrl);
+		assertThat(shortUrlEntity.getOriginalUrlHash()).isEqualTo(HashUtils.hash128(originalUrl));
+		assertThat(shortUrlWriteBehindQueue.findPendingByToken(token)).isNull();
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+		assertThat(listSegments(Path.of("target/short-url-journal-spring-test"))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("constructor : the short urls of the journal left by a crash are waiting to be inserted, and the rows already inserted are skipped by the flush")
+	void constructor_replaysJournal() throws IOException {
+		// ---- GIVEN ----
+		try (var journal = new ShortUrlJournal(journalDirectory, false)) {
+			journal.append(ShortUrlEntity.builder().token("replayed01").originalUrl("https://www.journaldemontreal.com/1").build());
+			journal.append(ShortUrlEntity.builder().token("replayed02").originalUrl("https://www.journaldemontreal.com/2").build());
+		}
+		// inserted before the crash, but its segment was not deleted
+		shortUrlRepository.save(ShortUrlEntity.builder().token("replayed01").originalUrl("https://www.journaldemontreal.com/1").build());
+
+		// ---- WHEN ----
+		var properties = new UrlShortenerPropertiesBuilder()
+				.withWriteBehindEnabled(true)
+				.withWriteBehindJournalDirectory(journalDirectory.toString())
+				.buildSpy();
+		var replayingQueue = new ShortUrlWriteBehindQueueImpl(properties, shortUrlRepository, jdbcTemplate, transactionTemplate, Runnable::run, urlShortenerMetrics);
+
+		// ---- THEN ----
+		assertThat(replayingQueue.findPendingByToken("replayed02")).isNotNull();
+		assertThat(replayingQueue.findPendingByOriginalUrl("https://www.journaldemontreal.com/2")).isNotNull();
+
+		replayingQueue.flush();
+
+		assertThat(shortUrlRepository.findByToken("replayed01")).isNotNull();
+		assertThat(shortUrlRepository.findByToken("replayed02")).isNotNull();
+		assertThat(replayingQueue.findPendingByToken("replayed02")).isNull();
+		assertThat(listSegments(journalDirectory)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("flush : when the url still has its expired row, not deleted yet by the expiration job, then the expired row is replaced by the new short url")
+	void flush_expiredRowOfUrl_replaced() throws Exception {
+		// ---- GIVEN ----
+		String originalUrl = "https://www.journaldemontreal.com/write-behind/expired";
+		ShortUrlEntity expiredShortUrlEntity = ShortUrlEntity.builder().token("expired01").originalUrl(originalUrl).expiresAt(Instant.now().minusSeconds(1)).build();
+		expiredShortUrlEntity.computeOriginalUrlHash();
+		shortUrlRepository.save(expiredShortUrlEntity);
+
+		String shortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl(originalUrl);
+		String token = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+
+		// ---- WHEN ----
+		shortUrlWriteBehindQueue.flush();
+
+		// ---- THEN ----
+		assertThat(token).isNotEqualTo("expired01");
+		assertThat(shortUrlRepository.findByToken("expired01")).isNull();
+		assertThat(shortUrlRepository.findByToken(token)).isNotNull();
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(token)).isEqualTo(originalUrl);
+	}
+
+	private static List<Path> listSegments(final Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.toList();
+		}
+	}
+
+}
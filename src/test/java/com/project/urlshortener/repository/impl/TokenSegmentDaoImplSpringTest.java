@@ -0,0 +1,63 @@
+package com.project.urlshortener.repository.impl;
+
+import com.project.urlshortener.repository.TokenSegmentDao;
+import com.project.urlshortener.repository.TokenSegmentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class TokenSegmentDaoImplSpringTest {
+
+	@Autowired
+	private TokenSegmentDao tokenSegmentDao;
+
+	@Autowired
+	private TokenSegmentRepository tokenSegmentRepository;
+
+	@Test
+	@DisplayName("allocate : the sequence is created at 0, then each range starts after the previous one")
+	void allocate_consecutiveRanges() {
+		assertThat(tokenSegmentDao.allocate("JUNIT", 1)).isZero();
+		assertThat(tokenSegmentDao.allocate("JUNIT", 10)).isEqualTo(1L);
+		assertThat(tokenSegmentDao.allocate("JUNIT", 1)).isEqualTo(11L);
+		assertThat(tokenSegmentDao.allocate("OTHER", 1)).isZero();
+
+		assertThat(tokenSegmentRepository.findById("JUNIT")).hasValueSatisfying(segment -> assertThat(segment.getNextValue()).isEqualTo(12L));
+	}
+
+	@Test
+	@DisplayName("allocate : concurrent allocations never return the same number")
+	void allocate_concurrent() throws Exception {
+		Set<Long> numbers = ConcurrentHashMap.newKeySet();
+		try (ExecutorService executorService = Executors.newFixedThreadPool(4)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 4; thread++) {
+				futures.add(executorService.submit(() -> {
+					for (int i = 0; i < 25; i++) {
+						numbers.add(tokenSegmentDao.allocate("JUNIT", 1));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+
+		assertThat(numbers).hasSize(100).allMatch(number -> number >= 0 && number < 100);
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.service.StringTokenService;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RandomShortUrlTokenStrategyTest {
+
+    @Mock
+    private StringTokenService mockStringTokenService;
+
+    @Nested
+    @DisplayName("RandomShortUrlTokenStrategy.createToken tests")
+    class CreateTokenTest {
+
+        @Test
+        @DisplayName("createToken : the token is created by StringTokenService with the configured characters and length")
+        void createToken_usesConfiguredCharactersAndLength() {
+            var strategy = new RandomShortUrlTokenStrategy(mockStringTokenService, new UrlShortenerPropertiesBuilder().withTokenCharacters("abcd").withTokenLength(7).buildSpy());
+            when(mockStringTokenService.createStringToken("abcd", 7)).thenReturn("abcdabc");
+
+            assertThat(strategy.createToken()).isEqualTo("abcdabc");
+            assertThat(strategy.isCollisionFree()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.service.ShortUrlTokenStrategy;
+import com.project.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "url-shortener.token.strategy=sequence")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class SequenceShortUrlTokenStrategySpringTest {
+
+	@Autowired
+	private ShortUrlTokenStrategy shortUrlTokenStrategy;
+
+	@Autowired
+	private UrlShortenerService urlShortenerService;
+
+	@Test
+	@DisplayName("strategy=sequence : the short urls are created with the sequence strategy, and can be decoded")
+	void sequenceStrategy_createAndDecode() throws Exception {
+		assertThat(shortUrlTokenStrategy).isInstanceOf(SequenceShortUrlTokenStrategy.class);
+
+		String firstShortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl("https://www.journaldemontreal.com/");
+		String secondShortUrl = urlShortenerService.obtainShortUrlForOriginalCompleteUrl("https://www.lapresse.ca/");
+
+		assertThat(firstShortUrl).isNotEqualTo(secondShortUrl).matches("http://junit-hostname/[a-zA-Z0-9]{10}");
+		assertThat(urlShortenerService.getOriginalUrlForShortUrlToken(firstShortUrl.substring(firstShortUrl.lastIndexOf('/') + 1))).isEqualTo("https://www.journaldemontreal.com/");
+		assertThat(urlShortenerService.obtainShortUrlForOriginalCompleteUrl("https://www.lapresse.ca/")).isEqualTo(secondShortUrl);
+	}
+
+}
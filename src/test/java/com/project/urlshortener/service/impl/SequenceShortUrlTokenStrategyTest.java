@@ -0,0 +1,112 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.common.exception.RequiredValueException;
+import com.project.urlshortener.service.TokenSequenceService;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.CANNOT_BE_NULL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SequenceShortUrlTokenStrategyTest {
+
+    @Mock
+    private TokenSequenceService mockTokenSequenceService;
+
+    @Nested
+    @DisplayName("SequenceShortUrlTokenStrategy.createToken tests")
+    class CreateTokenTest {
+
+        @Test
+        @DisplayName("createToken : when the sequence is not scrambled, then the numbers are written in base N, left-padded with the first character")
+        void createToken_notScrambled() {
+            var strategy = new SequenceShortUrlTokenStrategy(mockTokenSequenceService, new UrlShortenerPropertiesBuilder().withTokenCharacters("abcd").withTokenLength(3).withSequenceScrambled(false).buildSpy());
+            when(mockTokenSequenceService.nextNumber()).thenReturn(0L, 1L, 4L, 63L);
+
+            assertThat(strategy.createToken()).isEqualTo("aaa");
+            assertThat(strategy.createToken()).isEqualTo("aab");
+            assertThat(strategy.createToken()).isEqualTo("aba");
+            assertThat(strategy.createToken()).isEqualTo("ddd");
+        }
+
+        @Test
+        @DisplayName("createToken : when the sequence is scrambled, then all the tokens are different, and do not follow each other")
+        void createToken_scrambled() {
+            var strategy = new SequenceShortUrlTokenStrategy(mockTokenSequenceService, new UrlShortenerPropertiesBuilder().withTokenCharacters("abcd").withTokenLength(3).withSequenceScrambled(true).buildSpy());
+            AtomicLong sequence = new AtomicLong();
+            when(mockTokenSequenceService.nextNumber()).thenAnswer(invocation -> sequence.getAndIncrement());
+
+            Set<String> tokens = new HashSet<>();
+            for (int i = 0; i < 64; i++) {
+                String token = strategy.createToken();
+                assertThat(token).hasSize(3).matches("[abcd]{3}");
+                tokens.add(token);
+            }
+            assertThat(tokens).hasSize(64);
+        }
+
+        @Test
+        @DisplayName("createToken : when all the tokens of the length have been created, then null")
+        void createToken_exhausted() {
+            var strategy = new SequenceShortUrlTokenStrategy(mockTokenSequenceService, new UrlShortenerPropertiesBuilder().withTokenCharacters("abcd").withTokenLength(3).buildSpy());
+            when(mockTokenSequenceService.nextNumber()).thenReturn(64L);
+
+            assertThat(strategy.createToken()).isNull();
+        }
+
+        @Test
+        @DisplayName("isCollisionFree : the tokens of a sequence are always unique")
+        void isCollisionFree() {
+            var strategy = new SequenceShortUrlTokenStrategy(mockTokenSequenceService, new UrlShortenerPropertiesBuilder().buildSpy());
+
+            assertThat(strategy.isCollisionFree()).isTrue();
+        }
+
+        @Test
+        @DisplayName("SequenceShortUrlTokenStrategy : when the characters contain the same character twice, then IllegalArgumentException")
+        void constructor_error_duplicatedCharacters() {
+            var urlShortenerProperties = new UrlShortenerPropertiesBuilder().withTokenCharacters("abca").buildSpy();
+
+            assertThatThrownBy(() -> new SequenceShortUrlTokenStrategy(mockTokenSequenceService, urlShortenerProperties))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("SequenceShortUrlTokenStrategy : when the sequence is scrambled without scramble key, then RequiredValueException, and without scrambling the key is not needed")
+        void constructor_error_missingScrambleKey() {
+            var scrambledProperties = new UrlShortenerPropertiesBuilder().withSequenceScrambled(true).withSequenceScrambleKey(null).buildSpy();
+            var unscrambledProperties = new UrlShortenerPropertiesBuilder().withSequenceScrambled(false).withSequenceScrambleKey(null).buildSpy();
+
+            assertThatThrownBy(() -> new SequenceShortUrlTokenStrategy(mockTokenSequenceService, scrambledProperties))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("fieldName", "sequence.scrambleKey")
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+            assertThat(new SequenceShortUrlTokenStrategy(mockTokenSequenceService, unscrambledProperties).isCollisionFree()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("SequenceShortUrlTokenStrategy.capacity tests")
+    class CapacityTest {
+
+        @Test
+        @DisplayName("capacity : base^length, or Long.MAX_VALUE when it is greater")
+        void capacity() {
+            assertThat(SequenceShortUrlTokenStrategy.capacity(62, 3)).isEqualTo(238_328L);
+            assertThat(SequenceShortUrlTokenStrategy.capacity(62, 10)).isEqualTo(839_299_365_868_340_224L);
+            assertThat(SequenceShortUrlTokenStrategy.capacity(62, 11)).isEqualTo(Long.MAX_VALUE);
+        }
+    }
+}
@@ -8,6 +8,13 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static com.project.urlshortener.utils.AssertionUtils.assertException;
 import static com.project.urlshortener.utils.AssertionUtils.assertNoException;
@@ -124,6 +131,82 @@ public class StringTokenServiceImplTest {
             then_exceptionThrown(RequiredValueException.class, "fieldName=nbCharacters,requirementType=CANNOT_BE_NEGATIVE");
         }
 
+        @Test
+        @DisplayName("createStringToken : every available character has the same probability (no modulo bias)")
+        void createStringToken_uniformDistribution() {
+            // 62 characters : a biased modulo of a random byte would choose the first 8 characters 5/4 more often than the others
+            int[] counts = new int[ALL_AVAILABLE_CHARACTERS.length()];
+            for (int i = 0; i < 10_000; i++) {
+                service.createStringToken(ALL_AVAILABLE_CHARACTERS, 31).chars().forEach(c -> counts[ALL_AVAILABLE_CHARACTERS.indexOf(c)]++);
+            }
+
+            // 5000 draws per character : the standard deviation is about 70
+            double expected = 10_000 * 31.0 / ALL_AVAILABLE_CHARACTERS.length();
+            for (int count : counts) {
+                assertTrue(Math.abs(count - expected) < expected * 0.1, String.format("count[%d] is too far from expected[%f]", count, expected));
+            }
+        }
+
+        @Test
+        @DisplayName("createStringToken : more than 256 available characters can be used")
+        void createStringToken_largeAlphabet() {
+            String availableCharacters = IntStream.range(0, 300).mapToObj(i -> String.valueOf((char) ('\u0100' + i))).reduce("", String::concat);
+            given_availableCharacters(availableCharacters);
+            given_numberOfCharacters(50);
+
+            when_createStringToken();
+
+            then_resultStringTokenHasExpectedLengthAndCharacters(50, availableCharacters);
+        }
+
+        @Test
+        @DisplayName("createStringToken : tokens can be created by more threads than slots, with different available characters")
+        void createStringToken_concurrentThreads() throws Exception {
+            service = new StringTokenServiceImpl(2);
+            Set<String> tokens = ConcurrentHashMap.newKeySet();
+            try (ExecutorService executorService = Executors.newFixedThreadPool(8)) {
+                var futures = IntStream.range(0, 8).mapToObj(thread -> executorService.submit(() -> {
+                    String availableCharacters = thread % 2 == 0 ? ALL_AVAILABLE_CHARACTERS : "0123456789";
+                    for (int i = 0; i < 1000; i++) {
+                        String token = service.createStringToken(availableCharacters, 20);
+                        assertEquals(20, token.length());
+                        token.chars().forEach(c -> assertTrue(availableCharacters.indexOf(c) >= 0));
+                        tokens.add(token);
+                    }
+                    return null;
+                })).toList();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            assertEquals(8000, tokens.size());
+        }
+
+        @Test
+        @DisplayName("createStringToken : tokens can be created by many more virtual threads than slots, the waiting threads yield their carrier thread")
+        void createStringToken_concurrentVirtualThreads() throws Exception {
+            service = new StringTokenServiceImpl(1);
+            Set<String> tokens = ConcurrentHashMap.newKeySet();
+            try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+                var futures = IntStream.range(0, 64).mapToObj(thread -> executorService.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        tokens.add(service.createStringToken(ALL_AVAILABLE_CHARACTERS, 20));
+                    }
+                    return null;
+                })).toList();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+            assertEquals(12_800, tokens.size());
+        }
+
+        @Test
+        @DisplayName("StringTokenServiceImpl : the number of slots must be a power of two")
+        void constructor_error_slotCountIsNotPowerOfTwo() {
+            assertThrows(IllegalArgumentException.class, () -> new StringTokenServiceImpl(3));
+        }
+
 
         private void given_numberOfCharacters(final int nbCharacters) {
             this.parameterNbCharacters = nbCharacters;
@@ -0,0 +1,129 @@
+package com.project.urlshortener.service.impl;
+
+import com.project.urlshortener.exception.TokenSegmentAllocationException;
+import com.project.urlshortener.repository.TokenSegmentDao;
+import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenSequenceServiceImplTest {
+
+    @Mock
+    private TokenSegmentDao mockTokenSegmentDao;
+
+    private TokenSequenceServiceImpl buildService(final Runnable[] pendingTask, final int segmentSize, final int prefetchThreshold) {
+        return new TokenSequenceServiceImpl(mockTokenSegmentDao, task -> pendingTask[0] = task,
+                new UrlShortenerPropertiesBuilder().withSequenceSegmentSize(segmentSize).withSequencePrefetchThreshold(prefetchThreshold).buildSpy());
+    }
+
+    @Nested
+    @DisplayName("TokenSequenceService.nextNumber tests")
+    class NextNumberTest {
+
+        @Test
+        @DisplayName("nextNumber : the numbers of a segment are handed out from memory, the first segment is leased on the first call")
+        void nextNumber_fromMemory() {
+            // ---- GIVEN ----
+            var service = buildService(new Runnable[1], 10, 2);
+            when(mockTokenSegmentDao.allocate(TokenSequenceServiceImpl.SEGMENT_NAME, 10)).thenReturn(100L);
+
+            // ---- WHEN ----
+            long[] numbers = LongStream.range(0, 5).map(i -> service.nextNumber()).toArray();
+
+            // ---- THEN ----
+            assertThat(numbers).containsExactly(100, 101, 102, 103, 104);
+            verify(mockTokenSegmentDao, times(1)).allocate(anyString(), anyLong());
+        }
+
+        @Test
+        @DisplayName("nextNumber : when the threshold is reached, then the next segment is leased in the background and used after the current segment")
+        void nextNumber_prefetch() {
+            // ---- GIVEN ----
+            Runnable[] pendingTask = new Runnable[1];
+            var service = buildService(pendingTask, 10, 2);
+            when(mockTokenSegmentDao.allocate(TokenSequenceServiceImpl.SEGMENT_NAME, 10)).thenReturn(0L, 500L);
+
+            // ---- WHEN ----
+            LongStream.range(0, 7).forEach(i -> service.nextNumber());
+            assertThat(pendingTask[0]).isNull();
+            // 3 numbers left, then 2 : the background lease starts
+            service.nextNumber();
+            assertThat(pendingTask[0]).isNotNull();
+            pendingTask[0].run();
+            long[] numbers = LongStream.range(0, 4).map(i -> service.nextNumber()).toArray();
+
+            // ---- THEN ----
+            assertThat(numbers).containsExactly(8, 9, 500, 501);
+            verify(mockTokenSegmentDao, times(2)).allocate(anyString(), anyLong());
+        }
+
+        @Test
+        @DisplayName("nextNumber : when the background lease has failed, then the next segment is leased when the current segment is exhausted")
+        void nextNumber_prefetchFailed() {
+            // ---- GIVEN ----
+            Runnable[] pendingTask = new Runnable[1];
+            var service = buildService(pendingTask, 4, 1);
+            when(mockTokenSegmentDao.allocate(TokenSequenceServiceImpl.SEGMENT_NAME, 4))
+                    .thenReturn(0L)
+                    .thenThrow(new TokenSegmentAllocationException(TokenSequenceServiceImpl.SEGMENT_NAME))
+                    .thenReturn(40L);
+
+            // ---- WHEN ----
+            LongStream.range(0, 3).forEach(i -> service.nextNumber());
+            pendingTask[0].run();
+            long[] numbers = LongStream.range(0, 2).map(i -> service.nextNumber()).toArray();
+
+            // ---- THEN ----
+            assertThat(numbers).containsExactly(3, 40);
+            verify(mockTokenSegmentDao, times(3)).allocate(anyString(), anyLong());
+        }
+
+        @Test
+        @DisplayName("nextNumber : concurrent threads never get the same number")
+        void nextNumber_concurrent() throws Exception {
+            // ---- GIVEN ----
+            AtomicLong table = new AtomicLong();
+            when(mockTokenSegmentDao.allocate(TokenSequenceServiceImpl.SEGMENT_NAME, 50)).thenAnswer(invocation -> table.getAndAdd(50));
+            Set<Long> numbers = ConcurrentHashMap.newKeySet();
+
+            // ---- WHEN ----
+            try (ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+                 ExecutorService executorService = Executors.newFixedThreadPool(8)) {
+                var service = new TokenSequenceServiceImpl(mockTokenSegmentDao, backgroundExecutor,
+                        new UrlShortenerPropertiesBuilder().withSequenceSegmentSize(50).withSequencePrefetchThreshold(10).buildSpy());
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 8; thread++) {
+                    futures.add(executorService.submit(() -> {
+                        for (int i = 0; i < 1000; i++) {
+                            numbers.add(service.nextNumber());
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            // ---- THEN ----
+            assertThat(numbers).hasSize(8000);
+        }
+    }
+}
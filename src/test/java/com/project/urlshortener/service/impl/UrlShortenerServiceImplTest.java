@@ -1,11 +1,18 @@
 package com.project.urlshortener.service.impl;
 
+import com.project.urlshortener.click.ClickRecorder;
 import com.project.urlshortener.common.exception.RequiredValueException;
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
 import com.project.urlshortener.exception.*;
+import com.project.urlshortener.job.ShortUrlExpirationJob;
 import com.project.urlshortener.model.entities.ShortUrlEntity;
+import com.project.urlshortener.model.shorturl.CreateShortUrlResult;
+import com.project.urlshortener.monitoring.UrlShortenerMetrics;
 import com.project.urlshortener.repository.ShortUrlDao;
+import com.project.urlshortener.repository.ShortUrlExpirationDao;
 import com.project.urlshortener.utils.UrlShortenerPropertiesBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,16 +22,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static com.project.urlshortener.common.exception.RequiredValueException.RequirementType.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +58,16 @@ public class UrlShortenerServiceImplTest {
     @Mock
     private ShortUrlDao mockShortUrlDao;
     @Mock
+    private ShortUrlExpirationDao mockShortUrlExpirationDao;
+    @Mock
     private UrlValidator mockUrlValidator;
+    @Mock
+    private ClickRecorder mockClickRecorder;
+    @Mock
+    private ShortUrlExpirationJob mockShortUrlExpirationJob;
+    @Spy
+    private UrlShortenerMetrics urlShortenerMetrics = new UrlShortenerMetrics(new SimpleMeterRegistry());
 
-    @InjectMocks
     private UrlShortenerServiceImpl service;
 
     @BeforeEach
@@ -48,10 +75,21 @@ public class UrlShortenerServiceImplTest {
         urlShortenerProperties = new UrlShortenerPropertiesBuilder()
                 .withBaseUrl(BASE_URL)
                 .buildSpy();
-        ReflectionTestUtils.setField(service, "urlShortenerProperties", urlShortenerProperties);
+        service = new UrlShortenerServiceImpl(urlShortenerProperties, mockShortUrlDao, Optional.of(mockShortUrlExpirationDao), mockUrlValidator, urlShortenerMetrics, mockClickRecorder,
+                Optional.of(mockShortUrlExpirationJob));
     }
 
 
+    /**
+     * Waits until a counter reaches a count : for instance until the requests are waiting for the coalesced call.
+     */
+    private static void awaitCounter(final Counter counter, final int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.count() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
     @Nested
     @DisplayName("UrlShortenerService.obtainShortUrlForOriginalCompleteUrl tests")
     class ObtainShortUrlForOriginalCompleteUrlTest {
@@ -114,13 +152,270 @@ public class UrlShortenerServiceImplTest {
 
     }
 
+    @Nested
+    @DisplayName("UrlShortenerService.obtainShortUrlForOriginalCompleteUrl with an expiration tests")
+    class ObtainShortUrlForOriginalCompleteUrlWithExpirationTest {
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if short url does not already exist, then it is created with the expiration and the expiration job is told")
+        void obtainShortUrlForOriginalCompleteUrl_withExpiration_shouldCreateAndSchedule() throws Exception {
+            // ---- GIVEN ----
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            var createdShortUrlEntity = ShortUrlEntity.builder().originalUrl("http://testurl").token("abcdef").expiresAt(expiresAt).build();
+            when(mockUrlValidator.isValid("http://testurl")).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://testurl")).thenReturn(null);
+            when(mockShortUrlExpirationDao.createNewShortUrlEntityRetryable("http://testurl", expiresAt)).thenReturn(createdShortUrlEntity);
+
+            // ---- WHEN ----
+            var resultShortUrl = service.obtainShortUrlForOriginalCompleteUrl("http://testurl", expiresAt);
+
+            // ---- THEN ----
+            assertThat(resultShortUrl).isEqualTo(BASE_URL + "abcdef");
+            verify(mockShortUrlDao, never()).createNewShortUrlEntityRetryable(anyString());
+            verify(mockShortUrlExpirationJob).schedule(createdShortUrlEntity);
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if the existing short url expires before the requested expiration, then its expiration is pushed back and its token is returned")
+        void obtainShortUrlForOriginalCompleteUrl_existingExpiresSooner_shouldPushBackExpiration() throws Exception {
+            // ---- GIVEN ----
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            var existingShortUrlEntity = ShortUrlEntity.builder().originalUrl("http://testurl").token("old-token").expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+            var updatedShortUrlEntity = ShortUrlEntity.builder().originalUrl("http://testurl").token("old-token").expiresAt(expiresAt).build();
+            when(mockUrlValidator.isValid("http://testurl")).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://testurl")).thenReturn(existingShortUrlEntity);
+            when(mockShortUrlExpirationDao.updateExpiration(existingShortUrlEntity, expiresAt)).thenReturn(updatedShortUrlEntity);
+
+            // ---- WHEN ----
+            var resultShortUrl = service.obtainShortUrlForOriginalCompleteUrl("http://testurl", expiresAt);
+
+            // ---- THEN ----
+            assertThat(resultShortUrl).isEqualTo(BASE_URL + "old-token");
+            verify(mockShortUrlExpirationJob).schedule(updatedShortUrlEntity);
+            verify(mockShortUrlExpirationDao, never()).createNewShortUrlEntityRetryable(anyString(), any());
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if the existing short url never expires, then it is returned unchanged")
+        void obtainShortUrlForOriginalCompleteUrl_existingNeverExpires_shouldKeepIt() throws Exception {
+            // ---- GIVEN ----
+            when(mockUrlValidator.isValid("http://testurl")).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://testurl")).thenReturn(ShortUrlEntity.builder().originalUrl("http://testurl").token("old-token").build());
+
+            // ---- WHEN ----
+            var resultShortUrl = service.obtainShortUrlForOriginalCompleteUrl("http://testurl", Instant.now().plus(1, ChronoUnit.DAYS));
+
+            // ---- THEN ----
+            assertThat(resultShortUrl).isEqualTo(BASE_URL + "old-token");
+            verify(mockShortUrlExpirationDao, never()).updateExpiration(any(), any());
+            verifyNoInteractions(mockShortUrlExpirationJob);
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if the existing short url has expired before its expiration could be pushed back, then it is searched again and a new short url is created")
+        void obtainShortUrlForOriginalCompleteUrl_existingExpiredMeanwhile_shouldCreate() throws Exception {
+            // ---- GIVEN ----
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            var existingShortUrlEntity = ShortUrlEntity.builder().originalUrl("http://testurl").token("old-token").expiresAt(Instant.now()).build();
+            when(mockUrlValidator.isValid("http://testurl")).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://testurl")).thenReturn(existingShortUrlEntity, (ShortUrlEntity) null);
+            when(mockShortUrlExpirationDao.updateExpiration(existingShortUrlEntity, expiresAt)).thenReturn(null);
+            when(mockShortUrlExpirationDao.createNewShortUrlEntityRetryable("http://testurl", expiresAt))
+                    .thenReturn(ShortUrlEntity.builder().originalUrl("http://testurl").token("new-token").expiresAt(expiresAt).build());
+
+            // ---- WHEN ----
+            var resultShortUrl = service.obtainShortUrlForOriginalCompleteUrl("http://testurl", expiresAt);
+
+            // ---- THEN ----
+            assertThat(resultShortUrl).isEqualTo(BASE_URL + "new-token");
+            verify(mockShortUrlDao, times(2)).findExistingShortUrlEntityByOriginalUrl("http://testurl");
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if the expiration time is not in the future, then ShortUrlInvalidExpirationException")
+        void obtainShortUrlForOriginalCompleteUrl_error_expirationInThePast() {
+            Instant expiresAt = Instant.now().minusSeconds(1);
+
+            assertThatThrownBy(() -> service.obtainShortUrlForOriginalCompleteUrl("http://testurl", expiresAt))
+                    .isInstanceOf(ShortUrlInvalidExpirationException.class)
+                    .hasFieldOrPropertyWithValue("expiresAt", expiresAt);
+
+            verifyNoInteractions(mockShortUrlDao);
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if the expiration is not enabled, then ShortUrlInvalidExpirationException")
+        void obtainShortUrlForOriginalCompleteUrl_error_expirationNotEnabled() {
+            service = new UrlShortenerServiceImpl(urlShortenerProperties, mockShortUrlDao, Optional.of(mockShortUrlExpirationDao), mockUrlValidator, urlShortenerMetrics, mockClickRecorder,
+                    Optional.empty());
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+
+            assertThatThrownBy(() -> service.obtainShortUrlForOriginalCompleteUrl("http://testurl", expiresAt))
+                    .isInstanceOf(ShortUrlInvalidExpirationException.class);
+
+            verifyNoInteractions(mockShortUrlDao, mockShortUrlExpirationDao);
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlForOriginalCompleteUrl : if the storage does not support the expiration, then ShortUrlInvalidExpirationException, and the urls without expiration are still created")
+        void obtainShortUrlForOriginalCompleteUrl_error_expirationNotSupported() throws Exception {
+            // ---- GIVEN ----
+            service = new UrlShortenerServiceImpl(urlShortenerProperties, mockShortUrlDao, Optional.empty(), mockUrlValidator, urlShortenerMetrics, mockClickRecorder, Optional.empty());
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            when(mockUrlValidator.isValid("http://testurl")).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://testurl")).thenReturn(null);
+            when(mockShortUrlDao.createNewShortUrlEntityRetryable("http://testurl")).thenReturn(ShortUrlEntity.builder().originalUrl("http://testurl").token("abcdef").build());
+
+            // ---- WHEN / THEN ----
+            assertThatThrownBy(() -> service.obtainShortUrlForOriginalCompleteUrl("http://testurl", expiresAt))
+                    .isInstanceOf(ShortUrlInvalidExpirationException.class)
+                    .hasFieldOrPropertyWithValue("expiresAt", expiresAt);
+            assertThat(service.obtainShortUrlForOriginalCompleteUrl("http://testurl", null)).isEqualTo(BASE_URL + "abcdef");
+        }
+
+    }
+
+    @Nested
+    @DisplayName("UrlShortenerService.obtainShortUrlsForOriginalCompleteUrls tests")
+    class ObtainShortUrlsForOriginalCompleteUrlsTest {
+
+        @Test
+        @DisplayName("obtainShortUrlsForOriginalCompleteUrls : existing urls are found with one call, the other urls are created with one call, and the results follow the order of the request")
+        void obtainShortUrlsForOriginalCompleteUrls_shouldFindExistingAndCreateMissingUrls() throws ShortUrlBatchTooLargeException {
+            // ---- GIVEN ----
+            when(mockUrlValidator.isValid(anyString())).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntitiesByOriginalUrls(Set.of("http://url1", "http://url2")))
+                    .thenReturn(Map.of("http://url2", ShortUrlEntity.builder().originalUrl("http://url2").token("token2").build()));
+            when(mockShortUrlDao.createNewShortUrlEntities(List.of("http://url1")))
+                    .thenReturn(List.of(ShortUrlEntity.builder().originalUrl("http://url1").token("token1").build()));
+
+            // ---- WHEN ----
+            var results = service.obtainShortUrlsForOriginalCompleteUrls(List.of("http://url1", "http://url2", "http://url1"));
+
+            // ---- THEN ----
+            assertThat(results).extracting(CreateShortUrlResult::originalUrl).containsExactly("http://url1", "http://url2", "http://url1");
+            assertThat(results).extracting(CreateShortUrlResult::shortUrl).containsExactly(BASE_URL + "token1", BASE_URL + "token2", BASE_URL + "token1");
+            assertThat(results).allMatch(CreateShortUrlResult::isSuccess);
+            verify(mockShortUrlDao, never()).findExistingShortUrlEntityByOriginalUrl(anyString());
+            verify(mockShortUrlDao, never()).createNewShortUrlEntityRetryable(anyString());
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlsForOriginalCompleteUrls : an invalid url has its own error, and is neither searched nor created")
+        void obtainShortUrlsForOriginalCompleteUrls_invalidUrl_shouldHaveItsOwnError() throws ShortUrlBatchTooLargeException {
+            // ---- GIVEN ----
+            when(mockUrlValidator.isValid("http://url1")).thenReturn(true);
+            when(mockUrlValidator.isValid("http:badurl")).thenReturn(false);
+            when(mockShortUrlDao.findExistingShortUrlEntitiesByOriginalUrls(Set.of("http://url1")))
+                    .thenReturn(Map.of("http://url1", ShortUrlEntity.builder().originalUrl("http://url1").token("token1").build()));
+
+            // ---- WHEN ----
+            var results = service.obtainShortUrlsForOriginalCompleteUrls(List.of("http:badurl", "http://url1"));
+
+            // ---- THEN ----
+            assertThat(results).hasSize(2);
+            assertThat(results.get(0).isSuccess()).isFalse();
+            assertThat(results.get(0).shortUrl()).isNull();
+            assertThat(results.get(0).error()).isInstanceOf(ShortUrlInvalidUrlException.class);
+            assertThat(results.get(1).shortUrl()).isEqualTo(BASE_URL + "token1");
+            verify(mockShortUrlDao, never()).createNewShortUrlEntities(any());
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlsForOriginalCompleteUrls : when the batch creation returns no token for an url, then the url is processed alone, and its failure is its own error")
+        void obtainShortUrlsForOriginalCompleteUrls_batchCreationFailure_shouldFallBackToSingleUrl() throws ShortUrlBatchTooLargeException {
+            // ---- GIVEN ----
+            when(mockUrlValidator.isValid(anyString())).thenReturn(true);
+            when(mockShortUrlDao.findExistingShortUrlEntitiesByOriginalUrls(any())).thenReturn(Map.of());
+            when(mockShortUrlDao.createNewShortUrlEntities(any())).thenReturn(List.of());
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl(anyString())).thenReturn(null);
+            when(mockShortUrlDao.createNewShortUrlEntityRetryable("http://url1")).thenReturn(ShortUrlEntity.builder().originalUrl("http://url1").token("token1").build());
+            when(mockShortUrlDao.createNewShortUrlEntityRetryable("http://url2")).thenThrow(new ShortUrlTokenAlreadyUsedException("token2", "http://url2"));
+
+            // ---- WHEN ----
+            var results = service.obtainShortUrlsForOriginalCompleteUrls(List.of("http://url1", "http://url2"));
+
+            // ---- THEN ----
+            assertThat(results.get(0).shortUrl()).isEqualTo(BASE_URL + "token1");
+            assertThat(results.get(1).isSuccess()).isFalse();
+            assertThat(results.get(1).error()).isInstanceOf(ShortUrlTokenCannotBeCreatedException.class);
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlsForOriginalCompleteUrls : when there are more urls than batch.maxSize, then ShortUrlBatchTooLargeException")
+        void obtainShortUrlsForOriginalCompleteUrls_error_tooManyUrls() {
+            // ---- GIVEN ----
+            urlShortenerProperties = new UrlShortenerPropertiesBuilder().withBaseUrl(BASE_URL).withBatchMaxSize(2).buildSpy();
+            ReflectionTestUtils.setField(service, "urlShortenerProperties", urlShortenerProperties);
+
+            // ---- WHEN / THEN ----
+            assertThatThrownBy(() -> service.obtainShortUrlsForOriginalCompleteUrls(List.of("http://url1", "http://url2", "http://url3")))
+                    .isInstanceOf(ShortUrlBatchTooLargeException.class)
+                    .hasFieldOrPropertyWithValue("size", 3)
+                    .hasFieldOrPropertyWithValue("maxSize", 2);
+            verifyNoInteractions(mockShortUrlDao);
+        }
+
+        @Test
+        @DisplayName("obtainShortUrlsForOriginalCompleteUrls : when the urls are null, then RequiredValueException")
+        void obtainShortUrlsForOriginalCompleteUrls_error_urlsAreNull() {
+            assertThatThrownBy(() -> service.obtainShortUrlsForOriginalCompleteUrls(null))
+                    .isInstanceOf(RequiredValueException.class)
+                    .hasFieldOrPropertyWithValue("requirementType", CANNOT_BE_NULL);
+        }
+
+    }
+
+
+
+    @Nested
+    @DisplayName("UrlShortenerService.getOriginalUrlsForShortUrlTokens tests")
+    class GetOriginalUrlsForShortUrlTokensTest {
+
+        @Test
+        @DisplayName("getOriginalUrlsForShortUrlTokens : the valid tokens are searched with one call, the known tokens have their original url and the others are unknown, in the order of the request")
+        void getOriginalUrlsForShortUrlTokens_knownAndUnknownTokens() throws ShortUrlBatchTooLargeException {
+            // ---- GIVEN ----
+            when(mockShortUrlDao.findExistingShortUrlEntitiesByTokens(List.of("token2", "unknown", "token1")))
+                    .thenReturn(Map.of(
+                            "token1", ShortUrlEntity.builder().originalUrl("http://url1").token("token1").build(),
+                            "token2", ShortUrlEntity.builder().originalUrl("http://url2").token("token2").build()));
+
+            // ---- WHEN ----
+            var result = service.getOriginalUrlsForShortUrlTokens(List.of("token2", "unknown", StringUtils.SPACE, "token1", "token2"));
+
+            // ---- THEN ----
+            assertThat(result.originalUrls()).containsExactly(entry("token2", "http://url2"), entry("token1", "http://url1"));
+            assertThat(result.unknownTokens()).containsExactly("unknown", StringUtils.SPACE);
+            verify(mockShortUrlDao, never()).findExistingShortUrlEntityByToken(anyString());
+            // the invalid token is not counted as not found
+            assertThat(urlShortenerMetrics.getTokenNotFoundCounter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("getOriginalUrlsForShortUrlTokens : when there are more tokens than batch.maxSize, then ShortUrlBatchTooLargeException")
+        void getOriginalUrlsForShortUrlTokens_error_tooManyTokens() {
+            // ---- GIVEN ----
+            urlShortenerProperties = new UrlShortenerPropertiesBuilder().withBaseUrl(BASE_URL).withBatchMaxSize(2).buildSpy();
+            ReflectionTestUtils.setField(service, "urlShortenerProperties", urlShortenerProperties);
+
+            // ---- WHEN / THEN ----
+            assertThatThrownBy(() -> service.getOriginalUrlsForShortUrlTokens(List.of("token1", "token2", "token3")))
+                    .isInstanceOf(ShortUrlBatchTooLargeException.class)
+                    .hasFieldOrPropertyWithValue("size", 3)
+                    .hasFieldOrPropertyWithValue("maxSize", 2);
+            verifyNoInteractions(mockShortUrlDao);
+        }
+
+    }
+
 
     @Nested
     @DisplayName("UrlShortenerService.getOriginalUrlForShortUrlToken tests")
     class GetOriginalUrlForShortUrlTokenTest {
 
         @Test
-        @DisplayName("getOriginalUrlForShortUrlToken : if short url already exists, then findExistingShortUrlEntityByToken is called and original url is returned")
+        @DisplayName("getOriginalUrlForShortUrlToken : if short url already exists, then findExistingShortUrlEntityByToken is called, the click is recorded and original url is returned")
         void getOriginalUrlForShortUrlToken_shouldCombineBaseUrlAndNewlyCreatedTokenToCreateShortUrl() throws ShortUrlInvalidTokenException, ShortUrlTokenNotFoundException {
             when(mockShortUrlDao.findExistingShortUrlEntityByToken("abcdef")).thenReturn(ShortUrlEntity.builder().originalUrl("http://originalurl").token("abcdef").build());
 
@@ -128,6 +423,7 @@ public class UrlShortenerServiceImplTest {
 
             assertThat(resultOriginalUrl).isNotNull().isEqualTo("http://originalurl");
             verify(mockShortUrlDao).findExistingShortUrlEntityByToken("abcdef");
+            verify(mockClickRecorder).recordClick("abcdef");
         }
 
         @Test
@@ -162,6 +458,8 @@ public class UrlShortenerServiceImplTest {
             assertThatThrownBy(() -> service.getOriginalUrlForShortUrlToken("abcdef"))
                     .isInstanceOf(ShortUrlTokenNotFoundException.class)
                     .hasFieldOrPropertyWithValue("token", "abcdef");
+            assertThat(urlShortenerMetrics.getTokenNotFoundCounter().count()).isEqualTo(1);
+            verifyNoInteractions(mockClickRecorder);
         }
 
     }
@@ -216,6 +514,53 @@ public class UrlShortenerServiceImplTest {
 
         }
 
+        @Test
+        @DisplayName("findOrCreateShortUrlToken : when several requests create the same url at once, then only the first one searches and creates it, the other ones get its token")
+        void findOrCreateShortUrlToken_concurrentRequests_shouldCreateOnce() throws Exception {
+            // ---- GIVEN ----
+            var creationStarted = new CountDownLatch(1);
+            var releaseCreation = new CountDownLatch(1);
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://viral-url")).thenReturn(null);
+            when(mockShortUrlDao.createNewShortUrlEntityRetryable("http://viral-url")).thenAnswer(invocation -> {
+                creationStarted.countDown();
+                releaseCreation.await();
+                return ShortUrlEntity.builder().originalUrl("http://viral-url").token("viral").build();
+            });
+
+            // ---- WHEN ----
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var first = executor.submit(() -> service.findOrCreateShortUrlToken("http://viral-url"));
+                creationStarted.await();
+                var others = IntStream.range(0, 10).mapToObj(i -> executor.submit(() -> service.findOrCreateShortUrlToken("http://viral-url"))).toList();
+                awaitCounter(urlShortenerMetrics.getCreateCoalescedCounter(), 10);
+                releaseCreation.countDown();
+
+                // ---- THEN ----
+                assertThat(first.get()).isEqualTo("viral");
+                for (Future<String> other : others) {
+                    assertThat(other.get()).isEqualTo("viral");
+                }
+            }
+            verify(mockShortUrlDao, times(1)).findExistingShortUrlEntityByOriginalUrl("http://viral-url");
+            verify(mockShortUrlDao, times(1)).createNewShortUrlEntityRetryable("http://viral-url");
+        }
+
+        @Test
+        @DisplayName("findOrCreateShortUrlToken : when the coalescing is disabled, then each request searches the url on its own")
+        void findOrCreateShortUrlToken_coalescingDisabled() {
+            // ---- GIVEN ----
+            service = new UrlShortenerServiceImpl(new UrlShortenerPropertiesBuilder().withCoalescingEnabled(false).buildSpy(), mockShortUrlDao, Optional.of(mockShortUrlExpirationDao), mockUrlValidator,
+                    urlShortenerMetrics, mockClickRecorder, Optional.of(mockShortUrlExpirationJob));
+            when(mockShortUrlDao.findExistingShortUrlEntityByOriginalUrl("http://testurl")).thenReturn(ShortUrlEntity.builder().originalUrl("http://testurl").token("old-token").build());
+
+            // ---- WHEN ----
+            var result = service.findOrCreateShortUrlToken("http://testurl");
+
+            // ---- THEN ----
+            assertThat(result).isEqualTo("old-token");
+            assertThat(urlShortenerMetrics.getCreateCoalescedCounter().count()).isZero();
+        }
+
     }
 
 
@@ -282,10 +627,12 @@ public class UrlShortenerServiceImplTest {
 
             assertThat(resultUrlValid).isTrue();
             then_mockUrlValidatorIsValidIsCalled("http://testurl");
+            assertThat(urlShortenerMetrics.getUrlValidationTimer().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getInvalidUrlCounter().count()).isZero();
         }
 
         @Test
-        @DisplayName("isUrlValid : if urlValidator returns false, then returns false")
+        @DisplayName("isUrlValid : if urlValidator returns false, then returns false and the url is counted as invalid")
         void isUrlValid_urlIsNotValid() {
             when(mockUrlValidator.isValid("http://juniturl")).thenReturn(false);
 
@@ -293,6 +640,8 @@ public class UrlShortenerServiceImplTest {
 
             assertThat(resultUrlValid).isFalse();
             then_mockUrlValidatorIsValidIsCalled("http://juniturl");
+            assertThat(urlShortenerMetrics.getUrlValidationTimer().count()).isEqualTo(1);
+            assertThat(urlShortenerMetrics.getInvalidUrlCounter().count()).isEqualTo(1);
         }
 
         private void then_mockUrlValidatorIsValidIsCalled(final String originalUrl) {
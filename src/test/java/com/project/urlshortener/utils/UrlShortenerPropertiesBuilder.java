@@ -2,7 +2,9 @@ package com.project.urlshortener.utils;
 
 import com.project.urlshortener.configuration.properties.UrlShortenerProperties;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.Mockito.spy;
@@ -13,14 +15,168 @@ public class UrlShortenerPropertiesBuilder {
     public static final String TOKEN_MAX_ATTEMPTS = "tokenMaxAttempts";
     public static final String TOKEN_LENGTH = "tokenLength";
     public static final String BASE_URL = "baseUrl";
+    public static final String CACHE_ENABLED = "cacheEnabled";
+    public static final String CACHE_MAX_ENTRIES = "cacheMaxEntries";
+    public static final String CACHE_MAX_BYTES = "cacheMaxBytes";
+    public static final String BLOOM_FILTER_ENABLED = "bloomFilterEnabled";
+    public static final String BLOOM_FILTER_EXPECTED_INSERTIONS = "bloomFilterExpectedInsertions";
+    public static final String BLOOM_FILTER_FALSE_POSITIVE_RATE = "bloomFilterFalsePositiveRate";
+    public static final String BACKFILL_BATCH_SIZE = "backfillBatchSize";
+    public static final String TOKEN_STRATEGY = "tokenStrategy";
+    public static final String SEQUENCE_SCRAMBLED = "sequenceScrambled";
+    public static final String SEQUENCE_SCRAMBLE_KEY = "sequenceScrambleKey";
+    public static final String SEQUENCE_SEGMENT_SIZE = "sequenceSegmentSize";
+    public static final String SEQUENCE_PREFETCH_THRESHOLD = "sequencePrefetchThreshold";
+    public static final String BATCH_MAX_SIZE = "batchMaxSize";
+    public static final String REDIRECT_ENABLED = "redirectEnabled";
+    public static final String REDIRECT_STATUS = "redirectStatus";
+    public static final String REDIRECT_CACHE_CONTROL = "redirectCacheControl";
+    public static final String PINNING_MONITOR_ENABLED = "pinningMonitorEnabled";
+    public static final String PINNING_MONITOR_THRESHOLD_MILLIS = "pinningMonitorThresholdMillis";
+    public static final String PINNING_MONITOR_MAX_STACK_DEPTH = "pinningMonitorMaxStackDepth";
+    public static final String CLICKS_ENABLED = "clicksEnabled";
+    public static final String CLICKS_BUFFER_SIZE = "clicksBufferSize";
+    public static final String CLICKS_OVERFLOW_POLICY = "clicksOverflowPolicy";
+    public static final String CLICKS_SAMPLE_RATE = "clicksSampleRate";
+    public static final String CLICKS_FLUSH_INTERVAL_MILLIS = "clicksFlushIntervalMillis";
+    public static final String CLICKS_FLUSH_BATCH_SIZE = "clicksFlushBatchSize";
+    public static final String WRITE_BEHIND_ENABLED = "writeBehindEnabled";
+    public static final String WRITE_BEHIND_JOURNAL_DIRECTORY = "writeBehindJournalDirectory";
+    public static final String WRITE_BEHIND_JOURNAL_SYNC = "writeBehindJournalSync";
+    public static final String WRITE_BEHIND_FLUSH_INTERVAL_MILLIS = "writeBehindFlushIntervalMillis";
+    public static final String WRITE_BEHIND_FLUSH_BATCH_SIZE = "writeBehindFlushBatchSize";
+    public static final String WRITE_BEHIND_MAX_PENDING_ROWS = "writeBehindMaxPendingRows";
+    public static final String STORAGE_ENGINE = "storageEngine";
+    public static final String STORAGE_DIRECTORY = "storageDirectory";
+    public static final String STORAGE_SEGMENT_SIZE_BYTES = "storageSegmentSizeBytes";
+    public static final String STORAGE_INDEX_INITIAL_CAPACITY = "storageIndexInitialCapacity";
+    public static final String STORAGE_SYNC = "storageSync";
+    public static final String STORAGE_COMPACTION_INTERVAL_MILLIS = "storageCompactionIntervalMillis";
+    public static final String STORAGE_COMPACTION_MIN_GARBAGE_RATIO = "storageCompactionMinGarbageRatio";
+    public static final String READ_REPLICAS_ENABLED = "readReplicasEnabled";
+    public static final String READ_REPLICAS_SELECTION = "readReplicasSelection";
+    public static final String READ_REPLICAS_MAXIMUM_POOL_SIZE = "readReplicasMaximumPoolSize";
+    public static final String READ_REPLICAS_READ_YOUR_WRITES_MILLIS = "readReplicasReadYourWritesMillis";
+    public static final String READ_REPLICAS_READ_YOUR_WRITES_MAX_ENTRIES = "readReplicasReadYourWritesMaxEntries";
+    public static final String SHARDING_PREFIX_LENGTH = "shardingPrefixLength";
+    public static final String SHARDING_ROUTING_REFRESH_MILLIS = "shardingRoutingRefreshMillis";
+    public static final String SHARDING_MOVE_BATCH_SIZE = "shardingMoveBatchSize";
+    public static final String SHARDING_MAXIMUM_POOL_SIZE = "shardingMaximumPoolSize";
+    public static final String BULK_IMPORT_DIRECTORY = "bulkImportDirectory";
+    public static final String BULK_IMPORT_BATCH_SIZE = "bulkImportBatchSize";
+    public static final String BULK_IMPORT_PARALLELISM = "bulkImportParallelism";
+    public static final String BULK_IMPORT_PROGRESS_INTERVAL_MILLIS = "bulkImportProgressIntervalMillis";
+    public static final String BULK_EXPORT_DIRECTORY = "bulkExportDirectory";
+    public static final String BULK_EXPORT_PAGE_SIZE = "bulkExportPageSize";
+    public static final String BULK_EXPORT_BUFFER_SIZE = "bulkExportBufferSize";
+    public static final String BULK_EXPORT_PROGRESS_INTERVAL_MILLIS = "bulkExportProgressIntervalMillis";
+    public static final String COALESCING_ENABLED = "coalescingEnabled";
+    public static final String COALESCING_TIMEOUT_MILLIS = "coalescingTimeoutMillis";
+    public static final String CACHE_SNAPSHOT_ENABLED = "cacheSnapshotEnabled";
+    public static final String CACHE_SNAPSHOT_FILE = "cacheSnapshotFile";
+    public static final String CACHE_SNAPSHOT_MAX_ENTRIES = "cacheSnapshotMaxEntries";
+    public static final String CACHE_SNAPSHOT_INTERVAL_MILLIS = "cacheSnapshotIntervalMillis";
+    public static final String EXPIRATION_ENABLED = "expirationEnabled";
+    public static final String EXPIRATION_TICK_MILLIS = "expirationTickMillis";
+    public static final String EXPIRATION_WHEEL_SIZE = "expirationWheelSize";
+    public static final String EXPIRATION_PRELOAD_WINDOW_MILLIS = "expirationPreloadWindowMillis";
+    public static final String EXPIRATION_PAGE_SIZE = "expirationPageSize";
+    public static final String EXPIRATION_DELETE_BATCH_SIZE = "expirationDeleteBatchSize";
+    public static final String RATE_LIMIT_ENABLED = "rateLimitEnabled";
+    public static final String RATE_LIMIT_CAPACITY = "rateLimitCapacity";
+    public static final String RATE_LIMIT_REFILL_PER_SECOND = "rateLimitRefillPerSecond";
+    public static final String RATE_LIMIT_CLIENT_KEY_HEADER = "rateLimitClientKeyHeader";
+    public static final String RATE_LIMIT_MAX_CLIENTS = "rateLimitMaxClients";
+    public static final String RATE_LIMIT_STRIPES = "rateLimitStripes";
     private final Map<String, String> values;
+    private final List<UrlShortenerProperties.ReadReplicas.Replica> readReplicasDatasources;
+    private final List<UrlShortenerProperties.Sharding.Shard> shardingDatasources;
+    private final List<String> rateLimitApiKeys;
+    private final List<String> rateLimitTrustedGateways;
 
     public UrlShortenerPropertiesBuilder() {
         values = new HashMap<>();
+        readReplicasDatasources = new ArrayList<>();
+        shardingDatasources = new ArrayList<>();
+        rateLimitApiKeys = new ArrayList<>();
+        rateLimitTrustedGateways = new ArrayList<>();
         withBaseUrl("http://junit-fake-url/");
         withTokenLength(10);
         withTokenMaxAttempts(5);
         withTokenCharacters("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789");
+        withCacheEnabled(true);
+        withCacheMaxEntries(1000);
+        withCacheMaxBytes(1_000_000L);
+        withBloomFilterEnabled(true);
+        withBloomFilterExpectedInsertions(10_000L);
+        withBloomFilterFalsePositiveRate(0.01);
+        withBackfillBatchSize(100);
+        withTokenStrategy(UrlShortenerProperties.Token.Strategy.RANDOM);
+        withSequenceScrambled(true);
+        withSequenceScrambleKey(42L);
+        withSequenceSegmentSize(100);
+        withSequencePrefetchThreshold(20);
+        withBatchMaxSize(100);
+        withRedirectEnabled(true);
+        withRedirectStatus(302);
+        withRedirectCacheControl("no-store");
+        withPinningMonitorEnabled(false);
+        withPinningMonitorThresholdMillis(20L);
+        withPinningMonitorMaxStackDepth(32);
+        withClicksEnabled(true);
+        withClicksBufferSize(16);
+        withClicksOverflowPolicy(UrlShortenerProperties.Clicks.OverflowPolicy.DROP);
+        withClicksSampleRate(4);
+        withClicksFlushIntervalMillis(1000L);
+        withClicksFlushBatchSize(100);
+        withWriteBehindEnabled(false);
+        withWriteBehindJournalDirectory("target/short-url-journal");
+        withWriteBehindJournalSync(false);
+        withWriteBehindFlushIntervalMillis(5L);
+        withWriteBehindFlushBatchSize(100);
+        withWriteBehindMaxPendingRows(1000);
+        withStorageEngine(UrlShortenerProperties.Storage.Engine.DATABASE);
+        withStorageDirectory("target/short-url-storage");
+        withStorageSegmentSizeBytes(1 << 18);
+        withStorageIndexInitialCapacity(16);
+        withStorageSync(false);
+        withStorageCompactionIntervalMillis(3_600_000L);
+        withStorageCompactionMinGarbageRatio(0.3);
+        withReadReplicasEnabled(false);
+        withReadReplicasSelection(UrlShortenerProperties.ReadReplicas.Selection.ROUND_ROBIN);
+        withReadReplicasMaximumPoolSize(2);
+        withReadReplicasReadYourWritesMillis(5000L);
+        withReadReplicasReadYourWritesMaxEntries(1000);
+        withShardingPrefixLength(1);
+        withShardingRoutingRefreshMillis(1000L);
+        withShardingMoveBatchSize(100);
+        withShardingMaximumPoolSize(2);
+        withBulkImportDirectory("target/short-url-import");
+        withBulkImportBatchSize(100);
+        withBulkImportParallelism(2);
+        withBulkImportProgressIntervalMillis(10000L);
+        withBulkExportDirectory("target/short-url-export");
+        withBulkExportPageSize(100);
+        withBulkExportBufferSize(8192);
+        withBulkExportProgressIntervalMillis(10000L);
+        withCoalescingEnabled(true);
+        withCoalescingTimeoutMillis(2000L);
+        withCacheSnapshotEnabled(false);
+        withCacheSnapshotFile("target/short-url-cache.snapshot");
+        withCacheSnapshotMaxEntries(100000);
+        withCacheSnapshotIntervalMillis(60000L);
+        withExpirationEnabled(true);
+        withExpirationTickMillis(100L);
+        withExpirationWheelSize(64);
+        withExpirationPreloadWindowMillis(60000L);
+        withExpirationPageSize(100);
+        withExpirationDeleteBatchSize(50);
+        withRateLimitEnabled(true);
+        withRateLimitCapacity(5);
+        withRateLimitRefillPerSecond(1.0);
+        withRateLimitClientKeyHeader(null);
+        withRateLimitMaxClients(1000);
+        withRateLimitStripes(4);
     }
 
     public UrlShortenerPropertiesBuilder withBaseUrl(final String baseUrl) {
@@ -43,6 +199,391 @@ public class UrlShortenerPropertiesBuilder {
         return this;
     }
 
+    public UrlShortenerPropertiesBuilder withCacheEnabled(final boolean enabled) {
+        values.put(CACHE_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCacheMaxEntries(final int maxEntries) {
+        values.put(CACHE_MAX_ENTRIES, String.valueOf(maxEntries));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCacheMaxBytes(final long maxBytes) {
+        values.put(CACHE_MAX_BYTES, String.valueOf(maxBytes));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBloomFilterEnabled(final boolean enabled) {
+        values.put(BLOOM_FILTER_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBloomFilterExpectedInsertions(final long expectedInsertions) {
+        values.put(BLOOM_FILTER_EXPECTED_INSERTIONS, String.valueOf(expectedInsertions));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBloomFilterFalsePositiveRate(final double falsePositiveRate) {
+        values.put(BLOOM_FILTER_FALSE_POSITIVE_RATE, String.valueOf(falsePositiveRate));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBackfillBatchSize(final int batchSize) {
+        values.put(BACKFILL_BATCH_SIZE, String.valueOf(batchSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withTokenStrategy(final UrlShortenerProperties.Token.Strategy strategy) {
+        values.put(TOKEN_STRATEGY, strategy.name());
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withSequenceScrambled(final boolean scrambled) {
+        values.put(SEQUENCE_SCRAMBLED, String.valueOf(scrambled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withSequenceScrambleKey(final Long scrambleKey) {
+        values.put(SEQUENCE_SCRAMBLE_KEY, scrambleKey == null ? null : String.valueOf(scrambleKey));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withSequenceSegmentSize(final int segmentSize) {
+        values.put(SEQUENCE_SEGMENT_SIZE, String.valueOf(segmentSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withSequencePrefetchThreshold(final int prefetchThreshold) {
+        values.put(SEQUENCE_PREFETCH_THRESHOLD, String.valueOf(prefetchThreshold));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBatchMaxSize(final int maxSize) {
+        values.put(BATCH_MAX_SIZE, String.valueOf(maxSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRedirectEnabled(final boolean enabled) {
+        values.put(REDIRECT_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRedirectStatus(final int status) {
+        values.put(REDIRECT_STATUS, String.valueOf(status));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRedirectCacheControl(final String cacheControl) {
+        values.put(REDIRECT_CACHE_CONTROL, cacheControl);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withPinningMonitorEnabled(final boolean enabled) {
+        values.put(PINNING_MONITOR_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withPinningMonitorThresholdMillis(final long thresholdMillis) {
+        values.put(PINNING_MONITOR_THRESHOLD_MILLIS, String.valueOf(thresholdMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withPinningMonitorMaxStackDepth(final int maxStackDepth) {
+        values.put(PINNING_MONITOR_MAX_STACK_DEPTH, String.valueOf(maxStackDepth));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withClicksEnabled(final boolean enabled) {
+        values.put(CLICKS_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withClicksBufferSize(final int bufferSize) {
+        values.put(CLICKS_BUFFER_SIZE, String.valueOf(bufferSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withClicksOverflowPolicy(final UrlShortenerProperties.Clicks.OverflowPolicy overflowPolicy) {
+        values.put(CLICKS_OVERFLOW_POLICY, overflowPolicy.name());
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withClicksSampleRate(final int sampleRate) {
+        values.put(CLICKS_SAMPLE_RATE, String.valueOf(sampleRate));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withClicksFlushIntervalMillis(final long flushIntervalMillis) {
+        values.put(CLICKS_FLUSH_INTERVAL_MILLIS, String.valueOf(flushIntervalMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withClicksFlushBatchSize(final int flushBatchSize) {
+        values.put(CLICKS_FLUSH_BATCH_SIZE, String.valueOf(flushBatchSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withWriteBehindEnabled(final boolean enabled) {
+        values.put(WRITE_BEHIND_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withWriteBehindJournalDirectory(final String journalDirectory) {
+        values.put(WRITE_BEHIND_JOURNAL_DIRECTORY, journalDirectory);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withWriteBehindJournalSync(final boolean journalSync) {
+        values.put(WRITE_BEHIND_JOURNAL_SYNC, String.valueOf(journalSync));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withWriteBehindFlushIntervalMillis(final long flushIntervalMillis) {
+        values.put(WRITE_BEHIND_FLUSH_INTERVAL_MILLIS, String.valueOf(flushIntervalMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withWriteBehindFlushBatchSize(final int flushBatchSize) {
+        values.put(WRITE_BEHIND_FLUSH_BATCH_SIZE, String.valueOf(flushBatchSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withWriteBehindMaxPendingRows(final int maxPendingRows) {
+        values.put(WRITE_BEHIND_MAX_PENDING_ROWS, String.valueOf(maxPendingRows));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageEngine(final UrlShortenerProperties.Storage.Engine engine) {
+        values.put(STORAGE_ENGINE, engine.name());
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageDirectory(final String directory) {
+        values.put(STORAGE_DIRECTORY, directory);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageSegmentSizeBytes(final int segmentSizeBytes) {
+        values.put(STORAGE_SEGMENT_SIZE_BYTES, String.valueOf(segmentSizeBytes));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageIndexInitialCapacity(final int indexInitialCapacity) {
+        values.put(STORAGE_INDEX_INITIAL_CAPACITY, String.valueOf(indexInitialCapacity));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageSync(final boolean sync) {
+        values.put(STORAGE_SYNC, String.valueOf(sync));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageCompactionIntervalMillis(final long compactionIntervalMillis) {
+        values.put(STORAGE_COMPACTION_INTERVAL_MILLIS, String.valueOf(compactionIntervalMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withStorageCompactionMinGarbageRatio(final double compactionMinGarbageRatio) {
+        values.put(STORAGE_COMPACTION_MIN_GARBAGE_RATIO, String.valueOf(compactionMinGarbageRatio));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withReadReplicasEnabled(final boolean enabled) {
+        values.put(READ_REPLICAS_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withReadReplicasSelection(final UrlShortenerProperties.ReadReplicas.Selection selection) {
+        values.put(READ_REPLICAS_SELECTION, selection.name());
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withReadReplicasMaximumPoolSize(final int maximumPoolSize) {
+        values.put(READ_REPLICAS_MAXIMUM_POOL_SIZE, String.valueOf(maximumPoolSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withReadReplicasReadYourWritesMillis(final long readYourWritesMillis) {
+        values.put(READ_REPLICAS_READ_YOUR_WRITES_MILLIS, String.valueOf(readYourWritesMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withReadReplicasReadYourWritesMaxEntries(final int readYourWritesMaxEntries) {
+        values.put(READ_REPLICAS_READ_YOUR_WRITES_MAX_ENTRIES, String.valueOf(readYourWritesMaxEntries));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withReadReplicasDatasource(final String url, final String username, final String password) {
+        readReplicasDatasources.add(new UrlShortenerProperties.ReadReplicas.Replica(url, username, password));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withShardingPrefixLength(final int prefixLength) {
+        values.put(SHARDING_PREFIX_LENGTH, String.valueOf(prefixLength));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withShardingRoutingRefreshMillis(final long routingRefreshMillis) {
+        values.put(SHARDING_ROUTING_REFRESH_MILLIS, String.valueOf(routingRefreshMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withShardingMoveBatchSize(final int moveBatchSize) {
+        values.put(SHARDING_MOVE_BATCH_SIZE, String.valueOf(moveBatchSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withShardingMaximumPoolSize(final int maximumPoolSize) {
+        values.put(SHARDING_MAXIMUM_POOL_SIZE, String.valueOf(maximumPoolSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withShardingDatasource(final String url, final String username, final String password) {
+        shardingDatasources.add(new UrlShortenerProperties.Sharding.Shard(url, username, password));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkImportDirectory(final String directory) {
+        values.put(BULK_IMPORT_DIRECTORY, directory);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkImportBatchSize(final int batchSize) {
+        values.put(BULK_IMPORT_BATCH_SIZE, String.valueOf(batchSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkImportParallelism(final int parallelism) {
+        values.put(BULK_IMPORT_PARALLELISM, String.valueOf(parallelism));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkImportProgressIntervalMillis(final long progressIntervalMillis) {
+        values.put(BULK_IMPORT_PROGRESS_INTERVAL_MILLIS, String.valueOf(progressIntervalMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkExportDirectory(final String directory) {
+        values.put(BULK_EXPORT_DIRECTORY, directory);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkExportPageSize(final int pageSize) {
+        values.put(BULK_EXPORT_PAGE_SIZE, String.valueOf(pageSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkExportBufferSize(final int bufferSize) {
+        values.put(BULK_EXPORT_BUFFER_SIZE, String.valueOf(bufferSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withBulkExportProgressIntervalMillis(final long progressIntervalMillis) {
+        values.put(BULK_EXPORT_PROGRESS_INTERVAL_MILLIS, String.valueOf(progressIntervalMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCoalescingEnabled(final boolean enabled) {
+        values.put(COALESCING_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCoalescingTimeoutMillis(final long timeoutMillis) {
+        values.put(COALESCING_TIMEOUT_MILLIS, String.valueOf(timeoutMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCacheSnapshotEnabled(final boolean enabled) {
+        values.put(CACHE_SNAPSHOT_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCacheSnapshotFile(final String file) {
+        values.put(CACHE_SNAPSHOT_FILE, file);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCacheSnapshotMaxEntries(final int maxEntries) {
+        values.put(CACHE_SNAPSHOT_MAX_ENTRIES, String.valueOf(maxEntries));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withCacheSnapshotIntervalMillis(final long intervalMillis) {
+        values.put(CACHE_SNAPSHOT_INTERVAL_MILLIS, String.valueOf(intervalMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withExpirationEnabled(final boolean enabled) {
+        values.put(EXPIRATION_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withExpirationTickMillis(final long tickMillis) {
+        values.put(EXPIRATION_TICK_MILLIS, String.valueOf(tickMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withExpirationWheelSize(final int wheelSize) {
+        values.put(EXPIRATION_WHEEL_SIZE, String.valueOf(wheelSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withExpirationPreloadWindowMillis(final long preloadWindowMillis) {
+        values.put(EXPIRATION_PRELOAD_WINDOW_MILLIS, String.valueOf(preloadWindowMillis));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withExpirationPageSize(final int pageSize) {
+        values.put(EXPIRATION_PAGE_SIZE, String.valueOf(pageSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withExpirationDeleteBatchSize(final int deleteBatchSize) {
+        values.put(EXPIRATION_DELETE_BATCH_SIZE, String.valueOf(deleteBatchSize));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitEnabled(final boolean enabled) {
+        values.put(RATE_LIMIT_ENABLED, String.valueOf(enabled));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitCapacity(final int capacity) {
+        values.put(RATE_LIMIT_CAPACITY, String.valueOf(capacity));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitRefillPerSecond(final double refillPerSecond) {
+        values.put(RATE_LIMIT_REFILL_PER_SECOND, String.valueOf(refillPerSecond));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitClientKeyHeader(final String clientKeyHeader) {
+        values.put(RATE_LIMIT_CLIENT_KEY_HEADER, clientKeyHeader);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitApiKey(final String apiKey) {
+        rateLimitApiKeys.add(apiKey);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitTrustedGateway(final String trustedGateway) {
+        rateLimitTrustedGateways.add(trustedGateway);
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitMaxClients(final int maxClients) {
+        values.put(RATE_LIMIT_MAX_CLIENTS, String.valueOf(maxClients));
+        return this;
+    }
+
+    public UrlShortenerPropertiesBuilder withRateLimitStripes(final int stripes) {
+        values.put(RATE_LIMIT_STRIPES, String.valueOf(stripes));
+        return this;
+    }
+
     private String readStringValue(String key) {
         return values.get(key);
     }
@@ -51,6 +592,18 @@ public class UrlShortenerPropertiesBuilder {
         return Integer.parseInt(readStringValue(key));
     }
 
+    private Long readLongValue(String key) {
+        return readStringValue(key) == null ? null : Long.parseLong(readStringValue(key));
+    }
+
+    private Double readDoubleValue(String key) {
+        return Double.parseDouble(readStringValue(key));
+    }
+
+    private boolean readBooleanValue(String key) {
+        return Boolean.parseBoolean(readStringValue(key));
+    }
+
     public UrlShortenerProperties buildSpy() {
         var baseUrl = readStringValue(BASE_URL);
 
@@ -58,8 +611,41 @@ public class UrlShortenerPropertiesBuilder {
         int tokenMaxAttempts = readIntegerValue(TOKEN_MAX_ATTEMPTS);
         String tokenCharacters = readStringValue(TOKEN_CHARACTERS);
 
-        var token = spy(new UrlShortenerProperties.Token(tokenLength, tokenMaxAttempts, tokenCharacters));
-        return spy(new UrlShortenerProperties(baseUrl, token));
+        var token = spy(new UrlShortenerProperties.Token(tokenLength, tokenMaxAttempts, tokenCharacters, UrlShortenerProperties.Token.Strategy.valueOf(readStringValue(TOKEN_STRATEGY))));
+        var cache = spy(new UrlShortenerProperties.Cache(readBooleanValue(CACHE_ENABLED), readIntegerValue(CACHE_MAX_ENTRIES), readLongValue(CACHE_MAX_BYTES)));
+        var bloomFilter = spy(new UrlShortenerProperties.BloomFilter(readBooleanValue(BLOOM_FILTER_ENABLED), readLongValue(BLOOM_FILTER_EXPECTED_INSERTIONS), readDoubleValue(BLOOM_FILTER_FALSE_POSITIVE_RATE)));
+        var backfill = spy(new UrlShortenerProperties.Backfill(readIntegerValue(BACKFILL_BATCH_SIZE)));
+        var sequence = spy(new UrlShortenerProperties.Sequence(readBooleanValue(SEQUENCE_SCRAMBLED), readLongValue(SEQUENCE_SCRAMBLE_KEY), readIntegerValue(SEQUENCE_SEGMENT_SIZE), readIntegerValue(SEQUENCE_PREFETCH_THRESHOLD)));
+        var batch = spy(new UrlShortenerProperties.Batch(readIntegerValue(BATCH_MAX_SIZE)));
+        var redirect = spy(new UrlShortenerProperties.Redirect(readBooleanValue(REDIRECT_ENABLED), readIntegerValue(REDIRECT_STATUS), readStringValue(REDIRECT_CACHE_CONTROL)));
+        var pinningMonitor = spy(new UrlShortenerProperties.PinningMonitor(readBooleanValue(PINNING_MONITOR_ENABLED), readLongValue(PINNING_MONITOR_THRESHOLD_MILLIS), readIntegerValue(PINNING_MONITOR_MAX_STACK_DEPTH)));
+        var clicks = spy(new UrlShortenerProperties.Clicks(readBooleanValue(CLICKS_ENABLED), readIntegerValue(CLICKS_BUFFER_SIZE),
+                UrlShortenerProperties.Clicks.OverflowPolicy.valueOf(readStringValue(CLICKS_OVERFLOW_POLICY)), readIntegerValue(CLICKS_SAMPLE_RATE),
+                readLongValue(CLICKS_FLUSH_INTERVAL_MILLIS), readIntegerValue(CLICKS_FLUSH_BATCH_SIZE)));
+        var writeBehind = spy(new UrlShortenerProperties.WriteBehind(readBooleanValue(WRITE_BEHIND_ENABLED), readStringValue(WRITE_BEHIND_JOURNAL_DIRECTORY),
+                readBooleanValue(WRITE_BEHIND_JOURNAL_SYNC), readLongValue(WRITE_BEHIND_FLUSH_INTERVAL_MILLIS), readIntegerValue(WRITE_BEHIND_FLUSH_BATCH_SIZE),
+                readIntegerValue(WRITE_BEHIND_MAX_PENDING_ROWS)));
+        var storage = spy(new UrlShortenerProperties.Storage(UrlShortenerProperties.Storage.Engine.valueOf(readStringValue(STORAGE_ENGINE)), readStringValue(STORAGE_DIRECTORY),
+                readIntegerValue(STORAGE_SEGMENT_SIZE_BYTES), readIntegerValue(STORAGE_INDEX_INITIAL_CAPACITY), readBooleanValue(STORAGE_SYNC),
+                readLongValue(STORAGE_COMPACTION_INTERVAL_MILLIS), readDoubleValue(STORAGE_COMPACTION_MIN_GARBAGE_RATIO)));
+        var readReplicas = spy(new UrlShortenerProperties.ReadReplicas(readBooleanValue(READ_REPLICAS_ENABLED),
+                UrlShortenerProperties.ReadReplicas.Selection.valueOf(readStringValue(READ_REPLICAS_SELECTION)), readIntegerValue(READ_REPLICAS_MAXIMUM_POOL_SIZE),
+                readLongValue(READ_REPLICAS_READ_YOUR_WRITES_MILLIS), readIntegerValue(READ_REPLICAS_READ_YOUR_WRITES_MAX_ENTRIES), List.copyOf(readReplicasDatasources)));
+        var sharding = spy(new UrlShortenerProperties.Sharding(readIntegerValue(SHARDING_PREFIX_LENGTH), readLongValue(SHARDING_ROUTING_REFRESH_MILLIS),
+                readIntegerValue(SHARDING_MOVE_BATCH_SIZE), readIntegerValue(SHARDING_MAXIMUM_POOL_SIZE), List.copyOf(shardingDatasources)));
+        var bulkImport = spy(new UrlShortenerProperties.BulkImport(readStringValue(BULK_IMPORT_DIRECTORY), readIntegerValue(BULK_IMPORT_BATCH_SIZE),
+                readIntegerValue(BULK_IMPORT_PARALLELISM), readLongValue(BULK_IMPORT_PROGRESS_INTERVAL_MILLIS)));
+        var bulkExport = spy(new UrlShortenerProperties.BulkExport(readStringValue(BULK_EXPORT_DIRECTORY), readIntegerValue(BULK_EXPORT_PAGE_SIZE),
+                readIntegerValue(BULK_EXPORT_BUFFER_SIZE), readLongValue(BULK_EXPORT_PROGRESS_INTERVAL_MILLIS)));
+        var coalescing = spy(new UrlShortenerProperties.Coalescing(readBooleanValue(COALESCING_ENABLED), readLongValue(COALESCING_TIMEOUT_MILLIS)));
+        var cacheSnapshot = spy(new UrlShortenerProperties.CacheSnapshot(readBooleanValue(CACHE_SNAPSHOT_ENABLED), readStringValue(CACHE_SNAPSHOT_FILE),
+                readIntegerValue(CACHE_SNAPSHOT_MAX_ENTRIES), readLongValue(CACHE_SNAPSHOT_INTERVAL_MILLIS)));
+        var expiration = spy(new UrlShortenerProperties.Expiration(readBooleanValue(EXPIRATION_ENABLED), readLongValue(EXPIRATION_TICK_MILLIS), readIntegerValue(EXPIRATION_WHEEL_SIZE),
+                readLongValue(EXPIRATION_PRELOAD_WINDOW_MILLIS), readIntegerValue(EXPIRATION_PAGE_SIZE), readIntegerValue(EXPIRATION_DELETE_BATCH_SIZE)));
+        var rateLimit = spy(new UrlShortenerProperties.RateLimit(readBooleanValue(RATE_LIMIT_ENABLED), readIntegerValue(RATE_LIMIT_CAPACITY), readDoubleValue(RATE_LIMIT_REFILL_PER_SECOND),
+                readStringValue(RATE_LIMIT_CLIENT_KEY_HEADER), List.copyOf(rateLimitApiKeys), List.copyOf(rateLimitTrustedGateways), readIntegerValue(RATE_LIMIT_MAX_CLIENTS),
+                readIntegerValue(RATE_LIMIT_STRIPES)));
+        return spy(new UrlShortenerProperties(baseUrl, token, cache, bloomFilter, backfill, sequence, batch, redirect, pinningMonitor, clicks, writeBehind, storage, readReplicas, sharding, bulkImport, bulkExport, coalescing, cacheSnapshot, expiration, rateLimit));
     }
 
 }